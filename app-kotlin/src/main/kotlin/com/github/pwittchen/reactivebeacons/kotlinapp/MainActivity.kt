@@ -54,7 +54,7 @@ class MainActivity : Activity() {
       subscription = (reactiveBeacons as ReactiveBeacons).observe()
           .subscribeOn(Schedulers.computation())
           .observeOn(AndroidSchedulers.mainThread())
-          .subscribe { beacon -> beacons.put(beacon.device.address, beacon); refreshBeacons() }
+          .subscribe { beacon -> beacons.put(beacon.macAddress.address, beacon); refreshBeacons() }
     }
   }
 
@@ -87,7 +87,7 @@ class MainActivity : Activity() {
 
   private fun refreshBeacons() {
     val list = beacons.values.map {
-      BEACON.format(it.device.address, it.rssi, it.distance, it.proximity, it.device.name)
+      BEACON.format(it.macAddress.address, it.rssi, it.distance, it.proximity, it.name)
     }
 
     lv_beacons.adapter = ArrayAdapter(this, android.R.layout.simple_list_item_1, list)
@@ -26,17 +26,18 @@ import android.widget.ListView;
 import android.widget.Toast;
 import com.github.pwittchen.reactivebeacons.R;
 import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.BeaconRegistry;
 import com.github.pwittchen.reactivebeacons.library.rx2.Proximity;
 import com.github.pwittchen.reactivebeacons.library.rx2.ReactiveBeacons;
+import com.github.pwittchen.reactivebeacons.library.rx2.RegistryEvent;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Consumer;
 import io.reactivex.schedulers.Schedulers;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static android.Manifest.permission.ACCESS_COARSE_LOCATION;
 import static android.Manifest.permission.ACCESS_FINE_LOCATION;
@@ -50,14 +51,14 @@ public class MainActivity extends Activity {
   private ReactiveBeacons reactiveBeacons;
   private Disposable subscription;
   private ListView lvBeacons;
-  private Map<String, Beacon> beacons;
+  private BeaconRegistry beacons;
 
   @Override protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     setContentView(R.layout.activity_main);
     lvBeacons = (ListView) findViewById(R.id.lv_beacons);
     reactiveBeacons = new ReactiveBeacons(this);
-    beacons = new HashMap<>();
+    beacons = new BeaconRegistry(10, TimeUnit.SECONDS);
   }
 
   @Override protected void onResume() {
@@ -79,12 +80,11 @@ public class MainActivity extends Activity {
       return;
     }
 
-    subscription = reactiveBeacons.observe()
+    subscription = beacons.track(reactiveBeacons.observe())
         .subscribeOn(Schedulers.computation())
         .observeOn(AndroidSchedulers.mainThread())
-        .subscribe(new Consumer<Beacon>() {
-          @Override public void accept(@NonNull Beacon beacon) throws Exception {
-            beacons.put(beacon.device.getAddress(), beacon);
+        .subscribe(new Consumer<RegistryEvent>() {
+          @Override public void accept(@NonNull RegistryEvent event) throws Exception {
             refreshBeaconList();
           }
         });
@@ -113,7 +113,7 @@ public class MainActivity extends Activity {
   private void refreshBeaconList() {
     List<String> list = new ArrayList<>();
 
-    for (Beacon beacon : beacons.values()) {
+    for (Beacon beacon : beacons.snapshot()) {
       list.add(getBeaconItemString(beacon));
     }
 
@@ -122,11 +122,11 @@ public class MainActivity extends Activity {
   }
 
   private String getBeaconItemString(Beacon beacon) {
-    String mac = beacon.device.getAddress();
+    String mac = beacon.macAddress.address;
     int rssi = beacon.rssi;
     double distance = beacon.getDistance();
     Proximity proximity = beacon.getProximity();
-    String name = beacon.device.getName();
+    String name = beacon.name;
     return String.format(ITEM_FORMAT, mac, rssi, distance, proximity, name);
   }
 
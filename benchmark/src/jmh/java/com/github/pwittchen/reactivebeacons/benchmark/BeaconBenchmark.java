@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.Proximity;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures creation of beacons, which happens for every scan callback,
+ * and computing their distance and proximity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BeaconBenchmark {
+  private static final int SIZE = 64; // has to be a power of two
+  private static final String ADDRESS = "00:27:0E:2A:B9:AA";
+
+  private final int[] rssi = new int[SIZE];
+  private MacAddress macAddress;
+  private Beacon beacon;
+  private int index;
+
+  @Setup public void setUp() {
+    for (int i = 0; i < SIZE; i++) {
+      rssi[i] = -40 - i;
+    }
+    macAddress = MacAddress.valueOf(ADDRESS);
+    beacon = Beacon.create(ADDRESS, "kontakt", -65, Sightings.IBEACON_RECORD, 0);
+  }
+
+  private int nextRssi() {
+    return rssi[index++ & (SIZE - 1)];
+  }
+
+  @Benchmark public Beacon createFromAddress() {
+    return Beacon.create(ADDRESS, "kontakt", nextRssi(), Sightings.IBEACON_RECORD, index);
+  }
+
+  @Benchmark public Beacon createFromMacAddress() {
+    return new Beacon(macAddress, "kontakt", nextRssi(), Sightings.IBEACON_RECORD, index);
+  }
+
+  @Benchmark public Beacon withRssi() {
+    return beacon.withRssi(nextRssi());
+  }
+
+  @Benchmark public double distance() {
+    return beacon.withRssi(nextRssi()).getDistance();
+  }
+
+  @Benchmark public Proximity proximity() {
+    return beacon.withRssi(nextRssi()).getProximity();
+  }
+
+  /**
+   * Baseline: distance computed with Math.pow for every sighting
+   */
+  @Benchmark public double distanceWithMathPow() {
+    return Math.pow(10d, (double) (beacon.txPower - nextRssi()) / (10 * 2));
+  }
+}
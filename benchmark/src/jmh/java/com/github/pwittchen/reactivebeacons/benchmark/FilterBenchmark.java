@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.BeaconFilter;
+import com.github.pwittchen.reactivebeacons.library.rx2.Filter;
+import com.github.pwittchen.reactivebeacons.library.rx2.Proximity;
+import io.reactivex.functions.Function;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures proximity and distance filters and a typical chain of them
+ * compared with the same criteria fused into {@link BeaconFilter}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FilterBenchmark {
+  private static final int SIZE = 1024; // has to be a power of two
+
+  private final Function<Beacon, Boolean> proximityIsEqualTo =
+      Filter.proximityIsEqualTo(Proximity.IMMEDIATE, Proximity.NEAR);
+  private final Function<Beacon, Boolean> proximityIsNotEqualTo =
+      Filter.proximityIsNotEqualTo(Proximity.FAR);
+  private final Function<Beacon, Boolean> distanceIsEqualTo = Filter.distanceIsEqualTo(1d);
+  private final Function<Beacon, Boolean> distanceIsGreaterThan = Filter.distanceIsGreaterThan(1d);
+  private final Function<Beacon, Boolean> distanceIsLowerThan = Filter.distanceIsLowerThan(10d);
+
+  private final BeaconFilter fused = new BeaconFilter.Builder()
+      .proximities(Proximity.IMMEDIATE, Proximity.NEAR)
+      .distanceGreaterThan(1d)
+      .distanceLowerThan(10d)
+      .build();
+
+  private Beacon[] beacons;
+  private int index;
+
+  @Setup public void setUp() {
+    beacons = Sightings.beacons(SIZE, SIZE / 4);
+  }
+
+  private Beacon next() {
+    return beacons[index++ & (SIZE - 1)];
+  }
+
+  @Benchmark public Boolean proximityIsEqualTo() throws Exception {
+    return proximityIsEqualTo.apply(next());
+  }
+
+  @Benchmark public Boolean proximityIsNotEqualTo() throws Exception {
+    return proximityIsNotEqualTo.apply(next());
+  }
+
+  @Benchmark public Boolean distanceIsEqualTo() throws Exception {
+    return distanceIsEqualTo.apply(next());
+  }
+
+  @Benchmark public Boolean distanceIsGreaterThan() throws Exception {
+    return distanceIsGreaterThan.apply(next());
+  }
+
+  @Benchmark public Boolean distanceIsLowerThan() throws Exception {
+    return distanceIsLowerThan.apply(next());
+  }
+
+  @Benchmark public boolean chain() throws Exception {
+    Beacon beacon = next();
+    return proximityIsNotEqualTo.apply(beacon)
+        && distanceIsGreaterThan.apply(beacon)
+        && distanceIsLowerThan.apply(beacon);
+  }
+
+  @Benchmark public boolean fused() throws Exception {
+    return fused.test(next());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.Filter;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import io.reactivex.functions.Function;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures name and MAC address filters for different number of filtered values.
+ * Half of the beacons match the filters and half of them don't.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FilterLookupBenchmark {
+  private static final int SIZE = 64; // has to be a power of two
+
+  @Param({ "10", "1000", "100000" }) int values;
+
+  private Function<Beacon, Boolean> hasName;
+  private Function<Beacon, Boolean> exceptName;
+  private Function<Beacon, Boolean> hasMacAddress;
+  private Function<Beacon, Boolean> exceptMacAddress;
+  private Function<Beacon, Boolean> hasMacAddressObject;
+  private Function<Beacon, Boolean> exceptMacAddressObject;
+  private Function<Beacon, Boolean> hasMacAddressIn;
+  private Function<Beacon, Boolean> exceptMacAddressIn;
+  private Function<Beacon, Boolean> hasNameIn;
+  private Function<Beacon, Boolean> exceptNameIn;
+  private Function<Beacon, Boolean> hasNameStartingWith;
+  private final Beacon[] beacons = new Beacon[SIZE];
+  private int index;
+
+  @Setup public void setUp() {
+    Random random = new Random(Sightings.SEED);
+    String[] macs = Sightings.macAddresses(values, random);
+    String[] names = Sightings.names(values);
+    MacAddress[] macAddresses = new MacAddress[values];
+    for (int i = 0; i < values; i++) {
+      macAddresses[i] = MacAddress.valueOf(macs[i]);
+    }
+    List<String> macList = Arrays.asList(macs);
+    List<String> nameList = Arrays.asList(names);
+
+    hasName = Filter.hasName(names);
+    exceptName = Filter.exceptName(names);
+    hasMacAddress = Filter.hasMacAddress(macs);
+    exceptMacAddress = Filter.exceptMacAddress(macs);
+    hasMacAddressObject = Filter.hasMacAddress(macAddresses);
+    exceptMacAddressObject = Filter.exceptMacAddress(macAddresses);
+    hasMacAddressIn = Filter.hasMacAddressIn(macList);
+    exceptMacAddressIn = Filter.exceptMacAddressIn(macList);
+    hasNameIn = Filter.hasNameIn(nameList);
+    exceptNameIn = Filter.exceptNameIn(nameList);
+    hasNameStartingWith = Filter.hasNameStartingWith(names);
+
+    String[] otherMacs = Sightings.macAddresses(SIZE, random);
+    for (int i = 0; i < SIZE; i++) {
+      boolean matching = i % 2 == 0;
+      String mac = matching ? macs[random.nextInt(values)] : otherMacs[i];
+      String name = matching ? names[random.nextInt(values)] : "other-" + i;
+      beacons[i] = Beacon.create(mac, name, -65, Sightings.IBEACON_RECORD, i);
+    }
+  }
+
+  private Beacon next() {
+    return beacons[index++ & (SIZE - 1)];
+  }
+
+  @Benchmark public Boolean hasName() throws Exception {
+    return hasName.apply(next());
+  }
+
+  @Benchmark public Boolean exceptName() throws Exception {
+    return exceptName.apply(next());
+  }
+
+  @Benchmark public Boolean hasMacAddress() throws Exception {
+    return hasMacAddress.apply(next());
+  }
+
+  @Benchmark public Boolean exceptMacAddress() throws Exception {
+    return exceptMacAddress.apply(next());
+  }
+
+  @Benchmark public Boolean hasMacAddressObject() throws Exception {
+    return hasMacAddressObject.apply(next());
+  }
+
+  @Benchmark public Boolean exceptMacAddressObject() throws Exception {
+    return exceptMacAddressObject.apply(next());
+  }
+
+  @Benchmark public Boolean hasMacAddressIn() throws Exception {
+    return hasMacAddressIn.apply(next());
+  }
+
+  @Benchmark public Boolean exceptMacAddressIn() throws Exception {
+    return exceptMacAddressIn.apply(next());
+  }
+
+  @Benchmark public Boolean hasNameIn() throws Exception {
+    return hasNameIn.apply(next());
+  }
+
+  @Benchmark public Boolean exceptNameIn() throws Exception {
+    return exceptNameIn.apply(next());
+  }
+
+  @Benchmark public Boolean hasNameStartingWith() throws Exception {
+    return hasNameStartingWith.apply(next());
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.positioning.Neighbors;
+import com.github.pwittchen.reactivebeacons.library.rx2.positioning.RadioMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures latency of matching a RSSI vector against radio map of 20 000 reference points
+ * surveyed every meter of 200 x 100 m building with 200 beacons. Signals weaker than
+ * -100 dBm are missing in the radio map. Ball tree index is compared with exhaustive search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FingerprintingBenchmark {
+  private static final int WIDTH = 200;
+  private static final int HEIGHT = 100;
+  private static final int BEACONS = 200;
+  private static final int QUERIES = 1024;
+  private static final int NEIGHBORS = 4;
+  private static final int TX_POWER = -59;
+  private static final double PATH_LOSS_EXPONENT = 2.5;
+
+  private RadioMap radioMap;
+  private float[] vectors;
+  private float[][] queries;
+  private Neighbors neighbors;
+  private int query;
+
+  @Setup public void setUp() {
+    Random random = new Random(42);
+    double[] beaconXs = new double[BEACONS];
+    double[] beaconYs = new double[BEACONS];
+    List<String> macs = new ArrayList<>();
+    for (int i = 0; i < BEACONS; i++) {
+      beaconXs[i] = random.nextDouble() * WIDTH;
+      beaconYs[i] = random.nextDouble() * HEIGHT;
+      macs.add(MacAddress.valueOf(i + 1).address);
+    }
+
+    RadioMap.Builder builder = new RadioMap.Builder(macs);
+    vectors = new float[WIDTH * HEIGHT * BEACONS];
+    int point = 0;
+    for (int x = 0; x < WIDTH; x++) {
+      for (int y = 0; y < HEIGHT; y++) {
+        float[] rssi = rssi(beaconXs, beaconYs, x, y, 0, random);
+        System.arraycopy(rssi, 0, vectors, point * BEACONS, BEACONS);
+        builder.referencePoint(x, y, rssi);
+        point++;
+      }
+    }
+    radioMap = builder.build();
+
+    queries = new float[QUERIES][];
+    for (int i = 0; i < QUERIES; i++) {
+      double x = random.nextDouble() * (WIDTH - 1);
+      double y = random.nextDouble() * (HEIGHT - 1);
+      queries[i] = rssi(beaconXs, beaconYs, x, y, 3, random);
+    }
+    neighbors = new Neighbors(NEIGHBORS);
+  }
+
+  private static float[] rssi(double[] beaconXs, double[] beaconYs, double x, double y,
+      double noise, Random random) {
+    float[] rssi = new float[BEACONS];
+    for (int i = 0; i < BEACONS; i++) {
+      double range = Math.max(Math.hypot(beaconXs[i] - x, beaconYs[i] - y), 0.1);
+      double value = TX_POWER - 10 * PATH_LOSS_EXPONENT * Math.log10(range)
+          + random.nextGaussian() * noise;
+      rssi[i] = value < RadioMap.MISSING_RSSI ? RadioMap.MISSING_RSSI : (float) value;
+    }
+    return rssi;
+  }
+
+  @Benchmark public Neighbors ballTree() {
+    radioMap.nearest(nextQuery(), neighbors);
+    return neighbors;
+  }
+
+  @Benchmark public int exhaustive() {
+    float[] rssi = nextQuery();
+    int nearest = -1;
+    float nearestDistance = Float.MAX_VALUE;
+    for (int point = 0, offset = 0; point < radioMap.size(); point++, offset += BEACONS) {
+      float distance = 0;
+      for (int i = 0; i < BEACONS; i++) {
+        float difference = vectors[offset + i] - rssi[i];
+        distance += difference * difference;
+      }
+      if (distance < nearestDistance) {
+        nearestDistance = distance;
+        nearest = point;
+      }
+    }
+    return nearest;
+  }
+
+  private float[] nextQuery() {
+    query = (query + 1) & (QUERIES - 1);
+    return queries[query];
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures parsing of MAC addresses. Few addresses and a thousand of addresses (a crowded venue)
+ * hit the cache of MacAddress instances, while many addresses (more than the cache holds)
+ * mostly miss it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MacAddressBenchmark {
+  private static final int FEW = 16; // has to be a power of two
+  private static final int THOUSAND = 1024; // has to be a power of two
+  private static final int MANY = 16384; // has to be a power of two
+
+  private String[] few;
+  private String[] thousand;
+  private String[] many;
+  private String[] lowerCase;
+  private int index;
+
+  @Setup public void setUp() {
+    Random random = new Random(Sightings.SEED);
+    few = Sightings.macAddresses(FEW, random);
+    thousand = Sightings.macAddresses(THOUSAND, random);
+    many = Sightings.macAddresses(MANY, random);
+    lowerCase = new String[FEW];
+    for (int i = 0; i < FEW; i++) {
+      lowerCase[i] = few[i].toLowerCase().replace(':', '-');
+    }
+  }
+
+  @Benchmark public MacAddress valueOfCached() {
+    return MacAddress.valueOf(few[index++ & (FEW - 1)]);
+  }
+
+  @Benchmark public MacAddress valueOfThousandDevices() {
+    return MacAddress.valueOf(thousand[index++ & (THOUSAND - 1)]);
+  }
+
+  @Benchmark public MacAddress valueOfUncached() {
+    return MacAddress.valueOf(many[index++ & (MANY - 1)]);
+  }
+
+  @Benchmark public MacAddress valueOfUnformatted() {
+    return MacAddress.valueOf(lowerCase[index++ & (FEW - 1)]);
+  }
+
+  @Benchmark public MacAddress newInstance() {
+    return new MacAddress(few[index++ & (FEW - 1)]);
+  }
+
+  @Benchmark public long toLong() {
+    return MacAddress.toLong(many[index++ & (MANY - 1)]);
+  }
+
+  @Benchmark public boolean isValid() {
+    return MacAddress.isValid(many[index++ & (MANY - 1)]);
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.LatencyHistogram;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures overhead of scan pipeline instrumentation per beacon.
+ * Contended variants show the cost, when callbacks and subscribers run on different threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MetricsBenchmark {
+  private final LatencyHistogram histogram = new LatencyHistogram();
+  private final ScanInstrumentation instrumentation = new ScanInstrumentation();
+  private Beacon beacon;
+
+  @Setup public void setUp() {
+    beacon = Sightings.beacons(1, 1)[0];
+  }
+
+  @Benchmark public void recordLatency() {
+    histogram.record(System.nanoTime() - beacon.timestampNanos);
+  }
+
+  @Benchmark public void callbackAndDelivery() {
+    instrumentation.onCallback(beacon);
+    instrumentation.onDelivered(beacon);
+  }
+
+  @Benchmark @Threads(4) public void callbackAndDeliveryContended() {
+    instrumentation.onCallback(beacon);
+    instrumentation.onDelivered(beacon);
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.BeaconFilter;
+import com.github.pwittchen.reactivebeacons.library.rx2.DeviceThrottle;
+import com.github.pwittchen.reactivebeacons.library.rx2.Filter;
+import com.github.pwittchen.reactivebeacons.library.rx2.OverflowPolicy;
+import com.github.pwittchen.reactivebeacons.library.rx2.Proximity;
+import com.github.pwittchen.reactivebeacons.library.rx2.RssiSmoothing;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import io.reactivex.subscribers.DefaultSubscriber;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures end-to-end throughput of the beacon stream fed by synthetic scan strategy.
+ * Score is a number of scanned beacons (not emitted ones) per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(PipelineBenchmark.SIGHTINGS)
+public class PipelineBenchmark {
+  static final int SIGHTINGS = 10000;
+
+  @Param({ "16", "1024" }) int devices;
+
+  private final Predicate<Beacon> isNear = predicate(
+      Filter.proximityIsEqualTo(Proximity.IMMEDIATE, Proximity.NEAR));
+  private final Predicate<Beacon> isFartherThanMeter = predicate(Filter.distanceIsGreaterThan(1));
+  private final Predicate<Beacon> isCloserThanTenMeters =
+      predicate(Filter.distanceIsLowerThan(10));
+  private final BeaconFilter fused = new BeaconFilter.Builder()
+      .proximities(Proximity.IMMEDIATE, Proximity.NEAR)
+      .distanceGreaterThan(1)
+      .distanceLowerThan(10)
+      .build();
+  private ScanStrategy scanStrategy;
+
+  @Setup public void setUp() {
+    scanStrategy = new SyntheticScanStrategy(Sightings.beacons(SIGHTINGS, devices));
+  }
+
+  @Benchmark public void observe(Blackhole blackhole) {
+    scanStrategy.observe()
+        .subscribe(new BlackholeObserver(blackhole));
+  }
+
+  @Benchmark public void distinctAndFilter(Blackhole blackhole) {
+    scanStrategy.observe()
+        .compose(DeviceThrottle.distinct())
+        .filter(isNear)
+        .subscribe(new BlackholeObserver(blackhole));
+  }
+
+  @Benchmark public void chainedFilters(Blackhole blackhole) {
+    scanStrategy.observe()
+        .filter(isNear)
+        .filter(isFartherThanMeter)
+        .filter(isCloserThanTenMeters)
+        .subscribe(new BlackholeObserver(blackhole));
+  }
+
+  @Benchmark public void fusedFilter(Blackhole blackhole) {
+    scanStrategy.observe()
+        .filter(fused)
+        .subscribe(new BlackholeObserver(blackhole));
+  }
+
+  @Benchmark public void smoothAndThrottle(Blackhole blackhole) {
+    scanStrategy.observe()
+        .compose(RssiSmoothing.exponentialMovingAverage(0.3))
+        .compose(DeviceThrottle.onRssiChange(3))
+        .filter(isNear)
+        .subscribe(new BlackholeObserver(blackhole));
+  }
+
+  @Benchmark public void overflowPolicy(final Blackhole blackhole) {
+    OverflowPolicy.latestPerMacAddress(devices).toFlowable(scanStrategy.observe())
+        .subscribe(new DefaultSubscriber<Beacon>() {
+          @Override public void onNext(Beacon beacon) {
+            blackhole.consume(beacon);
+          }
+
+          @Override public void onError(Throwable throwable) {
+            blackhole.consume(throwable);
+          }
+
+          @Override public void onComplete() {
+          }
+        });
+  }
+
+  private static Predicate<Beacon> predicate(final Function<Beacon, Boolean> filter) {
+    return new Predicate<Beacon>() {
+      @Override public boolean test(Beacon beacon) throws Exception {
+        return filter.apply(beacon);
+      }
+    };
+  }
+
+  private static final class BlackholeObserver implements Observer<Beacon> {
+    private final Blackhole blackhole;
+
+    BlackholeObserver(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override public void onSubscribe(Disposable disposable) {
+    }
+
+    @Override public void onNext(Beacon beacon) {
+      blackhole.consume(beacon);
+    }
+
+    @Override public void onError(Throwable throwable) {
+      blackhole.consume(throwable);
+    }
+
+    @Override public void onComplete() {
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.positioning.Position;
+import com.github.pwittchen.reactivebeacons.library.rx2.positioning.Trilateration;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import io.reactivex.functions.Consumer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures throughput of position updates with 50 anchors in range of a walking device.
+ * Score is a number of processed sightings per second and every sighting emits a position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(PositioningBenchmark.SIGHTINGS)
+public class PositioningBenchmark {
+  static final int SIGHTINGS = 10000;
+  private static final int COLUMNS = 10;
+  private static final int ROWS = 5;
+  private static final double SPACING = 4;
+  private static final int TX_POWER = -59;
+
+  private Trilateration trilateration;
+  private ScanStrategy scanStrategy;
+
+  @Setup public void setUp() {
+    Trilateration.Builder builder = new Trilateration.Builder();
+    double[] xs = new double[COLUMNS * ROWS];
+    double[] ys = new double[COLUMNS * ROWS];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i % COLUMNS * SPACING;
+      ys[i] = i / COLUMNS * SPACING;
+      builder.anchor(MacAddress.valueOf(i + 1).address, xs[i], ys[i]);
+    }
+    trilateration = builder.build();
+
+    Random random = new Random(42);
+    Beacon[] beacons = new Beacon[SIGHTINGS];
+    for (int i = 0; i < SIGHTINGS; i++) {
+      int anchor = i % xs.length;
+      double x = 2 + i * 0.003;
+      double y = 2 + i * 0.001;
+      double range = Math.hypot(xs[anchor] - x, ys[anchor] - y);
+      int rssi = (int) Math.round(TX_POWER - 20 * Math.log10(range) + random.nextGaussian() * 2);
+      beacons[i] = Beacon.create(MacAddress.valueOf(anchor + 1).address, null, rssi, null,
+          TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    scanStrategy = new SyntheticScanStrategy(beacons);
+  }
+
+  @Benchmark public void trilateration(final Blackhole blackhole) {
+    scanStrategy.observe()
+        .compose(trilateration)
+        .subscribe(new Consumer<Position>() {
+          @Override public void accept(Position position) {
+            blackhole.consume(position);
+          }
+        });
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.IBeacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.region.Region;
+import com.github.pwittchen.reactivebeacons.library.rx2.region.RegionEvent;
+import com.github.pwittchen.reactivebeacons.library.rx2.region.RegionMonitor;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures monitoring of iBeacon regions of 10 venues, each with a region per venue,
+ * per floor and per room. Hash index of {@link RegionMonitor} is compared with checking
+ * every region for every sighting.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(RegionBenchmark.SIGHTINGS)
+public class RegionBenchmark {
+  static final int SIGHTINGS = 10000;
+  private static final int VENUES = 10;
+  private static final int FLOORS = 10;
+
+  @Param({ "100", "1000" })
+  public int roomsPerFloor;
+
+  private List<Region> regions;
+  private RegionMonitor monitor;
+  private ScanStrategy scanStrategy;
+
+  @Setup public void setUp() {
+    Random random = new Random(Sightings.SEED);
+    UUID[] venues = new UUID[VENUES];
+    regions = new ArrayList<>();
+    for (int venue = 0; venue < VENUES; venue++) {
+      venues[venue] = new UUID(random.nextLong(), random.nextLong());
+      regions.add(Region.of("venue " + venue, venues[venue]));
+      for (int floor = 0; floor < FLOORS; floor++) {
+        regions.add(Region.of("floor " + venue + "/" + floor, venues[venue], floor));
+        for (int room = 0; room < roomsPerFloor; room++) {
+          regions.add(Region.of("room " + venue + "/" + floor + "/" + room, venues[venue],
+              floor, room));
+        }
+      }
+    }
+    monitor = new RegionMonitor.Builder().regions(regions).build();
+
+    Beacon[] beacons = new Beacon[SIGHTINGS];
+    for (int i = 0; i < SIGHTINGS; i++) {
+      UUID uuid = venues[random.nextInt(VENUES)];
+      byte[] scanRecord = Sightings.IBEACON_RECORD.clone();
+      for (int b = 0; b < 8; b++) {
+        scanRecord[9 + b] = (byte) (uuid.getMostSignificantBits() >>> (56 - 8 * b));
+        scanRecord[17 + b] = (byte) (uuid.getLeastSignificantBits() >>> (56 - 8 * b));
+      }
+      int floor = random.nextInt(FLOORS);
+      int room = random.nextInt(roomsPerFloor);
+      scanRecord[26] = (byte) floor;
+      scanRecord[27] = (byte) (room >> 8);
+      scanRecord[28] = (byte) room;
+      beacons[i] = new Beacon(MacAddress.valueOf(i % 500 + 1), null, -60, scanRecord, i);
+    }
+    scanStrategy = new SyntheticScanStrategy(beacons);
+  }
+
+  @Benchmark public void hashIndex(final Blackhole blackhole) {
+    scanStrategy.observe()
+        .compose(monitor)
+        .subscribe(new Consumer<RegionEvent>() {
+          @Override public void accept(RegionEvent event) {
+            blackhole.consume(event);
+          }
+        });
+  }
+
+  @Benchmark public void linearScan(final Blackhole blackhole) {
+    final IBeacon iBeacon = new IBeacon();
+    scanStrategy.observe()
+        .filter(new Predicate<Beacon>() {
+          @Override public boolean test(Beacon beacon) {
+            if (!iBeacon.wrap(beacon.scanRecord)) {
+              return false;
+            }
+            long mostSignificantBits = iBeacon.uuidMostSignificantBits();
+            long leastSignificantBits = iBeacon.uuidLeastSignificantBits();
+            int major = iBeacon.major();
+            int minor = iBeacon.minor();
+            int matches = 0;
+            for (int i = 0; i < regions.size(); i++) {
+              Region region = regions.get(i);
+              if (region.uuid.getMostSignificantBits() == mostSignificantBits
+                  && region.uuid.getLeastSignificantBits() == leastSignificantBits
+                  && (region.major == Region.ANY || region.major == major)
+                  && (region.minor == Region.ANY || region.minor == minor)) {
+                matches++;
+              }
+            }
+            return matches > 0;
+          }
+        })
+        .subscribe(new Consumer<Beacon>() {
+          @Override public void accept(Beacon beacon) {
+            blackhole.consume(beacon);
+          }
+        });
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.FilterSet;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.AltBeacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.Eddystone;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.IBeacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.ManufacturerData;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.ScanRecordParser;
+import io.reactivex.functions.Predicate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures parsing of scan records. Parsers are reused, so parsing shouldn't allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScanRecordBenchmark {
+  private static final UUID EDDYSTONE_SERVICE =
+      UUID.fromString("0000feaa-0000-1000-8000-00805f9b34fb");
+
+  private final ScanRecordParser parser = new ScanRecordParser();
+  private final ManufacturerData manufacturerData = new ManufacturerData();
+  private final IBeacon iBeacon = new IBeacon();
+  private final AltBeacon altBeacon = new AltBeacon();
+  private final Eddystone eddystone = new Eddystone();
+  private Predicate<Beacon> filterSet;
+  private Beacon beacon;
+
+  @Setup public void setUp() {
+    filterSet = new FilterSet.Builder()
+        .manufacturerIds(0x0059)
+        .serviceUuids(EDDYSTONE_SERVICE)
+        .build()
+        .toPredicate();
+    beacon = Beacon.create("00:27:0E:2A:B9:AA", null, -65, Sightings.EDDYSTONE_TLM_RECORD, 0);
+  }
+
+  @Benchmark public int adStructures() {
+    int types = 0;
+    parser.wrap(Sightings.IBEACON_RECORD);
+    while (parser.next()) {
+      types += parser.type();
+    }
+    return types;
+  }
+
+  @Benchmark public int manufacturerData() {
+    manufacturerData.wrap(Sightings.IBEACON_RECORD);
+    return manufacturerData.companyId() + manufacturerData.length();
+  }
+
+  @Benchmark public long iBeacon() {
+    iBeacon.wrap(Sightings.IBEACON_RECORD);
+    return iBeacon.uuidMostSignificantBits() + iBeacon.uuidLeastSignificantBits()
+        + iBeacon.major() + iBeacon.minor() + iBeacon.measuredPower();
+  }
+
+  @Benchmark public UUID iBeaconUuid() {
+    iBeacon.wrap(Sightings.IBEACON_RECORD);
+    return iBeacon.uuid();
+  }
+
+  @Benchmark public long altBeacon() {
+    altBeacon.wrap(Sightings.ALTBEACON_RECORD);
+    return altBeacon.id1MostSignificantBits() + altBeacon.id1LeastSignificantBits()
+        + altBeacon.id2() + altBeacon.id3() + altBeacon.referenceRssi();
+  }
+
+  @Benchmark public long eddystoneUid() {
+    eddystone.wrap(Sightings.EDDYSTONE_UID_RECORD);
+    return eddystone.namespaceHigh() + eddystone.namespaceLow() + eddystone.instance();
+  }
+
+  @Benchmark public long eddystoneTlm() {
+    eddystone.wrap(Sightings.EDDYSTONE_TLM_RECORD);
+    return eddystone.batteryVoltage() + eddystone.temperatureRaw()
+        + eddystone.advertisementCount() + eddystone.uptime();
+  }
+
+  @Benchmark public boolean filterSet() throws Exception {
+    return filterSet.test(beacon);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import java.util.Random;
+
+/**
+ * Synthetic scan data shared by benchmarks. Generated with fixed seed,
+ * so results of different runs are comparable.
+ */
+final class Sightings {
+  static final long SEED = 42L;
+
+  // flags + iBeacon manufacturer data (Apple, company id 0x004C)
+  static final byte[] IBEACON_RECORD = bytes(
+      0x02, 0x01, 0x06,
+      0x1A, 0xFF, 0x4C, 0x00, 0x02, 0x15,
+      0xF7, 0x82, 0x6D, 0xA6, 0x4F, 0xA2, 0x4E, 0x98, 0x80, 0x24, 0xBC, 0x5B, 0x71, 0xE0, 0x89, 0x3E,
+      0x00, 0x01, 0x00, 0x02, 0xC5,
+      0x00, 0x00);
+
+  // flags + service UUID 0xFEAA + Eddystone UID frame
+  static final byte[] EDDYSTONE_UID_RECORD = bytes(
+      0x02, 0x01, 0x06,
+      0x03, 0x03, 0xAA, 0xFE,
+      0x17, 0x16, 0xAA, 0xFE, 0x00, 0xEE,
+      0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A,
+      0x0B, 0x0C, 0x0D, 0x0E, 0x0F, 0x10, 0x00, 0x00);
+
+  // flags + service UUID 0xFEAA + Eddystone TLM frame
+  static final byte[] EDDYSTONE_TLM_RECORD = bytes(
+      0x02, 0x01, 0x06,
+      0x03, 0x03, 0xAA, 0xFE,
+      0x11, 0x16, 0xAA, 0xFE, 0x20, 0x00,
+      0x0B, 0xB8, 0x19, 0x80, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00, 0x27, 0x10);
+
+  // flags + AltBeacon manufacturer data (Radius Networks, company id 0x0118)
+  static final byte[] ALTBEACON_RECORD = bytes(
+      0x02, 0x01, 0x06,
+      0x1B, 0xFF, 0x18, 0x01, 0xBE, 0xAC,
+      0xF7, 0x82, 0x6D, 0xA6, 0x4F, 0xA2, 0x4E, 0x98, 0x80, 0x24, 0xBC, 0x5B, 0x71, 0xE0, 0x89, 0x3E,
+      0x00, 0x01, 0x00, 0x02, 0xC5, 0x00);
+
+  private Sightings() {
+  }
+
+  static String[] macAddresses(int count, Random random) {
+    String[] addresses = new String[count];
+    for (int i = 0; i < count; i++) {
+      addresses[i] = MacAddress.valueOf(random.nextLong() & 0xFFFFFFFFFFFFL).address;
+    }
+    return addresses;
+  }
+
+  static String[] names(int count) {
+    String[] names = new String[count];
+    for (int i = 0; i < count; i++) {
+      names[i] = "asset-" + i;
+    }
+    return names;
+  }
+
+  /**
+   * Creates sightings of provided number of devices. RSSI of every device jitters
+   * around its own mean value, like in the real scan.
+   *
+   * @param count number of sightings
+   * @param devices number of distinct devices
+   * @return sightings in the order of the scan
+   */
+  static Beacon[] beacons(int count, int devices) {
+    Random random = new Random(SEED);
+    String[] addresses = macAddresses(devices, random);
+    String[] names = names(devices);
+    int[] meanRssi = new int[devices];
+    for (int i = 0; i < devices; i++) {
+      meanRssi[i] = -45 - random.nextInt(50);
+    }
+
+    Beacon[] beacons = new Beacon[count];
+    for (int i = 0; i < count; i++) {
+      int device = random.nextInt(devices);
+      int rssi = meanRssi[device] + random.nextInt(9) - 4;
+      beacons[i] = Beacon.create(addresses[device], names[device], rssi, IBEACON_RECORD, i);
+    }
+    return beacons;
+  }
+
+  static byte[] bytes(int... values) {
+    byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.BeaconStatistics;
+import com.github.pwittchen.reactivebeacons.library.rx2.BeaconStats;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares per-device RSSI statistics computed by {@link BeaconStatistics} with lists
+ * of recent RSSI sorted on every sighting. Both keep 64 newest sightings of 100 devices.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(StatisticsBenchmark.SIGHTINGS)
+public class StatisticsBenchmark {
+  static final int SIGHTINGS = 10000;
+  private static final int DEVICES = 100;
+  private static final int CAPACITY = 64;
+
+  private ScanStrategy scanStrategy;
+  private BeaconStatistics statistics;
+
+  @Setup public void setUp() {
+    scanStrategy = new SyntheticScanStrategy(Sightings.beacons(SIGHTINGS, DEVICES));
+    statistics = BeaconStatistics.window(1, TimeUnit.MINUTES).withCapacity(CAPACITY);
+  }
+
+  @Benchmark public void slidingWindows(final Blackhole blackhole) {
+    scanStrategy.observe()
+        .compose(statistics)
+        .subscribe(new Consumer<BeaconStats>() {
+          @Override public void accept(BeaconStats stats) {
+            blackhole.consume(stats);
+          }
+        });
+  }
+
+  @Benchmark public void sortedLists(final Blackhole blackhole) {
+    final Map<MacAddress, List<Integer>> sightings = new HashMap<>();
+    scanStrategy.observe()
+        .map(new Function<Beacon, double[]>() {
+          @Override public double[] apply(Beacon beacon) {
+            List<Integer> rssi = sightings.get(beacon.macAddress);
+            if (rssi == null) {
+              rssi = new ArrayList<>();
+              sightings.put(beacon.macAddress, rssi);
+            }
+            rssi.add(beacon.rssi);
+            if (rssi.size() > CAPACITY) {
+              rssi.remove(0);
+            }
+            List<Integer> sorted = new ArrayList<>(rssi);
+            Collections.sort(sorted);
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (int value : sorted) {
+              sum += value;
+              sumOfSquares += value * value;
+            }
+            int size = sorted.size();
+            double mean = sum / size;
+            double median = (sorted.get((size - 1) / 2) + sorted.get(size / 2)) / 2.0;
+            double standardDeviation = Math.sqrt(sumOfSquares / size - mean * mean);
+            return new double[] {
+                size, mean, median, standardDeviation, sorted.get(0), sorted.get(size - 1)
+            };
+          }
+        })
+        .subscribe(new Consumer<double[]>() {
+          @Override public void accept(double[] stats) {
+            blackhole.consume(stats);
+          }
+        });
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import io.reactivex.Observable;
+
+/**
+ * Scan strategy emitting prepared sightings synchronously, without Bluetooth stack,
+ * so benchmarks measure only the library and RxJava overhead.
+ */
+final class SyntheticScanStrategy implements ScanStrategy {
+  private final Beacon[] beacons;
+
+  SyntheticScanStrategy(Beacon[] beacons) {
+    this.beacons = beacons;
+  }
+
+  @Override public Observable<Beacon> observe() {
+    return Observable.fromArray(beacons);
+  }
+}
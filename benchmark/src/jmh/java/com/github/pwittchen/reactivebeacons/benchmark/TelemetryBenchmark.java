@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.EddystoneTelemetry;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.TelemetryFrame;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.Eddystone;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Predicate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures decoding of telemetry from 100 Eddystone beacons, which interleave UID and TLM
+ * frames and advertise every TLM frame 10 times. Decoder is compared with copying every
+ * TLM frame out of the scan record and comparing it with the previous copy of the device.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(TelemetryBenchmark.SIGHTINGS)
+public class TelemetryBenchmark {
+  static final int SIGHTINGS = 10000;
+  private static final int DEVICES = 100;
+  private static final int REPEATS = 10;
+  private static final int UPTIME_OFFSET = 21;
+
+  private ScanStrategy scanStrategy;
+
+  @Setup public void setUp() {
+    Random random = new Random(Sightings.SEED);
+    int[] frames = new int[DEVICES];
+    Beacon[] beacons = new Beacon[SIGHTINGS];
+    for (int i = 0; i < SIGHTINGS; i++) {
+      int device = random.nextInt(DEVICES);
+      byte[] scanRecord = Sightings.EDDYSTONE_UID_RECORD;
+      if (i % 2 == 1) {
+        int uptime = frames[device]++ / REPEATS;
+        scanRecord = Sightings.EDDYSTONE_TLM_RECORD.clone();
+        scanRecord[UPTIME_OFFSET] = (byte) (uptime >> 24);
+        scanRecord[UPTIME_OFFSET + 1] = (byte) (uptime >> 16);
+        scanRecord[UPTIME_OFFSET + 2] = (byte) (uptime >> 8);
+        scanRecord[UPTIME_OFFSET + 3] = (byte) uptime;
+      }
+      beacons[i] = new Beacon(MacAddress.valueOf(device + 1), null, -60, scanRecord, i);
+    }
+    scanStrategy = new SyntheticScanStrategy(beacons);
+  }
+
+  @Benchmark public void decoder(final Blackhole blackhole) {
+    scanStrategy.observe()
+        .compose(EddystoneTelemetry.distinct())
+        .subscribe(new Consumer<TelemetryFrame>() {
+          @Override public void accept(TelemetryFrame frame) {
+            blackhole.consume(frame);
+          }
+        });
+  }
+
+  @Benchmark public void slicedFrames(final Blackhole blackhole) {
+    final Eddystone eddystone = new Eddystone();
+    final Map<MacAddress, byte[]> previous = new HashMap<>();
+    scanStrategy.observe()
+        .filter(new Predicate<Beacon>() {
+          @Override public boolean test(Beacon beacon) {
+            if (!eddystone.wrap(beacon.scanRecord) || !eddystone.isTlm()) {
+              return false;
+            }
+            int offset = eddystone.frameOffset();
+            byte[] frame = Arrays.copyOfRange(eddystone.buffer(), offset,
+                offset + eddystone.frameLength());
+            return !Arrays.equals(frame, previous.put(beacon.macAddress, frame));
+          }
+        })
+        .subscribe(new Consumer<Beacon>() {
+          @Override public void accept(Beacon beacon) {
+            blackhole.consume(beacon);
+          }
+        });
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.benchmark;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay.BinaryTrace;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay.TextTrace;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay.TraceReader;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay.TraceRecorder;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures recording of beacons into binary trace and reading them back.
+ * Text formatting is measured for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TraceBenchmark {
+  private static final int SIZE = 1024; // has to be a power of two
+  private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final String PREFIX = "benchmark";
+
+  private File directory;
+  private TraceRecorder recorder;
+  private BinaryTrace trace;
+  private Beacon[] beacons;
+  private int index;
+
+  @Setup public void setUp() throws IOException {
+    directory = File.createTempFile("trace", "");
+    if (!directory.delete() || !directory.mkdir()) {
+      throw new IOException("cannot create " + directory);
+    }
+    beacons = Sightings.beacons(SIZE, SIZE / 4);
+
+    // only 2 segments are kept, so long runs don't fill the disk
+    recorder = new TraceRecorder(directory, PREFIX, SEGMENT_SIZE, 2);
+    TraceRecorder readable = new TraceRecorder(directory, PREFIX + "-read");
+    for (Beacon beacon : beacons) {
+      readable.append(beacon);
+    }
+    readable.close();
+    trace = new BinaryTrace(directory, PREFIX + "-read");
+  }
+
+  @TearDown public void tearDown() throws IOException {
+    recorder.close();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Benchmark public void append() throws IOException {
+    recorder.append(beacons[index++ & (SIZE - 1)]);
+  }
+
+  @Benchmark public String formatText() {
+    return TextTrace.format(beacons[index++ & (SIZE - 1)]);
+  }
+
+  @Benchmark @OperationsPerInvocation(SIZE) public void read(Blackhole blackhole)
+      throws IOException {
+    TraceReader reader = trace.open();
+    Beacon beacon;
+    while ((beacon = reader.read()) != null) {
+      blackhole.consume(beacon);
+    }
+    reader.close();
+  }
+}
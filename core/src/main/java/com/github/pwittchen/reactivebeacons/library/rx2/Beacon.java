@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import java.util.Arrays;
+
+/**
+ * Single sighting of a BLE beacon. It doesn't depend on Android types,
+ * so the same model can be created from any BLE stack (e.g. BlueZ on Linux gateways).
+ */
+public class Beacon {
+  public static final int DEFAULT_TX_POWER = -59; // default value for Estimote and Kontakt.io
+
+  public final MacAddress macAddress;
+  public final String name; // may be null, when device doesn't advertise its name
+  public final int rssi; // Received Signal Strength Indication
+  public final int txPower; // The Transmit Power Level characteristics in dBm
+  public final byte[] scanRecord;
+  public final long timestampNanos; // monotonic time of the sighting
+  private final double distance;
+  private final Proximity proximity;
+
+  public Beacon(MacAddress macAddress, String name, int rssi, byte[] scanRecord,
+      long timestampNanos) {
+    this(macAddress, name, rssi, DEFAULT_TX_POWER, scanRecord, timestampNanos);
+  }
+
+  public Beacon(MacAddress macAddress, String name, int rssi, int txPower, byte[] scanRecord,
+      long timestampNanos) {
+    if (macAddress == null) {
+      throw new IllegalArgumentException("macAddress == null");
+    }
+    this.macAddress = macAddress;
+    this.name = name;
+    this.rssi = rssi;
+    this.txPower = txPower;
+    this.scanRecord = scanRecord;
+    this.timestampNanos = timestampNanos;
+    this.distance = DistanceTable.distance(txPower, rssi);
+    this.proximity = DistanceTable.proximity(txPower, rssi);
+  }
+
+  /**
+   * Creates beacon with default transmit power
+   *
+   * @param macAddress MAC address in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+   * @param name name of the device or null
+   * @param rssi Received Signal Strength Indication
+   * @param scanRecord advertisement data
+   * @param timestampNanos monotonic time of the sighting in nanoseconds
+   * @return beacon
+   * @throws IllegalArgumentException when MAC address is invalid
+   */
+  public static Beacon create(String macAddress, String name, int rssi, byte[] scanRecord,
+      long timestampNanos) {
+    return new Beacon(MacAddress.valueOf(macAddress), name, rssi, scanRecord, timestampNanos);
+  }
+
+  /**
+   * Creates copy of this beacon with different RSSI (e.g. smoothed one)
+   *
+   * @param rssi Received Signal Strength Indication
+   * @return beacon with provided RSSI and recomputed distance and proximity
+   */
+  public Beacon withRssi(int rssi) {
+    if (rssi == this.rssi) {
+      return this;
+    }
+    return new Beacon(macAddress, name, rssi, txPower, scanRecord, timestampNanos);
+  }
+
+  /**
+   * Gets distance from BLE beacon to mobile device in meters.
+   * Distance is computed once, when beacon is created.
+   *
+   * @return distance in meters as double
+   */
+  public double getDistance() {
+    return distance;
+  }
+
+  public Proximity getProximity() {
+    return proximity;
+  }
+
+  @Override public String toString() {
+    return "Beacon{macAddress=" + macAddress + ", name=" + name + ", rssi=" + rssi + '}';
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    Beacon beacon = (Beacon) o;
+
+    if (rssi != beacon.rssi) {
+      return false;
+    }
+
+    if (!macAddress.equals(beacon.macAddress)) {
+      return false;
+    }
+
+    return Arrays.equals(scanRecord, beacon.scanRecord);
+  }
+
+  @Override public int hashCode() {
+    int result = macAddress.hashCode();
+    result = 31 * result + rssi;
+    result = 31 * result + (scanRecord != null ? Arrays.hashCode(scanRecord) : 0);
+    return result;
+  }
+}
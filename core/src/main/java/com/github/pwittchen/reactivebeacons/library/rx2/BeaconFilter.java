@@ -0,0 +1,501 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.util.LongHashSet;
+import com.github.pwittchen.reactivebeacons.library.rx2.util.PrefixTrie;
+import io.reactivex.functions.Predicate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Predicate combining several criteria into a single check, which can be used
+ * with RxJava filter(...) method. Beacon matches the filter when it matches all
+ * declared criteria. Criteria are evaluated from the cheapest one and their order is adapted
+ * to the observed stream, so the criterion rejecting most beacons at the lowest cost
+ * is evaluated first. Distance and proximity are computed once, when beacon is created,
+ * so they're shared by all criteria. Every 16th beacon updates statistics used for ordering
+ * under a lock, so filter is thread-safe and can be used by concurrent streams,
+ * which share the same order of criteria then.
+ */
+public final class BeaconFilter implements Predicate<Beacon> {
+  static final int REORDER_INTERVAL = 4096; // has to be a power of two
+  private static final String MSG_PREDICATE_NULL = "predicate == null";
+  private static final int SAMPLING_MASK = 15; // every 16th beacon updates statistics
+
+  private static final int COST_RSSI = 1;
+  private static final int COST_PROXIMITY = 1;
+  private static final int COST_DISTANCE = 1;
+  private static final int COST_MAC_ADDRESS = 2;
+  private static final int COST_NAME = 4;
+  private static final int COST_NAME_PREFIX = 6;
+  private static final int COST_PAYLOAD = 16;
+
+  private static final Comparator<Clause> BY_COST = new Comparator<Clause>() {
+    @Override public int compare(Clause first, Clause second) {
+      return first.cost - second.cost;
+    }
+  };
+
+  private static final Comparator<Clause> BY_RANK = new Comparator<Clause>() {
+    @Override public int compare(Clause first, Clause second) {
+      return Double.compare(first.rank(), second.rank());
+    }
+  };
+
+  private volatile Clause[] clauses;
+  // increments lost by concurrent streams only change which beacons are sampled
+  private int tests;
+
+  private BeaconFilter(Clause[] clauses) {
+    Arrays.sort(clauses, BY_COST);
+    this.clauses = clauses;
+  }
+
+  @Override public boolean test(Beacon beacon) throws Exception {
+    Clause[] current = clauses;
+    int count = ++tests;
+    if ((count & SAMPLING_MASK) != 0) {
+      for (Clause clause : current) {
+        if (!clause.matches(beacon)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    int rejectedBy = current.length;
+    for (int i = 0; i < current.length; i++) {
+      if (!current[i].matches(beacon)) {
+        rejectedBy = i;
+        break;
+      }
+    }
+    count(current, rejectedBy, (count & (REORDER_INTERVAL - 1)) == 0);
+    return rejectedBy == current.length;
+  }
+
+  /**
+   * Gets names of criteria in the current order of evaluation
+   *
+   * @return names of criteria
+   */
+  public List<String> getOrder() {
+    List<String> order = new ArrayList<>();
+    for (Clause clause : clauses) {
+      order.add(clause.name);
+    }
+    return order;
+  }
+
+  private synchronized void count(Clause[] evaluated, int rejectedBy, boolean reorder) {
+    // clauses evaluated in a stale order are still counted, only their order is outdated
+    for (int i = 0; i < evaluated.length && i <= rejectedBy; i++) {
+      evaluated[i].tested++;
+    }
+    if (rejectedBy < evaluated.length) {
+      evaluated[rejectedBy].rejected++;
+    }
+    if (reorder) {
+      clauses = reorder(clauses);
+    }
+  }
+
+  private static Clause[] reorder(Clause[] clauses) {
+    Clause[] reordered = clauses.clone();
+    // stable sort keeps the current order of criteria with equal rank
+    Arrays.sort(reordered, BY_RANK);
+    for (Clause clause : reordered) {
+      // older observations fade out, so the order follows changes of the stream
+      clause.tested /= 2;
+      clause.rejected /= 2;
+    }
+    return reordered;
+  }
+
+  @Override public String toString() {
+    return "BeaconFilter" + getOrder();
+  }
+
+  private abstract static class Clause {
+    final String name;
+    final int cost;
+    long tested;
+    long rejected;
+
+    Clause(String name, int cost) {
+      this.name = name;
+      this.cost = cost;
+    }
+
+    abstract boolean matches(Beacon beacon) throws Exception;
+
+    /**
+     * Expected cost of rejecting a beacon. Evaluating conjunction of independent criteria
+     * in the ascending order of cost divided by rejection probability minimizes average cost.
+     * Probability is estimated with Laplace smoothing, so criteria, which didn't reject
+     * anything yet, are still ordered by their costs.
+     */
+    double rank() {
+      double rejectionProbability = (rejected + 1.0) / (tested + 2.0);
+      return cost / rejectionProbability;
+    }
+  }
+
+  private static final class RssiClause extends Clause {
+    private final int minRssi;
+
+    RssiClause(int minRssi) {
+      super("rssi", COST_RSSI);
+      this.minRssi = minRssi;
+    }
+
+    @Override boolean matches(Beacon beacon) {
+      return beacon.rssi >= minRssi;
+    }
+  }
+
+  private static final class ProximityClause extends Clause {
+    private final int mask;
+
+    ProximityClause(int mask) {
+      super("proximity", COST_PROXIMITY);
+      this.mask = mask;
+    }
+
+    @Override boolean matches(Beacon beacon) {
+      return (mask & 1 << beacon.getProximity().ordinal()) != 0;
+    }
+  }
+
+  private static final class DistanceClause extends Clause {
+    private final double minDistance;
+    private final double maxDistance;
+
+    DistanceClause(double minDistance, double maxDistance) {
+      super("distance", COST_DISTANCE);
+      this.minDistance = minDistance;
+      this.maxDistance = maxDistance;
+    }
+
+    @Override boolean matches(Beacon beacon) {
+      double distance = beacon.getDistance();
+      return distance > minDistance && distance < maxDistance;
+    }
+  }
+
+  private static final class MacAddressClause extends Clause {
+    private final LongHashSet macAddresses;
+    private final boolean included;
+
+    MacAddressClause(String name, LongHashSet macAddresses, boolean included) {
+      super(name, COST_MAC_ADDRESS);
+      this.macAddresses = macAddresses;
+      this.included = included;
+    }
+
+    @Override boolean matches(Beacon beacon) {
+      return macAddresses.contains(beacon.macAddress.toLong()) == included;
+    }
+  }
+
+  private static final class NameClause extends Clause {
+    private final Set<String> names;
+    private final boolean included;
+
+    NameClause(String name, Set<String> names, boolean included) {
+      super(name, COST_NAME);
+      this.names = names;
+      this.included = included;
+    }
+
+    @Override boolean matches(Beacon beacon) {
+      String name = beacon.name;
+      if (name == null) {
+        return !included;
+      }
+      return names.contains(name) == included;
+    }
+  }
+
+  private static final class NamePrefixClause extends Clause {
+    private final PrefixTrie trie = new PrefixTrie();
+
+    NamePrefixClause(Set<String> prefixes) {
+      super("namePrefixes", COST_NAME_PREFIX);
+      for (String prefix : prefixes) {
+        trie.add(prefix);
+      }
+    }
+
+    @Override boolean matches(Beacon beacon) {
+      String name = beacon.name;
+      return name != null && trie.matchesPrefixOf(name);
+    }
+  }
+
+  private static final class PayloadClause extends Clause {
+    private final Predicate<byte[]> predicate;
+
+    PayloadClause(Predicate<byte[]> predicate) {
+      super("payload", COST_PAYLOAD);
+      this.predicate = predicate;
+    }
+
+    @Override boolean matches(Beacon beacon) throws Exception {
+      return beacon.scanRecord != null && predicate.test(beacon.scanRecord);
+    }
+  }
+
+  public static final class Builder {
+    private int minRssi = Integer.MIN_VALUE;
+    private int proximityMask;
+    private double minDistance = Double.NEGATIVE_INFINITY;
+    private double maxDistance = Double.POSITIVE_INFINITY;
+    private final Set<String> macAddresses = new LinkedHashSet<>();
+    private final Set<String> exceptMacAddresses = new LinkedHashSet<>();
+    private final Set<String> names = new LinkedHashSet<>();
+    private final Set<String> exceptNames = new LinkedHashSet<>();
+    private final Set<String> namePrefixes = new LinkedHashSet<>();
+    private final List<Predicate<byte[]>> payloads = new ArrayList<>();
+
+    /**
+     * Matches beacons with RSSI greater or equal to provided value
+     *
+     * @param rssi minimal RSSI in dBm
+     * @return builder
+     */
+    public Builder rssiAtLeast(int rssi) {
+      minRssi = Math.max(minRssi, rssi);
+      return this;
+    }
+
+    /**
+     * Matches beacons with one of provided proximities
+     *
+     * @param proximities accepted proximities
+     * @return builder
+     */
+    public Builder proximities(Proximity... proximities) {
+      for (Proximity proximity : proximities) {
+        proximityMask |= 1 << proximity.ordinal();
+      }
+      return this;
+    }
+
+    /**
+     * Matches beacons with distance greater than provided value
+     *
+     * @param distance distance in meters
+     * @return builder
+     */
+    public Builder distanceGreaterThan(double distance) {
+      minDistance = Math.max(minDistance, distance);
+      return this;
+    }
+
+    /**
+     * Matches beacons with distance lower than provided value
+     *
+     * @param distance distance in meters
+     * @return builder
+     */
+    public Builder distanceLowerThan(double distance) {
+      maxDistance = Math.min(maxDistance, distance);
+      return this;
+    }
+
+    /**
+     * Matches beacons with one of provided MAC addresses
+     *
+     * @param macs MAC addresses in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+     * @return builder
+     * @throws IllegalArgumentException when one of MAC addresses is invalid
+     */
+    public Builder macAddresses(String... macs) {
+      return macAddresses(Arrays.asList(macs));
+    }
+
+    /**
+     * Matches beacons with one of provided MAC addresses
+     *
+     * @param macs MAC addresses in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+     * @return builder
+     * @throws IllegalArgumentException when one of MAC addresses is invalid
+     */
+    public Builder macAddresses(Collection<String> macs) {
+      addMacAddresses(macAddresses, macs);
+      return this;
+    }
+
+    /**
+     * Matches beacons with MAC address other than all of provided MAC addresses
+     *
+     * @param macs MAC addresses in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+     * @return builder
+     * @throws IllegalArgumentException when one of MAC addresses is invalid
+     */
+    public Builder exceptMacAddresses(String... macs) {
+      return exceptMacAddresses(Arrays.asList(macs));
+    }
+
+    /**
+     * Matches beacons with MAC address other than all of provided MAC addresses
+     *
+     * @param macs MAC addresses in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+     * @return builder
+     * @throws IllegalArgumentException when one of MAC addresses is invalid
+     */
+    public Builder exceptMacAddresses(Collection<String> macs) {
+      addMacAddresses(exceptMacAddresses, macs);
+      return this;
+    }
+
+    /**
+     * Matches beacons with one of provided names
+     *
+     * @param deviceNames device names
+     * @return builder
+     */
+    public Builder names(String... deviceNames) {
+      return names(Arrays.asList(deviceNames));
+    }
+
+    /**
+     * Matches beacons with one of provided names
+     *
+     * @param deviceNames device names
+     * @return builder
+     */
+    public Builder names(Collection<String> deviceNames) {
+      names.addAll(deviceNames);
+      return this;
+    }
+
+    /**
+     * Matches beacons with name other than all of provided names.
+     * Beacons without name are matched.
+     *
+     * @param deviceNames device names
+     * @return builder
+     */
+    public Builder exceptNames(String... deviceNames) {
+      return exceptNames(Arrays.asList(deviceNames));
+    }
+
+    /**
+     * Matches beacons with name other than all of provided names.
+     * Beacons without name are matched.
+     *
+     * @param deviceNames device names
+     * @return builder
+     */
+    public Builder exceptNames(Collection<String> deviceNames) {
+      exceptNames.addAll(deviceNames);
+      return this;
+    }
+
+    /**
+     * Matches beacons with name starting with one of provided prefixes
+     *
+     * @param prefixes prefixes of device names
+     * @return builder
+     */
+    public Builder namePrefixes(String... prefixes) {
+      Collections.addAll(namePrefixes, prefixes);
+      return this;
+    }
+
+    /**
+     * Matches beacons with scan record accepted by provided predicate.
+     * Beacons without scan record are not matched. Payload predicates usually parse
+     * the scan record, so they're evaluated last at first. Like other criteria, they're moved
+     * earlier, when the observed stream shows they reject beacons at a lower average cost.
+     * Predicate has to be free of side effects, because it's not evaluated for beacons
+     * rejected by other criteria.
+     *
+     * @param predicate predicate of the scan record
+     * @return builder
+     */
+    public Builder payload(Predicate<byte[]> predicate) {
+      if (predicate == null) {
+        throw new IllegalArgumentException(MSG_PREDICATE_NULL);
+      }
+      payloads.add(predicate);
+      return this;
+    }
+
+    /**
+     * Creates filter matching beacons, which match all declared criteria.
+     * Filter without criteria matches all beacons.
+     *
+     * @return beacon filter
+     */
+    public BeaconFilter build() {
+      List<Clause> clauses = new ArrayList<>();
+      if (minRssi != Integer.MIN_VALUE) {
+        clauses.add(new RssiClause(minRssi));
+      }
+      if (proximityMask != 0) {
+        clauses.add(new ProximityClause(proximityMask));
+      }
+      if (minDistance != Double.NEGATIVE_INFINITY || maxDistance != Double.POSITIVE_INFINITY) {
+        clauses.add(new DistanceClause(minDistance, maxDistance));
+      }
+      if (!macAddresses.isEmpty()) {
+        clauses.add(new MacAddressClause("macAddresses", toLongHashSet(macAddresses), true));
+      }
+      if (!exceptMacAddresses.isEmpty()) {
+        clauses.add(new MacAddressClause("exceptMacAddresses",
+            toLongHashSet(exceptMacAddresses), false));
+      }
+      if (!names.isEmpty()) {
+        clauses.add(new NameClause("names", new HashSet<>(names), true));
+      }
+      if (!exceptNames.isEmpty()) {
+        clauses.add(new NameClause("exceptNames", new HashSet<>(exceptNames), false));
+      }
+      if (!namePrefixes.isEmpty()) {
+        clauses.add(new NamePrefixClause(namePrefixes));
+      }
+      for (Predicate<byte[]> payload : payloads) {
+        clauses.add(new PayloadClause(payload));
+      }
+      return new BeaconFilter(clauses.toArray(new Clause[clauses.size()]));
+    }
+
+    private static void addMacAddresses(Set<String> target, Collection<String> macs) {
+      for (String mac : macs) {
+        target.add(MacAddress.valueOf(mac).address);
+      }
+    }
+
+    private static LongHashSet toLongHashSet(Set<String> macs) {
+      LongHashSet set = new LongHashSet(macs.size());
+      for (String mac : macs) {
+        set.add(MacAddress.toLong(mac));
+      }
+      return set;
+    }
+  }
+}
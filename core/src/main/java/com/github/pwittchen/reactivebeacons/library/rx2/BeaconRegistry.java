@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the latest sighting of every visible beacon. Beacons, which were not seen
+ * for the time to live, are removed. Registry is updated by the stream returned
+ * from {@link #track(Observable)}, which emits ENTER, UPDATE and EXIT events,
+ * and can be read from any thread without locking.
+ */
+public final class BeaconRegistry {
+  private static final String MSG_TTL_MUST_BE_POSITIVE = "ttl must be greater than zero";
+  private static final String MSG_SCHEDULER_NULL = "scheduler == null";
+  private static final String MSG_ALREADY_TRACKING = "registry is already tracking beacons";
+
+  private final ConcurrentMap<MacAddress, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicBoolean tracking = new AtomicBoolean();
+  private final long ttlNanos;
+  private final Scheduler scheduler;
+
+  /**
+   * Creates registry, which uses computation scheduler for expiring beacons
+   *
+   * @param ttl time after which not seen beacon is removed
+   * @param unit unit of the ttl
+   */
+  public BeaconRegistry(long ttl, TimeUnit unit) {
+    this(ttl, unit, Schedulers.computation());
+  }
+
+  /**
+   * Creates registry
+   *
+   * @param ttl time after which not seen beacon is removed
+   * @param unit unit of the ttl
+   * @param scheduler scheduler used for expiring beacons and reading current time
+   */
+  public BeaconRegistry(long ttl, TimeUnit unit, Scheduler scheduler) {
+    if (ttl <= 0) {
+      throw new IllegalArgumentException(MSG_TTL_MUST_BE_POSITIVE);
+    }
+    if (scheduler == null) {
+      throw new IllegalArgumentException(MSG_SCHEDULER_NULL);
+    }
+    this.ttlNanos = unit.toNanos(ttl);
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Feeds registry with beacons. Registry is updated only while returned Observable
+   * is subscribed and it's cleared when subscription is disposed.
+   * Only one subscription can track beacons at the same time.
+   *
+   * @param beacons stream of beacons, e.g. from ReactiveBeacons.observe()
+   * @return Observable emitting changes of the registry
+   */
+  public Observable<RegistryEvent> track(final Observable<Beacon> beacons) {
+    return Observable.create(new ObservableOnSubscribe<RegistryEvent>() {
+      @Override public void subscribe(final ObservableEmitter<RegistryEvent> emitter) {
+        if (!tracking.compareAndSet(false, true)) {
+          emitter.onError(new IllegalStateException(MSG_ALREADY_TRACKING));
+          return;
+        }
+
+        long startNanos = scheduler.now(TimeUnit.NANOSECONDS);
+        final RegistryTracker tracker =
+            new RegistryTracker(entries, emitter, ttlNanos, startNanos);
+        long tickNanos = Math.max(1, ttlNanos / RegistryTracker.TICKS_PER_TTL);
+        final Observable<Long> ticks =
+            Observable.interval(tickNanos, tickNanos, TimeUnit.NANOSECONDS, scheduler);
+
+        // merge serializes sightings and ticks, so tracker doesn't need locking,
+        // ticks stop when stream of beacons terminates
+        final Disposable disposable = beacons.publish(
+            new Function<Observable<Beacon>, ObservableSource<Object>>() {
+              @Override public ObservableSource<Object> apply(Observable<Beacon> shared) {
+                Observable<Beacon> terminated = shared.ignoreElements().toObservable();
+                return Observable.<Object>merge(shared, ticks.takeUntil(terminated));
+              }
+            })
+            .subscribe(new Consumer<Object>() {
+              @Override public void accept(Object item) {
+                long now = scheduler.now(TimeUnit.NANOSECONDS);
+                if (item instanceof Beacon) {
+                  Beacon beacon = (Beacon) item;
+                  tracker.onSighting(beacon.macAddress, beacon, now);
+                } else {
+                  tracker.onTick(now);
+                }
+              }
+            }, new Consumer<Throwable>() {
+              @Override public void accept(Throwable throwable) {
+                emitter.onError(throwable);
+              }
+            }, new Action() {
+              @Override public void run() {
+                emitter.onComplete();
+              }
+            });
+
+        emitter.setCancellable(new Cancellable() {
+          @Override public void cancel() {
+            disposable.dispose();
+            tracker.clear();
+            tracking.set(false);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Gets the latest sighting of the beacon
+   *
+   * @param macAddress MAC address of the beacon
+   * @return beacon or null if it's not present in the registry
+   */
+  public Beacon get(MacAddress macAddress) {
+    Entry entry = entries.get(macAddress);
+    return entry != null ? entry.beacon : null;
+  }
+
+  public boolean contains(MacAddress macAddress) {
+    return entries.containsKey(macAddress);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Gets the latest sightings of all beacons present in the registry.
+   * Snapshot is weakly consistent, it doesn't block tracking of beacons.
+   *
+   * @return list of beacons
+   */
+  public List<Beacon> snapshot() {
+    List<Beacon> beacons = new ArrayList<>(entries.size());
+    for (Entry entry : entries.values()) {
+      beacons.add(entry.beacon);
+    }
+    return beacons;
+  }
+
+  static final class Entry {
+    final MacAddress key;
+    volatile Beacon beacon;
+    long lastSeenNanos; // accessed only by tracker
+    Entry next; // next entry in the timer wheel bucket
+
+    Entry(MacAddress key, Beacon beacon, long lastSeenNanos) {
+      this.key = key;
+      this.beacon = beacon;
+      this.lastSeenNanos = lastSeenNanos;
+    }
+  }
+}
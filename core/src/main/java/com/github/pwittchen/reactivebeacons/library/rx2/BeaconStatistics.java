@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+
+/**
+ * Computes statistics of RSSI of every device in a sliding time window: number of sightings,
+ * mean, median, standard deviation, minimum and maximum. Can be applied to Observable
+ * and Flowable streams with compose(...) method. By default, statistics of the device are
+ * emitted on its every sighting. With {@link #every(long, TimeUnit)}, statistics of all
+ * devices seen in the window are emitted at a fixed cadence instead.
+ * <p>
+ * Every device keeps at most the capacity of the newest samples (64 by default) in arrays
+ * allocated on its first sighting, so memory per device is fixed (about 25 bytes per sample).
+ * State of devices, which were not seen for the window, is removed.
+ * <p>
+ * Statistics emitted on every sighting measure the window with timestamps of the beacons,
+ * so recorded traces produce the same statistics as live scans. Statistics emitted at a cadence
+ * measure both the window and the cadence with the clock of the scheduler, because ticks
+ * don't have a beacon timestamp to compare with.
+ */
+public final class BeaconStatistics implements ObservableTransformer<Beacon, BeaconStats>,
+    FlowableTransformer<Beacon, BeaconStats> {
+  private static final String MSG_WINDOW_MUST_BE_POSITIVE = "window must be greater than zero";
+  private static final String MSG_CAPACITY_MUST_BE_POSITIVE =
+      "capacity must be greater than zero";
+  private static final String MSG_INTERVAL_MUST_BE_POSITIVE =
+      "interval must be greater than zero";
+  private static final String MSG_SCHEDULER_NULL = "scheduler == null";
+  private static final int DEFAULT_CAPACITY = 64;
+
+  final long windowNanos;
+  final int capacity;
+  final long intervalNanos;
+  final Scheduler scheduler;
+
+  private BeaconStatistics(long windowNanos, int capacity, long intervalNanos,
+      Scheduler scheduler) {
+    this.windowNanos = windowNanos;
+    this.capacity = capacity;
+    this.intervalNanos = intervalNanos;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Creates statistics of the sliding window, which emit statistics on every sighting
+   *
+   * @param window length of the window
+   * @param unit unit of the window
+   * @return statistics transformer
+   */
+  public static BeaconStatistics window(long window, TimeUnit unit) {
+    if (window <= 0) {
+      throw new IllegalArgumentException(MSG_WINDOW_MUST_BE_POSITIVE);
+    }
+    return new BeaconStatistics(unit.toNanos(window), DEFAULT_CAPACITY, 0,
+        Schedulers.computation());
+  }
+
+  /**
+   * Creates copy of these statistics with provided capacity of the window of every device.
+   * When device is seen more times in the window, the oldest sightings are forgotten.
+   *
+   * @param capacity maximal number of sightings of the device in the window
+   * @return statistics transformer
+   */
+  public BeaconStatistics withCapacity(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException(MSG_CAPACITY_MUST_BE_POSITIVE);
+    }
+    return new BeaconStatistics(windowNanos, capacity, intervalNanos, scheduler);
+  }
+
+  /**
+   * Creates copy of these statistics, which emit statistics of all devices seen
+   * in the window at a fixed cadence instead of on every sighting
+   *
+   * @param interval interval of emitting statistics
+   * @param unit unit of the interval
+   * @return statistics transformer
+   */
+  public BeaconStatistics every(long interval, TimeUnit unit) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException(MSG_INTERVAL_MUST_BE_POSITIVE);
+    }
+    return new BeaconStatistics(windowNanos, capacity, unit.toNanos(interval), scheduler);
+  }
+
+  /**
+   * Creates copy of these statistics, which emits statistics at the cadence on provided
+   * scheduler and measures the window with its clock. Statistics emitted on every sighting
+   * don't use the scheduler, their window is measured with timestamps of the beacons.
+   *
+   * @param scheduler scheduler of the cadence
+   * @return statistics transformer
+   */
+  public BeaconStatistics withScheduler(Scheduler scheduler) {
+    if (scheduler == null) {
+      throw new IllegalArgumentException(MSG_SCHEDULER_NULL);
+    }
+    return new BeaconStatistics(windowNanos, capacity, intervalNanos, scheduler);
+  }
+
+  @Override public ObservableSource<BeaconStats> apply(final Observable<Beacon> upstream) {
+    return Observable.defer(new Callable<ObservableSource<BeaconStats>>() {
+      @Override public ObservableSource<BeaconStats> call() {
+        // every subscription has its own state
+        final Windows windows = new Windows();
+        if (intervalNanos == 0) {
+          return upstream.map(windows);
+        }
+        final Observable<Long> ticks =
+            Observable.interval(intervalNanos, intervalNanos, TimeUnit.NANOSECONDS, scheduler);
+        // merge serializes sightings and ticks, ticks stop when stream of beacons terminates
+        return upstream.publish(new Function<Observable<Beacon>, ObservableSource<Object>>() {
+          @Override public ObservableSource<Object> apply(Observable<Beacon> shared) {
+            Observable<Beacon> terminated = shared.ignoreElements().toObservable();
+            return Observable.<Object>merge(shared, ticks.takeUntil(terminated));
+          }
+        }).concatMapIterable(windows.onSightingOrTick());
+      }
+    });
+  }
+
+  @Override public Publisher<BeaconStats> apply(final Flowable<Beacon> upstream) {
+    return Flowable.defer(new Callable<Publisher<BeaconStats>>() {
+      @Override public Publisher<BeaconStats> call() {
+        final Windows windows = new Windows();
+        if (intervalNanos == 0) {
+          return upstream.map(windows);
+        }
+        // ticks are dropped, when downstream doesn't keep up
+        final Flowable<Long> ticks = Flowable
+            .interval(intervalNanos, intervalNanos, TimeUnit.NANOSECONDS, scheduler)
+            .onBackpressureDrop();
+        return upstream.publish(new Function<Flowable<Beacon>, Publisher<Object>>() {
+          @Override public Publisher<Object> apply(Flowable<Beacon> shared) {
+            Flowable<Beacon> terminated = shared.ignoreElements().toFlowable();
+            return Flowable.<Object>merge(shared, ticks.takeUntil(terminated));
+          }
+        }).concatMapIterable(windows.onSightingOrTick());
+      }
+    });
+  }
+
+  @Override public String toString() {
+    return "BeaconStatistics{windowNanos=" + windowNanos
+        + ", capacity=" + capacity
+        + ", intervalNanos=" + intervalNanos
+        + '}';
+  }
+
+  /**
+   * Windows of devices of a single subscription
+   */
+  private final class Windows implements Function<Beacon, BeaconStats> {
+    private final DeviceStates<RssiWindow> states = new DeviceStates<>(windowNanos);
+    private long latestTimestampNanos = Long.MIN_VALUE;
+
+    @Override public BeaconStats apply(Beacon beacon) {
+      // beacons merged from several sources can come slightly out of order
+      latestTimestampNanos = Math.max(latestTimestampNanos, beacon.timestampNanos);
+      return BeaconStats.of(add(beacon, latestTimestampNanos));
+    }
+
+    RssiWindow add(Beacon beacon, long nowNanos) {
+      long key = beacon.macAddress.toLong();
+      RssiWindow window = states.get(key, nowNanos);
+      if (window == null) {
+        window = new RssiWindow(capacity);
+        states.put(key, window);
+      } else {
+        window.expire(nowNanos - windowNanos);
+      }
+      window.lastSeenNanos = nowNanos;
+      window.beacon = beacon;
+      window.add(beacon.rssi, nowNanos);
+      return window;
+    }
+
+    List<BeaconStats> snapshot(long nowNanos) {
+      states.sweepIfNeeded(nowNanos);
+      List<BeaconStats> snapshot = new ArrayList<>(states.size());
+      for (int slot = 0; slot < states.capacity(); slot++) {
+        RssiWindow window = states.valueAt(slot);
+        if (window != null) {
+          window.expire(nowNanos - windowNanos);
+          if (window.count() > 0) {
+            snapshot.add(BeaconStats.of(window));
+          }
+        }
+      }
+      return snapshot;
+    }
+
+    Function<Object, Iterable<BeaconStats>> onSightingOrTick() {
+      return new Function<Object, Iterable<BeaconStats>>() {
+        @Override public Iterable<BeaconStats> apply(Object item) {
+          long now = scheduler.now(TimeUnit.NANOSECONDS);
+          if (item instanceof Beacon) {
+            add((Beacon) item, now);
+            return Collections.emptyList();
+          }
+          return snapshot(now);
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+/**
+ * Statistics of RSSI of the beacon in a sliding time window computed by
+ * {@link BeaconStatistics}
+ */
+public final class BeaconStats {
+  /**
+   * The latest sighting of the beacon
+   */
+  public final Beacon beacon;
+  /**
+   * Number of sightings in the window
+   */
+  public final int count;
+  public final double mean;
+  public final double median;
+  /**
+   * Population standard deviation of RSSI
+   */
+  public final double standardDeviation;
+  public final int min;
+  public final int max;
+
+  BeaconStats(Beacon beacon, int count, double mean, double median, double standardDeviation,
+      int min, int max) {
+    this.beacon = beacon;
+    this.count = count;
+    this.mean = mean;
+    this.median = median;
+    this.standardDeviation = standardDeviation;
+    this.min = min;
+    this.max = max;
+  }
+
+  static BeaconStats of(RssiWindow window) {
+    return new BeaconStats(window.beacon, window.count(), window.mean(), window.median(),
+        window.standardDeviation(), window.minimum(), window.maximum());
+  }
+
+  @Override public String toString() {
+    return "BeaconStats{macAddress=" + beacon.macAddress
+        + ", count=" + count
+        + ", mean=" + mean
+        + ", median=" + median
+        + ", standardDeviation=" + standardDeviation
+        + ", min=" + min
+        + ", max=" + max
+        + '}';
+  }
+}
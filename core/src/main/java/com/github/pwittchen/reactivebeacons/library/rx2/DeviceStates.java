@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.util.LongObjectMap;
+
+/**
+ * State of devices keyed by packed MAC address. States of devices, which were not seen
+ * for the idle timeout, are removed. Removal sweep is performed at most once per
+ * idle timeout, so its cost is amortized. It's not thread-safe.
+ *
+ * @param <S> type of the state
+ */
+final class DeviceStates<S extends DeviceStates.State> {
+  private final LongObjectMap<S> states = new LongObjectMap<>();
+  private final long idleTimeoutNanos;
+  private long[] expired = new long[16];
+  private long lastSweepNanos;
+  private boolean swept;
+
+  DeviceStates(long idleTimeoutNanos) {
+    this.idleTimeoutNanos = idleTimeoutNanos;
+  }
+
+  /**
+   * Gets state of the device
+   *
+   * @param key device key (packed MAC address)
+   * @param nowNanos current time in nanoseconds
+   * @return state or null, when device is seen for the first time or after the idle timeout
+   */
+  S get(long key, long nowNanos) {
+    sweepIfNeeded(nowNanos);
+    S state = states.get(key);
+    if (state != null && nowNanos - state.lastSeenNanos >= idleTimeoutNanos) {
+      states.remove(key);
+      return null;
+    }
+    return state;
+  }
+
+  void put(long key, S state) {
+    states.put(key, state);
+  }
+
+  int size() {
+    return states.size();
+  }
+
+  /**
+   * Gets number of slots. Together with {@link #valueAt(int)} allows iterating over states
+   * without allocations. States of idle devices are present until the next sweep.
+   *
+   * @return number of slots
+   */
+  int capacity() {
+    return states.capacity();
+  }
+
+  S valueAt(int slot) {
+    return states.valueAt(slot);
+  }
+
+  void sweepIfNeeded(long nowNanos) {
+    if (swept && nowNanos - lastSweepNanos < idleTimeoutNanos) {
+      return;
+    }
+    swept = true;
+    lastSweepNanos = nowNanos;
+
+    int count = 0;
+    for (int slot = 0; slot < states.capacity(); slot++) {
+      S state = states.valueAt(slot);
+      if (state != null && nowNanos - state.lastSeenNanos >= idleTimeoutNanos) {
+        if (count == expired.length) {
+          long[] grown = new long[count * 2];
+          System.arraycopy(expired, 0, grown, 0, count);
+          expired = grown;
+        }
+        expired[count++] = states.keyAt(slot);
+      }
+    }
+
+    for (int i = 0; i < count; i++) {
+      states.remove(expired[i]);
+    }
+  }
+
+  static class State {
+    long lastSeenNanos;
+  }
+}
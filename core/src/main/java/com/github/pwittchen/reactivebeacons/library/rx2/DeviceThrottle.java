@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+
+/**
+ * Limits number of beacons emitted for every device separately.
+ * Beacon is emitted when its device is seen for the first time
+ * or when at least one of configured conditions is met. Can be applied to Observable
+ * and Flowable streams with compose(...) method. State of devices, which were not seen
+ * for the idle timeout, is removed, so memory usage depends only on the number
+ * of recently seen devices.
+ * <p>
+ * Stationary device, which advertises the same data, may not be emitted for a long time.
+ * When beacons are consumed by a component, which expires not seen devices
+ * (e.g. {@link BeaconRegistry}), throttle should be created with
+ * {@link #withRefreshInterval(long, TimeUnit)} shorter than the expiration time.
+ */
+public final class DeviceThrottle
+    implements ObservableTransformer<Beacon, Beacon>, FlowableTransformer<Beacon, Beacon> {
+  private static final String MSG_INTERVAL_MUST_BE_POSITIVE = "interval must be greater than zero";
+  private static final String MSG_REFRESH_INTERVAL_MUST_BE_POSITIVE =
+      "refresh interval must be greater than zero";
+  private static final String MSG_THRESHOLD_NEGATIVE = "threshold can't be negative";
+  private static final String MSG_TIMEOUT_MUST_BE_POSITIVE = "timeout must be greater than zero";
+  private static final String MSG_SCHEDULER_NULL = "scheduler == null";
+  private static final String MSG_INSTRUMENTATION_NULL = "instrumentation == null";
+  private static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 30;
+  static final long NO_INTERVAL = 0;
+  static final int NO_THRESHOLD = -1;
+
+  final long intervalNanos;
+  final int rssiThreshold;
+  final boolean distinct;
+  final long refreshIntervalNanos;
+  final long idleTimeoutNanos;
+  final Scheduler scheduler;
+  final ScanInstrumentation instrumentation;
+
+  private DeviceThrottle(long intervalNanos, int rssiThreshold, boolean distinct,
+      long refreshIntervalNanos, long idleTimeoutNanos, Scheduler scheduler,
+      ScanInstrumentation instrumentation) {
+    this.intervalNanos = intervalNanos;
+    this.rssiThreshold = rssiThreshold;
+    this.distinct = distinct;
+    this.refreshIntervalNanos = refreshIntervalNanos;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+    this.scheduler = scheduler;
+    this.instrumentation = instrumentation;
+  }
+
+  /**
+   * Emits beacon only when its RSSI or scan record differs from the previous beacon
+   * of the same device. It's a per-device version of distinctUntilChanged() operator.
+   *
+   * @return throttle transformer
+   */
+  public static DeviceThrottle distinct() {
+    return new DeviceThrottle(NO_INTERVAL, NO_THRESHOLD, true, NO_INTERVAL,
+        TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_SECONDS), Schedulers.computation(),
+        ScanInstrumentation.DISABLED);
+  }
+
+  /**
+   * Emits beacon of every device at most once per interval
+   *
+   * @param interval minimal time between beacons of the same device
+   * @param unit unit of the interval
+   * @return throttle transformer
+   */
+  public static DeviceThrottle atMostEvery(long interval, TimeUnit unit) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException(MSG_INTERVAL_MUST_BE_POSITIVE);
+    }
+    return new DeviceThrottle(unit.toNanos(interval), NO_THRESHOLD, false, NO_INTERVAL,
+        TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_SECONDS), Schedulers.computation(),
+        ScanInstrumentation.DISABLED);
+  }
+
+  /**
+   * Emits beacon only when its RSSI differs by more than threshold
+   * from RSSI of the last emitted beacon of the same device
+   *
+   * @param threshold RSSI threshold in dBm
+   * @return throttle transformer
+   */
+  public static DeviceThrottle onRssiChange(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException(MSG_THRESHOLD_NEGATIVE);
+    }
+    return new DeviceThrottle(NO_INTERVAL, threshold, false, NO_INTERVAL,
+        TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_SECONDS), Schedulers.computation(),
+        ScanInstrumentation.DISABLED);
+  }
+
+  /**
+   * Creates copy of this throttle, which additionally emits beacon when its RSSI differs
+   * by more than threshold from RSSI of the last emitted beacon of the same device,
+   * e.g. before the interval passes
+   *
+   * @param threshold RSSI threshold in dBm
+   * @return throttle transformer
+   */
+  public DeviceThrottle withRssiThreshold(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException(MSG_THRESHOLD_NEGATIVE);
+    }
+    return new DeviceThrottle(intervalNanos, threshold, distinct, refreshIntervalNanos,
+        idleTimeoutNanos, scheduler, instrumentation);
+  }
+
+  /**
+   * Creates copy of this throttle, which additionally emits beacon of the device,
+   * when no beacon of it was emitted for the refresh interval, even if it didn't change.
+   * Consumers expiring not seen devices see stationary devices then.
+   *
+   * @param interval maximal time between beacons of the same device, while it's seen
+   * @param unit unit of the interval
+   * @return throttle transformer
+   */
+  public DeviceThrottle withRefreshInterval(long interval, TimeUnit unit) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException(MSG_REFRESH_INTERVAL_MUST_BE_POSITIVE);
+    }
+    return new DeviceThrottle(intervalNanos, rssiThreshold, distinct, unit.toNanos(interval),
+        idleTimeoutNanos, scheduler, instrumentation);
+  }
+
+  /**
+   * Creates copy of this throttle with provided idle timeout. Default timeout is 30 seconds.
+   * Timeout shorter than the interval is extended to the interval.
+   *
+   * @param timeout time after which state of not seen device is removed
+   * @param unit unit of the timeout
+   * @return throttle transformer
+   */
+  public DeviceThrottle withIdleTimeout(long timeout, TimeUnit unit) {
+    if (timeout <= 0) {
+      throw new IllegalArgumentException(MSG_TIMEOUT_MUST_BE_POSITIVE);
+    }
+    return new DeviceThrottle(intervalNanos, rssiThreshold, distinct, refreshIntervalNanos,
+        unit.toNanos(timeout), scheduler, instrumentation);
+  }
+
+  /**
+   * Creates copy of this throttle, which reads current time from provided scheduler
+   *
+   * @param scheduler source of the current time
+   * @return throttle transformer
+   */
+  public DeviceThrottle withScheduler(Scheduler scheduler) {
+    if (scheduler == null) {
+      throw new IllegalArgumentException(MSG_SCHEDULER_NULL);
+    }
+    return new DeviceThrottle(intervalNanos, rssiThreshold, distinct, refreshIntervalNanos,
+        idleTimeoutNanos, scheduler, instrumentation);
+  }
+
+  /**
+   * Creates copy of this throttle, which reports suppressed beacons to provided instrumentation
+   *
+   * @param instrumentation instrumentation of the scan pipeline
+   * @return throttle transformer
+   */
+  public DeviceThrottle withInstrumentation(ScanInstrumentation instrumentation) {
+    if (instrumentation == null) {
+      throw new IllegalArgumentException(MSG_INSTRUMENTATION_NULL);
+    }
+    return new DeviceThrottle(intervalNanos, rssiThreshold, distinct, refreshIntervalNanos,
+        idleTimeoutNanos, scheduler, instrumentation);
+  }
+
+  @Override public ObservableSource<Beacon> apply(final Observable<Beacon> upstream) {
+    return Observable.defer(new Callable<ObservableSource<Beacon>>() {
+      @Override public ObservableSource<Beacon> call() {
+        return upstream.filter(createPredicate());
+      }
+    });
+  }
+
+  @Override public Publisher<Beacon> apply(final Flowable<Beacon> upstream) {
+    return Flowable.defer(new Callable<Publisher<Beacon>>() {
+      @Override public Publisher<Beacon> call() {
+        return upstream.filter(createPredicate());
+      }
+    });
+  }
+
+  private Predicate<Beacon> createPredicate() {
+    // every subscription has its own state
+    final DeviceThrottler throttler = new DeviceThrottler(this);
+    return new Predicate<Beacon>() {
+      @Override public boolean test(Beacon beacon) {
+        long now = scheduler.now(TimeUnit.NANOSECONDS);
+        boolean emit = throttler.shouldEmit(beacon.macAddress.toLong(), beacon.rssi,
+            beacon.scanRecord, now);
+        if (!emit) {
+          instrumentation.onSuppressed();
+        }
+        return emit;
+      }
+    };
+  }
+
+  @Override public String toString() {
+    return "DeviceThrottle{intervalNanos=" + intervalNanos
+        + ", rssiThreshold=" + rssiThreshold
+        + ", distinct=" + distinct
+        + ", refreshIntervalNanos=" + refreshIntervalNanos
+        + '}';
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last emitted beacon of every device. It's not thread-safe,
+ * so every subscription uses its own instance.
+ */
+final class DeviceThrottler {
+  private final DeviceThrottle throttle;
+  private final DeviceStates<State> states;
+
+  DeviceThrottler(DeviceThrottle throttle) {
+    this.throttle = throttle;
+    // forgetting device earlier than after the interval would emit it too often
+    this.states = new DeviceStates<>(Math.max(throttle.idleTimeoutNanos, throttle.intervalNanos));
+  }
+
+  /**
+   * Checks if beacon of the device should be emitted and updates state of the device
+   *
+   * @param key device key (packed MAC address)
+   * @param rssi measured RSSI
+   * @param scanRecord advertised scan record
+   * @param nowNanos current time in nanoseconds
+   * @return true if beacon should be emitted
+   */
+  boolean shouldEmit(long key, int rssi, byte[] scanRecord, long nowNanos) {
+    State state = states.get(key, nowNanos);
+    if (state == null) {
+      state = new State();
+      states.put(key, state);
+    } else {
+      state.lastSeenNanos = nowNanos;
+      if (!isChanged(state, rssi, scanRecord, nowNanos)) {
+        return false;
+      }
+    }
+
+    state.lastSeenNanos = nowNanos;
+    state.lastEmittedNanos = nowNanos;
+    state.rssi = rssi;
+    state.scanRecord = scanRecord;
+    return true;
+  }
+
+  int size() {
+    return states.size();
+  }
+
+  private boolean isChanged(State state, int rssi, byte[] scanRecord, long nowNanos) {
+    if (throttle.intervalNanos != DeviceThrottle.NO_INTERVAL
+        && nowNanos - state.lastEmittedNanos >= throttle.intervalNanos) {
+      return true;
+    }
+
+    if (throttle.refreshIntervalNanos != DeviceThrottle.NO_INTERVAL
+        && nowNanos - state.lastEmittedNanos >= throttle.refreshIntervalNanos) {
+      return true;
+    }
+
+    if (throttle.rssiThreshold != DeviceThrottle.NO_THRESHOLD
+        && Math.abs(rssi - state.rssi) > throttle.rssiThreshold) {
+      return true;
+    }
+
+    // RSSI is compared first, because it's much cheaper than comparing scan records
+    return throttle.distinct
+        && (rssi != state.rssi || !Arrays.equals(scanRecord, state.scanRecord));
+  }
+
+  private static final class State extends DeviceStates.State {
+    long lastEmittedNanos;
+    int rssi;
+    byte[] scanRecord;
+  }
+}
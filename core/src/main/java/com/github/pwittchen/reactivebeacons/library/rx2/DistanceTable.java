@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+/**
+ * Precomputed distances and proximities for all integer differences between
+ * transmit power and RSSI, which are possible in BLE advertisements.
+ * Distance depends only on this difference, so one table covers all (txPower, rssi) pairs.
+ */
+final class DistanceTable {
+  // both RSSI and TX power are advertised as signed bytes
+  private static final int MIN_DIFFERENCE = -255;
+  private static final int MAX_DIFFERENCE = 255;
+  private static final int SIZE = MAX_DIFFERENCE - MIN_DIFFERENCE + 1;
+  private static final double[] DISTANCES = new double[SIZE];
+  private static final Proximity[] PROXIMITIES = new Proximity[SIZE];
+
+  static {
+    for (int i = 0; i < SIZE; i++) {
+      DISTANCES[i] = compute(i + MIN_DIFFERENCE);
+      PROXIMITIES[i] = toProximity(DISTANCES[i]);
+    }
+  }
+
+  private DistanceTable() {
+  }
+
+  /**
+   * Gets distance from BLE beacon to mobile device in meters
+   *
+   * @param txPower transmit power level in dBm
+   * @param rssi received signal strength indication
+   * @return distance in meters
+   */
+  static double distance(int txPower, int rssi) {
+    int difference = txPower - rssi;
+    if (difference < MIN_DIFFERENCE || difference > MAX_DIFFERENCE) {
+      return compute(difference);
+    }
+    return DISTANCES[difference - MIN_DIFFERENCE];
+  }
+
+  static Proximity proximity(int txPower, int rssi) {
+    int difference = txPower - rssi;
+    if (difference < MIN_DIFFERENCE || difference > MAX_DIFFERENCE) {
+      return toProximity(compute(difference));
+    }
+    return PROXIMITIES[difference - MIN_DIFFERENCE];
+  }
+
+  private static double compute(int difference) {
+    return Math.pow(10d, (double) difference / (10 * 2));
+  }
+
+  private static Proximity toProximity(double distance) {
+    Proximity immediate = Proximity.IMMEDIATE;
+    Proximity near = Proximity.NEAR;
+
+    if (distance < immediate.maxDistance) {
+      return immediate;
+    }
+
+    if (distance >= near.minDistance && distance <= near.maxDistance) {
+      return near;
+    }
+
+    return Proximity.FAR;
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.Eddystone;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+
+/**
+ * Decodes telemetry from Eddystone-TLM frames of the scan stream. Can be applied
+ * to Observable and Flowable streams with compose(...) method. Beacons without TLM frame
+ * are skipped. Scan records are decoded in place and {@link TelemetryFrame} is created
+ * only, when telemetry of the device changes, so repeated advertisements of the same frame
+ * don't allocate memory. State of devices, which were not seen for the idle timeout
+ * (measured with beacon timestamps), is removed, so memory usage depends only
+ * on the number of recently seen devices.
+ */
+public final class EddystoneTelemetry implements ObservableTransformer<Beacon, TelemetryFrame>,
+    FlowableTransformer<Beacon, TelemetryFrame> {
+  private static final String MSG_TIMEOUT_MUST_BE_POSITIVE = "timeout must be greater than zero";
+  private static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 30;
+
+  final boolean readingsOnly;
+  final long idleTimeoutNanos;
+
+  private EddystoneTelemetry(boolean readingsOnly, long idleTimeoutNanos) {
+    this.readingsOnly = readingsOnly;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+  }
+
+  /**
+   * Emits telemetry of the device, when any of its fields differs from the previous frame
+   * of the same device. Beacons incrementing advertisement count in every frame have every
+   * frame emitted, but the same frame advertised many times is emitted once.
+   *
+   * @return telemetry transformer
+   */
+  public static EddystoneTelemetry distinct() {
+    return new EddystoneTelemetry(false, TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_SECONDS));
+  }
+
+  /**
+   * Emits telemetry of the device, when its battery voltage or temperature differs
+   * from the previous frame of the same device. Advertisement count and uptime
+   * are not compared. Encrypted frames are compared as a whole.
+   *
+   * @return telemetry transformer
+   */
+  public static EddystoneTelemetry distinctReadings() {
+    return new EddystoneTelemetry(true, TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_SECONDS));
+  }
+
+  /**
+   * Creates copy of this decoder with provided idle timeout. Default timeout is 30 seconds.
+   * Telemetry of device seen again after the timeout is emitted, even if it didn't change.
+   *
+   * @param timeout time after which state of not seen device is removed
+   * @param unit unit of the timeout
+   * @return telemetry transformer
+   */
+  public EddystoneTelemetry withIdleTimeout(long timeout, TimeUnit unit) {
+    if (timeout <= 0) {
+      throw new IllegalArgumentException(MSG_TIMEOUT_MUST_BE_POSITIVE);
+    }
+    return new EddystoneTelemetry(readingsOnly, unit.toNanos(timeout));
+  }
+
+  @Override public ObservableSource<TelemetryFrame> apply(final Observable<Beacon> upstream) {
+    return Observable.defer(new Callable<ObservableSource<TelemetryFrame>>() {
+      @Override public ObservableSource<TelemetryFrame> call() {
+        Decoder decoder = new Decoder();
+        return upstream.filter(decoder).map(decoder);
+      }
+    });
+  }
+
+  @Override public Publisher<TelemetryFrame> apply(final Flowable<Beacon> upstream) {
+    return Flowable.defer(new Callable<Publisher<TelemetryFrame>>() {
+      @Override public Publisher<TelemetryFrame> call() {
+        Decoder decoder = new Decoder();
+        return upstream.filter(decoder).map(decoder);
+      }
+    });
+  }
+
+  @Override public String toString() {
+    return "EddystoneTelemetry{readingsOnly=" + readingsOnly
+        + ", idleTimeoutNanos=" + idleTimeoutNanos
+        + '}';
+  }
+
+  /**
+   * State of a single subscription. Predicate decodes the frame and checks if it changed,
+   * function creates telemetry of the frame, which is still wrapped by the flyweight.
+   */
+  private final class Decoder implements Predicate<Beacon>, Function<Beacon, TelemetryFrame> {
+    private final Eddystone eddystone = new Eddystone();
+    private final DeviceStates<State> states = new DeviceStates<>(idleTimeoutNanos);
+    private int version;
+    private long first;
+    private long second;
+
+    @Override public boolean test(Beacon beacon) {
+      if (beacon.scanRecord == null || !eddystone.wrap(beacon.scanRecord)
+          || !eddystone.isTlm() || !readFrame()) {
+        return false;
+      }
+
+      long now = beacon.timestampNanos;
+      long key = beacon.macAddress.toLong();
+      State state = states.get(key, now);
+      if (state == null) {
+        state = new State();
+        states.put(key, state);
+      } else if (state.version == version && state.first == first
+          && state.second == second) {
+        state.lastSeenNanos = now;
+        return false;
+      }
+      state.lastSeenNanos = now;
+      state.version = version;
+      state.first = first;
+      state.second = second;
+      return true;
+    }
+
+    @Override public TelemetryFrame apply(Beacon beacon) {
+      return TelemetryFrame.of(beacon, eddystone);
+    }
+
+    /**
+     * Packs compared content of the wrapped frame into two longs, so it can be
+     * compared with the previous frame without copying
+     *
+     * @return false when TLM version is unknown
+     */
+    private boolean readFrame() {
+      version = eddystone.tlmVersion();
+      if (version == Eddystone.TLM_VERSION_ENCRYPTED) {
+        // encrypted telemetry, salt and message integrity check
+        byte[] buffer = eddystone.buffer();
+        int offset = eddystone.encryptedTlmOffset();
+        first = bigEndian(buffer, offset, 8);
+        second = bigEndian(buffer, offset + 8, 8);
+        return true;
+      }
+      if (version != Eddystone.TLM_VERSION_PLAIN) {
+        return false;
+      }
+      first = (long) eddystone.batteryVoltage() << 16 | eddystone.temperatureRaw();
+      second = 0;
+      if (!readingsOnly) {
+        first |= eddystone.advertisementCount() << 32;
+        second = eddystone.uptime();
+      }
+      return true;
+    }
+  }
+
+  private static long bigEndian(byte[] buffer, int offset, int length) {
+    long value = 0;
+    for (int i = offset; i < offset + length; i++) {
+      value = value << 8 | buffer[i] & 0xFF;
+    }
+    return value;
+  }
+
+  private static final class State extends DeviceStates.State {
+    int version;
+    long first;
+    long second;
+  }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+
+import com.github.pwittchen.reactivebeacons.library.rx2.util.LongHashSet;
+import com.github.pwittchen.reactivebeacons.library.rx2.util.PrefixTrie;
+import io.reactivex.functions.Function;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Provides static filtering methods,
+ * which can be used with RxJava filter(...) method inside specific subscription.
+ * These methods can be used for filtering Proximity, distance, device names and MAC addresses.
+ * Methods accepting collections are backed by hash sets, so they should be used
+ * for large lists of names and MAC addresses. Several criteria can be combined
+ * into a single predicate with {@link BeaconFilter.Builder}.
+ */
+@SuppressWarnings("PMD")
+public class Filter {
+
+    public static Function<Beacon, Boolean> proximityIsEqualTo(final Proximity... proximities) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                Proximity beaconProximity = beacon.getProximity();
+                for (Proximity proximity : proximities) {
+                    if (beaconProximity == proximity) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with proximity other than all of provided proximities
+     *
+     * @param proximities excluded proximities
+     * @return filtering function
+     */
+    public static Function<Beacon, Boolean> proximityIsNotEqualTo(final Proximity... proximities) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                Proximity beaconProximity = beacon.getProximity();
+                for (Proximity proximity : proximities) {
+                    if (beaconProximity == proximity) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        };
+    }
+
+    public static Function<Beacon, Boolean> distanceIsEqualTo(final double distance) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                return beacon.getDistance() == distance;
+            }
+        };
+    }
+
+    public static Function<Beacon, Boolean> distanceIsGreaterThan(final double distance) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                return beacon.getDistance() > distance;
+            }
+        };
+    }
+
+    public static Function<Beacon, Boolean> distanceIsLowerThan(final double distance) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                return beacon.getDistance() < distance;
+            }
+        };
+    }
+
+    public static Function<Beacon, Boolean> hasName(final String... names) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                for (String name : names) {
+                    if (name.equals(beacon.name)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with name other than all of provided names
+     *
+     * @param names excluded device names
+     * @return filtering function
+     */
+    public static Function<Beacon, Boolean> exceptName(final String... names) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                for (String name : names) {
+                    if (name.equals(beacon.name)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        };
+    }
+
+    public static Function<Beacon, Boolean> hasMacAddress(final String... macs) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                for (String mac : macs) {
+                    if (beacon.macAddress.address.equals(mac)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with MAC address other than all of provided MAC addresses
+     *
+     * @param macs excluded MAC addresses
+     * @return filtering function
+     */
+    public static Function<Beacon, Boolean> exceptMacAddress(final String... macs) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                for (String mac : macs) {
+                    if (beacon.macAddress.address.equals(mac)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        };
+    }
+
+    public static Function<Beacon, Boolean> hasMacAddress(final MacAddress... macs) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                for (MacAddress mac : macs) {
+                    if (beacon.macAddress.equals(mac)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with MAC address other than all of provided MAC addresses
+     *
+     * @param macs excluded MAC addresses
+     * @return filtering function
+     */
+    public static Function<Beacon, Boolean> exceptMacAddress(final MacAddress... macs) {
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                for (MacAddress mac : macs) {
+                    if (beacon.macAddress.equals(mac)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with one of provided MAC addresses.
+     * Lookup takes constant time regardless of the number of addresses.
+     *
+     * @param macs MAC addresses in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+     * @return filtering function
+     * @throws IllegalArgumentException when one of MAC addresses is invalid
+     */
+    public static Function<Beacon, Boolean> hasMacAddressIn(final Collection<String> macs) {
+        final LongHashSet set = toLongHashSet(macs);
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                return set.contains(beacon.macAddress.toLong());
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with MAC address other than all of provided MAC addresses.
+     * Lookup takes constant time regardless of the number of addresses.
+     *
+     * @param macs MAC addresses in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+     * @return filtering function
+     * @throws IllegalArgumentException when one of MAC addresses is invalid
+     */
+    public static Function<Beacon, Boolean> exceptMacAddressIn(final Collection<String> macs) {
+        final LongHashSet set = toLongHashSet(macs);
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                return !set.contains(beacon.macAddress.toLong());
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with one of provided names.
+     * Lookup takes constant time regardless of the number of names.
+     *
+     * @param names device names
+     * @return filtering function
+     */
+    public static Function<Beacon, Boolean> hasNameIn(final Collection<String> names) {
+        final Set<String> set = new HashSet<>(names);
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                String name = beacon.name;
+                return name != null && set.contains(name);
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with name other than all of provided names.
+     * Lookup takes constant time regardless of the number of names.
+     *
+     * @param names device names
+     * @return filtering function
+     */
+    public static Function<Beacon, Boolean> exceptNameIn(final Collection<String> names) {
+        final Set<String> set = new HashSet<>(names);
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                String name = beacon.name;
+                return name == null || !set.contains(name);
+            }
+        };
+    }
+
+    /**
+     * Matches beacons with name starting with one of provided prefixes.
+     * Lookup takes time proportional to the length of the name, not to the number of prefixes.
+     *
+     * @param prefixes prefixes of device names
+     * @return filtering function
+     */
+    public static Function<Beacon, Boolean> hasNameStartingWith(final String... prefixes) {
+        final PrefixTrie trie = new PrefixTrie();
+        for (String prefix : prefixes) {
+            trie.add(prefix);
+        }
+        return new Function<Beacon, Boolean>() {
+            @Override
+            public Boolean apply(Beacon beacon) {
+                String name = beacon.name;
+                return name != null && trie.matchesPrefixOf(name);
+            }
+        };
+    }
+
+    private static LongHashSet toLongHashSet(Collection<String> macs) {
+        LongHashSet set = new LongHashSet(macs.size());
+        for (String mac : macs) {
+            set.add(MacAddress.toLong(mac));
+        }
+        return set;
+    }
+}
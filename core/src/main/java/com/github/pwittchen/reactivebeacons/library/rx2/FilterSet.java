@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.ScanRecordParser;
+import io.reactivex.functions.Predicate;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Declarative set of filters, which can be offloaded to Bluetooth controller
+ * (as a list of ScanFilter objects on Lollipop and newer Android versions)
+ * or applied in software, when controller filtering is not available.
+ * Beacon matches the set when it matches at least one of declared criteria.
+ * Empty set matches all beacons.
+ */
+public final class FilterSet {
+  public static final FilterSet EMPTY = new Builder().build();
+
+  private static final long BASE_UUID_MOST_SIGNIFICANT_BITS = 0x0000000000001000L;
+  private static final long BASE_UUID_LEAST_SIGNIFICANT_BITS = 0x800000805F9B34FBL;
+
+  private final Set<String> macAddresses;
+  private final Set<String> names;
+  private final Set<Integer> manufacturerIds;
+  private final Set<UUID> serviceUuids;
+
+  private FilterSet(Builder builder) {
+    this.macAddresses = Collections.unmodifiableSet(new LinkedHashSet<>(builder.macAddresses));
+    this.names = Collections.unmodifiableSet(new LinkedHashSet<>(builder.names));
+    this.manufacturerIds =
+        Collections.unmodifiableSet(new LinkedHashSet<>(builder.manufacturerIds));
+    this.serviceUuids = Collections.unmodifiableSet(new LinkedHashSet<>(builder.serviceUuids));
+  }
+
+  /**
+   * Gets MAC addresses in upper case, colon separated format used by Android
+   *
+   * @return set of MAC addresses
+   */
+  public Set<String> getMacAddresses() {
+    return macAddresses;
+  }
+
+  public Set<String> getNames() {
+    return names;
+  }
+
+  public Set<Integer> getManufacturerIds() {
+    return manufacturerIds;
+  }
+
+  public Set<UUID> getServiceUuids() {
+    return serviceUuids;
+  }
+
+  public boolean isEmpty() {
+    return macAddresses.isEmpty()
+        && names.isEmpty()
+        && manufacturerIds.isEmpty()
+        && serviceUuids.isEmpty();
+  }
+
+  /**
+   * Creates predicate applying this filter set in software,
+   * which can be used with RxJava filter(...) method
+   *
+   * @return predicate matching beacons
+   */
+  public Predicate<Beacon> toPredicate() {
+    return new Predicate<Beacon>() {
+      private final ScanRecordParser parser = new ScanRecordParser();
+
+      @Override public boolean test(Beacon beacon) {
+        return matches(beacon.macAddress.address, beacon.name, beacon.scanRecord, parser);
+      }
+    };
+  }
+
+  boolean matches(String macAddress, String name, byte[] scanRecord) {
+    return matches(macAddress, name, scanRecord, new ScanRecordParser());
+  }
+
+  private boolean matches(String macAddress, String name, byte[] scanRecord,
+      ScanRecordParser parser) {
+    if (isEmpty()) {
+      return true;
+    }
+
+    if (macAddress != null && macAddresses.contains(macAddress)) {
+      return true;
+    }
+
+    if (name != null && names.contains(name)) {
+      return true;
+    }
+
+    if (scanRecord == null || (manufacturerIds.isEmpty() && serviceUuids.isEmpty())) {
+      return false;
+    }
+
+    return matchesScanRecord(parser.wrap(scanRecord));
+  }
+
+  private boolean matchesScanRecord(ScanRecordParser parser) {
+    byte[] scanRecord = parser.buffer();
+    while (parser.next()) {
+      int dataOffset = parser.dataOffset();
+      int dataLength = parser.dataLength();
+
+      switch (parser.type()) {
+        case ScanRecordParser.TYPE_MANUFACTURER_SPECIFIC_DATA:
+          if (dataLength >= 2) {
+            int id = (scanRecord[dataOffset] & 0xFF) | (scanRecord[dataOffset + 1] & 0xFF) << 8;
+            if (manufacturerIds.contains(id)) {
+              return true;
+            }
+          }
+          break;
+        case ScanRecordParser.TYPE_SERVICE_UUIDS_16_BIT_INCOMPLETE:
+        case ScanRecordParser.TYPE_SERVICE_UUIDS_16_BIT_COMPLETE:
+          if (containsShortUuid(scanRecord, dataOffset, dataLength, 2)) {
+            return true;
+          }
+          break;
+        case ScanRecordParser.TYPE_SERVICE_UUIDS_32_BIT_INCOMPLETE:
+        case ScanRecordParser.TYPE_SERVICE_UUIDS_32_BIT_COMPLETE:
+          if (containsShortUuid(scanRecord, dataOffset, dataLength, 4)) {
+            return true;
+          }
+          break;
+        case ScanRecordParser.TYPE_SERVICE_UUIDS_128_BIT_INCOMPLETE:
+        case ScanRecordParser.TYPE_SERVICE_UUIDS_128_BIT_COMPLETE:
+          if (containsUuid(scanRecord, dataOffset, dataLength)) {
+            return true;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    return false;
+  }
+
+  private boolean containsShortUuid(byte[] data, int offset, int length, int size) {
+    if (serviceUuids.isEmpty()) {
+      return false;
+    }
+
+    for (int i = offset; i + size <= offset + length; i += size) {
+      long value = 0;
+      for (int j = size - 1; j >= 0; j--) {
+        value = value << 8 | (data[i + j] & 0xFF);
+      }
+      long mostSignificantBits = BASE_UUID_MOST_SIGNIFICANT_BITS | value << 32;
+      if (serviceUuids.contains(new UUID(mostSignificantBits, BASE_UUID_LEAST_SIGNIFICANT_BITS))) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private boolean containsUuid(byte[] data, int offset, int length) {
+    if (serviceUuids.isEmpty()) {
+      return false;
+    }
+
+    for (int i = offset; i + 16 <= offset + length; i += 16) {
+      // 128-bit UUIDs are advertised in little-endian byte order
+      long leastSignificantBits = 0;
+      long mostSignificantBits = 0;
+      for (int j = 7; j >= 0; j--) {
+        leastSignificantBits = leastSignificantBits << 8 | (data[i + j] & 0xFF);
+        mostSignificantBits = mostSignificantBits << 8 | (data[i + 8 + j] & 0xFF);
+      }
+      if (serviceUuids.contains(new UUID(mostSignificantBits, leastSignificantBits))) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  @Override public String toString() {
+    return "FilterSet{macAddresses=" + macAddresses
+        + ", names=" + names
+        + ", manufacturerIds=" + manufacturerIds
+        + ", serviceUuids=" + serviceUuids
+        + '}';
+  }
+
+  public static final class Builder {
+    private final Set<String> macAddresses = new LinkedHashSet<>();
+    private final Set<String> names = new LinkedHashSet<>();
+    private final Set<Integer> manufacturerIds = new LinkedHashSet<>();
+    private final Set<UUID> serviceUuids = new LinkedHashSet<>();
+
+    public Builder macAddresses(String... macs) {
+      for (String mac : macs) {
+        macAddresses.add(MacAddress.valueOf(mac).address);
+      }
+      return this;
+    }
+
+    public Builder names(String... deviceNames) {
+      Collections.addAll(names, deviceNames);
+      return this;
+    }
+
+    public Builder manufacturerIds(int... ids) {
+      for (int id : ids) {
+        if (id < 0 || id > 0xFFFF) {
+          throw new IllegalArgumentException("manufacturer id must be a 16-bit value");
+        }
+        manufacturerIds.add(id);
+      }
+      return this;
+    }
+
+    public Builder serviceUuids(UUID... uuids) {
+      Collections.addAll(serviceUuids, uuids);
+      return this;
+    }
+
+    public FilterSet build() {
+      return new FilterSet(this);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+/**
+ * 48-bit MAC address packed into a long value.
+ * Address is always formatted as upper case, colon separated string (e.g. 00:27:0E:2A:B9:AA).
+ * Use {@link #valueOf(String)} to reuse instances for repeated sightings of the same device.
+ */
+public final class MacAddress {
+  private static final String MSG_INVALID_ADDRESS = "MAC address is invalid";
+  private static final int ADDRESS_LENGTH = 17;
+  private static final long INVALID = -1L;
+  private static final long MAX_VALUE = 0xFFFFFFFFFFFFL;
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+  private static final int CACHE_BITS = 12;
+  private static final int CACHE_SIZE = 1 << CACHE_BITS;
+  private static final int CACHE_PROBES = 8; // has to be a power of two
+  private static final MacAddress[] CACHE = new MacAddress[CACHE_SIZE];
+  private static int nextVictim; // racy increments only change choice of replaced slot
+
+  public final String address;
+  private final long value;
+
+  /**
+   * Creates MAC address from a string in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+   *
+   * @param address MAC address
+   * @throws IllegalArgumentException when address is invalid
+   */
+  public MacAddress(String address) {
+    this(parse(address), address);
+  }
+
+  private MacAddress(long value, String address) {
+    if (value == INVALID) {
+      throw new IllegalArgumentException(MSG_INVALID_ADDRESS);
+    }
+    this.value = value;
+    this.address = isFormatted(address) ? address : format(value);
+  }
+
+  /**
+   * Gets MAC address for provided string. Instances are cached, so repeated sightings
+   * of the same device reuse one instance instead of allocating a new one.
+   * Cache is bounded and keeps all devices, when up to a few thousand of them are visible.
+   *
+   * @param address MAC address in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+   * @return MAC address
+   * @throws IllegalArgumentException when address is invalid
+   */
+  public static MacAddress valueOf(String address) {
+    long value = parse(address);
+    if (value == INVALID) {
+      throw new IllegalArgumentException(MSG_INVALID_ADDRESS);
+    }
+    MacAddress cached = cached(value);
+    return cached != null ? cached : intern(new MacAddress(value, address));
+  }
+
+  /**
+   * Gets MAC address for provided 48-bit value
+   *
+   * @param value MAC address packed into the lowest 48 bits
+   * @return MAC address
+   * @throws IllegalArgumentException when value exceeds 48 bits
+   */
+  public static MacAddress valueOf(long value) {
+    if (value < 0 || value > MAX_VALUE) {
+      throw new IllegalArgumentException(MSG_INVALID_ADDRESS);
+    }
+    MacAddress cached = cached(value);
+    return cached != null ? cached : intern(new MacAddress(value, null));
+  }
+
+  /**
+   * Checks if provided string is a valid MAC address
+   *
+   * @param address MAC address
+   * @return true if address is valid
+   */
+  public static boolean isValid(String address) {
+    return parse(address) != INVALID;
+  }
+
+  /**
+   * Packs MAC address into a long value without creating MacAddress object
+   *
+   * @param address MAC address in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+   * @return MAC address packed into the lowest 48 bits
+   * @throws IllegalArgumentException when address is invalid
+   */
+  public static long toLong(String address) {
+    long value = parse(address);
+    if (value == INVALID) {
+      throw new IllegalArgumentException(MSG_INVALID_ADDRESS);
+    }
+    return value;
+  }
+
+  /**
+   * Gets MAC address packed into a long value
+   *
+   * @return MAC address packed into the lowest 48 bits
+   */
+  public long toLong() {
+    return value;
+  }
+
+  private static MacAddress cached(long value) {
+    int index = index(value);
+    for (int i = 0; i < CACHE_PROBES; i++) {
+      MacAddress cached = CACHE[(index + i) & (CACHE_SIZE - 1)];
+      if (cached == null) {
+        // slots are never cleared, so the address isn't cached
+        return null;
+      }
+      if (cached.value == value) {
+        return cached;
+      }
+    }
+    return null;
+  }
+
+  private static MacAddress intern(MacAddress macAddress) {
+    // racy writes are safe, because MacAddress is immutable and has only final fields,
+    // lost writes only cause another allocation
+    int index = index(macAddress.value);
+    for (int i = 0; i < CACHE_PROBES; i++) {
+      int slot = (index + i) & (CACHE_SIZE - 1);
+      if (CACHE[slot] == null) {
+        CACHE[slot] = macAddress;
+        return macAddress;
+      }
+    }
+    // all probed slots are taken, so one of them is replaced at random and addresses,
+    // which are not seen anymore (e.g. rotated private addresses), are evicted eventually
+    int victim = (index + (nextVictim++ & (CACHE_PROBES - 1))) & (CACHE_SIZE - 1);
+    CACHE[victim] = macAddress;
+    return macAddress;
+  }
+
+  private static int index(long value) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> (64 - CACHE_BITS));
+  }
+
+  private static long parse(String address) {
+    if (address == null || address.length() != ADDRESS_LENGTH) {
+      return INVALID;
+    }
+
+    long value = 0;
+    for (int i = 0; i < ADDRESS_LENGTH; i += 3) {
+      int high = hexValue(address.charAt(i));
+      int low = hexValue(address.charAt(i + 1));
+      if (high < 0 || low < 0) {
+        return INVALID;
+      }
+      if (i + 2 < ADDRESS_LENGTH) {
+        char separator = address.charAt(i + 2);
+        if (separator != ':' && separator != '-') {
+          return INVALID;
+        }
+      }
+      value = value << 8 | high << 4 | low;
+    }
+    return value;
+  }
+
+  private static int hexValue(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    }
+    if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+    if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    }
+    return -1;
+  }
+
+  private static boolean isFormatted(String address) {
+    if (address == null) {
+      return false;
+    }
+    for (int i = 0; i < ADDRESS_LENGTH; i++) {
+      char c = address.charAt(i);
+      if (c == '-' || (c >= 'a' && c <= 'f')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String format(long value) {
+    char[] chars = new char[ADDRESS_LENGTH];
+    for (int i = 0; i < 6; i++) {
+      int octet = (int) (value >>> (40 - 8 * i)) & 0xFF;
+      chars[i * 3] = HEX_DIGITS[octet >>> 4];
+      chars[i * 3 + 1] = HEX_DIGITS[octet & 0x0F];
+      if (i < 5) {
+        chars[i * 3 + 2] = ':';
+      }
+    }
+    return new String(chars);
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    return value == ((MacAddress) o).value;
+  }
+
+  @Override public int hashCode() {
+    return (int) (value ^ (value >>> 32));
+  }
+
+  @Override public String toString() {
+    return address;
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.FlowableOperator;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Function;
+import io.reactivex.plugins.RxJavaPlugins;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Bounded buffer between unbounded scan results and downstream demand,
+ * which applies {@link OverflowPolicy} when the buffer is full
+ *
+ * @param <T> type of buffered items
+ */
+final class OverflowOperator<T> implements FlowableOperator<T, T> {
+  private final OverflowPolicy policy;
+  private final Function<T, Object> keySelector;
+  private final Action onDropped;
+
+  OverflowOperator(OverflowPolicy policy, Function<T, Object> keySelector, Action onDropped) {
+    this.policy = policy;
+    this.keySelector = keySelector;
+    this.onDropped = onDropped;
+  }
+
+  @Override public Subscriber<? super T> apply(Subscriber<? super T> downstream) {
+    return new OverflowSubscriber<>(downstream, policy, keySelector, onDropped);
+  }
+
+  static final class OverflowSubscriber<T> implements FlowableSubscriber<T>, Subscription {
+    private final Subscriber<? super T> downstream;
+    private final OverflowPolicy policy;
+    private final Function<T, Object> keySelector;
+    private final Action onDropped;
+    private final ArrayDeque<T> queue = new ArrayDeque<>();
+    private final LinkedHashMap<Object, T> latest = new LinkedHashMap<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private Subscription upstream;
+    private Throwable error;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+
+    OverflowSubscriber(Subscriber<? super T> downstream, OverflowPolicy policy,
+        Function<T, Object> keySelector, Action onDropped) {
+      this.downstream = downstream;
+      this.policy = policy;
+      this.keySelector = keySelector;
+      this.onDropped = onDropped;
+    }
+
+    @Override public void onSubscribe(Subscription subscription) {
+      upstream = subscription;
+      downstream.onSubscribe(this);
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override public void onNext(T item) {
+      if (done) {
+        return;
+      }
+
+      boolean accepted;
+      try {
+        accepted = offer(item);
+      } catch (Throwable throwable) {
+        Exceptions.throwIfFatal(throwable);
+        upstream.cancel();
+        onError(throwable);
+        return;
+      }
+
+      if (!accepted) {
+        upstream.cancel();
+        onError(new MissingBackpressureException("Buffer is full, capacity: " + policy.capacity));
+        return;
+      }
+      drain();
+    }
+
+    @Override public void onError(Throwable throwable) {
+      if (done) {
+        RxJavaPlugins.onError(throwable);
+        return;
+      }
+      error = throwable;
+      done = true;
+      drain();
+    }
+
+    @Override public void onComplete() {
+      done = true;
+      drain();
+    }
+
+    @Override public void request(long n) {
+      if (n <= 0) {
+        return;
+      }
+      for (; ; ) {
+        long current = requested.get();
+        long next = current + n;
+        if (next < 0) {
+          next = Long.MAX_VALUE;
+        }
+        if (requested.compareAndSet(current, next)) {
+          break;
+        }
+      }
+      drain();
+    }
+
+    @Override public void cancel() {
+      cancelled = true;
+      upstream.cancel();
+      if (wip.getAndIncrement() == 0) {
+        clear();
+      }
+    }
+
+    private boolean offer(T item) throws Exception {
+      synchronized (this) {
+        if (policy.strategy == OverflowPolicy.Strategy.LATEST_PER_MAC_ADDRESS) {
+          Object key = keySelector.apply(item);
+          if (latest.put(key, item) != null) {
+            onDropped();
+          } else if (latest.size() > policy.capacity) {
+            Iterator<Map.Entry<Object, T>> eldest = latest.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            onDropped();
+          }
+          return true;
+        }
+
+        if (queue.size() < policy.capacity) {
+          queue.offer(item);
+          return true;
+        }
+
+        onDropped();
+        switch (policy.strategy) {
+          case DROP_OLDEST:
+            queue.poll();
+            queue.offer(item);
+            return true;
+          case DROP_NEWEST:
+            return true;
+          default:
+            return false;
+        }
+      }
+    }
+
+    private void onDropped() throws Exception {
+      policy.onDropped();
+      onDropped.run();
+    }
+
+    private T poll() {
+      synchronized (this) {
+        if (policy.strategy == OverflowPolicy.Strategy.LATEST_PER_MAC_ADDRESS) {
+          Iterator<T> iterator = latest.values().iterator();
+          if (!iterator.hasNext()) {
+            return null;
+          }
+          T item = iterator.next();
+          iterator.remove();
+          return item;
+        }
+        return queue.poll();
+      }
+    }
+
+    private void clear() {
+      synchronized (this) {
+        queue.clear();
+        latest.clear();
+      }
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+
+      int missed = 1;
+      for (; ; ) {
+        long r = requested.get();
+        long emitted = 0;
+
+        while (emitted != r) {
+          if (isTerminated()) {
+            return;
+          }
+
+          T item = poll();
+          if (item == null) {
+            break;
+          }
+
+          downstream.onNext(item);
+          emitted++;
+        }
+
+        if (emitted == r && isTerminated()) {
+          return;
+        }
+
+        if (emitted != 0 && r != Long.MAX_VALUE) {
+          requested.addAndGet(-emitted);
+        }
+
+        missed = wip.addAndGet(-missed);
+        if (missed == 0) {
+          break;
+        }
+      }
+    }
+
+    private boolean isTerminated() {
+      if (cancelled) {
+        clear();
+        return true;
+      }
+
+      if (done && error != null) {
+        clear();
+        downstream.onError(error);
+        return true;
+      }
+
+      if (done && isEmpty()) {
+        downstream.onComplete();
+        return true;
+      }
+
+      return false;
+    }
+
+    private boolean isEmpty() {
+      synchronized (this) {
+        return queue.isEmpty() && latest.isEmpty();
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Function;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Describes what happens with beacons, which arrive when downstream subscriber
+ * of a Flowable stream is not ready to receive them and the buffer is already full.
+ * Policy counts all dropped beacons, so buffer size can be adjusted to the real load.
+ */
+public final class OverflowPolicy {
+  private static final String MSG_CAPACITY_MUST_BE_POSITIVE = "capacity must be greater than zero";
+  private static final String MSG_ON_DROPPED_NULL = "onDropped == null";
+
+  private static final Function<Beacon, Object> MAC_ADDRESS_KEY = new Function<Beacon, Object>() {
+    @Override public Object apply(Beacon beacon) {
+      return beacon.macAddress;
+    }
+  };
+
+  static final Action NO_ACTION = new Action() {
+    @Override public void run() {
+    }
+  };
+
+  public enum Strategy {
+    /**
+     * Buffers beacons and signals MissingBackpressureException when buffer overflows
+     */
+    BUFFER,
+    /**
+     * Drops the oldest buffered beacon to make room for the new one
+     */
+    DROP_OLDEST,
+    /**
+     * Drops the new beacon when buffer is full
+     */
+    DROP_NEWEST,
+    /**
+     * Keeps only the latest beacon of every MAC address, capacity limits number of addresses
+     */
+    LATEST_PER_MAC_ADDRESS
+  }
+
+  public final Strategy strategy;
+  public final int capacity;
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  private OverflowPolicy(Strategy strategy, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException(MSG_CAPACITY_MUST_BE_POSITIVE);
+    }
+    this.strategy = strategy;
+    this.capacity = capacity;
+  }
+
+  public static OverflowPolicy buffer(int capacity) {
+    return new OverflowPolicy(Strategy.BUFFER, capacity);
+  }
+
+  public static OverflowPolicy dropOldest(int capacity) {
+    return new OverflowPolicy(Strategy.DROP_OLDEST, capacity);
+  }
+
+  public static OverflowPolicy dropNewest(int capacity) {
+    return new OverflowPolicy(Strategy.DROP_NEWEST, capacity);
+  }
+
+  public static OverflowPolicy latestPerMacAddress(int capacity) {
+    return new OverflowPolicy(Strategy.LATEST_PER_MAC_ADDRESS, capacity);
+  }
+
+  /**
+   * Gets number of beacons dropped by all streams using this policy
+   *
+   * @return number of dropped beacons
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * Converts observable stream of beacons into Flowable stream respecting this policy
+   *
+   * @param beacons Observable stream of beacons
+   * @return Flowable stream of beacons
+   */
+  public Flowable<Beacon> toFlowable(Observable<Beacon> beacons) {
+    return toFlowable(beacons, NO_ACTION);
+  }
+
+  /**
+   * Converts observable stream of beacons into Flowable stream respecting this policy
+   * and reports every beacon dropped by this stream to provided action.
+   * Action is invoked only while the stream is subscribed, so drops of other streams
+   * sharing this policy are not reported to it.
+   *
+   * @param beacons Observable stream of beacons
+   * @param onDropped action invoked for every beacon dropped by this stream
+   * @return Flowable stream of beacons
+   */
+  public Flowable<Beacon> toFlowable(Observable<Beacon> beacons, Action onDropped) {
+    if (onDropped == null) {
+      throw new IllegalArgumentException(MSG_ON_DROPPED_NULL);
+    }
+    return beacons.toFlowable(BackpressureStrategy.MISSING)
+        .lift(new OverflowOperator<>(this, MAC_ADDRESS_KEY, onDropped));
+  }
+
+  void onDropped() {
+    droppedCount.incrementAndGet();
+  }
+
+  @Override public String toString() {
+    return "OverflowPolicy{strategy=" + strategy + ", capacity=" + capacity + '}';
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+/**
+ * Change of the beacon presence in {@link BeaconRegistry}
+ */
+public final class RegistryEvent {
+  public enum Type {
+    /**
+     * Beacon was seen for the first time or after it has expired
+     */
+    ENTER,
+    /**
+     * Beacon, which is already present in the registry, was seen again
+     */
+    UPDATE,
+    /**
+     * Beacon was not seen for the time to live, event contains its last sighting
+     */
+    EXIT
+  }
+
+  public final Type type;
+  public final Beacon beacon;
+
+  RegistryEvent(Type type, Beacon beacon) {
+    this.type = type;
+    this.beacon = beacon;
+  }
+
+  @Override public String toString() {
+    return "RegistryEvent{type=" + type + ", beacon=" + beacon + '}';
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Emitter;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Updates registry entries and expires them with a hashed timer wheel.
+ * Entry is placed in the bucket of its deadline only when it's added or when
+ * its bucket is reached, so updates don't move entries between buckets
+ * and every tick visits only entries of one bucket.
+ * Methods have to be called serially.
+ */
+final class RegistryTracker {
+  // deadlines are never further than TICKS_PER_TTL ticks, so they fit into one rotation
+  static final int TICKS_PER_TTL = 16;
+  private static final int WHEEL_SIZE = 32;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private final ConcurrentMap<MacAddress, BeaconRegistry.Entry> entries;
+  private final Emitter<RegistryEvent> emitter;
+  private final long ttlNanos;
+  private final long tickNanos;
+  private final BeaconRegistry.Entry[] wheel = new BeaconRegistry.Entry[WHEEL_SIZE];
+  private long currentTick;
+
+  RegistryTracker(ConcurrentMap<MacAddress, BeaconRegistry.Entry> entries,
+      Emitter<RegistryEvent> emitter, long ttlNanos, long nowNanos) {
+    this.entries = entries;
+    this.emitter = emitter;
+    this.ttlNanos = ttlNanos;
+    this.tickNanos = Math.max(1, ttlNanos / TICKS_PER_TTL);
+    this.currentTick = nowNanos / tickNanos;
+  }
+
+  void onSighting(MacAddress key, Beacon beacon, long nowNanos) {
+    BeaconRegistry.Entry entry = entries.get(key);
+    if (entry != null) {
+      entry.beacon = beacon;
+      entry.lastSeenNanos = nowNanos;
+      emitter.onNext(new RegistryEvent(RegistryEvent.Type.UPDATE, beacon));
+      return;
+    }
+
+    entry = new BeaconRegistry.Entry(key, beacon, nowNanos);
+    entries.put(key, entry);
+    schedule(entry);
+    emitter.onNext(new RegistryEvent(RegistryEvent.Type.ENTER, beacon));
+  }
+
+  void onTick(long nowNanos) {
+    long targetTick = nowNanos / tickNanos;
+    // after a long pause it's enough to visit every bucket once
+    long firstTick = Math.max(currentTick + 1, targetTick - WHEEL_MASK);
+    for (long tick = firstTick; tick <= targetTick; tick++) {
+      currentTick = tick;
+      expire((int) (tick & WHEEL_MASK), nowNanos);
+    }
+    currentTick = Math.max(currentTick, targetTick);
+  }
+
+  void clear() {
+    for (int i = 0; i < WHEEL_SIZE; i++) {
+      BeaconRegistry.Entry entry = wheel[i];
+      wheel[i] = null;
+      while (entry != null) {
+        entries.remove(entry.key, entry);
+        entry = entry.next;
+      }
+    }
+  }
+
+  private void expire(int bucket, long nowNanos) {
+    BeaconRegistry.Entry entry = wheel[bucket];
+    wheel[bucket] = null;
+    while (entry != null) {
+      BeaconRegistry.Entry next = entry.next;
+      entry.next = null;
+      if (nowNanos - entry.lastSeenNanos >= ttlNanos) {
+        entries.remove(entry.key, entry);
+        emitter.onNext(new RegistryEvent(RegistryEvent.Type.EXIT, entry.beacon));
+      } else {
+        schedule(entry);
+      }
+      entry = next;
+    }
+  }
+
+  private void schedule(BeaconRegistry.Entry entry) {
+    long deadline = entry.lastSeenNanos + ttlNanos;
+    long deadlineTick = (deadline + tickNanos - 1) / tickNanos;
+    if (deadlineTick <= currentTick) {
+      deadlineTick = currentTick + 1;
+    }
+    int bucket = (int) (deadlineTick & WHEEL_MASK);
+    entry.next = wheel[bucket];
+    wheel[bucket] = entry;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+/**
+ * Keeps smoothing state of every device. It's not thread-safe,
+ * so every subscription uses its own instance.
+ */
+final class RssiSmoother {
+  private final RssiSmoothing smoothing;
+  private final DeviceStates<State> states;
+
+  RssiSmoother(RssiSmoothing smoothing) {
+    this.smoothing = smoothing;
+    this.states = new DeviceStates<>(smoothing.idleTimeoutNanos);
+  }
+
+  /**
+   * Updates state of the device with the new measurement
+   *
+   * @param key device key (packed MAC address)
+   * @param rssi measured RSSI
+   * @param timestampNanos timestamp of the measurement in nanoseconds
+   * @return smoothed RSSI
+   */
+  double smooth(long key, int rssi, long timestampNanos) {
+    State state = states.get(key, timestampNanos);
+    if (state == null) {
+      state = new State();
+      state.lastSeenNanos = timestampNanos;
+      state.estimate = rssi;
+      state.errorCovariance = smoothing.measurementNoise;
+      states.put(key, state);
+      return rssi;
+    }
+    state.lastSeenNanos = timestampNanos;
+
+    if (smoothing.method == RssiSmoothing.Method.KALMAN) {
+      double predictedCovariance = state.errorCovariance + smoothing.processNoise;
+      double gain = predictedCovariance / (predictedCovariance + smoothing.measurementNoise);
+      state.estimate += gain * (rssi - state.estimate);
+      state.errorCovariance = (1 - gain) * predictedCovariance;
+    } else {
+      state.estimate += smoothing.alpha * (rssi - state.estimate);
+    }
+    return state.estimate;
+  }
+
+  int size() {
+    return states.size();
+  }
+
+  private static final class State extends DeviceStates.State {
+    double estimate;
+    double errorCovariance;
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Function;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+
+/**
+ * Smooths RSSI of every device separately, so distance and proximity of beacons
+ * don't flap because of the signal noise. Can be applied to Observable and Flowable
+ * streams with compose(...) method. Emitted beacons have smoothed RSSI rounded to 1 dBm.
+ * State of devices, which were not seen for the idle timeout, is removed,
+ * so memory usage depends only on the number of recently seen devices.
+ * Idle timeout is measured with timestamps of the beacons, so recorded traces
+ * are smoothed the same way as live scans.
+ */
+public final class RssiSmoothing
+    implements ObservableTransformer<Beacon, Beacon>, FlowableTransformer<Beacon, Beacon> {
+  private static final String MSG_ALPHA_OUT_OF_RANGE = "alpha must be in range (0, 1]";
+  private static final String MSG_NOISE_MUST_BE_POSITIVE = "noise must be greater than zero";
+  private static final String MSG_TIMEOUT_MUST_BE_POSITIVE = "timeout must be greater than zero";
+  private static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 30;
+
+  public enum Method {
+    /**
+     * Exponential moving average, cheap and predictable, but lags behind moving devices
+     */
+    EXPONENTIAL_MOVING_AVERAGE,
+    /**
+     * One-dimensional Kalman filter, adapts its gain to the measurement noise
+     */
+    KALMAN
+  }
+
+  public final Method method;
+  final double alpha;
+  final double processNoise;
+  final double measurementNoise;
+  final long idleTimeoutNanos;
+
+  private RssiSmoothing(Method method, double alpha, double processNoise,
+      double measurementNoise, long idleTimeoutNanos) {
+    this.method = method;
+    this.alpha = alpha;
+    this.processNoise = processNoise;
+    this.measurementNoise = measurementNoise;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+  }
+
+  /**
+   * Creates exponential moving average smoothing
+   *
+   * @param alpha weight of the new measurement in range (0, 1], lower value smooths more
+   * @return smoothing transformer
+   */
+  public static RssiSmoothing exponentialMovingAverage(double alpha) {
+    if (!(alpha > 0 && alpha <= 1)) {
+      throw new IllegalArgumentException(MSG_ALPHA_OUT_OF_RANGE);
+    }
+    return new RssiSmoothing(Method.EXPONENTIAL_MOVING_AVERAGE, alpha, 0, 0,
+        TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_SECONDS));
+  }
+
+  /**
+   * Creates Kalman filter smoothing
+   *
+   * @param processNoise variance of the real RSSI changes between measurements (e.g. 0.01)
+   * @param measurementNoise variance of the RSSI measurement noise (e.g. 4)
+   * @return smoothing transformer
+   */
+  public static RssiSmoothing kalman(double processNoise, double measurementNoise) {
+    if (!(processNoise > 0) || !(measurementNoise > 0)) {
+      throw new IllegalArgumentException(MSG_NOISE_MUST_BE_POSITIVE);
+    }
+    return new RssiSmoothing(Method.KALMAN, 0, processNoise, measurementNoise,
+        TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_SECONDS));
+  }
+
+  /**
+   * Creates copy of this smoothing with provided idle timeout. Default timeout is 30 seconds.
+   *
+   * @param timeout time after which state of not seen device is removed
+   * @param unit unit of the timeout
+   * @return smoothing transformer
+   */
+  public RssiSmoothing withIdleTimeout(long timeout, TimeUnit unit) {
+    if (timeout <= 0) {
+      throw new IllegalArgumentException(MSG_TIMEOUT_MUST_BE_POSITIVE);
+    }
+    return new RssiSmoothing(method, alpha, processNoise, measurementNoise,
+        unit.toNanos(timeout));
+  }
+
+  @Override public ObservableSource<Beacon> apply(final Observable<Beacon> upstream) {
+    return Observable.defer(new Callable<ObservableSource<Beacon>>() {
+      @Override public ObservableSource<Beacon> call() {
+        return upstream.map(createSmoothingFunction());
+      }
+    });
+  }
+
+  @Override public Publisher<Beacon> apply(final Flowable<Beacon> upstream) {
+    return Flowable.defer(new Callable<Publisher<Beacon>>() {
+      @Override public Publisher<Beacon> call() {
+        return upstream.map(createSmoothingFunction());
+      }
+    });
+  }
+
+  private Function<Beacon, Beacon> createSmoothingFunction() {
+    // every subscription has its own state
+    final RssiSmoother smoother = new RssiSmoother(this);
+    return new Function<Beacon, Beacon>() {
+      @Override public Beacon apply(Beacon beacon) {
+        double rssi =
+            smoother.smooth(beacon.macAddress.toLong(), beacon.rssi, beacon.timestampNanos);
+        return beacon.withRssi((int) Math.round(rssi));
+      }
+    };
+  }
+
+  @Override public String toString() {
+    return "RssiSmoothing{method=" + method + ", idleTimeoutNanos=" + idleTimeoutNanos + '}';
+  }
+}
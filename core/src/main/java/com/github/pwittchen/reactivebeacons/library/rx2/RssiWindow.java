@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+/**
+ * RSSI samples of a single device in a sliding time window. Samples are kept in a ring
+ * buffer of fixed capacity, when it's full, the oldest sample is replaced.
+ * Sum and sum of squares are updated incrementally, median is kept by two indexed heaps
+ * (lower half in max-heap, upper half in min-heap) and minimum and maximum by monotonic
+ * queues, so adding and expiring a sample takes O(log capacity) time.
+ * All arrays are allocated up front, which takes about 25 bytes per sample of capacity.
+ * It's not thread-safe.
+ */
+final class RssiWindow extends DeviceStates.State {
+  private final int capacity;
+  private final long[] timestamps;
+  private final byte[] values;
+  // index of the sample in the lower heap or bitwise complement of its index in the upper heap
+  private final int[] positions;
+  private final int[] lower;
+  private final int[] upper;
+  // samples with increasing and decreasing values, the oldest first
+  private final int[] minimums;
+  private final int[] maximums;
+  private int first;
+  private int size;
+  private int lowerSize;
+  private int upperSize;
+  private int minimumsFirst;
+  private int minimumsSize;
+  private int maximumsFirst;
+  private int maximumsSize;
+  private long sum;
+  private long sumOfSquares;
+  Beacon beacon;
+
+  RssiWindow(int capacity) {
+    this.capacity = capacity;
+    this.timestamps = new long[capacity];
+    this.values = new byte[capacity];
+    this.positions = new int[capacity];
+    this.lower = new int[capacity / 2 + 1];
+    this.upper = new int[capacity / 2 + 1];
+    this.minimums = new int[capacity];
+    this.maximums = new int[capacity];
+  }
+
+  /**
+   * Adds the sample, when the window is full, the oldest sample is removed
+   *
+   * @param rssi measured RSSI, clamped to the range of a byte
+   * @param timestampNanos time of the measurement
+   */
+  void add(int rssi, long timestampNanos) {
+    if (size == capacity) {
+      removeOldest();
+    }
+    int slot = (first + size) % capacity;
+    size++;
+    byte value = (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, rssi));
+    values[slot] = value;
+    timestamps[slot] = timestampNanos;
+    sum += value;
+    sumOfSquares += value * value;
+
+    if (lowerSize == 0 || value <= values[lower[0]]) {
+      push(true, slot);
+    } else {
+      push(false, slot);
+    }
+    rebalance();
+
+    while (minimumsSize > 0 && values[minimums[last(minimumsFirst, minimumsSize)]] >= value) {
+      minimumsSize--;
+    }
+    minimums[(minimumsFirst + minimumsSize++) % capacity] = slot;
+    while (maximumsSize > 0 && values[maximums[last(maximumsFirst, maximumsSize)]] <= value) {
+      maximumsSize--;
+    }
+    maximums[(maximumsFirst + maximumsSize++) % capacity] = slot;
+  }
+
+  /**
+   * Removes samples measured at or before provided time
+   *
+   * @param cutoffNanos time of the newest sample to remove
+   */
+  void expire(long cutoffNanos) {
+    while (size > 0 && timestamps[first] <= cutoffNanos) {
+      removeOldest();
+    }
+  }
+
+  int count() {
+    return size;
+  }
+
+  double mean() {
+    return size == 0 ? Double.NaN : (double) sum / size;
+  }
+
+  /**
+   * Gets population standard deviation, which is computed from integer sums without
+   * accumulating rounding errors
+   *
+   * @return standard deviation or NaN when window is empty
+   */
+  double standardDeviation() {
+    if (size == 0) {
+      return Double.NaN;
+    }
+    double variance = (double) (size * sumOfSquares - sum * sum) / ((double) size * size);
+    return Math.sqrt(Math.max(0, variance));
+  }
+
+  double median() {
+    if (size == 0) {
+      return Double.NaN;
+    }
+    if (lowerSize > upperSize) {
+      return values[lower[0]];
+    }
+    return (values[lower[0]] + values[upper[0]]) / 2.0;
+  }
+
+  int minimum() {
+    return values[minimums[minimumsFirst]];
+  }
+
+  int maximum() {
+    return values[maximums[maximumsFirst]];
+  }
+
+  private void removeOldest() {
+    int slot = first;
+    byte value = values[slot];
+    sum -= value;
+    sumOfSquares -= value * value;
+
+    int position = positions[slot];
+    if (position >= 0) {
+      removeAt(true, position);
+    } else {
+      removeAt(false, ~position);
+    }
+    rebalance();
+
+    // the oldest sample can be only at the head of the queues
+    if (minimums[minimumsFirst] == slot) {
+      minimumsFirst = (minimumsFirst + 1) % capacity;
+      minimumsSize--;
+    }
+    if (maximums[maximumsFirst] == slot) {
+      maximumsFirst = (maximumsFirst + 1) % capacity;
+      maximumsSize--;
+    }
+    first = (first + 1) % capacity;
+    size--;
+  }
+
+  private int last(int queueFirst, int queueSize) {
+    return (queueFirst + queueSize - 1) % capacity;
+  }
+
+  private void rebalance() {
+    if (lowerSize > upperSize + 1) {
+      int slot = lower[0];
+      removeAt(true, 0);
+      push(false, slot);
+    } else if (upperSize > lowerSize) {
+      int slot = upper[0];
+      removeAt(false, 0);
+      push(true, slot);
+    }
+  }
+
+  private void push(boolean lowerHalf, int slot) {
+    int index = lowerHalf ? lowerSize++ : upperSize++;
+    place(lowerHalf, index, slot);
+    siftUp(lowerHalf, index);
+  }
+
+  private void removeAt(boolean lowerHalf, int index) {
+    int[] heap = lowerHalf ? lower : upper;
+    int lastIndex = lowerHalf ? --lowerSize : --upperSize;
+    if (index == lastIndex) {
+      return;
+    }
+    place(lowerHalf, index, heap[lastIndex]);
+    if (siftUp(lowerHalf, index) == index) {
+      siftDown(lowerHalf, index);
+    }
+  }
+
+  private int siftUp(boolean lowerHalf, int index) {
+    int[] heap = lowerHalf ? lower : upper;
+    int slot = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (!precedes(lowerHalf, slot, heap[parent])) {
+        break;
+      }
+      place(lowerHalf, index, heap[parent]);
+      index = parent;
+    }
+    place(lowerHalf, index, slot);
+    return index;
+  }
+
+  private void siftDown(boolean lowerHalf, int index) {
+    int[] heap = lowerHalf ? lower : upper;
+    int heapSize = lowerHalf ? lowerSize : upperSize;
+    int slot = heap[index];
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && precedes(lowerHalf, heap[child + 1], heap[child])) {
+        child++;
+      }
+      if (!precedes(lowerHalf, heap[child], slot)) {
+        break;
+      }
+      place(lowerHalf, index, heap[child]);
+      index = child;
+    }
+    place(lowerHalf, index, slot);
+  }
+
+  private boolean precedes(boolean lowerHalf, int slot, int other) {
+    return lowerHalf ? values[slot] > values[other] : values[slot] < values[other];
+  }
+
+  private void place(boolean lowerHalf, int index, int slot) {
+    if (lowerHalf) {
+      lower[index] = slot;
+      positions[slot] = index;
+    } else {
+      upper[index] = slot;
+      positions[slot] = ~index;
+    }
+  }
+}
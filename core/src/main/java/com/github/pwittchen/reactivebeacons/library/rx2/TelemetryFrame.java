@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.Eddystone;
+import java.util.Arrays;
+
+/**
+ * Telemetry of Eddystone beacon decoded from TLM frame by {@link EddystoneTelemetry}.
+ * Plain frames contain battery voltage, temperature, advertisement count and uptime.
+ * Encrypted frames contain only salt and message integrity check, their telemetry
+ * can be decrypted with the identity key of the beacon.
+ */
+public final class TelemetryFrame {
+  private static final int TEMPERATURE_NOT_SUPPORTED = 0x8000;
+  private static final int ENCRYPTED_TELEMETRY_LENGTH = 12;
+
+  /**
+   * Sighting, which advertised the frame
+   */
+  public final Beacon beacon;
+  public final boolean encrypted;
+  /**
+   * Battery voltage in millivolts, 0 if not supported by the beacon or frame is encrypted
+   */
+  public final int batteryVoltage;
+  /**
+   * Temperature in degrees Celsius, NaN if not supported by the beacon or frame is encrypted
+   */
+  public final float temperature;
+  /**
+   * Number of advertisements sent since power-up or reboot
+   */
+  public final long advertisementCount;
+  /**
+   * Time since power-up or reboot in milliseconds (with 100 ms resolution)
+   */
+  public final long uptimeMillis;
+  public final int salt;
+  public final int messageIntegrityCheck;
+  private final int encryptedTelemetryOffset;
+
+  private TelemetryFrame(Beacon beacon, boolean encrypted, int batteryVoltage,
+      float temperature, long advertisementCount, long uptimeMillis, int salt,
+      int messageIntegrityCheck, int encryptedTelemetryOffset) {
+    this.beacon = beacon;
+    this.encrypted = encrypted;
+    this.batteryVoltage = batteryVoltage;
+    this.temperature = temperature;
+    this.advertisementCount = advertisementCount;
+    this.uptimeMillis = uptimeMillis;
+    this.salt = salt;
+    this.messageIntegrityCheck = messageIntegrityCheck;
+    this.encryptedTelemetryOffset = encryptedTelemetryOffset;
+  }
+
+  /**
+   * Creates frame from TLM frame wrapped by provided flyweight
+   *
+   * @param beacon sighting with the scan record wrapped by the flyweight
+   * @param eddystone flyweight wrapping TLM frame
+   * @return telemetry frame
+   */
+  static TelemetryFrame of(Beacon beacon, Eddystone eddystone) {
+    if (eddystone.isEncryptedTlm()) {
+      return new TelemetryFrame(beacon, true, 0, Float.NaN, 0, 0, eddystone.salt(),
+          eddystone.messageIntegrityCheck(), eddystone.encryptedTlmOffset());
+    }
+    float temperature = eddystone.temperatureRaw() == TEMPERATURE_NOT_SUPPORTED ? Float.NaN
+        : eddystone.temperature();
+    return new TelemetryFrame(beacon, false, eddystone.batteryVoltage(), temperature,
+        eddystone.advertisementCount(), eddystone.uptime() * 100, 0, 0, -1);
+  }
+
+  /**
+   * Copies 12 bytes of encrypted telemetry from the scan record.
+   * Please note, that this method allocates memory.
+   *
+   * @return encrypted telemetry or null, when frame isn't encrypted
+   */
+  public byte[] copyEncryptedTelemetry() {
+    if (!encrypted) {
+      return null;
+    }
+    return Arrays.copyOfRange(beacon.scanRecord, encryptedTelemetryOffset,
+        encryptedTelemetryOffset + ENCRYPTED_TELEMETRY_LENGTH);
+  }
+
+  @Override public String toString() {
+    if (encrypted) {
+      return "TelemetryFrame{macAddress=" + beacon.macAddress
+          + ", encrypted=true"
+          + ", salt=" + salt
+          + ", messageIntegrityCheck=" + messageIntegrityCheck
+          + '}';
+    }
+    return "TelemetryFrame{macAddress=" + beacon.macAddress
+        + ", batteryVoltage=" + batteryVoltage
+        + ", temperature=" + temperature
+        + ", advertisementCount=" + advertisementCount
+        + ", uptimeMillis=" + uptimeMillis
+        + '}';
+  }
+}
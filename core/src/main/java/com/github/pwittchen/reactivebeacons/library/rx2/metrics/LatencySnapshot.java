@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of {@link LatencyHistogram}. Percentiles are reported as the highest
+ * value equivalent to the bucket they fall into, so they're never underestimated
+ * by more than the histogram precision.
+ */
+public final class LatencySnapshot {
+  private static final String MSG_PERCENTILE_OUT_OF_RANGE = "percentile must be in range [0, 100]";
+
+  private final long[] buckets;
+  private final long count;
+  private final long sum;
+  private final long max;
+
+  LatencySnapshot(long[] buckets, long count, long sum, long max) {
+    this.buckets = buckets;
+    this.count = count;
+    this.sum = sum;
+    this.max = max;
+  }
+
+  /**
+   * Gets number of recorded values
+   *
+   * @return number of values
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Gets mean of recorded values
+   *
+   * @param unit unit of the result
+   * @return mean latency or zero if nothing was recorded
+   */
+  public double getMean(TimeUnit unit) {
+    if (count == 0) {
+      return 0;
+    }
+    return (double) sum / count / unit.toNanos(1);
+  }
+
+  /**
+   * Gets maximum of recorded values
+   *
+   * @param unit unit of the result
+   * @return maximum latency or zero if nothing was recorded
+   */
+  public long getMax(TimeUnit unit) {
+    return unit.convert(max, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Gets value, which is greater or equal to given percentage of recorded values
+   *
+   * @param percentile percentile in range [0, 100], e.g. 99.9
+   * @param unit unit of the result
+   * @return latency at percentile or zero if nothing was recorded
+   */
+  public long getPercentile(double percentile, TimeUnit unit) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException(MSG_PERCENTILE_OUT_OF_RANGE);
+    }
+    return unit.convert(percentileNanos(percentile), TimeUnit.NANOSECONDS);
+  }
+
+  private long percentileNanos(double percentile) {
+    long total = 0;
+    for (long bucket : buckets) {
+      total += bucket;
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      seen += buckets[i];
+      if (seen >= rank) {
+        return Math.min(LatencyHistogram.highestValue(i), max);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Creates snapshot of values recorded after provided snapshot of the same histogram.
+   * Maximum of the difference is estimated with the highest non-empty bucket.
+   *
+   * @param previous earlier snapshot of the same histogram
+   * @return snapshot of values recorded in between
+   */
+  LatencySnapshot since(LatencySnapshot previous) {
+    long[] difference = new long[buckets.length];
+    long differenceMax = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      difference[i] = buckets[i] - previous.buckets[i];
+      if (difference[i] > 0) {
+        differenceMax = Math.min(LatencyHistogram.highestValue(i), max);
+      }
+    }
+    return new LatencySnapshot(difference, count - previous.count, sum - previous.sum,
+        differenceMax);
+  }
+
+  @Override public String toString() {
+    return "LatencySnapshot{count=" + count
+        + ", p50Nanos=" + percentileNanos(50)
+        + ", p99Nanos=" + percentileNanos(99)
+        + ", maxNanos=" + max
+        + '}';
+  }
+}
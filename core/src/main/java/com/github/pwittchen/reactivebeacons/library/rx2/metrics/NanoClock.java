@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.metrics;
+
+/**
+ * Source of monotonic time used to measure age of beacons. It has to use the same clock
+ * as timestamps of scanned beacons, e.g. elapsed realtime clock on Android.
+ */
+public interface NanoClock {
+
+  /**
+   * Clock based on {@link System#nanoTime()}
+   */
+  NanoClock SYSTEM = new NanoClock() {
+    @Override public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  /**
+   * Gets current time of this clock
+   *
+   * @return current time in nanoseconds
+   */
+  long nanoTime();
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.metrics;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.OverflowPolicy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Publisher;
+
+/**
+ * Collects metrics of the scan pipeline: number of scan results received by BLE callbacks,
+ * discarded, suppressed, dropped and delivered beacons and histograms of their latencies.
+ * Every event costs a few atomic increments without allocation, so instrumentation
+ * can be left enabled in production. Scan strategies report callbacks and throttle reports
+ * suppressed beacons. Composing instrumentation at the end of a stream with compose(...)
+ * method reports delivered beacons and streams created with
+ * {@link #toFlowable(Observable, OverflowPolicy)} report dropped beacons.
+ */
+public final class ScanInstrumentation
+    implements ObservableTransformer<Beacon, Beacon>, FlowableTransformer<Beacon, Beacon> {
+  private static final String MSG_CLOCK_NULL = "clock == null";
+  private static final String MSG_SCHEDULER_NULL = "scheduler == null";
+  private static final String MSG_INTERVAL_MUST_BE_POSITIVE = "interval must be greater than zero";
+
+  /**
+   * Instrumentation, which ignores all events
+   */
+  public static final ScanInstrumentation DISABLED = new ScanInstrumentation(NanoClock.SYSTEM,
+      false);
+
+  private final NanoClock clock;
+  private final boolean enabled;
+  private final long startNanos;
+  private final AtomicLong callbackCount = new AtomicLong();
+  private final AtomicLong discardedCount = new AtomicLong();
+  private final AtomicLong suppressedCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final AtomicLong deliveredCount = new AtomicLong();
+  private final LatencyHistogram callbackLatency = new LatencyHistogram();
+  private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+  private final Consumer<Beacon> onDelivered = new Consumer<Beacon>() {
+    @Override public void accept(Beacon beacon) {
+      onDelivered(beacon);
+    }
+  };
+  private final Action onDropped = new Action() {
+    @Override public void run() {
+      onDropped();
+    }
+  };
+
+  /**
+   * Creates instrumentation measuring latencies with {@link NanoClock#SYSTEM} clock
+   */
+  public ScanInstrumentation() {
+    this(NanoClock.SYSTEM);
+  }
+
+  /**
+   * Creates instrumentation measuring latencies with provided clock
+   *
+   * @param clock clock of beacon timestamps
+   */
+  public ScanInstrumentation(NanoClock clock) {
+    this(clock, true);
+  }
+
+  private ScanInstrumentation(NanoClock clock, boolean enabled) {
+    if (clock == null) {
+      throw new IllegalArgumentException(MSG_CLOCK_NULL);
+    }
+    this.clock = clock;
+    this.enabled = enabled;
+    this.startNanos = clock.nanoTime();
+  }
+
+  /**
+   * Reports scan result received by BLE callback
+   *
+   * @param beacon scanned beacon
+   */
+  public void onCallback(Beacon beacon) {
+    if (!enabled) {
+      return;
+    }
+    callbackCount.incrementAndGet();
+    callbackLatency.record(clock.nanoTime() - beacon.timestampNanos);
+  }
+
+  /**
+   * Reports scan results discarded, because nobody was subscribed to the scan
+   *
+   * @param count number of discarded results
+   */
+  public void onDiscarded(int count) {
+    if (!enabled) {
+      return;
+    }
+    discardedCount.addAndGet(count);
+  }
+
+  /**
+   * Reports beacon suppressed by a throttle
+   */
+  public void onSuppressed() {
+    if (!enabled) {
+      return;
+    }
+    suppressedCount.incrementAndGet();
+  }
+
+  /**
+   * Reports beacon dropped by an overflow policy
+   */
+  public void onDropped() {
+    if (!enabled) {
+      return;
+    }
+    droppedCount.incrementAndGet();
+  }
+
+  /**
+   * Reports beacon delivered to a subscriber
+   *
+   * @param beacon delivered beacon
+   */
+  public void onDelivered(Beacon beacon) {
+    if (!enabled) {
+      return;
+    }
+    deliveredCount.incrementAndGet();
+    deliveryLatency.record(clock.nanoTime() - beacon.timestampNanos);
+  }
+
+  /**
+   * Converts observable stream of beacons into Flowable stream respecting provided policy,
+   * which reports beacons dropped by this stream while it is subscribed.
+   * Beacons dropped by other streams sharing the policy are not included in metrics.
+   *
+   * @param beacons Observable stream of beacons
+   * @param overflowPolicy policy applied when subscriber cannot keep up with beacons
+   * @return Flowable stream of beacons
+   */
+  public Flowable<Beacon> toFlowable(Observable<Beacon> beacons, OverflowPolicy overflowPolicy) {
+    if (!enabled) {
+      return overflowPolicy.toFlowable(beacons);
+    }
+    return overflowPolicy.toFlowable(beacons, onDropped);
+  }
+
+  /**
+   * Gets number of scan results received by BLE callbacks since creation of this instrumentation
+   *
+   * @return number of scan results
+   */
+  public long getCallbackCount() {
+    return callbackCount.get();
+  }
+
+  /**
+   * Creates snapshot of metrics collected since creation of this instrumentation
+   *
+   * @return metrics snapshot
+   */
+  public ScanMetrics snapshot() {
+    return new ScanMetrics(clock.nanoTime() - startNanos, callbackCount.get(),
+        discardedCount.get(), suppressedCount.get(), droppedCount.get(), deliveredCount.get(),
+        callbackLatency.snapshot(), deliveryLatency.snapshot());
+  }
+
+  /**
+   * Creates an observable stream of metrics collected during every interval
+   *
+   * @param interval interval between snapshots
+   * @param unit unit of the interval
+   * @return Observable stream of metrics snapshots
+   */
+  public Observable<ScanMetrics> observe(long interval, TimeUnit unit) {
+    return observe(interval, unit, Schedulers.computation());
+  }
+
+  /**
+   * Creates an observable stream of metrics collected during every interval
+   *
+   * @param interval interval between snapshots
+   * @param unit unit of the interval
+   * @param scheduler scheduler emitting snapshots
+   * @return Observable stream of metrics snapshots
+   */
+  public Observable<ScanMetrics> observe(final long interval, final TimeUnit unit,
+      final Scheduler scheduler) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException(MSG_INTERVAL_MUST_BE_POSITIVE);
+    }
+    if (scheduler == null) {
+      throw new IllegalArgumentException(MSG_SCHEDULER_NULL);
+    }
+    return Observable.defer(new Callable<ObservableSource<ScanMetrics>>() {
+      @Override public ObservableSource<ScanMetrics> call() {
+        // every subscription has its own previous snapshot
+        final ScanMetrics first = snapshot();
+        return Observable.interval(interval, interval, unit, scheduler)
+            .map(new Function<Long, ScanMetrics>() {
+              private ScanMetrics previous = first;
+
+              @Override public ScanMetrics apply(Long tick) {
+                ScanMetrics current = snapshot();
+                ScanMetrics metrics = current.since(previous);
+                previous = current;
+                return metrics;
+              }
+            });
+      }
+    });
+  }
+
+  @Override public ObservableSource<Beacon> apply(Observable<Beacon> upstream) {
+    if (!enabled) {
+      return upstream;
+    }
+    return upstream.doOnNext(onDelivered);
+  }
+
+  @Override public Publisher<Beacon> apply(Flowable<Beacon> upstream) {
+    if (!enabled) {
+      return upstream;
+    }
+    return upstream.doOnNext(onDelivered);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of scan pipeline metrics covering period of time between two
+ * snapshots or between creation of {@link ScanInstrumentation} and the snapshot.
+ * Latencies are measured as age of a beacon, i.e. time elapsed since its timestamp,
+ * when beacon reaches given stage of the pipeline.
+ */
+public final class ScanMetrics {
+  /**
+   * Length of the period covered by this snapshot in nanoseconds
+   */
+  public final long periodNanos;
+  /**
+   * Number of scan results received by BLE callbacks
+   */
+  public final long callbackCount;
+  /**
+   * Number of scan results discarded, because nobody was subscribed to the scan
+   */
+  public final long discardedCount;
+  /**
+   * Number of beacons suppressed by device throttle, e.g. repeated advertisements
+   */
+  public final long suppressedCount;
+  /**
+   * Number of beacons dropped by overflow policies, because subscriber couldn't keep up
+   */
+  public final long droppedCount;
+  /**
+   * Number of beacons delivered to subscribers
+   */
+  public final long deliveredCount;
+  /**
+   * Age of beacons, when they were received by BLE callbacks. It's a delay
+   * added by Bluetooth stack and controller, e.g. with offloaded batching.
+   */
+  public final LatencySnapshot callbackLatency;
+  /**
+   * Age of beacons, when they were delivered to subscribers. Difference between this latency
+   * and callback latency is a delay added by the scan pipeline.
+   */
+  public final LatencySnapshot deliveryLatency;
+
+  ScanMetrics(long periodNanos, long callbackCount, long discardedCount, long suppressedCount,
+      long droppedCount, long deliveredCount, LatencySnapshot callbackLatency,
+      LatencySnapshot deliveryLatency) {
+    this.periodNanos = periodNanos;
+    this.callbackCount = callbackCount;
+    this.discardedCount = discardedCount;
+    this.suppressedCount = suppressedCount;
+    this.droppedCount = droppedCount;
+    this.deliveredCount = deliveredCount;
+    this.callbackLatency = callbackLatency;
+    this.deliveryLatency = deliveryLatency;
+  }
+
+  /**
+   * Gets average number of scan results received by BLE callbacks per second
+   *
+   * @return callback rate in Hz
+   */
+  public double getCallbackRate() {
+    if (periodNanos <= 0) {
+      return 0;
+    }
+    return (double) callbackCount * TimeUnit.SECONDS.toNanos(1) / periodNanos;
+  }
+
+  ScanMetrics since(ScanMetrics previous) {
+    return new ScanMetrics(periodNanos - previous.periodNanos,
+        callbackCount - previous.callbackCount,
+        discardedCount - previous.discardedCount,
+        suppressedCount - previous.suppressedCount,
+        droppedCount - previous.droppedCount,
+        deliveredCount - previous.deliveredCount,
+        callbackLatency.since(previous.callbackLatency),
+        deliveryLatency.since(previous.deliveryLatency));
+  }
+
+  @Override public String toString() {
+    return "ScanMetrics{periodNanos=" + periodNanos
+        + ", callbackCount=" + callbackCount
+        + ", discardedCount=" + discardedCount
+        + ", suppressedCount=" + suppressedCount
+        + ", droppedCount=" + droppedCount
+        + ", deliveredCount=" + deliveredCount
+        + ", callbackLatency=" + callbackLatency
+        + ", deliveryLatency=" + deliveryLatency
+        + '}';
+  }
+}
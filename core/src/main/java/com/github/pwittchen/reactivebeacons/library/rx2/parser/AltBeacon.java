@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.parser;
+
+/**
+ * Flyweight view of AltBeacon advertisement (manufacturer data with 0xBE 0xAC beacon code).
+ * Beacon identifier consists of 20 bytes, which are usually interpreted
+ * as 16 bytes of id1 (UUID) and two 16-bit values: id2 and id3.
+ * Fields are read on demand from the wrapped array without copying.
+ * Instance can be reused for many scan records, but it's not thread-safe.
+ */
+public final class AltBeacon {
+  private static final int BEACON_CODE_HIGH = 0xBE;
+  private static final int BEACON_CODE_LOW = 0xAC;
+  private static final int DATA_LENGTH = 26; // company id, beacon code, id, rssi and reserved byte
+  private final ScanRecordParser parser = new ScanRecordParser();
+  private byte[] buffer;
+  private int offset;
+
+  /**
+   * Wraps AltBeacon data found in the scan record
+   *
+   * @param scanRecord raw scan record
+   * @return true if scan record contains AltBeacon advertisement
+   */
+  public boolean wrap(byte[] scanRecord) {
+    parser.wrap(scanRecord);
+    while (parser.find(ScanRecordParser.TYPE_MANUFACTURER_SPECIFIC_DATA)) {
+      byte[] data = parser.buffer();
+      int dataOffset = parser.dataOffset();
+      if (parser.dataLength() >= DATA_LENGTH
+          && ScanRecordParser.uint8(data, dataOffset + 2) == BEACON_CODE_HIGH
+          && ScanRecordParser.uint8(data, dataOffset + 3) == BEACON_CODE_LOW) {
+        buffer = data;
+        offset = dataOffset;
+        return true;
+      }
+    }
+    buffer = null;
+    return false;
+  }
+
+  public int manufacturerId() {
+    return ScanRecordParser.uint16LittleEndian(buffer, offset);
+  }
+
+  public long id1MostSignificantBits() {
+    return ScanRecordParser.longBigEndian(buffer, offset + 4, 8);
+  }
+
+  public long id1LeastSignificantBits() {
+    return ScanRecordParser.longBigEndian(buffer, offset + 12, 8);
+  }
+
+  public int id2() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 20);
+  }
+
+  public int id3() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 22);
+  }
+
+  /**
+   * Gets calibrated RSSI measured at 1 meter from the beacon
+   *
+   * @return reference RSSI in dBm
+   */
+  public int referenceRssi() {
+    return buffer[offset + 24];
+  }
+
+  public int manufacturerReserved() {
+    return ScanRecordParser.uint8(buffer, offset + 25);
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.parser;
+
+/**
+ * Flyweight view of Eddystone frame (service data of 0xFEAA service).
+ * Supports UID, URL, TLM (plain and encrypted) and EID frames.
+ * Fields are read on demand from the wrapped array without copying.
+ * Accessors are valid only for the frame type returned by {@link #frameType()}.
+ * Instance can be reused for many scan records, but it's not thread-safe.
+ *
+ * @see <a href="https://github.com/google/eddystone">Eddystone specification</a>
+ */
+public final class Eddystone {
+  public static final int SERVICE_UUID = 0xFEAA;
+  public static final int FRAME_TYPE_UID = 0x00;
+  public static final int FRAME_TYPE_URL = 0x10;
+  public static final int FRAME_TYPE_TLM = 0x20;
+  public static final int FRAME_TYPE_EID = 0x30;
+  public static final int TLM_VERSION_PLAIN = 0x00;
+  public static final int TLM_VERSION_ENCRYPTED = 0x01;
+
+  private static final int UID_LENGTH = 18;
+  private static final int URL_MIN_LENGTH = 3;
+  private static final int TLM_LENGTH = 14;
+  private static final int ETLM_LENGTH = 18;
+  private static final int EID_LENGTH = 10;
+
+  private static final String[] URL_SCHEMES = {
+      "http://www.", "https://www.", "http://", "https://"
+  };
+
+  private static final String[] URL_EXPANSIONS = {
+      ".com/", ".org/", ".edu/", ".net/", ".info/", ".biz/", ".gov/",
+      ".com", ".org", ".edu", ".net", ".info", ".biz", ".gov"
+  };
+
+  private final ScanRecordParser parser = new ScanRecordParser();
+  private byte[] buffer;
+  private int offset; // offset of the frame type byte
+  private int length; // length of the frame including frame type byte
+
+  /**
+   * Wraps Eddystone frame found in the scan record
+   *
+   * @param scanRecord raw scan record
+   * @return true if scan record contains complete UID, URL, TLM or EID frame
+   */
+  public boolean wrap(byte[] scanRecord) {
+    parser.wrap(scanRecord);
+    while (parser.find(ScanRecordParser.TYPE_SERVICE_DATA_16_BIT)) {
+      byte[] data = parser.buffer();
+      int dataOffset = parser.dataOffset();
+      if (parser.dataLength() >= 3
+          && ScanRecordParser.uint16LittleEndian(data, dataOffset) == SERVICE_UUID
+          && isComplete(data, dataOffset + 2, parser.dataLength() - 2)) {
+        buffer = data;
+        offset = dataOffset + 2;
+        length = parser.dataLength() - 2;
+        return true;
+      }
+    }
+    buffer = null;
+    return false;
+  }
+
+  private static boolean isComplete(byte[] data, int frameOffset, int frameLength) {
+    switch (ScanRecordParser.uint8(data, frameOffset)) {
+      case FRAME_TYPE_UID:
+        return frameLength >= UID_LENGTH;
+      case FRAME_TYPE_URL:
+        return frameLength >= URL_MIN_LENGTH;
+      case FRAME_TYPE_TLM:
+        if (frameLength < 2) {
+          return false;
+        }
+        int version = ScanRecordParser.uint8(data, frameOffset + 1);
+        return version == TLM_VERSION_ENCRYPTED ? frameLength >= ETLM_LENGTH
+            : frameLength >= TLM_LENGTH;
+      case FRAME_TYPE_EID:
+        return frameLength >= EID_LENGTH;
+      default:
+        return false;
+    }
+  }
+
+  public int frameType() {
+    return ScanRecordParser.uint8(buffer, offset);
+  }
+
+  public boolean isUid() {
+    return frameType() == FRAME_TYPE_UID;
+  }
+
+  public boolean isUrl() {
+    return frameType() == FRAME_TYPE_URL;
+  }
+
+  public boolean isTlm() {
+    return frameType() == FRAME_TYPE_TLM;
+  }
+
+  public boolean isEid() {
+    return frameType() == FRAME_TYPE_EID;
+  }
+
+  /**
+   * Gets calibrated TX power at 0 meters of UID, URL and EID frames
+   *
+   * @return TX power in dBm
+   */
+  public int txPower() {
+    return buffer[offset + 1];
+  }
+
+  /**
+   * Gets the first 8 bytes of the 10-byte namespace of the UID frame
+   *
+   * @return high bits of the namespace
+   */
+  public long namespaceHigh() {
+    return ScanRecordParser.longBigEndian(buffer, offset + 2, 8);
+  }
+
+  /**
+   * Gets the last 2 bytes of the 10-byte namespace of the UID frame
+   *
+   * @return low bits of the namespace
+   */
+  public int namespaceLow() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 10);
+  }
+
+  /**
+   * Gets 6-byte instance of the UID frame
+   *
+   * @return instance as long value
+   */
+  public long instance() {
+    return ScanRecordParser.longBigEndian(buffer, offset + 12, 6);
+  }
+
+  /**
+   * Gets 8-byte ephemeral identifier of the EID frame
+   *
+   * @return ephemeral identifier as long value
+   */
+  public long ephemeralId() {
+    return ScanRecordParser.longBigEndian(buffer, offset + 2, 8);
+  }
+
+  /**
+   * Decodes URL of the URL frame into provided builder, so it can be reused
+   *
+   * @param builder builder, which URL is appended to
+   * @return provided builder
+   */
+  public StringBuilder appendUrl(StringBuilder builder) {
+    int scheme = ScanRecordParser.uint8(buffer, offset + 2);
+    if (scheme < URL_SCHEMES.length) {
+      builder.append(URL_SCHEMES[scheme]);
+    }
+    for (int i = offset + 3; i < offset + length; i++) {
+      int code = ScanRecordParser.uint8(buffer, i);
+      if (code < URL_EXPANSIONS.length) {
+        builder.append(URL_EXPANSIONS[code]);
+      } else if (code > 0x20 && code < 0x7F) {
+        builder.append((char) code);
+      }
+    }
+    return builder;
+  }
+
+  /**
+   * Decodes URL of the URL frame. Please note, that this method allocates memory.
+   *
+   * @return decoded URL
+   */
+  public String url() {
+    return appendUrl(new StringBuilder()).toString();
+  }
+
+  public int tlmVersion() {
+    return ScanRecordParser.uint8(buffer, offset + 1);
+  }
+
+  public boolean isEncryptedTlm() {
+    return isTlm() && tlmVersion() == TLM_VERSION_ENCRYPTED;
+  }
+
+  /**
+   * Gets battery voltage of plain TLM frame
+   *
+   * @return battery voltage in millivolts, 0 if not supported by the beacon
+   */
+  public int batteryVoltage() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 2);
+  }
+
+  /**
+   * Gets raw temperature of plain TLM frame in signed 8.8 fixed-point notation
+   *
+   * @return raw temperature, 0x8000 if not supported by the beacon
+   */
+  public int temperatureRaw() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 4);
+  }
+
+  /**
+   * Gets temperature of plain TLM frame
+   *
+   * @return temperature in degrees Celsius
+   */
+  public float temperature() {
+    return (short) temperatureRaw() / 256f;
+  }
+
+  /**
+   * Gets number of advertisements sent since power-up or reboot from plain TLM frame
+   *
+   * @return advertisement count
+   */
+  public long advertisementCount() {
+    return ScanRecordParser.uint32BigEndian(buffer, offset + 6);
+  }
+
+  /**
+   * Gets time since power-up or reboot from plain TLM frame
+   *
+   * @return uptime in 0.1 second resolution
+   */
+  public long uptime() {
+    return ScanRecordParser.uint32BigEndian(buffer, offset + 10);
+  }
+
+  /**
+   * Gets offset of the 12-byte encrypted telemetry of encrypted TLM frame in the wrapped array
+   *
+   * @return offset in the wrapped array
+   */
+  public int encryptedTlmOffset() {
+    return offset + 2;
+  }
+
+  /**
+   * Gets 16-bit salt of encrypted TLM frame
+   *
+   * @return salt
+   */
+  public int salt() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 14);
+  }
+
+  /**
+   * Gets 16-bit message integrity check of encrypted TLM frame
+   *
+   * @return message integrity check
+   */
+  public int messageIntegrityCheck() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 16);
+  }
+
+  public byte[] buffer() {
+    return buffer;
+  }
+
+  /**
+   * Gets offset of the frame type byte in the wrapped array
+   *
+   * @return offset in the wrapped array
+   */
+  public int frameOffset() {
+    return offset;
+  }
+
+  /**
+   * Gets length of the frame including frame type byte
+   *
+   * @return length of the frame
+   */
+  public int frameLength() {
+    return length;
+  }
+}
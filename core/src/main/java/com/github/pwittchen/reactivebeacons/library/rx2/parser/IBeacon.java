@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.parser;
+
+import java.util.UUID;
+
+/**
+ * Flyweight view of iBeacon advertisement (Apple manufacturer data with 0x02 0x15 prefix).
+ * Fields are read on demand from the wrapped array without copying.
+ * Instance can be reused for many scan records, but it's not thread-safe.
+ */
+public final class IBeacon {
+  public static final int APPLE_COMPANY_ID = 0x004C;
+  private static final int BEACON_TYPE = 0x02;
+  private static final int BEACON_LENGTH = 0x15;
+  private static final int DATA_LENGTH = 25; // company id, type, length and 21 bytes of data
+  private final ScanRecordParser parser = new ScanRecordParser();
+  private byte[] buffer;
+  private int offset;
+
+  /**
+   * Wraps iBeacon data found in the scan record
+   *
+   * @param scanRecord raw scan record
+   * @return true if scan record contains iBeacon advertisement
+   */
+  public boolean wrap(byte[] scanRecord) {
+    parser.wrap(scanRecord);
+    while (parser.find(ScanRecordParser.TYPE_MANUFACTURER_SPECIFIC_DATA)) {
+      byte[] data = parser.buffer();
+      int dataOffset = parser.dataOffset();
+      if (parser.dataLength() >= DATA_LENGTH
+          && ScanRecordParser.uint16LittleEndian(data, dataOffset) == APPLE_COMPANY_ID
+          && data[dataOffset + 2] == BEACON_TYPE
+          && data[dataOffset + 3] == BEACON_LENGTH) {
+        buffer = data;
+        offset = dataOffset + 4;
+        return true;
+      }
+    }
+    buffer = null;
+    return false;
+  }
+
+  public long uuidMostSignificantBits() {
+    return ScanRecordParser.longBigEndian(buffer, offset, 8);
+  }
+
+  public long uuidLeastSignificantBits() {
+    return ScanRecordParser.longBigEndian(buffer, offset + 8, 8);
+  }
+
+  /**
+   * Creates UUID object of the proximity UUID. Please note, that this method allocates memory.
+   * Use {@link #uuidMostSignificantBits()} and {@link #uuidLeastSignificantBits()}
+   * to compare UUIDs without allocation.
+   *
+   * @return proximity UUID
+   */
+  public UUID uuid() {
+    return new UUID(uuidMostSignificantBits(), uuidLeastSignificantBits());
+  }
+
+  public int major() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 16);
+  }
+
+  public int minor() {
+    return ScanRecordParser.uint16BigEndian(buffer, offset + 18);
+  }
+
+  /**
+   * Gets calibrated RSSI measured at 1 meter from the beacon
+   *
+   * @return measured power in dBm
+   */
+  public int measuredPower() {
+    return buffer[offset + 20];
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.parser;
+
+/**
+ * Flyweight view of manufacturer specific data (AD type 0xFF) inside a scan record.
+ * Data is read on demand from the wrapped array without copying.
+ * Instance can be reused for many scan records, but it's not thread-safe.
+ */
+public final class ManufacturerData {
+  private static final int ANY_COMPANY = -1;
+  private final ScanRecordParser parser = new ScanRecordParser();
+  private byte[] buffer;
+  private int offset;
+  private int length;
+
+  /**
+   * Wraps the first manufacturer specific data found in the scan record
+   *
+   * @param scanRecord raw scan record
+   * @return true if scan record contains manufacturer specific data
+   */
+  public boolean wrap(byte[] scanRecord) {
+    return wrap(scanRecord, ANY_COMPANY);
+  }
+
+  /**
+   * Wraps manufacturer specific data of given company found in the scan record
+   *
+   * @param scanRecord raw scan record
+   * @param companyId Bluetooth SIG company identifier
+   * @return true if scan record contains manufacturer specific data of given company
+   */
+  public boolean wrap(byte[] scanRecord, int companyId) {
+    parser.wrap(scanRecord);
+    while (parser.find(ScanRecordParser.TYPE_MANUFACTURER_SPECIFIC_DATA)) {
+      if (parser.dataLength() < 2) {
+        continue;
+      }
+      int id = ScanRecordParser.uint16LittleEndian(parser.buffer(), parser.dataOffset());
+      if (companyId == ANY_COMPANY || id == companyId) {
+        buffer = parser.buffer();
+        offset = parser.dataOffset();
+        length = parser.dataLength();
+        return true;
+      }
+    }
+    buffer = null;
+    return false;
+  }
+
+  public int companyId() {
+    return ScanRecordParser.uint16LittleEndian(buffer, offset);
+  }
+
+  /**
+   * Gets length of the data following company identifier
+   *
+   * @return length of the data
+   */
+  public int length() {
+    return length - 2;
+  }
+
+  /**
+   * Gets byte of the data following company identifier
+   *
+   * @param index index of the byte
+   * @return byte at given index
+   */
+  public byte get(int index) {
+    if (index < 0 || index >= length()) {
+      throw new IndexOutOfBoundsException("index: " + index + ", length: " + length());
+    }
+    return buffer[offset + 2 + index];
+  }
+
+  public byte[] buffer() {
+    return buffer;
+  }
+
+  /**
+   * Gets offset of the data following company identifier in the wrapped array
+   *
+   * @return offset in the wrapped array
+   */
+  public int dataOffset() {
+    return offset + 2;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.parser;
+
+import java.nio.charset.Charset;
+
+/**
+ * Allocation-free cursor walking through AD (advertising data) structures of a scan record.
+ * Every structure consists of length byte, type byte and data. Parser doesn't copy data,
+ * it only exposes type, offset and length of the current structure in the wrapped array.
+ * Instance can be reused for many scan records, but it's not thread-safe.
+ *
+ * <pre>
+ * parser.wrap(beacon.scanRecord);
+ * while (parser.next()) {
+ *   int type = parser.type();
+ *   // read parser.buffer() from parser.dataOffset() to parser.dataOffset() + parser.dataLength()
+ * }
+ * </pre>
+ */
+public final class ScanRecordParser {
+  public static final int TYPE_FLAGS = 0x01;
+  public static final int TYPE_SERVICE_UUIDS_16_BIT_INCOMPLETE = 0x02;
+  public static final int TYPE_SERVICE_UUIDS_16_BIT_COMPLETE = 0x03;
+  public static final int TYPE_SERVICE_UUIDS_32_BIT_INCOMPLETE = 0x04;
+  public static final int TYPE_SERVICE_UUIDS_32_BIT_COMPLETE = 0x05;
+  public static final int TYPE_SERVICE_UUIDS_128_BIT_INCOMPLETE = 0x06;
+  public static final int TYPE_SERVICE_UUIDS_128_BIT_COMPLETE = 0x07;
+  public static final int TYPE_LOCAL_NAME_SHORT = 0x08;
+  public static final int TYPE_LOCAL_NAME_COMPLETE = 0x09;
+  public static final int TYPE_TX_POWER_LEVEL = 0x0A;
+  public static final int TYPE_SERVICE_DATA_16_BIT = 0x16;
+  public static final int TYPE_MANUFACTURER_SPECIFIC_DATA = 0xFF;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private byte[] buffer;
+  private int position;
+  private int type = -1;
+  private int dataOffset;
+  private int dataLength;
+
+  /**
+   * Wraps scan record and moves cursor before the first AD structure
+   *
+   * @param scanRecord raw scan record, can be null
+   * @return this parser
+   */
+  public ScanRecordParser wrap(byte[] scanRecord) {
+    this.buffer = scanRecord;
+    this.position = 0;
+    this.type = -1;
+    this.dataOffset = 0;
+    this.dataLength = 0;
+    return this;
+  }
+
+  /**
+   * Moves cursor to the next AD structure. Parsing stops on zero length structure
+   * (padding at the end of the record) or on structure exceeding the record.
+   *
+   * @return true if cursor points to the next valid structure
+   */
+  public boolean next() {
+    if (buffer == null || position >= buffer.length) {
+      return false;
+    }
+
+    int length = buffer[position] & 0xFF;
+    if (length == 0 || position + length >= buffer.length) {
+      position = buffer.length;
+      type = -1;
+      return false;
+    }
+
+    type = buffer[position + 1] & 0xFF;
+    dataOffset = position + 2;
+    dataLength = length - 1;
+    position += length + 1;
+    return true;
+  }
+
+  /**
+   * Moves cursor to the next AD structure of given type
+   *
+   * @param adType type of AD structure
+   * @return true if structure was found
+   */
+  public boolean find(int adType) {
+    while (next()) {
+      if (type == adType) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads local name of the device from the scan record.
+   * Complete local name is preferred over the shortened one.
+   *
+   * @param scanRecord raw scan record, can be null
+   * @return local name or null if scan record doesn't contain it
+   */
+  public static String localName(byte[] scanRecord) {
+    ScanRecordParser parser = new ScanRecordParser().wrap(scanRecord);
+    int offset = -1;
+    int length = 0;
+    while (parser.next()) {
+      if (parser.type == TYPE_LOCAL_NAME_COMPLETE) {
+        return new String(scanRecord, parser.dataOffset, parser.dataLength, UTF_8);
+      }
+      if (parser.type == TYPE_LOCAL_NAME_SHORT && offset < 0) {
+        offset = parser.dataOffset;
+        length = parser.dataLength;
+      }
+    }
+    return offset < 0 ? null : new String(scanRecord, offset, length, UTF_8);
+  }
+
+  public byte[] buffer() {
+    return buffer;
+  }
+
+  public int type() {
+    return type;
+  }
+
+  public int dataOffset() {
+    return dataOffset;
+  }
+
+  public int dataLength() {
+    return dataLength;
+  }
+
+  static int uint8(byte[] buffer, int offset) {
+    return buffer[offset] & 0xFF;
+  }
+
+  static int uint16BigEndian(byte[] buffer, int offset) {
+    return (buffer[offset] & 0xFF) << 8 | (buffer[offset + 1] & 0xFF);
+  }
+
+  static int uint16LittleEndian(byte[] buffer, int offset) {
+    return (buffer[offset] & 0xFF) | (buffer[offset + 1] & 0xFF) << 8;
+  }
+
+  static long uint32BigEndian(byte[] buffer, int offset) {
+    return (long) uint16BigEndian(buffer, offset) << 16 | uint16BigEndian(buffer, offset + 2);
+  }
+
+  static long longBigEndian(byte[] buffer, int offset, int length) {
+    long value = 0;
+    for (int i = offset; i < offset + length; i++) {
+      value = value << 8 | (buffer[i] & 0xFF);
+    }
+    return value;
+  }
+}
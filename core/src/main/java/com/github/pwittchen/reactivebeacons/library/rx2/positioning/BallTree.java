@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import java.util.Arrays;
+
+/**
+ * Ball tree index of points stored in a flat float array. Every node bounds its points
+ * with a ball (center and radius), so the whole subtree is skipped, when the ball is farther
+ * from the query than the current k-th nearest neighbor. Unlike KD-tree, ball tree splits
+ * along directions defined by the data, so it keeps pruning well for high-dimensional
+ * vectors lying close to a low-dimensional manifold, e.g. RSSI vectors of points
+ * on a floor plan. Points of every leaf are stored next to each other for cache locality.
+ */
+final class BallTree {
+  static final int LEAF_SIZE = 16;
+
+  private final int dimensions;
+  private final float[] points;
+  private final int[] order;
+
+  private int nodeCount;
+  private int[] starts;
+  private int[] ends;
+  private int[] lefts;
+  private float[] radii;
+  private float[] centers;
+
+  /**
+   * Builds index of points
+   *
+   * @param data points in row-major order, size * dimensions values
+   * @param size number of points
+   * @param dimensions number of dimensions
+   */
+  BallTree(float[] data, int size, int dimensions) {
+    this.dimensions = dimensions;
+    this.order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+
+    int expectedNodes = Math.max(1, 4 * size / LEAF_SIZE);
+    this.starts = new int[expectedNodes];
+    this.ends = new int[expectedNodes];
+    this.lefts = new int[expectedNodes];
+    this.radii = new float[expectedNodes];
+    this.centers = new float[expectedNodes * dimensions];
+
+    if (size > 0) {
+      build(data, newNode(0, size));
+    }
+    trim();
+
+    // rows of the data are permuted, so points of every leaf are contiguous
+    this.points = new float[size * dimensions];
+    for (int i = 0; i < size; i++) {
+      System.arraycopy(data, order[i] * dimensions, points, i * dimensions, dimensions);
+    }
+  }
+
+  int nodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Finds k nearest points of the query
+   *
+   * @param query query vector
+   * @param neighbors container of results, its capacity is k
+   */
+  void nearest(float[] query, Neighbors neighbors) {
+    neighbors.clear();
+    if (nodeCount > 0) {
+      search(0, (float) Math.sqrt(squaredDistance(query, centers, 0)), query, neighbors);
+    }
+    neighbors.sort();
+  }
+
+  private void search(int node, float centerDistance, float[] query, Neighbors neighbors) {
+    float bound = centerDistance - radii[node];
+    if (bound > 0 && bound * bound >= neighbors.worstSquaredDistance()) {
+      return;
+    }
+
+    int left = lefts[node];
+    if (left < 0) {
+      for (int i = starts[node]; i < ends[node]; i++) {
+        float distance = squaredDistance(query, points, i * dimensions);
+        if (distance < neighbors.worstSquaredDistance()) {
+          neighbors.offer(order[i], distance);
+        }
+      }
+      return;
+    }
+
+    int right = left + 1;
+    float leftDistance = (float) Math.sqrt(squaredDistance(query, centers, left * dimensions));
+    float rightDistance = (float) Math.sqrt(squaredDistance(query, centers, right * dimensions));
+    if (leftDistance - radii[left] <= rightDistance - radii[right]) {
+      search(left, leftDistance, query, neighbors);
+      search(right, rightDistance, query, neighbors);
+    } else {
+      search(right, rightDistance, query, neighbors);
+      search(left, leftDistance, query, neighbors);
+    }
+  }
+
+  private void build(float[] data, int node) {
+    int start = starts[node];
+    int end = ends[node];
+    int center = node * dimensions;
+    for (int i = start; i < end; i++) {
+      int offset = order[i] * dimensions;
+      for (int d = 0; d < dimensions; d++) {
+        centers[center + d] += data[offset + d];
+      }
+    }
+    for (int d = 0; d < dimensions; d++) {
+      centers[center + d] /= end - start;
+    }
+
+    // the farthest point from the center defines the radius and the first pivot
+    int first = start;
+    float maxDistance = -1;
+    for (int i = start; i < end; i++) {
+      float distance = squaredDistance(data, order[i] * dimensions, centers, center);
+      if (distance > maxDistance) {
+        maxDistance = distance;
+        first = order[i];
+      }
+    }
+    radii[node] = (float) Math.sqrt(maxDistance);
+    if (end - start <= LEAF_SIZE) {
+      lefts[node] = -1;
+      return;
+    }
+
+    // the farthest point from the first pivot is the second one
+    int second = first;
+    maxDistance = -1;
+    for (int i = start; i < end; i++) {
+      float distance = squaredDistance(data, order[i] * dimensions, data, first * dimensions);
+      if (distance > maxDistance) {
+        maxDistance = distance;
+        second = order[i];
+      }
+    }
+
+    int split = partition(data, start, end, first * dimensions, second * dimensions);
+    if (split == start || split == end) {
+      split = (start + end) >>> 1; // all points are equal
+    }
+
+    int left = newNode(start, split);
+    newNode(split, end);
+    lefts[node] = left;
+    build(data, left);
+    build(data, left + 1);
+  }
+
+  private int partition(float[] data, int start, int end, int first, int second) {
+    int i = start;
+    int j = end - 1;
+    while (i <= j) {
+      int offset = order[i] * dimensions;
+      if (squaredDistance(data, offset, data, first)
+          <= squaredDistance(data, offset, data, second)) {
+        i++;
+      } else {
+        int swap = order[i];
+        order[i] = order[j];
+        order[j] = swap;
+        j--;
+      }
+    }
+    return i;
+  }
+
+  private int newNode(int start, int end) {
+    if (nodeCount == starts.length) {
+      int capacity = 2 * nodeCount;
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      lefts = Arrays.copyOf(lefts, capacity);
+      radii = Arrays.copyOf(radii, capacity);
+      centers = Arrays.copyOf(centers, capacity * dimensions);
+    }
+    starts[nodeCount] = start;
+    ends[nodeCount] = end;
+    return nodeCount++;
+  }
+
+  private void trim() {
+    starts = Arrays.copyOf(starts, nodeCount);
+    ends = Arrays.copyOf(ends, nodeCount);
+    lefts = Arrays.copyOf(lefts, nodeCount);
+    radii = Arrays.copyOf(radii, nodeCount);
+    centers = Arrays.copyOf(centers, nodeCount * dimensions);
+  }
+
+  private float squaredDistance(float[] query, float[] data, int offset) {
+    return squaredDistance(query, 0, data, offset);
+  }
+
+  private float squaredDistance(float[] first, int firstOffset, float[] second,
+      int secondOffset) {
+    float sum = 0;
+    for (int d = 0; d < dimensions; d++) {
+      float difference = first[firstOffset + d] - second[secondOffset + d];
+      sum += difference * difference;
+    }
+    return sum;
+  }
+}
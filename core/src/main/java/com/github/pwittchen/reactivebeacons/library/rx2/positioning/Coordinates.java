@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+/**
+ * Coordinates of a point on the floor plan in meters
+ */
+public final class Coordinates {
+  public final double x;
+  public final double y;
+
+  public Coordinates(double x, double y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  /**
+   * Computes euclidean distance to provided point
+   *
+   * @param other other point
+   * @return distance in meters
+   */
+  public double distanceTo(Coordinates other) {
+    double dx = x - other.x;
+    double dy = y - other.y;
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    Coordinates that = (Coordinates) o;
+    return Double.compare(that.x, x) == 0 && Double.compare(that.y, y) == 0;
+  }
+
+  @Override public int hashCode() {
+    long bits = Double.doubleToLongBits(x) * 31 + Double.doubleToLongBits(y);
+    return (int) (bits ^ (bits >>> 32));
+  }
+
+  @Override public String toString() {
+    return "Coordinates{x=" + x + ", y=" + y + '}';
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+
+/**
+ * Estimates position of the device by matching current RSSI of beacons with the radio map.
+ * Can be applied to Observable and Flowable streams of beacons with compose(...) method.
+ * RSSI of every beacon of the radio map is averaged over the window of recent samples.
+ * At most once per update interval, the vector of averages is matched with k nearest
+ * reference points and the position is their average weighted by similarity.
+ * Beacons not heard during the window have {@link RadioMap#MISSING_RSSI} value.
+ * Unlike {@link Trilateration}, fingerprinting doesn't depend on the path loss model,
+ * so it copes better with walls and multipath propagation.
+ * Time is measured with timestamps of beacons, so recorded traces can be replayed.
+ */
+public final class Fingerprinting
+    implements ObservableTransformer<Beacon, Position>, FlowableTransformer<Beacon, Position> {
+  private static final String MSG_VALUE_MUST_BE_POSITIVE = "value must be greater than zero";
+  private static final int DEFAULT_NEIGHBORS = 4;
+  private static final long DEFAULT_WINDOW_SECONDS = 3;
+  private static final long DEFAULT_UPDATE_INTERVAL_MILLIS = 1000;
+  private static final int SAMPLES_PER_BEACON = 32;
+
+  public final RadioMap radioMap;
+  final int neighbors;
+  final long windowNanos;
+  final long updateIntervalNanos;
+
+  private Fingerprinting(Builder builder) {
+    this.radioMap = builder.radioMap;
+    this.neighbors = builder.neighbors;
+    this.windowNanos = builder.windowNanos;
+    this.updateIntervalNanos = builder.updateIntervalNanos;
+  }
+
+  @Override public ObservableSource<Position> apply(final Observable<Beacon> upstream) {
+    return Observable.defer(new Callable<ObservableSource<Position>>() {
+      @Override public ObservableSource<Position> call() {
+        Estimation estimation = new Estimation();
+        return upstream.filter(estimation).map(estimation);
+      }
+    });
+  }
+
+  @Override public Publisher<Position> apply(final Flowable<Beacon> upstream) {
+    return Flowable.defer(new Callable<Publisher<Position>>() {
+      @Override public Publisher<Position> call() {
+        Estimation estimation = new Estimation();
+        return upstream.filter(estimation).map(estimation);
+      }
+    });
+  }
+
+  @Override public String toString() {
+    return "Fingerprinting{radioMap=" + radioMap
+        + ", neighbors=" + neighbors
+        + ", windowNanos=" + windowNanos
+        + ", updateIntervalNanos=" + updateIntervalNanos
+        + '}';
+  }
+
+  /**
+   * State of a single subscription. Predicate aggregates RSSI and matches the radio map,
+   * when the update interval passes, function creates the position, which was just matched.
+   */
+  private final class Estimation implements Predicate<Beacon>, Function<Beacon, Position> {
+    private final RssiWindows windows =
+        new RssiWindows(radioMap.dimensions(), SAMPLES_PER_BEACON, windowNanos);
+    private final float[] query = new float[radioMap.dimensions()];
+    private final Neighbors nearest = new Neighbors(neighbors);
+    private boolean started;
+    private long nextUpdateNanos;
+    private int heard;
+    private double x;
+    private double y;
+    private double error;
+
+    @Override public boolean test(Beacon beacon) {
+      int dimension = radioMap.dimensionOf(beacon.macAddress);
+      if (dimension < 0) {
+        return false;
+      }
+      long now = beacon.timestampNanos;
+      windows.add(dimension, beacon.rssi, now);
+      if (!started) {
+        // the first position is emitted after the first interval, when windows are filled
+        started = true;
+        nextUpdateNanos = now + updateIntervalNanos;
+      }
+      if (now < nextUpdateNanos) {
+        return false;
+      }
+      nextUpdateNanos = now + updateIntervalNanos;
+
+      heard = 0;
+      for (int i = 0; i < query.length; i++) {
+        float mean = windows.mean(i, now);
+        if (Float.isNaN(mean)) {
+          query[i] = RadioMap.MISSING_RSSI;
+        } else {
+          query[i] = mean;
+          heard++;
+        }
+      }
+      radioMap.nearest(query, nearest);
+      locate();
+      return true;
+    }
+
+    @Override public Position apply(Beacon beacon) {
+      return new Position(new Coordinates(x, y), error, heard, beacon.timestampNanos);
+    }
+
+    private void locate() {
+      double sumOfWeights = 0;
+      double sumX = 0;
+      double sumY = 0;
+      for (int i = 0; i < nearest.size(); i++) {
+        // 1 dB is added, so exact match doesn't get infinite weight
+        double weight = 1 / (nearest.distance(i) + 1);
+        int index = nearest.index(i);
+        sumOfWeights += weight;
+        sumX += weight * radioMap.x(index);
+        sumY += weight * radioMap.y(index);
+      }
+      x = sumX / sumOfWeights;
+      y = sumY / sumOfWeights;
+
+      double spread = 0;
+      for (int i = 0; i < nearest.size(); i++) {
+        int index = nearest.index(i);
+        double dx = radioMap.x(index) - x;
+        double dy = radioMap.y(index) - y;
+        spread += (dx * dx + dy * dy) / (nearest.distance(i) + 1);
+      }
+      error = Math.sqrt(spread / sumOfWeights);
+    }
+  }
+
+  public static final class Builder {
+    private final RadioMap radioMap;
+    private int neighbors = DEFAULT_NEIGHBORS;
+    private long windowNanos = TimeUnit.SECONDS.toNanos(DEFAULT_WINDOW_SECONDS);
+    private long updateIntervalNanos =
+        TimeUnit.MILLISECONDS.toNanos(DEFAULT_UPDATE_INTERVAL_MILLIS);
+
+    public Builder(RadioMap radioMap) {
+      if (radioMap == null) {
+        throw new IllegalArgumentException("radioMap == null");
+      }
+      this.radioMap = radioMap;
+    }
+
+    /**
+     * Sets number of nearest reference points averaged into the position. Default is 4.
+     *
+     * @param count number of neighbors (k)
+     * @return builder
+     */
+    public Builder neighbors(int count) {
+      if (count <= 0) {
+        throw new IllegalArgumentException(MSG_VALUE_MUST_BE_POSITIVE);
+      }
+      neighbors = count;
+      return this;
+    }
+
+    /**
+     * Sets window of RSSI samples averaged for every beacon. Default is 3 seconds.
+     * At most 32 latest samples of every beacon are kept.
+     *
+     * @param window length of the window
+     * @param unit unit of the window
+     * @return builder
+     */
+    public Builder window(long window, TimeUnit unit) {
+      if (window <= 0) {
+        throw new IllegalArgumentException(MSG_VALUE_MUST_BE_POSITIVE);
+      }
+      windowNanos = unit.toNanos(window);
+      return this;
+    }
+
+    /**
+     * Sets minimal time between emitted positions. Default is 1 second.
+     *
+     * @param interval update interval
+     * @param unit unit of the interval
+     * @return builder
+     */
+    public Builder updateInterval(long interval, TimeUnit unit) {
+      if (interval < 0) {
+        throw new IllegalArgumentException("interval can't be negative");
+      }
+      updateIntervalNanos = unit.toNanos(interval);
+      return this;
+    }
+
+    public Fingerprinting build() {
+      return new Fingerprinting(this);
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+/**
+ * Nearest reference points found in {@link RadioMap}, sorted from the nearest one.
+ * Object can be reused by subsequent searches, so matching doesn't allocate memory.
+ */
+public final class Neighbors {
+  final int[] indexes;
+  final float[] squaredDistances;
+  int size;
+
+  /**
+   * Creates container of nearest neighbors
+   *
+   * @param capacity maximal number of neighbors (k)
+   */
+  public Neighbors(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be greater than zero");
+    }
+    this.indexes = new int[capacity];
+    this.squaredDistances = new float[capacity];
+  }
+
+  public int capacity() {
+    return indexes.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets index of the reference point in the radio map
+   *
+   * @param i position of the neighbor, 0 is the nearest one
+   * @return index of the reference point
+   */
+  public int index(int i) {
+    checkIndex(i);
+    return indexes[i];
+  }
+
+  /**
+   * Gets euclidean distance between RSSI vectors of the query and the reference point
+   *
+   * @param i position of the neighbor, 0 is the nearest one
+   * @return distance in dBm
+   */
+  public double distance(int i) {
+    checkIndex(i);
+    return Math.sqrt(squaredDistances[i]);
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  float worstSquaredDistance() {
+    return size < indexes.length ? Float.POSITIVE_INFINITY : squaredDistances[0];
+  }
+
+  /**
+   * Offers candidate to the max-heap of the nearest neighbors found so far
+   */
+  void offer(int index, float squaredDistance) {
+    if (size < indexes.length) {
+      int child = size++;
+      while (child > 0) {
+        int parent = (child - 1) / 2;
+        if (squaredDistances[parent] >= squaredDistance) {
+          break;
+        }
+        indexes[child] = indexes[parent];
+        squaredDistances[child] = squaredDistances[parent];
+        child = parent;
+      }
+      indexes[child] = index;
+      squaredDistances[child] = squaredDistance;
+    } else if (squaredDistance < squaredDistances[0]) {
+      siftDown(0, size, index, squaredDistance);
+    }
+  }
+
+  /**
+   * Sorts heap in place from the nearest neighbor
+   */
+  void sort() {
+    for (int end = size - 1; end > 0; end--) {
+      int index = indexes[end];
+      float squaredDistance = squaredDistances[end];
+      indexes[end] = indexes[0];
+      squaredDistances[end] = squaredDistances[0];
+      siftDown(0, end, index, squaredDistance);
+    }
+  }
+
+  private void siftDown(int parent, int end, int index, float squaredDistance) {
+    int child;
+    while ((child = 2 * parent + 1) < end) {
+      if (child + 1 < end && squaredDistances[child + 1] > squaredDistances[child]) {
+        child++;
+      }
+      if (squaredDistances[child] <= squaredDistance) {
+        break;
+      }
+      indexes[parent] = indexes[child];
+      squaredDistances[parent] = squaredDistances[child];
+      parent = child;
+    }
+    indexes[parent] = index;
+    squaredDistances[parent] = squaredDistance;
+  }
+
+  private void checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("index: " + i + ", size: " + size);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+/**
+ * Position of the device estimated from ranges to anchor beacons
+ */
+public final class Position {
+  /**
+   * Coordinates of the device in meters
+   */
+  public final Coordinates coordinates;
+  /**
+   * Estimated error in meters. For {@link Trilateration} it's a weighted root mean square
+   * of differences between estimated distances to anchors and their measured ranges.
+   * For {@link Fingerprinting} it's a weighted root mean square distance of the nearest
+   * reference points from the position. The lower value, the more consistent measurements.
+   */
+  public final double error;
+  /**
+   * Number of anchor beacons with recent measurements used to estimate the position
+   */
+  public final int anchorCount;
+  /**
+   * Timestamp of the beacon, which triggered the estimation, in nanoseconds
+   */
+  public final long timestampNanos;
+
+  public Position(Coordinates coordinates, double error, int anchorCount, long timestampNanos) {
+    this.coordinates = coordinates;
+    this.error = error;
+    this.anchorCount = anchorCount;
+    this.timestampNanos = timestampNanos;
+  }
+
+  @Override public String toString() {
+    return "Position{coordinates=" + coordinates
+        + ", error=" + error
+        + ", anchorCount=" + anchorCount
+        + ", timestampNanos=" + timestampNanos
+        + '}';
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import java.util.Arrays;
+
+/**
+ * Incremental weighted least squares solver of the position from ranges to anchors.
+ * Range equation (x - xi)^2 + (y - yi)^2 = ri^2 is linearized by introducing
+ * unknown R = x^2 + y^2, which gives -2 xi x - 2 yi y + R = ri^2 - xi^2 - yi^2.
+ * Solver keeps weighted sums forming 3x3 normal equations of these linear equations.
+ * New range replaces contribution of the previous range of the same anchor,
+ * so update takes constant time and normal equations are solved in constant time.
+ * Error of the estimate is computed from residuals of the current ranges, so solving
+ * takes time linear in the number of anchors with a current range (not in the number
+ * of all anchors, which can be much larger in big venues). Sums are recomputed
+ * from scratch periodically, so rounding errors of subtractions don't accumulate.
+ */
+final class PositionSolver {
+  static final int MIN_ANCHORS = 3;
+  private static final int REFRESH_INTERVAL = 1024;
+  private static final double MIN_RANGE = 0.5;
+  private static final double SINGULARITY_THRESHOLD = 1e-9;
+
+  private final double[] anchorX;
+  private final double[] anchorY;
+  private final double[] ranges;
+  private final double[] weights;
+  private final long[] expirations;
+  // indices of anchors with a current range are kept in the first activeCount slots
+  private final int[] activeAnchors;
+  // slot of the anchor in activeAnchors or -1 when the anchor has no current range
+  private final int[] slots;
+  private final long timeoutNanos;
+
+  private int activeCount;
+  private int updates;
+  private long nextExpiration = Long.MAX_VALUE;
+
+  // weighted sums of the normal equations
+  private double sw;
+  private double swx;
+  private double swy;
+  private double swxx;
+  private double swxy;
+  private double swyy;
+  private double swb;
+  private double swxb;
+  private double swyb;
+
+  private double x;
+  private double y;
+  private double error;
+
+  PositionSolver(double[] anchorX, double[] anchorY, long timeoutNanos) {
+    this.anchorX = anchorX;
+    this.anchorY = anchorY;
+    this.ranges = new double[anchorX.length];
+    this.weights = new double[anchorX.length];
+    this.expirations = new long[anchorX.length];
+    this.activeAnchors = new int[anchorX.length];
+    this.slots = new int[anchorX.length];
+    Arrays.fill(slots, -1);
+    this.timeoutNanos = timeoutNanos;
+  }
+
+  /**
+   * Replaces range to the anchor
+   *
+   * @param anchor index of the anchor
+   * @param range measured distance to the anchor in meters
+   * @param timestampNanos time of the measurement
+   */
+  void update(int anchor, double range, long timestampNanos) {
+    if (slots[anchor] >= 0) {
+      accumulate(anchor, -1);
+    } else {
+      slots[anchor] = activeCount;
+      activeAnchors[activeCount++] = anchor;
+    }
+
+    double clamped = Math.max(range, MIN_RANGE);
+    ranges[anchor] = range;
+    // variance of the squared range grows with the fourth power of the range,
+    // because error of the range is proportional to the range
+    weights[anchor] = 1 / (clamped * clamped * clamped * clamped);
+    expirations[anchor] = timestampNanos + timeoutNanos;
+    nextExpiration = Math.min(nextExpiration, expirations[anchor]);
+    accumulate(anchor, 1);
+
+    if (++updates >= REFRESH_INTERVAL) {
+      refresh();
+    }
+  }
+
+  /**
+   * Removes ranges older than the timeout. Anchors are scanned only when
+   * the oldest range expires, so the call is usually constant time.
+   *
+   * @param nowNanos current time
+   */
+  void expire(long nowNanos) {
+    if (nowNanos < nextExpiration) {
+      return;
+    }
+
+    nextExpiration = Long.MAX_VALUE;
+    // anchor moved into the slot of the removed one comes from already visited slots
+    for (int slot = activeCount - 1; slot >= 0; slot--) {
+      int anchor = activeAnchors[slot];
+      if (expirations[anchor] <= nowNanos) {
+        int last = activeAnchors[--activeCount];
+        activeAnchors[slot] = last;
+        slots[last] = slot;
+        slots[anchor] = -1;
+        accumulate(anchor, -1);
+      } else {
+        nextExpiration = Math.min(nextExpiration, expirations[anchor]);
+      }
+    }
+  }
+
+  /**
+   * Solves normal equations with current ranges
+   *
+   * @return true if position was estimated or false if there are not enough anchors
+   * or they're collinear
+   */
+  boolean solve() {
+    if (activeCount < MIN_ANCHORS) {
+      return false;
+    }
+
+    double m00 = 4 * swxx;
+    double m01 = 4 * swxy;
+    double m02 = -2 * swx;
+    double m11 = 4 * swyy;
+    double m12 = -2 * swy;
+    double m22 = sw;
+    double v0 = -2 * swxb;
+    double v1 = -2 * swyb;
+    double v2 = swb;
+
+    double c00 = m11 * m22 - m12 * m12;
+    double c01 = m02 * m12 - m01 * m22;
+    double c02 = m01 * m12 - m02 * m11;
+    double determinant = m00 * c00 + m01 * c01 + m02 * c02;
+    if (Math.abs(determinant) <= SINGULARITY_THRESHOLD * Math.abs(m00 * m11 * m22)) {
+      return false;
+    }
+
+    double c11 = m00 * m22 - m02 * m02;
+    double c12 = m01 * m02 - m00 * m12;
+    x = (c00 * v0 + c01 * v1 + c02 * v2) / determinant;
+    y = (c01 * v0 + c11 * v1 + c12 * v2) / determinant;
+    error = computeError();
+    return true;
+  }
+
+  double x() {
+    return x;
+  }
+
+  double y() {
+    return y;
+  }
+
+  double error() {
+    return error;
+  }
+
+  int activeCount() {
+    return activeCount;
+  }
+
+  private double computeError() {
+    double sum = 0;
+    for (int slot = 0; slot < activeCount; slot++) {
+      int anchor = activeAnchors[slot];
+      double dx = x - anchorX[anchor];
+      double dy = y - anchorY[anchor];
+      double residual = Math.sqrt(dx * dx + dy * dy) - ranges[anchor];
+      sum += weights[anchor] * residual * residual;
+    }
+    return Math.sqrt(sum / sw);
+  }
+
+  private void refresh() {
+    updates = 0;
+    sw = swx = swy = swxx = swxy = swyy = swb = swxb = swyb = 0;
+    for (int slot = 0; slot < activeCount; slot++) {
+      accumulate(activeAnchors[slot], 1);
+    }
+  }
+
+  private void accumulate(int anchor, int sign) {
+    double ax = anchorX[anchor];
+    double ay = anchorY[anchor];
+    double range = ranges[anchor];
+    double w = sign * weights[anchor];
+    double b = range * range - ax * ax - ay * ay;
+    sw += w;
+    swx += w * ax;
+    swy += w * ay;
+    swxx += w * ax * ax;
+    swxy += w * ax * ay;
+    swyy += w * ay * ay;
+    swb += w * b;
+    swxb += w * ax * b;
+    swyb += w * ay * b;
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.util.LongObjectMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Offline radio map used for fingerprinting. Every reference point has known coordinates
+ * and a vector of mean RSSI of beacons measured at this point. Vectors are stored
+ * in a single float array and indexed with a ball tree, so k nearest reference points
+ * of the RSSI vector measured online are found without comparing it with all of them.
+ * Beacons not heard at the reference point have {@link #MISSING_RSSI} value.
+ */
+public final class RadioMap {
+  /**
+   * RSSI used for beacons, which are not heard
+   */
+  public static final float MISSING_RSSI = -100f;
+
+  private static final char SEPARATOR = ',';
+  private static final char COMMENT = '#';
+
+  private final List<MacAddress> macAddresses;
+  private final LongObjectMap<Integer> dimensions;
+  private final double[] xs;
+  private final double[] ys;
+  private final BallTree tree;
+
+  private RadioMap(Builder builder) {
+    this.macAddresses = Collections.unmodifiableList(new ArrayList<>(builder.macAddresses));
+    this.dimensions = new LongObjectMap<>(macAddresses.size());
+    for (int i = 0; i < macAddresses.size(); i++) {
+      dimensions.put(macAddresses.get(i).toLong(), i);
+    }
+    this.xs = Arrays.copyOf(builder.xs, builder.size);
+    this.ys = Arrays.copyOf(builder.ys, builder.size);
+    this.tree = new BallTree(builder.vectors, builder.size, macAddresses.size());
+  }
+
+  /**
+   * Reads radio map from comma separated text. The first line contains x, y
+   * and MAC addresses of beacons. Every next line contains coordinates of the reference point
+   * and RSSI of beacons in the same order. Empty RSSI means that beacon is not heard,
+   * e.g.:
+   * <pre>
+   * x,y,00:27:0E:2A:B9:AA,00:27:0E:2A:B9:AB
+   * 0.0,0.0,-62,-80
+   * 0.0,1.5,-65,
+   * </pre>
+   * Empty lines and lines starting with # are ignored.
+   *
+   * @param reader source of the radio map, which is closed after reading
+   * @return radio map
+   * @throws IOException when radio map cannot be read or it's malformed
+   */
+  public static RadioMap read(Reader reader) throws IOException {
+    BufferedReader lines = new BufferedReader(reader);
+    try {
+      Builder builder = null;
+      int lineNumber = 0;
+      String line;
+      while ((line = lines.readLine()) != null) {
+        lineNumber++;
+        if (line.trim().isEmpty() || line.charAt(0) == COMMENT) {
+          continue;
+        }
+        try {
+          String[] fields = split(line);
+          if (builder == null) {
+            builder = new Builder(Arrays.asList(fields).subList(2, fields.length));
+          } else {
+            readReferencePoint(builder, fields);
+          }
+        } catch (IllegalArgumentException e) {
+          throw new IOException("malformed radio map at line " + lineNumber, e);
+        }
+      }
+      if (builder == null) {
+        throw new IOException("radio map has no header");
+      }
+      if (builder.size == 0) {
+        throw new IOException("radio map has no reference points");
+      }
+      return builder.build();
+    } finally {
+      lines.close();
+    }
+  }
+
+  private static void readReferencePoint(Builder builder, String[] fields) {
+    int dimensions = builder.macAddresses.size();
+    if (fields.length > dimensions + 2) {
+      throw new IllegalArgumentException("too many values: " + fields.length);
+    }
+    float[] rssi = new float[dimensions];
+    for (int i = 0; i < dimensions; i++) {
+      String value = i + 2 < fields.length ? fields[i + 2] : "";
+      rssi[i] = value.isEmpty() ? MISSING_RSSI : Float.parseFloat(value);
+    }
+    builder.referencePoint(Double.parseDouble(fields[0]), Double.parseDouble(fields[1]), rssi);
+  }
+
+  private static String[] split(String line) {
+    List<String> fields = new ArrayList<>();
+    int start = 0;
+    int end;
+    while ((end = line.indexOf(SEPARATOR, start)) >= 0) {
+      fields.add(line.substring(start, end).trim());
+      start = end + 1;
+    }
+    fields.add(line.substring(start).trim());
+    if (fields.size() < 2) {
+      throw new IllegalArgumentException("expected at least 2 fields: " + line);
+    }
+    return fields.toArray(new String[fields.size()]);
+  }
+
+  /**
+   * Gets MAC addresses of beacons in the order of dimensions of RSSI vectors
+   *
+   * @return list of MAC addresses
+   */
+  public List<MacAddress> getMacAddresses() {
+    return macAddresses;
+  }
+
+  /**
+   * Gets dimension of RSSI vector assigned to the beacon
+   *
+   * @param macAddress MAC address of the beacon
+   * @return dimension or -1 if beacon is not a part of the radio map
+   */
+  public int dimensionOf(MacAddress macAddress) {
+    Integer dimension = dimensions.get(macAddress.toLong());
+    return dimension != null ? dimension : -1;
+  }
+
+  public int dimensions() {
+    return macAddresses.size();
+  }
+
+  public int size() {
+    return xs.length;
+  }
+
+  public Coordinates getCoordinates(int index) {
+    return new Coordinates(xs[index], ys[index]);
+  }
+
+  double x(int index) {
+    return xs[index];
+  }
+
+  double y(int index) {
+    return ys[index];
+  }
+
+  /**
+   * Finds reference points with RSSI vectors nearest to provided one.
+   * Search doesn't allocate memory, so it can be called for every scan.
+   *
+   * @param rssi RSSI vector ordered like {@link #getMacAddresses()}
+   * @param neighbors container of results, its capacity is the number of searched points
+   */
+  public void nearest(float[] rssi, Neighbors neighbors) {
+    if (rssi.length != dimensions()) {
+      throw new IllegalArgumentException("expected " + dimensions() + " dimensions");
+    }
+    tree.nearest(rssi, neighbors);
+  }
+
+  @Override public String toString() {
+    return "RadioMap{size=" + size() + ", dimensions=" + dimensions() + '}';
+  }
+
+  public static final class Builder {
+    private final List<MacAddress> macAddresses = new ArrayList<>();
+    private float[] vectors = new float[0];
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private int size;
+
+    /**
+     * Creates builder of radio map with provided beacons
+     *
+     * @param macs MAC addresses of beacons in the order of RSSI vectors
+     * @throws IllegalArgumentException when one of MAC addresses is invalid or duplicated
+     */
+    public Builder(List<String> macs) {
+      for (String mac : macs) {
+        MacAddress macAddress = MacAddress.valueOf(mac);
+        if (macAddresses.contains(macAddress)) {
+          throw new IllegalArgumentException("duplicated MAC address: " + mac);
+        }
+        macAddresses.add(macAddress);
+      }
+      if (macAddresses.isEmpty()) {
+        throw new IllegalArgumentException("radio map requires at least one beacon");
+      }
+      vectors = new float[16 * macAddresses.size()];
+    }
+
+    /**
+     * Adds reference point. NaN RSSI is replaced with {@link #MISSING_RSSI}.
+     *
+     * @param x x coordinate in meters
+     * @param y y coordinate in meters
+     * @param rssi mean RSSI of beacons ordered like MAC addresses of the builder
+     * @return builder
+     */
+    public Builder referencePoint(double x, double y, float[] rssi) {
+      int dimensions = macAddresses.size();
+      if (rssi.length != dimensions) {
+        throw new IllegalArgumentException("expected " + dimensions + " RSSI values");
+      }
+      if (size == xs.length) {
+        xs = Arrays.copyOf(xs, 2 * size);
+        ys = Arrays.copyOf(ys, 2 * size);
+        vectors = Arrays.copyOf(vectors, 2 * size * dimensions);
+      }
+      xs[size] = x;
+      ys[size] = y;
+      for (int i = 0; i < dimensions; i++) {
+        vectors[size * dimensions + i] = Float.isNaN(rssi[i]) ? MISSING_RSSI : rssi[i];
+      }
+      size++;
+      return this;
+    }
+
+    public RadioMap build() {
+      if (size == 0) {
+        throw new IllegalArgumentException("radio map requires at least one reference point");
+      }
+      return new RadioMap(this);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+/**
+ * Windows of the recent RSSI samples of every beacon of the radio map stored
+ * in fixed-size primitive ring buffers. Mean of the window is kept as a running sum,
+ * so adding a sample and reading the mean take constant time apart from expiration.
+ */
+final class RssiWindows {
+  private final int capacity;
+  private final long windowNanos;
+  private final float[] samples;
+  private final long[] timestamps;
+  private final int[] heads;
+  private final int[] counts;
+  private final double[] sums;
+
+  RssiWindows(int beacons, int capacity, long windowNanos) {
+    this.capacity = capacity;
+    this.windowNanos = windowNanos;
+    this.samples = new float[beacons * capacity];
+    this.timestamps = new long[beacons * capacity];
+    this.heads = new int[beacons];
+    this.counts = new int[beacons];
+    this.sums = new double[beacons];
+  }
+
+  void add(int beacon, float rssi, long timestampNanos) {
+    expire(beacon, timestampNanos);
+    if (counts[beacon] == capacity) {
+      removeOldest(beacon);
+    }
+    int slot = beacon * capacity + (heads[beacon] + counts[beacon]) % capacity;
+    samples[slot] = rssi;
+    timestamps[slot] = timestampNanos;
+    sums[beacon] += rssi;
+    counts[beacon]++;
+  }
+
+  /**
+   * Gets mean RSSI of samples younger than the window
+   *
+   * @return mean RSSI or NaN if there are no samples
+   */
+  float mean(int beacon, long nowNanos) {
+    expire(beacon, nowNanos);
+    int count = counts[beacon];
+    return count > 0 ? (float) (sums[beacon] / count) : Float.NaN;
+  }
+
+  private void expire(int beacon, long nowNanos) {
+    long oldest = nowNanos - windowNanos;
+    while (counts[beacon] > 0 && timestamps[beacon * capacity + heads[beacon]] <= oldest) {
+      removeOldest(beacon);
+    }
+  }
+
+  private void removeOldest(int beacon) {
+    sums[beacon] -= samples[beacon * capacity + heads[beacon]];
+    heads[beacon] = (heads[beacon] + 1) % capacity;
+    if (--counts[beacon] == 0) {
+      sums[beacon] = 0; // drops rounding errors of the running sum
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.util.LongObjectMap;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+
+/**
+ * Estimates position of the device from ranges to anchor beacons with known coordinates.
+ * Can be applied to Observable and Flowable streams of beacons with compose(...) method.
+ * Every beacon of an anchor updates its range and emits a new position, when at least
+ * three non-collinear anchors have a range younger than the range timeout.
+ * Ranges are combined with incremental weighted least squares, so the update doesn't depend
+ * on the number of anchors in range. Ranges to near anchors have higher weights,
+ * because their errors are smaller. Beacons of other devices are ignored.
+ * Timeout is measured with timestamps of beacons, so recorded traces can be replayed.
+ */
+public final class Trilateration
+    implements ObservableTransformer<Beacon, Position>, FlowableTransformer<Beacon, Position> {
+  private static final String MSG_NOT_ENOUGH_ANCHORS = "at least 3 anchors are required";
+  private static final String MSG_TIMEOUT_MUST_BE_POSITIVE = "timeout must be greater than zero";
+  private static final long DEFAULT_RANGE_TIMEOUT_SECONDS = 5;
+
+  private final Map<MacAddress, Coordinates> anchors;
+  private final LongObjectMap<Integer> indexes;
+  private final double[] anchorX;
+  private final double[] anchorY;
+  private final double originX;
+  private final double originY;
+  final long rangeTimeoutNanos;
+
+  private Trilateration(Builder builder) {
+    this.anchors = Collections.unmodifiableMap(new LinkedHashMap<>(builder.anchors));
+    this.indexes = new LongObjectMap<>(anchors.size());
+    this.anchorX = new double[anchors.size()];
+    this.anchorY = new double[anchors.size()];
+    this.rangeTimeoutNanos = builder.rangeTimeoutNanos;
+
+    double sumX = 0;
+    double sumY = 0;
+    for (Coordinates coordinates : anchors.values()) {
+      sumX += coordinates.x;
+      sumY += coordinates.y;
+    }
+    // coordinates relative to the centroid keep squared terms of the equations small
+    this.originX = sumX / anchors.size();
+    this.originY = sumY / anchors.size();
+
+    int index = 0;
+    for (Map.Entry<MacAddress, Coordinates> anchor : anchors.entrySet()) {
+      indexes.put(anchor.getKey().toLong(), index);
+      anchorX[index] = anchor.getValue().x - originX;
+      anchorY[index] = anchor.getValue().y - originY;
+      index++;
+    }
+  }
+
+  public Map<MacAddress, Coordinates> getAnchors() {
+    return anchors;
+  }
+
+  @Override public ObservableSource<Position> apply(final Observable<Beacon> upstream) {
+    return Observable.defer(new Callable<ObservableSource<Position>>() {
+      @Override public ObservableSource<Position> call() {
+        Estimation estimation = new Estimation();
+        return upstream.filter(estimation).map(estimation);
+      }
+    });
+  }
+
+  @Override public Publisher<Position> apply(final Flowable<Beacon> upstream) {
+    return Flowable.defer(new Callable<Publisher<Position>>() {
+      @Override public Publisher<Position> call() {
+        Estimation estimation = new Estimation();
+        return upstream.filter(estimation).map(estimation);
+      }
+    });
+  }
+
+  @Override public String toString() {
+    return "Trilateration{anchors=" + anchors.size()
+        + ", rangeTimeoutNanos=" + rangeTimeoutNanos
+        + '}';
+  }
+
+  /**
+   * State of a single subscription. Predicate updates the range and solves the position,
+   * function creates the position, which was just solved.
+   */
+  private final class Estimation implements Predicate<Beacon>, Function<Beacon, Position> {
+    private final PositionSolver solver =
+        new PositionSolver(anchorX, anchorY, rangeTimeoutNanos);
+
+    @Override public boolean test(Beacon beacon) {
+      Integer index = indexes.get(beacon.macAddress.toLong());
+      if (index == null) {
+        return false;
+      }
+      solver.expire(beacon.timestampNanos);
+      solver.update(index, beacon.getDistance(), beacon.timestampNanos);
+      return solver.solve();
+    }
+
+    @Override public Position apply(Beacon beacon) {
+      Coordinates coordinates = new Coordinates(solver.x() + originX, solver.y() + originY);
+      return new Position(coordinates, solver.error(), solver.activeCount(),
+          beacon.timestampNanos);
+    }
+  }
+
+  public static final class Builder {
+    private final Map<MacAddress, Coordinates> anchors = new LinkedHashMap<>();
+    private long rangeTimeoutNanos = TimeUnit.SECONDS.toNanos(DEFAULT_RANGE_TIMEOUT_SECONDS);
+
+    /**
+     * Adds anchor beacon with known coordinates
+     *
+     * @param mac MAC address in XX:XX:XX:XX:XX:XX or XX-XX-XX-XX-XX-XX format
+     * @param x x coordinate in meters
+     * @param y y coordinate in meters
+     * @return builder
+     * @throws IllegalArgumentException when MAC address is invalid
+     */
+    public Builder anchor(String mac, double x, double y) {
+      anchors.put(MacAddress.valueOf(mac), new Coordinates(x, y));
+      return this;
+    }
+
+    /**
+     * Adds anchor beacons with known coordinates
+     *
+     * @param coordinates coordinates of anchors by their MAC addresses
+     * @return builder
+     * @throws IllegalArgumentException when one of MAC addresses is invalid
+     */
+    public Builder anchors(Map<String, Coordinates> coordinates) {
+      for (Map.Entry<String, Coordinates> anchor : coordinates.entrySet()) {
+        anchors.put(MacAddress.valueOf(anchor.getKey()), anchor.getValue());
+      }
+      return this;
+    }
+
+    /**
+     * Sets time after which range to an anchor is not used anymore. Default timeout
+     * is 5 seconds.
+     *
+     * @param timeout range timeout
+     * @param unit unit of the timeout
+     * @return builder
+     */
+    public Builder rangeTimeout(long timeout, TimeUnit unit) {
+      if (timeout <= 0) {
+        throw new IllegalArgumentException(MSG_TIMEOUT_MUST_BE_POSITIVE);
+      }
+      rangeTimeoutNanos = unit.toNanos(timeout);
+      return this;
+    }
+
+    public Trilateration build() {
+      if (anchors.size() < PositionSolver.MIN_ANCHORS) {
+        throw new IllegalArgumentException(MSG_NOT_ENOUGH_ANCHORS);
+      }
+      return new Trilateration(this);
+    }
+  }
+}
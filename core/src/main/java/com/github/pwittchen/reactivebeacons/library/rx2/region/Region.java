@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.region;
+
+import java.util.UUID;
+
+/**
+ * Region of iBeacons defined by proximity UUID, optionally narrowed down by major
+ * and minor, e.g. all beacons of a venue, of one floor or a single beacon.
+ * Regions are identified by their identifiers in {@link RegionMonitor}.
+ */
+public final class Region {
+  /**
+   * Value of major or minor of the region, which matches any major or minor
+   */
+  public static final int ANY = -1;
+  private static final int MAX_VALUE = 0xFFFF;
+  private static final String MSG_IDENTIFIER_NULL = "identifier == null";
+  private static final String MSG_UUID_NULL = "uuid == null";
+  private static final String MSG_OUT_OF_RANGE = "major and minor must be in range [0, 65535]";
+
+  public final String identifier;
+  public final UUID uuid;
+  public final int major;
+  public final int minor;
+
+  private Region(String identifier, UUID uuid, int major, int minor) {
+    if (identifier == null) {
+      throw new IllegalArgumentException(MSG_IDENTIFIER_NULL);
+    }
+    if (uuid == null) {
+      throw new IllegalArgumentException(MSG_UUID_NULL);
+    }
+    this.identifier = identifier;
+    this.uuid = uuid;
+    this.major = major;
+    this.minor = minor;
+  }
+
+  /**
+   * Creates region of all beacons with provided proximity UUID
+   *
+   * @param identifier identifier of the region
+   * @param uuid proximity UUID
+   * @return region
+   */
+  public static Region of(String identifier, UUID uuid) {
+    return new Region(identifier, uuid, ANY, ANY);
+  }
+
+  /**
+   * Creates region of all beacons with provided proximity UUID and major
+   *
+   * @param identifier identifier of the region
+   * @param uuid proximity UUID
+   * @param major major in range [0, 65535]
+   * @return region
+   */
+  public static Region of(String identifier, UUID uuid, int major) {
+    checkRange(major);
+    return new Region(identifier, uuid, major, ANY);
+  }
+
+  /**
+   * Creates region of beacons with provided proximity UUID, major and minor
+   *
+   * @param identifier identifier of the region
+   * @param uuid proximity UUID
+   * @param major major in range [0, 65535]
+   * @param minor minor in range [0, 65535]
+   * @return region
+   */
+  public static Region of(String identifier, UUID uuid, int major, int minor) {
+    checkRange(major);
+    checkRange(minor);
+    return new Region(identifier, uuid, major, minor);
+  }
+
+  private static void checkRange(int value) {
+    if (value < 0 || value > MAX_VALUE) {
+      throw new IllegalArgumentException(MSG_OUT_OF_RANGE);
+    }
+  }
+
+  /**
+   * Checks if iBeacon with provided identifiers belongs to the region
+   *
+   * @param uuid proximity UUID of the beacon
+   * @param major major of the beacon
+   * @param minor minor of the beacon
+   * @return true if beacon belongs to the region
+   */
+  public boolean contains(UUID uuid, int major, int minor) {
+    return this.uuid.equals(uuid)
+        && (this.major == ANY || this.major == major)
+        && (this.minor == ANY || this.minor == minor);
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    Region region = (Region) o;
+    return major == region.major
+        && minor == region.minor
+        && identifier.equals(region.identifier)
+        && uuid.equals(region.uuid);
+  }
+
+  @Override public int hashCode() {
+    int result = identifier.hashCode();
+    result = 31 * result + uuid.hashCode();
+    result = 31 * result + major;
+    result = 31 * result + minor;
+    return result;
+  }
+
+  @Override public String toString() {
+    return "Region{identifier='" + identifier + '\''
+        + ", uuid=" + uuid
+        + ", major=" + major
+        + ", minor=" + minor
+        + '}';
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.region;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+
+/**
+ * Crossing of the region boundary reported by {@link RegionMonitor}
+ */
+public final class RegionEvent {
+  public enum Type {
+    /**
+     * Beacon of the region was seen, when none of its beacons was seen for the exit timeout
+     */
+    ENTER,
+    /**
+     * No beacon of the region was seen for the exit timeout, event contains the last sighting
+     */
+    EXIT
+  }
+
+  public final Type type;
+  public final Region region;
+  public final Beacon beacon;
+
+  RegionEvent(Type type, Region region, Beacon beacon) {
+    this.type = type;
+    this.region = region;
+    this.beacon = beacon;
+  }
+
+  @Override public String toString() {
+    return "RegionEvent{type=" + type + ", region=" + region.identifier + ", beacon=" + beacon
+        + '}';
+  }
+}
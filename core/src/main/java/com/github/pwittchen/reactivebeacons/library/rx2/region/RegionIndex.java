@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.region;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.util.LongObjectMap;
+import java.util.List;
+
+/**
+ * Hash index of regions by proximity UUID, major and minor. Matching a beacon takes
+ * three hash lookups regardless of the number of regions and doesn't allocate memory.
+ * Index is immutable after it's built, so it can be shared between threads.
+ */
+final class RegionIndex {
+  private static final int[] NONE = new int[0];
+
+  // keyed by the most significant bits of UUID, nodes with the same bits are chained
+  private final LongObjectMap<UuidNode> uuids = new LongObjectMap<>();
+  private final int maxMatches;
+
+  /**
+   * Creates index of regions, which are identified by their positions on the list
+   *
+   * @param regions regions
+   */
+  RegionIndex(List<Region> regions) {
+    for (int i = 0; i < regions.size(); i++) {
+      Region region = regions.get(i);
+      UuidNode uuidNode = uuidNode(region.uuid.getMostSignificantBits(),
+          region.uuid.getLeastSignificantBits());
+      if (region.major == Region.ANY) {
+        uuidNode.regions = append(uuidNode.regions, i);
+        continue;
+      }
+      MajorNode majorNode = uuidNode.majors.get(region.major);
+      if (majorNode == null) {
+        majorNode = new MajorNode();
+        uuidNode.majors.put(region.major, majorNode);
+      }
+      if (region.minor == Region.ANY) {
+        majorNode.regions = append(majorNode.regions, i);
+      } else {
+        int[] minorRegions = majorNode.minors.get(region.minor);
+        majorNode.minors.put(region.minor, append(minorRegions != null ? minorRegions : NONE, i));
+      }
+    }
+    this.maxMatches = regions.size();
+  }
+
+  private UuidNode uuidNode(long mostSignificantBits, long leastSignificantBits) {
+    UuidNode head = uuids.get(mostSignificantBits);
+    for (UuidNode node = head; node != null; node = node.next) {
+      if (node.leastSignificantBits == leastSignificantBits) {
+        return node;
+      }
+    }
+    UuidNode node = new UuidNode(leastSignificantBits, head);
+    uuids.put(mostSignificantBits, node);
+    return node;
+  }
+
+  private static int[] append(int[] array, int value) {
+    int[] appended = new int[array.length + 1];
+    System.arraycopy(array, 0, appended, 0, array.length);
+    appended[array.length] = value;
+    return appended;
+  }
+
+  /**
+   * Gets maximal number of regions, which a single beacon can match
+   *
+   * @return size of the array passed to {@link #match(long, long, int, int, int[])}
+   */
+  int maxMatches() {
+    return maxMatches;
+  }
+
+  /**
+   * Finds regions, which contain iBeacon with provided identifiers
+   *
+   * @param mostSignificantBits most significant bits of the proximity UUID
+   * @param leastSignificantBits least significant bits of the proximity UUID
+   * @param major major of the beacon
+   * @param minor minor of the beacon
+   * @param matches array, which is filled with indexes of matching regions
+   * @return number of matching regions
+   */
+  int match(long mostSignificantBits, long leastSignificantBits, int major, int minor,
+      int[] matches) {
+    UuidNode uuidNode = uuids.get(mostSignificantBits);
+    while (uuidNode != null && uuidNode.leastSignificantBits != leastSignificantBits) {
+      uuidNode = uuidNode.next;
+    }
+    if (uuidNode == null) {
+      return 0;
+    }
+    int count = copy(uuidNode.regions, matches, 0);
+    MajorNode majorNode = uuidNode.majors.get(major);
+    if (majorNode != null) {
+      count = copy(majorNode.regions, matches, count);
+      int[] minorRegions = majorNode.minors.get(minor);
+      if (minorRegions != null) {
+        count = copy(minorRegions, matches, count);
+      }
+    }
+    return count;
+  }
+
+  private static int copy(int[] regions, int[] matches, int count) {
+    System.arraycopy(regions, 0, matches, count, regions.length);
+    return count + regions.length;
+  }
+
+  private static final class UuidNode {
+    final long leastSignificantBits;
+    final UuidNode next;
+    final LongObjectMap<MajorNode> majors = new LongObjectMap<>();
+    int[] regions = NONE;
+
+    UuidNode(long leastSignificantBits, UuidNode next) {
+      this.leastSignificantBits = leastSignificantBits;
+      this.next = next;
+    }
+  }
+
+  private static final class MajorNode {
+    final LongObjectMap<int[]> minors = new LongObjectMap<>();
+    int[] regions = NONE;
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.region;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.IBeacon;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+
+/**
+ * Monitors iBeacon regions in the stream of beacons and emits {@link RegionEvent} when
+ * the device enters or exits a region. Can be applied to Observable and Flowable streams
+ * with compose(...) method. Region is entered, when any of its beacons is seen, and it's
+ * exited, when none of its beacons was seen for the exit timeout. Exits are checked
+ * 16 times per the timeout, so they are reported at most 1/16 of the timeout late.
+ * <p>
+ * Regions are matched through a hash index by UUID, major and minor, so the cost
+ * of a sighting doesn't depend on the number of monitored regions.
+ */
+public final class RegionMonitor implements ObservableTransformer<Beacon, RegionEvent>,
+    FlowableTransformer<Beacon, RegionEvent> {
+  static final int TICKS_PER_TIMEOUT = 16;
+
+  private final List<Region> regions;
+  private final RegionIndex index;
+  private final long exitTimeoutNanos;
+  private final Scheduler scheduler;
+
+  private RegionMonitor(Builder builder) {
+    this.regions = Collections.unmodifiableList(new ArrayList<>(builder.regions));
+    this.index = new RegionIndex(regions);
+    this.exitTimeoutNanos = builder.exitTimeoutNanos;
+    this.scheduler = builder.scheduler;
+  }
+
+  public List<Region> getRegions() {
+    return regions;
+  }
+
+  @Override public ObservableSource<RegionEvent> apply(final Observable<Beacon> upstream) {
+    return Observable.defer(new Callable<ObservableSource<RegionEvent>>() {
+      @Override public ObservableSource<RegionEvent> call() {
+        // every subscription has its own state
+        Monitor monitor = new Monitor();
+        long tickNanos = Math.max(1, exitTimeoutNanos / TICKS_PER_TIMEOUT);
+        final Observable<Long> ticks =
+            Observable.interval(tickNanos, tickNanos, TimeUnit.NANOSECONDS, scheduler);
+        // merge serializes sightings and ticks, ticks stop when stream of beacons terminates
+        return upstream.publish(new Function<Observable<Beacon>, ObservableSource<Object>>() {
+          @Override public ObservableSource<Object> apply(Observable<Beacon> shared) {
+            Observable<Beacon> terminated = shared.ignoreElements().toObservable();
+            return Observable.<Object>merge(shared, ticks.takeUntil(terminated));
+          }
+        }).concatMapIterable(monitor);
+      }
+    });
+  }
+
+  @Override public Publisher<RegionEvent> apply(final Flowable<Beacon> upstream) {
+    return Flowable.defer(new Callable<Publisher<RegionEvent>>() {
+      @Override public Publisher<RegionEvent> call() {
+        Monitor monitor = new Monitor();
+        long tickNanos = Math.max(1, exitTimeoutNanos / TICKS_PER_TIMEOUT);
+        // ticks are dropped, when downstream doesn't keep up, which only delays exits
+        final Flowable<Long> ticks = Flowable
+            .interval(tickNanos, tickNanos, TimeUnit.NANOSECONDS, scheduler)
+            .onBackpressureDrop();
+        return upstream.publish(new Function<Flowable<Beacon>, Publisher<Object>>() {
+          @Override public Publisher<Object> apply(Flowable<Beacon> shared) {
+            Flowable<Beacon> terminated = shared.ignoreElements().toFlowable();
+            return Flowable.<Object>merge(shared, ticks.takeUntil(terminated));
+          }
+        }).concatMapIterable(monitor);
+      }
+    });
+  }
+
+  @Override public String toString() {
+    return "RegionMonitor{regions=" + regions.size()
+        + ", exitTimeoutNanos=" + exitTimeoutNanos
+        + '}';
+  }
+
+  /**
+   * State of regions of a single subscription. Time is counted in ticks, so sightings
+   * don't read the clock. Regions, which are inside, are kept in a dense array,
+   * so ticks check only them.
+   */
+  private final class Monitor implements Function<Object, Iterable<RegionEvent>> {
+    private final IBeacon iBeacon = new IBeacon();
+    private final int[] matches = new int[index.maxMatches()];
+    private final long[] lastSeenTicks = new long[regions.size()];
+    private final Beacon[] lastSightings = new Beacon[regions.size()];
+    // position of the region in the array of inside regions or -1, when it's outside
+    private final int[] positions = new int[regions.size()];
+    private final int[] inside = new int[regions.size()];
+    private int insideCount;
+    private long tick;
+
+    Monitor() {
+      for (int i = 0; i < positions.length; i++) {
+        positions[i] = -1;
+      }
+    }
+
+    @Override public Iterable<RegionEvent> apply(Object item) {
+      if (item instanceof Beacon) {
+        return onSighting((Beacon) item);
+      }
+      return onTick();
+    }
+
+    private List<RegionEvent> onSighting(Beacon beacon) {
+      if (beacon.scanRecord == null || !iBeacon.wrap(beacon.scanRecord)) {
+        return Collections.emptyList();
+      }
+      int count = index.match(iBeacon.uuidMostSignificantBits(),
+          iBeacon.uuidLeastSignificantBits(), iBeacon.major(), iBeacon.minor(), matches);
+      List<RegionEvent> events = Collections.emptyList();
+      for (int i = 0; i < count; i++) {
+        int region = matches[i];
+        lastSeenTicks[region] = tick;
+        lastSightings[region] = beacon;
+        if (positions[region] < 0) {
+          positions[region] = insideCount;
+          inside[insideCount++] = region;
+          if (events.isEmpty()) {
+            events = new ArrayList<>(count - i);
+          }
+          events.add(new RegionEvent(RegionEvent.Type.ENTER, regions.get(region), beacon));
+        }
+      }
+      return events;
+    }
+
+    private List<RegionEvent> onTick() {
+      tick++;
+      List<RegionEvent> events = Collections.emptyList();
+      for (int i = insideCount - 1; i >= 0; i--) {
+        int region = inside[i];
+        if (tick - lastSeenTicks[region] <= TICKS_PER_TIMEOUT) {
+          continue;
+        }
+        // region moved from the end of the array takes place of the exited one
+        int last = inside[--insideCount];
+        inside[i] = last;
+        positions[last] = i;
+        positions[region] = -1;
+        if (events.isEmpty()) {
+          events = new ArrayList<>();
+        }
+        events.add(new RegionEvent(RegionEvent.Type.EXIT, regions.get(region),
+            lastSightings[region]));
+        lastSightings[region] = null;
+      }
+      return events;
+    }
+  }
+
+  public static final class Builder {
+    private static final String MSG_REGION_NULL = "region == null";
+    private static final String MSG_DUPLICATED_IDENTIFIER = "duplicated region identifier: ";
+    private static final String MSG_NO_REGIONS = "at least one region is required";
+    private static final String MSG_TIMEOUT_MUST_BE_POSITIVE = "timeout must be greater than zero";
+    private static final String MSG_SCHEDULER_NULL = "scheduler == null";
+    private static final long DEFAULT_EXIT_TIMEOUT_SECONDS = 10;
+
+    private final List<Region> regions = new ArrayList<>();
+    private final Set<String> identifiers = new HashSet<>();
+    private long exitTimeoutNanos = TimeUnit.SECONDS.toNanos(DEFAULT_EXIT_TIMEOUT_SECONDS);
+    private Scheduler scheduler = Schedulers.computation();
+
+    public Builder region(Region region) {
+      if (region == null) {
+        throw new IllegalArgumentException(MSG_REGION_NULL);
+      }
+      if (!identifiers.add(region.identifier)) {
+        throw new IllegalArgumentException(MSG_DUPLICATED_IDENTIFIER + region.identifier);
+      }
+      regions.add(region);
+      return this;
+    }
+
+    public Builder regions(Collection<Region> regions) {
+      for (Region region : regions) {
+        region(region);
+      }
+      return this;
+    }
+
+    /**
+     * Sets time after which region is exited, when none of its beacons was seen.
+     * Default timeout is 10 seconds.
+     *
+     * @param timeout exit timeout
+     * @param unit unit of the timeout
+     * @return this builder
+     */
+    public Builder exitTimeout(long timeout, TimeUnit unit) {
+      if (timeout <= 0) {
+        throw new IllegalArgumentException(MSG_TIMEOUT_MUST_BE_POSITIVE);
+      }
+      exitTimeoutNanos = unit.toNanos(timeout);
+      return this;
+    }
+
+    /**
+     * Sets scheduler used for checking exits, computation scheduler is used by default
+     *
+     * @param scheduler scheduler
+     * @return this builder
+     */
+    public Builder scheduler(Scheduler scheduler) {
+      if (scheduler == null) {
+        throw new IllegalArgumentException(MSG_SCHEDULER_NULL);
+      }
+      this.scheduler = scheduler;
+      return this;
+    }
+
+    public RegionMonitor build() {
+      if (regions.isEmpty()) {
+        throw new IllegalArgumentException(MSG_NO_REGIONS);
+      }
+      return new RegionMonitor(this);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Software batching of scan results used when Bluetooth controller cannot batch them.
+ * Like batches of the controller, software batches contain every scan result,
+ * they are not deduplicated per device.
+ */
+public final class Batches {
+  private static final String MSG_REPORT_DELAY_TOO_SHORT =
+      "report delay must be at least one millisecond";
+  private static final Predicate<List<Beacon>> IS_NOT_EMPTY = new Predicate<List<Beacon>>() {
+    @Override public boolean test(List<Beacon> beacons) {
+      return !beacons.isEmpty();
+    }
+  };
+
+  private Batches() {
+  }
+
+  /**
+   * Checks report delay of batches. Bluetooth controller accepts report delay in milliseconds,
+   * so shorter delays would turn batching off.
+   *
+   * @param reportDelay delay of delivering a batch
+   * @param unit unit of the report delay
+   * @throws IllegalArgumentException when report delay is shorter than one millisecond
+   */
+  public static void checkReportDelay(long reportDelay, TimeUnit unit) {
+    if (unit.toMillis(reportDelay) < 1) {
+      throw new IllegalArgumentException(MSG_REPORT_DELAY_TOO_SHORT);
+    }
+  }
+
+  /**
+   * Collects beacons emitted during given time span into lists. Empty lists are not emitted.
+   *
+   * @param timeSpan time span of a single batch, at least one millisecond
+   * @param unit unit of the time span
+   * @return transformer emitting batches of beacons
+   */
+  public static ObservableTransformer<Beacon, List<Beacon>> buffer(long timeSpan, TimeUnit unit) {
+    return buffer(timeSpan, unit, Schedulers.computation());
+  }
+
+  /**
+   * Collects beacons emitted during given time span into lists. Empty lists are not emitted.
+   *
+   * @param timeSpan time span of a single batch, at least one millisecond
+   * @param unit unit of the time span
+   * @param scheduler scheduler measuring time spans of batches
+   * @return transformer emitting batches of beacons
+   */
+  public static ObservableTransformer<Beacon, List<Beacon>> buffer(final long timeSpan,
+      final TimeUnit unit, final Scheduler scheduler) {
+    checkReportDelay(timeSpan, unit);
+    return new ObservableTransformer<Beacon, List<Beacon>>() {
+      @Override public ObservableSource<List<Beacon>> apply(Observable<Beacon> beacons) {
+        return beacons.buffer(timeSpan, unit, scheduler).filter(IS_NOT_EMPTY);
+      }
+    };
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Cancellable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Push-based bridge between BLE scan callbacks and RxJava subscribers.
+ * Callbacks hand every result to {@link #onNext(Object)}, which never blocks:
+ * the item is offered to a lock-free queue and drained straight into the subscriber
+ * by the thread, which wins the work-in-progress counter.
+ * Items are never overwritten, so no result is lost between the callback and the subscriber.
+ * Scan callback can deliver results to one subscriber at a time, so a subscriber arriving
+ * while another one is subscribed receives {@link IllegalStateException}.
+ * Scans can be multicast to many subscribers with SharedScanStrategy.
+ *
+ * @param <T> type of emitted items
+ */
+public final class ScanEmitter<T> {
+  private static final String MSG_ALREADY_SUBSCRIBED =
+      "scan is already observed, share it with SharedScanStrategy";
+
+  private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wip = new AtomicInteger();
+  private final AtomicReference<ObservableEmitter<T>> emitter = new AtomicReference<>();
+  private volatile Throwable error;
+
+  /**
+   * Pushes item to the current subscriber. Can be called concurrently from any thread.
+   * Items pushed while nobody is subscribed are discarded.
+   *
+   * @param item item to emit
+   * @return true if item was accepted or false if it was discarded
+   */
+  public boolean onNext(T item) {
+    if (emitter.get() == null) {
+      return false;
+    }
+    queue.offer(item);
+    drain();
+    return true;
+  }
+
+  /**
+   * Terminates the current subscriber with an error after items pushed before.
+   * Can be called concurrently from any thread. Error signaled while nobody is subscribed
+   * is discarded.
+   *
+   * @param throwable error of the scan, e.g. {@link ScanFailedException}
+   */
+  public void onError(Throwable throwable) {
+    if (emitter.get() == null) {
+      return;
+    }
+    error = throwable;
+    drain();
+  }
+
+  /**
+   * Creates an observable stream of pushed items. Start action is invoked after subscriber is
+   * attached and stop action is invoked when subscription is disposed or terminated.
+   * Stream can be subscribed again after the previous subscription ends.
+   *
+   * @param start action starting the BLE scan
+   * @param stop action stopping the BLE scan
+   * @return Observable stream of items pushed with {@link #onNext(Object)}
+   */
+  public Observable<T> toObservable(final Action start, final Action stop) {
+    return Observable.create(new ObservableOnSubscribe<T>() {
+      @Override public void subscribe(final ObservableEmitter<T> observableEmitter)
+          throws Exception {
+        if (!emitter.compareAndSet(null, observableEmitter)) {
+          observableEmitter.onError(new IllegalStateException(MSG_ALREADY_SUBSCRIBED));
+          return;
+        }
+        error = null;
+        observableEmitter.setCancellable(new Cancellable() {
+          @Override public void cancel() throws Exception {
+            emitter.compareAndSet(observableEmitter, null);
+            stop.run();
+          }
+        });
+        start.run();
+      }
+    });
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    for (; ; ) {
+      ObservableEmitter<T> current = emitter.get();
+      T item;
+      while ((item = queue.poll()) != null) {
+        if (current == null || current.isDisposed()) {
+          queue.clear();
+          break;
+        }
+        try {
+          current.onNext(item);
+        } catch (Throwable throwable) {
+          Exceptions.throwIfFatal(throwable);
+          current.onError(throwable);
+        }
+      }
+
+      Throwable failure = error;
+      if (failure != null && current != null && queue.isEmpty()) {
+        error = null;
+        current.tryOnError(failure);
+      }
+
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy;
+
+/**
+ * Signals that BLE scan couldn't be started, e.g. because the scan with the same callback
+ * is already running or the application couldn't be registered by the Bluetooth stack
+ */
+public class ScanFailedException extends RuntimeException {
+  private final int errorCode;
+
+  /**
+   * Creates exception of the failed scan
+   *
+   * @param errorCode error code reported by the Bluetooth stack
+   */
+  public ScanFailedException(int errorCode) {
+    super("scan failed with error code " + errorCode);
+    this.errorCode = errorCode;
+  }
+
+  /**
+   * Gets error code reported by the Bluetooth stack,
+   * e.g. one of SCAN_FAILED_* constants of android.bluetooth.le.ScanCallback
+   *
+   * @return error code
+   */
+  public int getErrorCode() {
+    return errorCode;
+  }
+}
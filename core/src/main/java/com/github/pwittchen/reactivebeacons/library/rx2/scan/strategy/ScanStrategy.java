@@ -16,11 +16,15 @@
 package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy;
 
 import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.OverflowPolicy;
 
 import io.reactivex.Observable;
 
 /**
- * Interface representing BLE scan strategy
+ * Interface representing BLE scan strategy.
+ * Flowable stream with overflow policy is created from {@link #observe()}
+ * by {@link OverflowPolicy#toFlowable(Observable)}, so strategies implement
+ * only the Observable stream.
  */
 public interface ScanStrategy {
   /**
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parameters of the adaptive scan mode selection
+ */
+public final class AdaptiveScanPolicy {
+    public static final AdaptiveScanPolicy DEFAULT = new Builder().build();
+
+    public final ScanMode initialMode;
+    public final long evaluationPeriodMillis;
+    public final double maxCallbackRate;
+    public final long minModeDurationMillis;
+
+    private AdaptiveScanPolicy(Builder builder) {
+        this.initialMode = builder.initialMode;
+        this.evaluationPeriodMillis = builder.evaluationPeriodMillis;
+        this.maxCallbackRate = builder.maxCallbackRate;
+        this.minModeDurationMillis = builder.minModeDurationMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveScanPolicy{initialMode=" + initialMode
+                + ", evaluationPeriodMillis=" + evaluationPeriodMillis
+                + ", maxCallbackRate=" + maxCallbackRate
+                + ", minModeDurationMillis=" + minModeDurationMillis
+                + '}';
+    }
+
+    public static final class Builder {
+        private ScanMode initialMode = ScanMode.BALANCED;
+        private long evaluationPeriodMillis = 5000;
+        private double maxCallbackRate = 50;
+        private long minModeDurationMillis = 15000;
+
+        /**
+         * Sets mode used before the first evaluation, default is BALANCED
+         *
+         * @param scanMode initial scan mode
+         * @return builder
+         */
+        public Builder initialMode(ScanMode scanMode) {
+            if (scanMode == null) {
+                throw new IllegalArgumentException("scanMode == null");
+            }
+            this.initialMode = scanMode;
+            return this;
+        }
+
+        /**
+         * Sets period of measuring callback rate and device count, default is 5 seconds
+         *
+         * @param period evaluation period
+         * @param unit unit of the period
+         * @return builder
+         */
+        public Builder evaluationPeriod(long period, TimeUnit unit) {
+            if (period <= 0) {
+                throw new IllegalArgumentException("period must be greater than zero");
+            }
+            this.evaluationPeriodMillis = unit.toMillis(period);
+            return this;
+        }
+
+        /**
+         * Sets number of callbacks per second, above which scanning is slowed down,
+         * default is 50
+         *
+         * @param callbacksPerSecond maximal callback rate
+         * @return builder
+         */
+        public Builder maxCallbackRate(double callbacksPerSecond) {
+            if (!(callbacksPerSecond > 0)) {
+                throw new IllegalArgumentException("rate must be greater than zero");
+            }
+            this.maxCallbackRate = callbacksPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets minimal time between mode changes, which amortizes the cost of restarting
+         * the scan, default is 15 seconds
+         *
+         * @param duration minimal duration of the mode
+         * @param unit unit of the duration
+         * @return builder
+         */
+        public Builder minModeDuration(long duration, TimeUnit unit) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("duration can't be negative");
+            }
+            this.minModeDurationMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public AdaptiveScanPolicy build() {
+            return new AdaptiveScanPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan strategy, which switches scan mode of the wrapped strategy according to
+ * the observed callback rate and number of devices. Every subscription adapts
+ * the scan mode separately. Changes of the scan mode can be observed
+ * with {@link #observeScanModeChanges()}.
+ * <p>
+ * Wrapped strategy deduplicates sightings of every device, so the rate of emitted beacons
+ * is lower than the rate of scan callbacks, which costs CPU time. When wrapped strategy reports
+ * callbacks to {@link ScanInstrumentation}, the same instrumentation should be passed here,
+ * so the callback rate is measured before deduplication. The instrumentation shouldn't be
+ * shared with other scans running at the same time, because their callbacks would be counted.
+ */
+public class AdaptiveScanStrategy implements ScanStrategy {
+    private static final String MSG_INSTRUMENTATION_NULL = "instrumentation == null";
+    private final ScanModeStrategy scanStrategy;
+    private final AdaptiveScanPolicy policy;
+    private final Scheduler scheduler;
+    private final ScanInstrumentation instrumentation;
+    private final Subject<ScanModeChange> changes = PublishSubject.<ScanModeChange>create()
+            .toSerialized();
+
+    public AdaptiveScanStrategy(ScanModeStrategy scanStrategy) {
+        this(scanStrategy, AdaptiveScanPolicy.DEFAULT, Schedulers.computation());
+    }
+
+    /**
+     * Creates adaptive scan strategy
+     *
+     * @param scanStrategy strategy performing the scan
+     * @param policy parameters of the scan mode selection
+     * @param scheduler scheduler of the evaluations
+     */
+    public AdaptiveScanStrategy(ScanModeStrategy scanStrategy, AdaptiveScanPolicy policy,
+                                Scheduler scheduler) {
+        this(scanStrategy, policy, scheduler, ScanInstrumentation.DISABLED);
+    }
+
+    /**
+     * Creates adaptive scan strategy, which measures callback rate with the instrumentation
+     * of the wrapped strategy
+     *
+     * @param scanStrategy strategy performing the scan
+     * @param policy parameters of the scan mode selection
+     * @param scheduler scheduler of the evaluations
+     * @param instrumentation instrumentation, which wrapped strategy reports callbacks to
+     */
+    public AdaptiveScanStrategy(ScanModeStrategy scanStrategy, AdaptiveScanPolicy policy,
+                                Scheduler scheduler, ScanInstrumentation instrumentation) {
+        if (instrumentation == null) {
+            throw new IllegalArgumentException(MSG_INSTRUMENTATION_NULL);
+        }
+        this.scanStrategy = scanStrategy;
+        this.policy = policy;
+        this.scheduler = scheduler;
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Creates an observable stream of changes of the scan mode made by all subscriptions
+     *
+     * @return Observable stream of scan mode changes
+     */
+    public Observable<ScanModeChange> observeScanModeChanges() {
+        return changes;
+    }
+
+    @Override
+    public Observable<Beacon> observe() {
+        return Observable.defer(new Callable<ObservableSource<Beacon>>() {
+            @Override
+            public ObservableSource<Beacon> call() {
+                return adapt();
+            }
+        });
+    }
+
+    private Observable<Beacon> adapt() {
+        final ScanModeController controller =
+                new ScanModeController(policy, scheduler.now(TimeUnit.MILLISECONDS));
+        final BehaviorSubject<ScanMode> modes = BehaviorSubject.createDefault(policy.initialMode);
+
+        Observable<Beacon> beacons = modes.switchMap(
+                new Function<ScanMode, ObservableSource<Beacon>>() {
+                    @Override
+                    public ObservableSource<Beacon> apply(ScanMode scanMode) {
+                        return scanStrategy.observe(scanMode);
+                    }
+                });
+
+        long period = policy.evaluationPeriodMillis;
+        Observable<Long> evaluations =
+                Observable.interval(period, period, TimeUnit.MILLISECONDS, scheduler);
+
+        final boolean countsCallbacks = instrumentation != ScanInstrumentation.DISABLED;
+        // merge serializes beacons and evaluations, so controller doesn't need locking
+        return Observable.<Object>merge(beacons, evaluations)
+                .filter(new Predicate<Object>() {
+                    private long callbackCount = instrumentation.getCallbackCount();
+
+                    @Override
+                    public boolean test(Object item) {
+                        if (item instanceof Beacon) {
+                            controller.onBeacon(((Beacon) item).macAddress.toLong());
+                            return true;
+                        }
+
+                        if (countsCallbacks) {
+                            long current = instrumentation.getCallbackCount();
+                            controller.onCallbacks(current - callbackCount);
+                            callbackCount = current;
+                        }
+                        ScanModeChange change =
+                                controller.evaluate(scheduler.now(TimeUnit.MILLISECONDS));
+                        if (change != null) {
+                            changes.onNext(change);
+                            modes.onNext(change.mode);
+                        }
+                        return false;
+                    }
+                })
+                .cast(Beacon.class);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive;
+
+/**
+ * Scan modes of Bluetooth Low Energy scanner available since Android Lollipop
+ */
+public enum ScanMode {
+    /**
+     * Scans for 0.5 s every 5 s
+     */
+    LOW_POWER(0, 512d / 5120d),
+    /**
+     * Scans for 1 s every 4 s
+     */
+    BALANCED(1, 1024d / 4096d),
+    /**
+     * Scans continuously
+     */
+    LOW_LATENCY(2, 1d);
+
+    /**
+     * Value of the ScanSettings.SCAN_MODE_* constant
+     */
+    public final int value;
+
+    /**
+     * Part of the time, when radio is scanning
+     */
+    public final double dutyCycle;
+
+    ScanMode(int value, double dutyCycle) {
+        this.value = value;
+        this.dutyCycle = dutyCycle;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive;
+
+/**
+ * Change of the scan mode together with the load, which caused it
+ */
+public final class ScanModeChange {
+    public final ScanMode previousMode;
+    public final ScanMode mode;
+    public final double callbackRate; // callbacks per second in the last evaluation period
+    public final int deviceCount; // unique devices in the last evaluation period
+    public final long timestampMillis;
+
+    ScanModeChange(ScanMode previousMode, ScanMode mode, double callbackRate, int deviceCount,
+                   long timestampMillis) {
+        this.previousMode = previousMode;
+        this.mode = mode;
+        this.callbackRate = callbackRate;
+        this.deviceCount = deviceCount;
+        this.timestampMillis = timestampMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanModeChange{previousMode=" + previousMode
+                + ", mode=" + mode
+                + ", callbackRate=" + callbackRate
+                + ", deviceCount=" + deviceCount
+                + ", timestampMillis=" + timestampMillis
+                + '}';
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.util.LongHashSet;
+
+/**
+ * Selects scan mode from the callback rate and the number of unique devices.
+ * Without devices, LOW_POWER mode is selected. Otherwise, the fastest mode, in which
+ * expected callback rate doesn't exceed the maximal one, is selected. Faster mode is
+ * selected only when expected rate is below half of the maximal rate (hysteresis).
+ * Mode is changed only when the same mode is selected in two consecutive evaluations
+ * and the current mode lasted for minimal duration, because every change restarts the scan.
+ * Methods have to be called serially.
+ */
+final class ScanModeController {
+    static final double HYSTERESIS = 0.5;
+    static final int REQUIRED_CONFIRMATIONS = 2;
+    private static final ScanMode[] SCANNING_MODES = {ScanMode.LOW_LATENCY, ScanMode.BALANCED};
+
+    private final AdaptiveScanPolicy policy;
+    private final LongHashSet devices = new LongHashSet();
+    private ScanMode mode;
+    private ScanMode candidate;
+    private int confirmations;
+    private int callbacks;
+    private long rawCallbacks = -1;
+    private long periodStartMillis;
+    private long modeStartMillis;
+
+    ScanModeController(AdaptiveScanPolicy policy, long nowMillis) {
+        this.policy = policy;
+        this.mode = policy.initialMode;
+        this.periodStartMillis = nowMillis;
+        this.modeStartMillis = nowMillis;
+    }
+
+    ScanMode getMode() {
+        return mode;
+    }
+
+    void onBeacon(long macAddress) {
+        callbacks++;
+        devices.add(macAddress);
+    }
+
+    /**
+     * Reports number of scan callbacks received during the evaluation period. It replaces
+     * the number of beacons reported with {@link #onBeacon(long)}, which doesn't include
+     * sightings dropped by deduplication.
+     *
+     * @param count number of scan callbacks
+     */
+    void onCallbacks(long count) {
+        rawCallbacks = count;
+    }
+
+    /**
+     * Ends the evaluation period
+     *
+     * @param nowMillis current time in milliseconds
+     * @return change of the scan mode or null when mode should not be changed
+     */
+    ScanModeChange evaluate(long nowMillis) {
+        long elapsedMillis = Math.max(1, nowMillis - periodStartMillis);
+        long count = rawCallbacks >= 0 ? rawCallbacks : callbacks;
+        double callbackRate = count * 1000d / elapsedMillis;
+        int deviceCount = devices.size();
+        callbacks = 0;
+        rawCallbacks = -1;
+        devices.clear();
+        periodStartMillis = nowMillis;
+
+        ScanMode target = selectMode(callbackRate, deviceCount);
+        if (target == mode) {
+            candidate = null;
+            confirmations = 0;
+            return null;
+        }
+
+        if (target == candidate) {
+            confirmations++;
+        } else {
+            candidate = target;
+            confirmations = 1;
+        }
+
+        if (confirmations < REQUIRED_CONFIRMATIONS
+                || nowMillis - modeStartMillis < policy.minModeDurationMillis) {
+            return null;
+        }
+
+        ScanModeChange change =
+                new ScanModeChange(mode, target, callbackRate, deviceCount, nowMillis);
+        mode = target;
+        modeStartMillis = nowMillis;
+        candidate = null;
+        confirmations = 0;
+        return change;
+    }
+
+    private ScanMode selectMode(double callbackRate, int deviceCount) {
+        if (deviceCount == 0) {
+            return ScanMode.LOW_POWER;
+        }
+
+        // rate, which would be observed with continuous scanning
+        double continuousRate = callbackRate / mode.dutyCycle;
+        for (ScanMode candidateMode : SCANNING_MODES) {
+            double expectedRate = continuousRate * candidateMode.dutyCycle;
+            double limit = candidateMode.ordinal() > mode.ordinal()
+                    ? policy.maxCallbackRate * HYSTERESIS
+                    : policy.maxCallbackRate;
+            if (expectedRate <= limit) {
+                return candidateMode;
+            }
+        }
+
+        return ScanMode.LOW_POWER;
+    }
+}
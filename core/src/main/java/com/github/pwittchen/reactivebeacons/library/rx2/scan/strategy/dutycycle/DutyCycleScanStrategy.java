@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.dutycycle;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.BehaviorSubject;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan strategy, which alternates scans of the wrapped strategy with idle intervals
+ * according to the scan profile. Profile can be changed while scanning,
+ * e.g. when application goes to background. Scans are delayed when needed,
+ * so strategy doesn't start more than 5 scans per 30 seconds.
+ */
+public class DutyCycleScanStrategy implements ScanStrategy {
+    private static final String MSG_PROFILE_NULL = "scanProfile == null";
+
+    private final ScanStrategy scanStrategy;
+    private final Scheduler scheduler;
+    private final BehaviorSubject<ScanProfile> profiles;
+    private final ScanStartLimiter limiter = new ScanStartLimiter();
+
+    public DutyCycleScanStrategy(ScanStrategy scanStrategy, ScanProfile scanProfile) {
+        this(scanStrategy, scanProfile, Schedulers.computation());
+    }
+
+    /**
+     * Creates duty cycle scan strategy
+     *
+     * @param scanStrategy strategy performing the scans
+     * @param scanProfile initial scan profile
+     * @param scheduler scheduler measuring scan windows and idle intervals
+     */
+    public DutyCycleScanStrategy(ScanStrategy scanStrategy, ScanProfile scanProfile,
+                                 Scheduler scheduler) {
+        checkNotNull(scanProfile);
+        this.scanStrategy = scanStrategy;
+        this.scheduler = scheduler;
+        this.profiles = BehaviorSubject.createDefault(scanProfile);
+    }
+
+    /**
+     * Changes scan profile. Current scan is stopped and the new cycle starts immediately.
+     *
+     * @param scanProfile new scan profile
+     */
+    public void setScanProfile(ScanProfile scanProfile) {
+        checkNotNull(scanProfile);
+        profiles.onNext(scanProfile);
+    }
+
+    public ScanProfile getScanProfile() {
+        return profiles.getValue();
+    }
+
+    @Override
+    public Observable<Beacon> observe() {
+        return profiles.distinctUntilChanged()
+                .switchMap(new Function<ScanProfile, ObservableSource<Beacon>>() {
+                    @Override
+                    public ObservableSource<Beacon> apply(ScanProfile scanProfile) {
+                        return cycle(scanProfile);
+                    }
+                });
+    }
+
+    private Observable<Beacon> cycle(final ScanProfile scanProfile) {
+        Observable<Beacon> scanWindow = Observable.defer(new Callable<ObservableSource<Beacon>>() {
+            @Override
+            public ObservableSource<Beacon> call() {
+                long delay = limiter.reserve(scheduler.now(TimeUnit.MILLISECONDS));
+                Observable<Beacon> scan = scanStrategy.observe()
+                        .take(scanProfile.scanWindowMillis, TimeUnit.MILLISECONDS, scheduler);
+
+                if (delay == 0) {
+                    return scan;
+                }
+
+                return scan.delaySubscription(delay, TimeUnit.MILLISECONDS, scheduler);
+            }
+        });
+
+        Observable<Beacon> idleInterval =
+                Observable.timer(scanProfile.idleIntervalMillis, TimeUnit.MILLISECONDS, scheduler)
+                        .ignoreElements()
+                        .toObservable();
+
+        return scanWindow.concatWith(idleInterval).repeat();
+    }
+
+    private void checkNotNull(ScanProfile scanProfile) {
+        if (scanProfile == null) {
+            throw new IllegalArgumentException(MSG_PROFILE_NULL);
+        }
+    }
+}
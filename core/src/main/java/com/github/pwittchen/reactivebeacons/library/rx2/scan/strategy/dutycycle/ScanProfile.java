@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.dutycycle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes how long scan lasts and how long radio stays idle between scans
+ */
+public final class ScanProfile {
+    private static final String MSG_WINDOW_MUST_BE_POSITIVE = "scan window must be greater than zero";
+    private static final String MSG_IDLE_NEGATIVE = "idle interval can't be negative";
+
+    /**
+     * Profile for the application in foreground: 10 seconds of scan, 2 seconds of idle
+     */
+    public static final ScanProfile FOREGROUND = of(10, 2, TimeUnit.SECONDS);
+
+    /**
+     * Profile for the application in background: 2 seconds of scan, 8 seconds of idle
+     */
+    public static final ScanProfile BACKGROUND = of(2, 8, TimeUnit.SECONDS);
+
+    public final long scanWindowMillis;
+    public final long idleIntervalMillis;
+
+    private ScanProfile(long scanWindowMillis, long idleIntervalMillis) {
+        this.scanWindowMillis = scanWindowMillis;
+        this.idleIntervalMillis = idleIntervalMillis;
+    }
+
+    /**
+     * Creates scan profile
+     *
+     * @param scanWindow duration of a single scan
+     * @param idleInterval time between the end of the scan and the start of the next one
+     * @param unit unit of the scan window and the idle interval
+     * @return scan profile
+     */
+    public static ScanProfile of(long scanWindow, long idleInterval, TimeUnit unit) {
+        long scanWindowMillis = unit.toMillis(scanWindow);
+        long idleIntervalMillis = unit.toMillis(idleInterval);
+        if (scanWindowMillis <= 0) {
+            throw new IllegalArgumentException(MSG_WINDOW_MUST_BE_POSITIVE);
+        }
+        if (idleIntervalMillis < 0) {
+            throw new IllegalArgumentException(MSG_IDLE_NEGATIVE);
+        }
+        return new ScanProfile(scanWindowMillis, idleIntervalMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "ScanProfile{scanWindowMillis=" + scanWindowMillis
+                + ", idleIntervalMillis=" + idleIntervalMillis
+                + '}';
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.dutycycle;
+
+/**
+ * Keeps number of scan starts within a sliding time window below the limit.
+ * Android (since 7.0) silently ignores scans of the application,
+ * which starts more than 5 scans per 30 seconds.
+ */
+final class ScanStartLimiter {
+    static final int MAX_STARTS = 5;
+    static final long WINDOW_MILLIS = 30000;
+
+    private final long[] starts = new long[MAX_STARTS]; // ring buffer of the last start times
+    private int next;
+    private int count;
+
+    /**
+     * Reserves the earliest possible start of the scan
+     *
+     * @param nowMillis current time in milliseconds
+     * @return delay of the start in milliseconds, zero when scan can start immediately
+     */
+    synchronized long reserve(long nowMillis) {
+        long start = nowMillis;
+        if (count == MAX_STARTS) {
+            // the oldest start has to leave the window first
+            start = Math.max(nowMillis, starts[next] + WINDOW_MILLIS);
+        } else {
+            count++;
+        }
+        starts[next] = start;
+        next = (next + 1) % MAX_STARTS;
+        return start - nowMillis;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.ScanRecordParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binary trace recorded by {@link TraceRecorder}. Segments are read in the order of recording,
+ * so the trace can be replayed with {@link ReplayScanStrategy} or processed offline.
+ */
+public class BinaryTrace implements Trace {
+    private final File directory;
+    private final String prefix;
+
+    public BinaryTrace(File directory, String prefix) {
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Opens reader of segments existing at the moment of opening
+     *
+     * @return trace reader
+     */
+    @Override
+    public TraceReader open() {
+        return new BinaryTraceReader(BinaryTraceFormat.segments(directory, prefix));
+    }
+
+    /**
+     * Reader of mapped segments. It may be closed from another thread than the one reading,
+     * so the buffer is read into a local variable and a closed reader reports the end of trace.
+     */
+    private static final class BinaryTraceReader implements TraceReader {
+        private final File[] segments;
+        private int nextSegment;
+        private MappedByteBuffer buffer;
+        private File segment;
+        private volatile boolean closed;
+
+        BinaryTraceReader(File[] segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public Beacon read() throws IOException {
+            while (!closed) {
+                MappedByteBuffer current = buffer;
+                if (current == null) {
+                    if (nextSegment >= segments.length) {
+                        return null;
+                    }
+                    current = openSegment(segments[nextSegment++]);
+                }
+
+                if (current.remaining() < BinaryTraceFormat.RECORD_HEADER_SIZE
+                        || current.get(current.position()) == BinaryTraceFormat.TYPE_END) {
+                    buffer = null;
+                    continue;
+                }
+
+                return readRecord(current);
+            }
+            return null;
+        }
+
+        private Beacon readRecord(MappedByteBuffer buffer) throws IOException {
+            int position = buffer.position();
+            if (buffer.get(position + BinaryTraceFormat.TYPE_OFFSET)
+                    != BinaryTraceFormat.TYPE_BEACON) {
+                throw new IOException("unknown record type at " + position + " in " + segment);
+            }
+
+            int rssi = buffer.get(position + BinaryTraceFormat.RSSI_OFFSET);
+            int txPower = buffer.get(position + BinaryTraceFormat.TX_POWER_OFFSET);
+            long timestampNanos = buffer.getLong(position + BinaryTraceFormat.TIMESTAMP_OFFSET);
+            int macAddressOffset = position + BinaryTraceFormat.MAC_ADDRESS_OFFSET;
+            long high = buffer.getShort(macAddressOffset) & 0xFFFFL;
+            long low = buffer.getInt(macAddressOffset + 2) & 0xFFFFFFFFL;
+            int length = buffer.getShort(position + BinaryTraceFormat.LENGTH_OFFSET) & 0xFFFF;
+
+            byte[] scanRecord = null;
+            int recordSize = BinaryTraceFormat.RECORD_HEADER_SIZE;
+            if (length != BinaryTraceFormat.NULL_LENGTH) {
+                recordSize += length;
+                if (buffer.remaining() < recordSize) {
+                    throw new IOException("truncated record at " + position + " in " + segment);
+                }
+                scanRecord = new byte[length];
+                buffer.position(position + BinaryTraceFormat.RECORD_HEADER_SIZE);
+                buffer.get(scanRecord);
+            }
+            buffer.position(position + recordSize);
+
+            MacAddress macAddress = MacAddress.valueOf(high << 32 | low);
+            String name = ScanRecordParser.localName(scanRecord);
+            return new Beacon(macAddress, name, rssi, txPower, scanRecord, timestampNanos);
+        }
+
+        private MappedByteBuffer openSegment(File file) throws IOException {
+            MappedByteBuffer buffer;
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = randomAccessFile.getChannel();
+                // mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                randomAccessFile.close();
+            }
+            segment = file;
+
+            if (buffer.remaining() < BinaryTraceFormat.FILE_HEADER_SIZE
+                    || buffer.getInt() != BinaryTraceFormat.MAGIC) {
+                throw new IOException("not a binary trace segment: " + file);
+            }
+            short version = buffer.getShort();
+            if (version != BinaryTraceFormat.VERSION) {
+                throw new IOException("unsupported version " + version + " of " + file);
+            }
+            buffer.getShort(); // reserved
+            this.buffer = buffer;
+            return buffer;
+        }
+
+        /**
+         * Closes the reader. Closing is idempotent and subsequent reads return null.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            buffer = null;
+        }
+    }
+}
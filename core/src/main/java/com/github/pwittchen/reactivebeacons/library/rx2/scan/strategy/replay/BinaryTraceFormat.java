@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Layout of binary trace segments. Every segment starts with 8-byte header
+ * (magic number and version) followed by records. Record has 20-byte header
+ * followed by the scan record. All values are big-endian.
+ * <pre>
+ * offset  size  field
+ *  0      1     type (0 - end of the segment, 1 - beacon)
+ *  1      1     RSSI in dBm
+ *  2      1     TX power in dBm
+ *  3      1     reserved
+ *  4      8     monotonic timestamp in nanoseconds
+ * 12      6     MAC address
+ * 18      2     length of the scan record (0xFFFF when scan record is null)
+ * 20      n     scan record
+ * </pre>
+ * Segments are preallocated, so unused space at the end of the segment is filled with zeros,
+ * which reads as the end of the segment.
+ */
+final class BinaryTraceFormat {
+    static final int MAGIC = 0x52425452; // "RBTR"
+    static final short VERSION = 1;
+    static final int FILE_HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 20;
+    static final byte TYPE_END = 0;
+    static final byte TYPE_BEACON = 1;
+    static final int NULL_LENGTH = 0xFFFF;
+    static final int TYPE_OFFSET = 0;
+    static final int RSSI_OFFSET = 1;
+    static final int TX_POWER_OFFSET = 2;
+    static final int TIMESTAMP_OFFSET = 4;
+    static final int MAC_ADDRESS_OFFSET = 12;
+    static final int LENGTH_OFFSET = 18;
+    private static final String SUFFIX = ".rbt";
+    private static final int INDEX_DIGITS = 6;
+
+    private BinaryTraceFormat() {
+    }
+
+    static File segment(File directory, String prefix, long index) {
+        String format = "%s-%0" + INDEX_DIGITS + "d%s";
+        return new File(directory, String.format(Locale.US, format, prefix, index, SUFFIX));
+    }
+
+    static long index(File segment, String prefix) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(prefix.length() + 1, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Lists segments of the trace in the order of recording
+     *
+     * @param directory directory containing segments
+     * @param prefix prefix of names of the segments
+     * @return segments sorted by their indexes
+     */
+    static File[] segments(File directory, final String prefix) {
+        File[] segments = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return isSegment(name, prefix);
+            }
+        });
+
+        if (segments == null) {
+            return new File[0];
+        }
+
+        Arrays.sort(segments, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                long firstIndex = index(first, prefix);
+                long secondIndex = index(second, prefix);
+                return firstIndex < secondIndex ? -1 : (firstIndex == secondIndex ? 0 : 1);
+            }
+        });
+        return segments;
+    }
+
+    private static boolean isSegment(String name, String prefix) {
+        int start = prefix.length() + 1;
+        int end = name.length() - SUFFIX.length();
+        if (end - start < INDEX_DIGITS
+                || !name.startsWith(prefix)
+                || name.charAt(prefix.length()) != '-'
+                || !name.endsWith(SUFFIX)) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
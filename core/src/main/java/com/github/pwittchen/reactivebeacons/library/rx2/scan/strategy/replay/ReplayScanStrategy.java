@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan strategy, which replays recorded trace instead of scanning.
+ * Beacons are emitted with the same time gaps as in the trace divided by replay speed,
+ * so traffic of a real venue can be reproduced without Bluetooth hardware.
+ * Time is measured with the scheduler, so trace can be replayed in virtual time
+ * with TestScheduler as well. Every subscription replays the trace from the beginning.
+ */
+public class ReplayScanStrategy implements ScanStrategy {
+    public static final double REAL_TIME = 1d;
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+    private static final String MSG_SPEED_NOT_POSITIVE = "speed must be greater than zero";
+
+    private final Trace trace;
+    private final double speed;
+    private final Scheduler scheduler;
+
+    public ReplayScanStrategy(Trace trace) {
+        this(trace, REAL_TIME);
+    }
+
+    public ReplayScanStrategy(Trace trace, double speed) {
+        this(trace, speed, Schedulers.computation());
+    }
+
+    /**
+     * Creates replay scan strategy
+     *
+     * @param trace recorded trace
+     * @param speed replay speed, e.g. 1 for real time, 10 for ten times faster replay
+     * or {@link #MAX_SPEED} for replay without delays
+     * @param scheduler scheduler measuring time and emitting beacons
+     */
+    public ReplayScanStrategy(Trace trace, double speed, Scheduler scheduler) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException(MSG_SPEED_NOT_POSITIVE);
+        }
+        this.trace = trace;
+        this.speed = speed;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Observable<Beacon> observe() {
+        return Observable.create(new ObservableOnSubscribe<Beacon>() {
+            @Override
+            public void subscribe(ObservableEmitter<Beacon> emitter) throws IOException {
+                final TraceReader reader = trace.open();
+                final Scheduler.Worker worker = scheduler.createWorker();
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() {
+                        // replay may be reading on the worker right now,
+                        // so the reader is closed after it by a task on the same worker
+                        worker.schedule(new Close(reader, worker));
+                    }
+                });
+                worker.schedule(new Replay(reader, emitter, worker, speed));
+            }
+        });
+    }
+
+    /**
+     * Closes the reader and releases the worker once replay running on the worker is done.
+     */
+    private static final class Close implements Runnable {
+        private final TraceReader reader;
+        private final Scheduler.Worker worker;
+
+        Close(TraceReader reader, Scheduler.Worker worker) {
+            this.reader = reader;
+            this.worker = worker;
+        }
+
+        @Override
+        public void run() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                RxJavaPlugins.onError(e);
+            } finally {
+                worker.dispose();
+            }
+        }
+    }
+
+    /**
+     * Emits all beacons, which are due, and reschedules itself for the next one,
+     * so replay doesn't create a timer for every beacon.
+     */
+    private static final class Replay implements Runnable {
+        private final TraceReader reader;
+        private final ObservableEmitter<Beacon> emitter;
+        private final Scheduler.Worker worker;
+        private final double speed;
+        private long startNanos;
+        private long firstTimestampNanos;
+        private Beacon pending;
+        private boolean started;
+
+        Replay(TraceReader reader, ObservableEmitter<Beacon> emitter, Scheduler.Worker worker,
+               double speed) {
+            this.reader = reader;
+            this.emitter = emitter;
+            this.worker = worker;
+            this.speed = speed;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!emitter.isDisposed()) {
+                    if (pending == null) {
+                        pending = reader.read();
+                        if (pending == null) {
+                            emitter.onComplete();
+                            return;
+                        }
+                    }
+
+                    long now = worker.now(TimeUnit.NANOSECONDS);
+                    if (!started) {
+                        started = true;
+                        startNanos = now;
+                        firstTimestampNanos = pending.timestampNanos;
+                    }
+
+                    long delay = dueNanos(pending) - (now - startNanos);
+                    if (delay > 0) {
+                        worker.schedule(this, delay, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+
+                    Beacon beacon = pending;
+                    pending = null;
+                    emitter.onNext(beacon);
+                }
+            } catch (IOException e) {
+                emitter.tryOnError(e);
+            }
+        }
+
+        private long dueNanos(Beacon beacon) {
+            if (speed == MAX_SPEED) {
+                return 0;
+            }
+            // beacons recorded out of order are emitted immediately
+            return (long) ((beacon.timestampNanos - firstTimestampNanos) / speed);
+        }
+    }
+}
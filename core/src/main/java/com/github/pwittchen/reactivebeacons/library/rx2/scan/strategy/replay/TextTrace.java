@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.ScanRecordParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Trace stored in a text file. Every line describes one beacon as comma separated
+ * timestamp in nanoseconds, MAC address, RSSI and scan record in hex, e.g.:
+ * <pre>
+ * 1000000,00:27:0E:2A:B9:AA,-65,0201061AFF4C000215...
+ * </pre>
+ * Scan record can be empty. Empty lines and lines starting with # are ignored.
+ * Name of the device is read from the local name in the scan record.
+ */
+public class TextTrace implements Trace {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char SEPARATOR = ',';
+    private static final char COMMENT = '#';
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final File file;
+
+    public TextTrace(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public TraceReader open() throws IOException {
+        InputStreamReader reader = new InputStreamReader(new FileInputStream(file), UTF_8);
+        return new TextTraceReader(new BufferedReader(reader));
+    }
+
+    /**
+     * Formats beacon as a line of the text trace (without line separator)
+     *
+     * @param beacon beacon
+     * @return line of the trace
+     */
+    public static String format(Beacon beacon) {
+        byte[] scanRecord = beacon.scanRecord;
+        int length = scanRecord != null ? scanRecord.length : 0;
+        StringBuilder builder = new StringBuilder(40 + 2 * length)
+                .append(beacon.timestampNanos).append(SEPARATOR)
+                .append(beacon.macAddress.address).append(SEPARATOR)
+                .append(beacon.rssi).append(SEPARATOR);
+        for (int i = 0; i < length; i++) {
+            builder.append(HEX_DIGITS[(scanRecord[i] >> 4) & 0x0F])
+                    .append(HEX_DIGITS[scanRecord[i] & 0x0F]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses line of the text trace
+     *
+     * @param line line of the trace
+     * @return beacon
+     * @throws IllegalArgumentException when line is malformed
+     */
+    public static Beacon parse(String line) {
+        int first = line.indexOf(SEPARATOR);
+        int second = line.indexOf(SEPARATOR, first + 1);
+        int third = line.indexOf(SEPARATOR, second + 1);
+        if (first < 0 || second < 0 || third < 0) {
+            throw new IllegalArgumentException("expected 4 fields: " + line);
+        }
+
+        long timestampNanos = Long.parseLong(line.substring(0, first).trim());
+        MacAddress macAddress = MacAddress.valueOf(line.substring(first + 1, second).trim());
+        int rssi = Integer.parseInt(line.substring(second + 1, third).trim());
+        byte[] scanRecord = parseHex(line, third + 1);
+        String name = ScanRecordParser.localName(scanRecord);
+        return new Beacon(macAddress, name, rssi, scanRecord, timestampNanos);
+    }
+
+    private static byte[] parseHex(String line, int start) {
+        int end = line.length();
+        while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        if ((end - start) % 2 != 0) {
+            throw new IllegalArgumentException("odd number of hex digits: " + line);
+        }
+
+        byte[] bytes = new byte[(end - start) / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(line.charAt(start + 2 * i), 16);
+            int low = Character.digit(line.charAt(start + 2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("invalid hex digit: " + line);
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    private static final class TextTraceReader implements TraceReader {
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        TextTraceReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Beacon read() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.charAt(0) == COMMENT) {
+                    continue;
+                }
+                try {
+                    return parse(line);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("malformed trace at line " + lineNumber, e);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import java.io.IOException;
+
+/**
+ * Recorded sequence of beacons, which can be replayed many times.
+ * Beacons are read in the order of their timestamps.
+ */
+public interface Trace {
+    /**
+     * Opens new reader of the trace, which starts from the first beacon
+     *
+     * @return trace reader, which has to be closed by the caller
+     * @throws IOException when trace cannot be opened
+     */
+    TraceReader open() throws IOException;
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sequential reader of the recorded trace
+ */
+public interface TraceReader extends Closeable {
+    /**
+     * Reads next beacon from the trace
+     *
+     * @return next beacon or null when the end of the trace is reached
+     * @throws IOException when trace cannot be read or is malformed
+     */
+    Beacon read() throws IOException;
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Consumer;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import org.reactivestreams.Publisher;
+
+/**
+ * Records every beacon passing through the stream into binary trace.
+ * Records are appended into memory-mapped segments of fixed size, so recording
+ * doesn't allocate and doesn't perform system call per beacon. When segment is full,
+ * the next one is created. Oldest segments can be deleted to limit disk usage.
+ * Recorded trace can be read with {@link BinaryTrace}.
+ * <p>
+ * Recorder can be used with compose(...) method of Observable and Flowable
+ * and shared by many streams. It has to be closed, when recording is finished.
+ */
+public class TraceRecorder implements ObservableTransformer<Beacon, Beacon>,
+        FlowableTransformer<Beacon, Beacon>, Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+    public static final int UNLIMITED_SEGMENTS = 0;
+    // fits the longest extended advertising data (1650 bytes) with a lot of headroom
+    private static final int MIN_SEGMENT_SIZE = 4096;
+    private static final String MSG_SEGMENT_TOO_SMALL = "segment size is too small";
+    private static final String MSG_NEGATIVE_SEGMENTS = "maxSegments must not be negative";
+    private static final String MSG_CLOSED = "recorder is closed";
+    private static final String MSG_RECORD_TOO_LONG = "scan record is too long";
+
+    private final File directory;
+    private final String prefix;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ArrayDeque<File> segments = new ArrayDeque<>();
+    private final Consumer<Beacon> appender = new Consumer<Beacon>() {
+        @Override
+        public void accept(Beacon beacon) throws IOException {
+            append(beacon);
+        }
+    };
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    private long nextSegmentIndex = -1;
+    private long recordCount;
+    private boolean closed;
+
+    public TraceRecorder(File directory, String prefix) {
+        this(directory, prefix, DEFAULT_SEGMENT_SIZE, UNLIMITED_SEGMENTS);
+    }
+
+    /**
+     * Creates trace recorder. Files are created lazily, when the first beacon is recorded.
+     * Trace already existing in the directory is continued, new segments are numbered after
+     * existing ones. Existing segments count towards maxSegments, so they are deleted first,
+     * when the limit is exceeded.
+     *
+     * @param directory directory of the trace segments
+     * @param prefix prefix of names of the segments
+     * @param segmentSize size of a single segment in bytes
+     * @param maxSegments maximal number of kept segments or {@link #UNLIMITED_SEGMENTS}
+     */
+    public TraceRecorder(File directory, String prefix, int segmentSize, int maxSegments) {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException(MSG_SEGMENT_TOO_SMALL);
+        }
+        if (maxSegments < 0) {
+            throw new IllegalArgumentException(MSG_NEGATIVE_SEGMENTS);
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    @Override
+    public ObservableSource<Beacon> apply(Observable<Beacon> upstream) {
+        return upstream.doOnNext(appender);
+    }
+
+    @Override
+    public Publisher<Beacon> apply(Flowable<Beacon> upstream) {
+        return upstream.doOnNext(appender);
+    }
+
+    /**
+     * Appends beacon to the trace
+     *
+     * @param beacon beacon
+     * @throws IOException when recorder is closed, scan record is too long
+     * or segment cannot be created
+     */
+    public synchronized void append(Beacon beacon) throws IOException {
+        if (closed) {
+            throw new IOException(MSG_CLOSED);
+        }
+
+        byte[] scanRecord = beacon.scanRecord;
+        int length = scanRecord == null ? 0 : scanRecord.length;
+        int recordSize = BinaryTraceFormat.RECORD_HEADER_SIZE + length;
+        if (length >= BinaryTraceFormat.NULL_LENGTH
+                || recordSize > segmentSize - BinaryTraceFormat.FILE_HEADER_SIZE) {
+            throw new IOException(MSG_RECORD_TOO_LONG);
+        }
+        if (buffer == null || buffer.remaining() < recordSize) {
+            roll();
+        }
+
+        int position = buffer.position();
+        long macAddress = beacon.macAddress.toLong();
+        buffer.put(position + BinaryTraceFormat.RSSI_OFFSET, (byte) beacon.rssi);
+        buffer.put(position + BinaryTraceFormat.TX_POWER_OFFSET, (byte) beacon.txPower);
+        buffer.putLong(position + BinaryTraceFormat.TIMESTAMP_OFFSET, beacon.timestampNanos);
+        buffer.putShort(position + BinaryTraceFormat.MAC_ADDRESS_OFFSET,
+                (short) (macAddress >>> 32));
+        buffer.putInt(position + BinaryTraceFormat.MAC_ADDRESS_OFFSET + 2, (int) macAddress);
+        buffer.putShort(position + BinaryTraceFormat.LENGTH_OFFSET,
+                (short) (scanRecord == null ? BinaryTraceFormat.NULL_LENGTH : length));
+        if (length > 0) {
+            buffer.position(position + BinaryTraceFormat.RECORD_HEADER_SIZE);
+            buffer.put(scanRecord, 0, length);
+        }
+        // type is written last, so partially written record reads as the end of the segment
+        buffer.put(position + BinaryTraceFormat.TYPE_OFFSET, BinaryTraceFormat.TYPE_BEACON);
+        buffer.position(position + recordSize);
+        recordCount++;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Writes recorded data to the storage device. Without flushing, data reaches
+     * the storage when operating system decides to write it, but it survives crash of the process.
+     */
+    public synchronized void flush() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the current segment. Segment stays mapped
+     * until the buffer is garbage collected, which is a limitation of the JVM.
+     *
+     * @throws IOException when segment cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeSegment();
+    }
+
+    private void roll() throws IOException {
+        closeSegment();
+
+        if (nextSegmentIndex < 0) {
+            File[] existing = BinaryTraceFormat.segments(directory, prefix);
+            for (File segment : existing) {
+                segments.add(segment);
+            }
+            nextSegmentIndex = existing.length == 0 ? 0
+                    : BinaryTraceFormat.index(existing[existing.length - 1], prefix) + 1;
+        }
+
+        File segment = BinaryTraceFormat.segment(directory, prefix, nextSegmentIndex++);
+        file = new RandomAccessFile(segment, "rw");
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(BinaryTraceFormat.MAGIC);
+        buffer.putShort(BinaryTraceFormat.VERSION);
+        buffer.putShort((short) 0);
+        segments.add(segment);
+
+        while (maxSegments != UNLIMITED_SEGMENTS && segments.size() > maxSegments) {
+            File oldest = segments.removeFirst();
+            if (!oldest.delete() && oldest.exists()) {
+                throw new IOException("cannot delete segment " + oldest);
+            }
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        buffer.force();
+        buffer = null;
+        file.close();
+        file = null;
+    }
+}
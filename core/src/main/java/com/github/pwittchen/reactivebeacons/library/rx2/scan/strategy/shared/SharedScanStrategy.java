@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.shared;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan strategy multicasting one scan of the wrapped strategy to all subscribers.
+ * Scan is started, when the first subscriber subscribes and it's stopped after
+ * the grace period, when the last subscriber disposes its subscription.
+ * Subscribing again during the grace period reuses the running scan.
+ * When observed as Flowable, every subscriber has its own buffer,
+ * so slow subscriber doesn't slow down the others.
+ */
+public class SharedScanStrategy implements ScanStrategy {
+    private final Observable<Beacon> sharedBeacons;
+
+    /**
+     * Creates shared scan strategy
+     *
+     * @param scanStrategy strategy performing the scan
+     * @param gracePeriod time for which scan is kept running without subscribers
+     * @param unit unit of the grace period
+     */
+    public SharedScanStrategy(ScanStrategy scanStrategy, long gracePeriod, TimeUnit unit) {
+        this(scanStrategy, gracePeriod, unit, Schedulers.computation());
+    }
+
+    /**
+     * Creates shared scan strategy
+     *
+     * @param scanStrategy strategy performing the scan
+     * @param gracePeriod time for which scan is kept running without subscribers
+     * @param unit unit of the grace period
+     * @param scheduler scheduler measuring the grace period
+     */
+    public SharedScanStrategy(ScanStrategy scanStrategy, long gracePeriod, TimeUnit unit,
+                              Scheduler scheduler) {
+        this.sharedBeacons = scanStrategy.observe()
+                .publish()
+                .refCount(gracePeriod, unit, scheduler);
+    }
+
+    @Override
+    public Observable<Beacon> observe() {
+        return sharedBeacons;
+    }
+}
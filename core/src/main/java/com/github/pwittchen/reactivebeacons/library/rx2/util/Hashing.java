@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.util;
+
+final class Hashing {
+  private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+  private Hashing() {
+  }
+
+  /**
+   * Spreads bits of the key, so sequential keys (e.g. MAC addresses of one vendor)
+   * don't form long probe sequences
+   *
+   * @param key hashed key
+   * @param mask mask of the table size, which is a power of two
+   * @return index in the table
+   */
+  static int index(long key, int mask) {
+    long hash = key * GOLDEN_RATIO;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of primitive long values with linear probing.
+ * Doesn't box values, so lookups don't allocate memory. It's not thread-safe,
+ * but it can be safely shared between threads when it's not modified anymore.
+ */
+public final class LongHashSet {
+  private static final int MIN_CAPACITY = 8;
+  private static final long EMPTY = 0L; // zero is kept outside of the table
+
+  private long[] keys;
+  private int mask;
+  private int size;
+  private boolean containsZero;
+
+  public LongHashSet() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Creates set, which can hold expected number of values without resizing
+   *
+   * @param expectedSize expected number of values
+   */
+  public LongHashSet(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  public boolean add(long key) {
+    if (key == EMPTY) {
+      if (containsZero) {
+        return false;
+      }
+      containsZero = true;
+      size++;
+      return true;
+    }
+
+    int index = Hashing.index(key, mask);
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+
+    keys[index] = key;
+    size++;
+    if (size * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+    return true;
+  }
+
+  public boolean contains(long key) {
+    if (key == EMPTY) {
+      return containsZero;
+    }
+
+    int index = Hashing.index(key, mask);
+    long current;
+    while ((current = keys[index]) != EMPTY) {
+      if (current == key) {
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  public boolean remove(long key) {
+    if (key == EMPTY) {
+      if (!containsZero) {
+        return false;
+      }
+      containsZero = false;
+      size--;
+      return true;
+    }
+
+    int index = Hashing.index(key, mask);
+    while (keys[index] != EMPTY) {
+      if (keys[index] == key) {
+        keys[index] = EMPTY;
+        size--;
+        shiftBack(index);
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    containsZero = false;
+    size = 0;
+  }
+
+  private void shiftBack(int removed) {
+    int gap = removed;
+    int index = (removed + 1) & mask;
+    long key;
+    while ((key = keys[index]) != EMPTY) {
+      int ideal = Hashing.index(key, mask);
+      if (((index - ideal) & mask) >= ((index - gap) & mask)) {
+        keys[gap] = key;
+        keys[index] = EMPTY;
+        gap = index;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    allocate(capacity);
+    for (long key : oldKeys) {
+      if (key != EMPTY) {
+        int index = Hashing.index(key, mask);
+        while (keys[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = key;
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    mask = capacity - 1;
+  }
+
+  static int capacityFor(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < expectedSize * 2) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+}
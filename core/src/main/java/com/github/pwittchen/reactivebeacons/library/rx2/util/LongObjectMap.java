@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.util;
+
+/**
+ * Open addressing hash map with primitive long keys and linear probing.
+ * Doesn't box keys, so lookups don't allocate memory. Table shrinks when most
+ * of the entries are removed, so memory is released after bursts of keys.
+ * Null values are not supported. It's not thread-safe.
+ *
+ * @param <V> type of values
+ */
+public final class LongObjectMap<V> {
+  private static final int MIN_CAPACITY = 8;
+
+  private long[] keys;
+  private Object[] values; // null value marks empty slot
+  private int mask;
+  private int size;
+
+  public LongObjectMap() {
+    this(MIN_CAPACITY);
+  }
+
+  /**
+   * Creates map, which can hold expected number of entries without resizing
+   *
+   * @param expectedSize expected number of entries
+   */
+  public LongObjectMap(int expectedSize) {
+    allocate(LongHashSet.capacityFor(expectedSize));
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    int index = Hashing.index(key, mask);
+    Object value;
+    while ((value = values[index]) != null) {
+      if (keys[index] == key) {
+        return (V) value;
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Puts value into the map
+   *
+   * @param key key
+   * @param value value, which can't be null
+   * @return previous value or null if there was no value for the key
+   */
+  @SuppressWarnings("unchecked")
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new NullPointerException("value == null");
+    }
+
+    int index = Hashing.index(key, mask);
+    while (values[index] != null) {
+      if (keys[index] == key) {
+        V previous = (V) values[index];
+        values[index] = value;
+        return previous;
+      }
+      index = (index + 1) & mask;
+    }
+
+    keys[index] = key;
+    values[index] = value;
+    size++;
+    if (size * 2 > values.length) {
+      rehash(values.length * 2);
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    int index = Hashing.index(key, mask);
+    while (values[index] != null) {
+      if (keys[index] == key) {
+        V previous = (V) values[index];
+        values[index] = null;
+        size--;
+        shiftBack(index);
+        if (values.length > MIN_CAPACITY && size * 8 < values.length) {
+          rehash(values.length / 2);
+        }
+        return previous;
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    allocate(MIN_CAPACITY);
+    size = 0;
+  }
+
+  /**
+   * Gets number of slots in the table. Together with {@link #keyAt(int)}
+   * and {@link #valueAt(int)} allows iterating over the map without allocations.
+   * Map must not be modified during iteration.
+   *
+   * @return number of slots
+   */
+  public int capacity() {
+    return values.length;
+  }
+
+  public long keyAt(int slot) {
+    return keys[slot];
+  }
+
+  /**
+   * Gets value stored in provided slot
+   *
+   * @param slot index of the slot lower than {@link #capacity()}
+   * @return value or null when slot is empty
+   */
+  @SuppressWarnings("unchecked")
+  public V valueAt(int slot) {
+    return (V) values[slot];
+  }
+
+  private void shiftBack(int removed) {
+    int gap = removed;
+    int index = (removed + 1) & mask;
+    while (values[index] != null) {
+      int ideal = Hashing.index(keys[index], mask);
+      if (((index - ideal) & mask) >= ((index - gap) & mask)) {
+        keys[gap] = keys[index];
+        values[gap] = values[index];
+        values[index] = null;
+        gap = index;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int index = Hashing.index(oldKeys[i], mask);
+        while (values[index] != null) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.util;
+
+import java.util.Arrays;
+
+/**
+ * Compact trie of string prefixes. Checking if any of the prefixes matches a string
+ * takes time proportional to the length of the matched prefix, not to the number of prefixes.
+ * It's not thread-safe, but it can be safely shared between threads when it's not modified anymore.
+ */
+public final class PrefixTrie {
+  private final Node root = new Node();
+  private int size;
+
+  public boolean add(String prefix) {
+    Node node = root;
+    for (int i = 0; i < prefix.length(); i++) {
+      node = node.childOrCreate(prefix.charAt(i));
+    }
+    if (node.terminal) {
+      return false;
+    }
+    node.terminal = true;
+    size++;
+    return true;
+  }
+
+  /**
+   * Checks if any of added prefixes is a prefix of provided value
+   *
+   * @param value checked value
+   * @return true if value starts with one of the prefixes
+   */
+  public boolean matchesPrefixOf(String value) {
+    Node node = root;
+    if (node.terminal) {
+      return true;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      node = node.child(value.charAt(i));
+      if (node == null) {
+        return false;
+      }
+      if (node.terminal) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private static final class Node {
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private boolean terminal;
+
+    Node child(char key) {
+      int index = Arrays.binarySearch(keys, key);
+      return index >= 0 ? children[index] : null;
+    }
+
+    Node childOrCreate(char key) {
+      int index = Arrays.binarySearch(keys, key);
+      if (index >= 0) {
+        return children[index];
+      }
+
+      int insertAt = -index - 1;
+      char[] newKeys = new char[keys.length + 1];
+      Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(keys, 0, newKeys, 0, insertAt);
+      System.arraycopy(children, 0, newChildren, 0, insertAt);
+      System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+      System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+      Node child = new Node();
+      newKeys[insertAt] = key;
+      newChildren[insertAt] = child;
+      keys = newKeys;
+      children = newChildren;
+      return child;
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class BeaconFilterTest {
+  private static final String MAC = "00:27:0E:2A:B9:AA";
+  private static final String OTHER_MAC = "00:27:0E:2A:B9:AB";
+
+  @Test
+  public void shouldMatchAllBeaconsWhenNothingIsDeclared() throws Exception {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder().build();
+
+    // when
+    boolean matches = filter.test(beacon(MAC, null, -90));
+
+    // then
+    assertThat(matches).isTrue();
+  }
+
+  @Test
+  public void shouldMatchOnlyBeaconsMatchingAllCriteria() throws Exception {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder()
+        .macAddresses(MAC, OTHER_MAC)
+        .names("kontakt")
+        .proximities(Proximity.IMMEDIATE, Proximity.NEAR)
+        .build();
+
+    // when
+    boolean matches = filter.test(beacon(MAC, "kontakt", -65));
+    boolean otherName = filter.test(beacon(MAC, "estimote", -65));
+    boolean far = filter.test(beacon(OTHER_MAC, "kontakt", -80));
+    boolean otherMac = filter.test(beacon("00:27:0E:2A:B9:AC", "kontakt", -65));
+
+    // then
+    assertThat(matches).isTrue();
+    assertThat(otherName).isFalse();
+    assertThat(far).isFalse();
+    assertThat(otherMac).isFalse();
+  }
+
+  @Test
+  public void shouldNotMatchAnyOfExcludedNamesAndMacAddresses() throws Exception {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder()
+        .exceptNames("estimote", "gimbal")
+        .exceptMacAddresses(Collections.singleton("00-27-0e-2a-b9-ab"))
+        .build();
+
+    // when
+    boolean matches = filter.test(beacon(MAC, "kontakt", -60));
+    boolean withoutName = filter.test(beacon(MAC, null, -60));
+    boolean excludedName = filter.test(beacon(MAC, "gimbal", -60));
+    boolean excludedMac = filter.test(beacon(OTHER_MAC, "kontakt", -60));
+
+    // then
+    assertThat(matches).isTrue();
+    assertThat(withoutName).isTrue();
+    assertThat(excludedName).isFalse();
+    assertThat(excludedMac).isFalse();
+  }
+
+  @Test
+  public void shouldMatchRssiAndDistanceRange() throws Exception {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder()
+        .rssiAtLeast(-85)
+        .distanceGreaterThan(0.5)
+        .distanceLowerThan(5)
+        .build();
+
+    // when
+    boolean inRange = filter.test(beacon(MAC, null, -65));
+    boolean tooClose = filter.test(beacon(MAC, null, -40));
+    boolean tooWeak = filter.test(beacon(MAC, null, -90));
+
+    // then
+    assertThat(inRange).isTrue();
+    assertThat(tooClose).isFalse();
+    assertThat(tooWeak).isFalse();
+  }
+
+  @Test
+  public void shouldMatchNamePrefixesAndPayload() throws Exception {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder()
+        .namePrefixes("kon", "est")
+        .payload(new Predicate<byte[]>() {
+          @Override public boolean test(byte[] scanRecord) {
+            return scanRecord.length > 0 && scanRecord[0] == 2;
+          }
+        })
+        .build();
+
+    // when
+    boolean matches = filter.test(Beacon.create(MAC, "kontakt", -60, new byte[] { 2, 1 }, 0));
+    boolean otherPayload = filter.test(Beacon.create(MAC, "kontakt", -60, new byte[] { 3 }, 0));
+    boolean noPayload = filter.test(beacon(MAC, "kontakt", -60));
+    boolean otherName = filter.test(Beacon.create(MAC, "gimbal", -60, new byte[] { 2 }, 0));
+
+    // then
+    assertThat(matches).isTrue();
+    assertThat(otherPayload).isFalse();
+    assertThat(noPayload).isFalse();
+    assertThat(otherName).isFalse();
+  }
+
+  @Test
+  public void shouldEvaluateCheapestCriteriaFirst() {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder()
+        .names("kontakt")
+        .macAddresses(MAC)
+        .rssiAtLeast(-80)
+        .build();
+
+    // when
+    List<String> order = filter.getOrder();
+
+    // then
+    assertThat(order).containsExactly("rssi", "macAddresses", "names").inOrder();
+  }
+
+  @Test
+  public void shouldEvaluateMostSelectiveCriterionFirstAfterObservingStream() throws Exception {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder()
+        .rssiAtLeast(-100)
+        .names("kontakt")
+        .build();
+    Beacon rejected = beacon(MAC, "estimote", -60);
+
+    // when
+    for (int i = 0; i < BeaconFilter.REORDER_INTERVAL + 1; i++) {
+      filter.test(rejected);
+    }
+
+    // then
+    assertThat(filter.getOrder()).containsExactly("names", "rssi").inOrder();
+  }
+
+  @Test
+  public void shouldMovePayloadEarlierWhenItRejectsMostBeacons() throws Exception {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder()
+        .rssiAtLeast(-100)
+        .payload(new Predicate<byte[]>() {
+          @Override public boolean test(byte[] scanRecord) {
+            return scanRecord[0] == 1;
+          }
+        })
+        .build();
+    Beacon rejected = Beacon.create(MAC, null, -60, new byte[] { 2 }, 0);
+    List<String> initialOrder = filter.getOrder();
+
+    // when
+    for (int i = 0; i < BeaconFilter.REORDER_INTERVAL + 1; i++) {
+      filter.test(rejected);
+    }
+
+    // then
+    assertThat(initialOrder).containsExactly("rssi", "payload").inOrder();
+    assertThat(filter.getOrder()).containsExactly("payload", "rssi").inOrder();
+  }
+
+  @Test
+  public void shouldFilterConcurrentStreamsExactly() {
+    // given
+    final BeaconFilter filter = new BeaconFilter.Builder()
+        .rssiAtLeast(-100)
+        .names("kontakt")
+        .build();
+    List<Beacon> beacons = new ArrayList<>();
+    long matching = 0;
+    for (int i = 0; i < 16 * BeaconFilter.REORDER_INTERVAL; i++) {
+      // period of matching beacons differs from the sampling interval
+      boolean matches = i % 5 == 0;
+      beacons.add(beacon(MAC, matches ? "kontakt" : "estimote", -60));
+      matching += matches ? 1 : 0;
+    }
+    final Observable<Beacon> stream = Observable.fromIterable(beacons);
+
+    // when
+    TestObserver<Long> observer = Observable.range(0, 4)
+        .flatMap(new Function<Integer, ObservableSource<Long>>() {
+          @Override public ObservableSource<Long> apply(Integer index) {
+            return stream.subscribeOn(Schedulers.computation())
+                .filter(filter)
+                .count()
+                .toObservable();
+          }
+        })
+        .test();
+
+    // then
+    observer.awaitDone(10, TimeUnit.SECONDS)
+        .assertValues(matching, matching, matching, matching)
+        .assertComplete();
+    assertThat(filter.getOrder()).containsExactly("names", "rssi").inOrder();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNullPayloadPredicate() {
+    new BeaconFilter.Builder().payload(null);
+  }
+
+  @Test
+  public void shouldBeUsableWithRxFilter() {
+    // given
+    BeaconFilter filter = new BeaconFilter.Builder().names("kontakt").build();
+    Beacon matching = beacon(MAC, "kontakt", -60);
+
+    // when
+    Observable<Beacon> beacons = Observable.fromIterable(Arrays.asList(
+        beacon(MAC, "estimote", -60), matching)).filter(filter);
+
+    // then
+    beacons.test().assertValues(matching);
+  }
+
+  private static Beacon beacon(String mac, String name, int rssi) {
+    return Beacon.create(mac, name, rssi, null, 0);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class BeaconRegistryTest {
+  private static final String MAC = "00:27:0E:2A:B9:AA";
+
+  @Test
+  public void shouldAllowOnlyOneTrackingSubscription() {
+    // given
+    BeaconRegistry registry = new BeaconRegistry(10, TimeUnit.SECONDS, new TestScheduler());
+    Observable<Beacon> beacons = Observable.never();
+    TestObserver<RegistryEvent> first = registry.track(beacons).test();
+
+    // when
+    TestObserver<RegistryEvent> second = registry.track(beacons).test();
+
+    // then
+    first.assertNoErrors();
+    second.assertError(IllegalStateException.class);
+  }
+
+  @Test
+  public void shouldAllowTrackingAgainAfterDisposal() {
+    // given
+    BeaconRegistry registry = new BeaconRegistry(10, TimeUnit.SECONDS, new TestScheduler());
+    Observable<Beacon> beacons = Observable.never();
+    registry.track(beacons).test().dispose();
+
+    // when
+    TestObserver<RegistryEvent> observer = registry.track(beacons).test();
+
+    // then
+    observer.assertNoErrors();
+  }
+
+  @Test
+  public void shouldCompleteWhenBeaconsComplete() {
+    // given
+    BeaconRegistry registry = new BeaconRegistry(10, TimeUnit.SECONDS, new TestScheduler());
+
+    // when
+    TestObserver<RegistryEvent> observer = registry.track(Observable.<Beacon>empty()).test();
+
+    // then
+    observer.assertResult();
+  }
+
+  @Test
+  public void shouldKeepStationaryDeviceBehindRefreshingThrottle() {
+    // given
+    TestScheduler scheduler = new TestScheduler();
+    BeaconRegistry registry = new BeaconRegistry(3, TimeUnit.SECONDS, scheduler);
+    Beacon beacon = Beacon.create(MAC, "kontakt", -60, new byte[] { 0x02, 0x01, 0x06 }, 0);
+    Observable<Beacon> beacons = stationary(beacon, scheduler)
+        .compose(DeviceThrottle.distinct()
+            .withRefreshInterval(1, TimeUnit.SECONDS)
+            .withScheduler(scheduler));
+
+    // when
+    TestObserver<RegistryEvent> observer = registry.track(beacons).test();
+    scheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+    // then
+    assertThat(registry.contains(beacon.macAddress)).isTrue();
+    for (RegistryEvent event : observer.values()) {
+      assertThat(event.type).isNotEqualTo(RegistryEvent.Type.EXIT);
+    }
+  }
+
+  @Test
+  public void shouldExpireStationaryDeviceBehindDistinctThrottle() {
+    // given
+    TestScheduler scheduler = new TestScheduler();
+    BeaconRegistry registry = new BeaconRegistry(3, TimeUnit.SECONDS, scheduler);
+    Beacon beacon = Beacon.create(MAC, "kontakt", -60, new byte[] { 0x02, 0x01, 0x06 }, 0);
+    Observable<Beacon> beacons = stationary(beacon, scheduler)
+        .compose(DeviceThrottle.distinct().withScheduler(scheduler));
+
+    // when
+    registry.track(beacons).test();
+    scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+    // then device is still advertising, but registry doesn't see it
+    assertThat(registry.contains(beacon.macAddress)).isFalse();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveTtl() {
+    new BeaconRegistry(0, TimeUnit.SECONDS);
+  }
+
+  private static Observable<Beacon> stationary(final Beacon beacon, TestScheduler scheduler) {
+    // stationary device advertises the same data 10 times per second
+    return Observable.interval(100, TimeUnit.MILLISECONDS, scheduler)
+        .map(new Function<Long, Beacon>() {
+          @Override public Beacon apply(Long tick) {
+            return beacon;
+          }
+        });
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class BeaconStatisticsTest {
+  private static final String FIRST = "00:00:00:00:00:01";
+  private static final String SECOND = "00:00:00:00:00:02";
+  private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final TestScheduler scheduler = new TestScheduler();
+  private final PublishSubject<Beacon> beacons = PublishSubject.create();
+
+  @Test
+  public void shouldEmitStatisticsOfDeviceOnEverySighting() {
+    // given
+    BeaconStatistics statistics = BeaconStatistics.window(10, TimeUnit.SECONDS);
+    TestObserver<BeaconStats> observer = beacons.compose(statistics).test();
+
+    // when
+    beacons.onNext(beacon(FIRST, -60));
+    beacons.onNext(beacon(SECOND, -90));
+    beacons.onNext(beacon(FIRST, -70));
+
+    // then
+    observer.assertValueCount(3);
+    BeaconStats stats = observer.values().get(2);
+    assertThat(stats.beacon.macAddress.address).isEqualTo(FIRST);
+    assertThat(stats.count).isEqualTo(2);
+    assertThat(stats.mean).isEqualTo(-65d);
+    assertThat(stats.median).isEqualTo(-65d);
+    assertThat(stats.standardDeviation).isEqualTo(5d);
+    assertThat(stats.min).isEqualTo(-70);
+    assertThat(stats.max).isEqualTo(-60);
+  }
+
+  @Test
+  public void shouldForgetSightingsOlderThanWindow() {
+    // given
+    BeaconStatistics statistics = BeaconStatistics.window(10, TimeUnit.SECONDS);
+    TestObserver<BeaconStats> observer = beacons.compose(statistics).test();
+    beacons.onNext(beacon(FIRST, -60, 0));
+    beacons.onNext(beacon(FIRST, -70, 6 * ONE_SECOND));
+
+    // when
+    beacons.onNext(beacon(FIRST, -80, 11 * ONE_SECOND));
+
+    // then
+    BeaconStats stats = observer.values().get(2);
+    assertThat(stats.count).isEqualTo(2);
+    assertThat(stats.max).isEqualTo(-70);
+  }
+
+  @Test
+  public void shouldMeasureWindowOfSightingsWithBeaconTimestamps() {
+    // given
+    BeaconStatistics statistics = BeaconStatistics.window(10, TimeUnit.SECONDS)
+        .withScheduler(scheduler);
+    TestObserver<BeaconStats> observer = beacons.compose(statistics).test();
+    beacons.onNext(beacon(FIRST, -60, 100 * ONE_SECOND));
+
+    // when
+    scheduler.advanceTimeBy(1, TimeUnit.HOURS);
+    beacons.onNext(beacon(FIRST, -70, 105 * ONE_SECOND));
+    beacons.onNext(beacon(FIRST, -80, 104 * ONE_SECOND));
+
+    // then
+    assertThat(observer.values().get(1).count).isEqualTo(2);
+    assertThat(observer.values().get(2).count).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldKeepOnlyNewestSightingsUpToCapacity() {
+    // given
+    BeaconStatistics statistics = BeaconStatistics.window(10, TimeUnit.SECONDS)
+        .withCapacity(3);
+    TestObserver<BeaconStats> observer = beacons.compose(statistics).test();
+
+    // when
+    for (int rssi = -60; rssi > -70; rssi--) {
+      beacons.onNext(beacon(FIRST, rssi));
+    }
+
+    // then
+    BeaconStats stats = observer.values().get(9);
+    assertThat(stats.count).isEqualTo(3);
+    assertThat(stats.median).isEqualTo(-68d);
+  }
+
+  @Test
+  public void shouldEmitStatisticsOfAllDevicesAtCadence() {
+    // given
+    BeaconStatistics statistics = BeaconStatistics.window(10, TimeUnit.SECONDS)
+        .every(1, TimeUnit.SECONDS)
+        .withScheduler(scheduler);
+    TestObserver<BeaconStats> observer = beacons.compose(statistics).test();
+
+    // when
+    beacons.onNext(beacon(FIRST, -60));
+    beacons.onNext(beacon(SECOND, -90));
+    beacons.onNext(beacon(FIRST, -70));
+    observer.assertNoValues();
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    // then
+    observer.assertValueCount(2);
+    for (BeaconStats stats : observer.values()) {
+      assertThat(stats.count).isEqualTo(stats.beacon.macAddress.address.equals(FIRST) ? 2 : 1);
+    }
+  }
+
+  @Test
+  public void shouldNotEmitStatisticsOfDevicesNotSeenInWindow() {
+    // given
+    BeaconStatistics statistics = BeaconStatistics.window(2, TimeUnit.SECONDS)
+        .every(1, TimeUnit.SECONDS)
+        .withScheduler(scheduler);
+    TestObserver<BeaconStats> observer = beacons.compose(statistics).test();
+    beacons.onNext(beacon(FIRST, -60));
+
+    // when
+    scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+
+    // then
+    observer.assertValueCount(1);
+  }
+
+  @Test
+  public void shouldStopTicksWhenBeaconsComplete() {
+    // given
+    BeaconStatistics statistics = BeaconStatistics.window(10, TimeUnit.SECONDS)
+        .every(1, TimeUnit.SECONDS)
+        .withScheduler(scheduler);
+    TestSubscriber<BeaconStats> subscriber = beacons.toFlowable(BackpressureStrategy.BUFFER)
+        .compose(statistics)
+        .test();
+    beacons.onNext(beacon(FIRST, -60));
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    // when
+    beacons.onComplete();
+    scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+
+    // then
+    subscriber.assertValueCount(1);
+    subscriber.assertComplete();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveWindow() {
+    BeaconStatistics.window(0, TimeUnit.SECONDS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveCapacity() {
+    BeaconStatistics.window(1, TimeUnit.SECONDS).withCapacity(0);
+  }
+
+  private static Beacon beacon(String mac, int rssi) {
+    return beacon(mac, rssi, 0);
+  }
+
+  private static Beacon beacon(String mac, int rssi, long timestampNanos) {
+    return Beacon.create(mac, null, rssi, null, timestampNanos);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class BeaconTest {
+  private static final String MAC = "00:27:0E:2A:B9:AA";
+  private static final byte[] RECORD = new byte[] { 0x02, 0x01, 0x06 };
+
+  @Test
+  public void shouldCreateBeaconWithoutAndroidTypes() {
+    // when
+    Beacon beacon = Beacon.create("00-27-0e-2a-b9-aa", "kontakt", -65, RECORD, 1000L);
+
+    // then
+    assertThat(beacon.macAddress).isSameInstanceAs(MacAddress.valueOf(MAC));
+    assertThat(beacon.name).isEqualTo("kontakt");
+    assertThat(beacon.rssi).isEqualTo(-65);
+    assertThat(beacon.txPower).isEqualTo(Beacon.DEFAULT_TX_POWER);
+    assertThat(beacon.timestampNanos).isEqualTo(1000L);
+    assertThat(beacon.getProximity()).isEqualTo(Proximity.NEAR);
+  }
+
+  @Test
+  public void shouldUseProvidedTxPower() {
+    // given
+    MacAddress macAddress = MacAddress.valueOf(MAC);
+
+    // when
+    Beacon beacon = new Beacon(macAddress, null, -65, -65, RECORD, 0);
+
+    // then
+    assertThat(beacon.getDistance()).isWithin(1e-9).of(1d);
+  }
+
+  @Test
+  public void shouldKeepAllAttributesExceptRssiWhenRssiChanges() {
+    // given
+    Beacon beacon = Beacon.create(MAC, "kontakt", -65, RECORD, 1000L);
+
+    // when
+    Beacon changed = beacon.withRssi(-50);
+
+    // then
+    assertThat(changed.rssi).isEqualTo(-50);
+    assertThat(changed.getProximity()).isEqualTo(Proximity.IMMEDIATE);
+    assertThat(changed.macAddress).isSameInstanceAs(beacon.macAddress);
+    assertThat(changed.name).isEqualTo(beacon.name);
+    assertThat(changed.timestampNanos).isEqualTo(beacon.timestampNanos);
+    assertThat(beacon.withRssi(-65)).isSameInstanceAs(beacon);
+  }
+
+  @Test
+  public void repeatedSightingsShouldBeEqual() {
+    // given
+    Beacon first = Beacon.create(MAC, "kontakt", -65, RECORD.clone(), 1000L);
+    Beacon second = Beacon.create(MAC, "kontakt", -65, RECORD.clone(), 2000L);
+
+    // then
+    assertThat(first).isEqualTo(second);
+    assertThat(first.hashCode()).isEqualTo(second.hashCode());
+    assertThat(first).isNotEqualTo(second.withRssi(-66));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidMacAddress() {
+    Beacon.create("invalid mac address", null, -65, RECORD, 0);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class DeviceThrottlerTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final byte[] RECORD = new byte[] { 0x02, 0x01, 0x06 };
+
+  @Test
+  public void distinctShouldDropRepeatedSightingsOfEveryDevice() {
+    // given
+    DeviceThrottler throttler = new DeviceThrottler(DeviceThrottle.distinct());
+
+    // then interleaved devices don't defeat deduplication
+    assertThat(throttler.shouldEmit(1, -60, RECORD, 0)).isTrue();
+    assertThat(throttler.shouldEmit(2, -70, RECORD, 0)).isTrue();
+    assertThat(throttler.shouldEmit(1, -60, RECORD.clone(), 1)).isFalse();
+    assertThat(throttler.shouldEmit(2, -70, RECORD, 1)).isFalse();
+    assertThat(throttler.shouldEmit(1, -61, RECORD, 2)).isTrue();
+    assertThat(throttler.shouldEmit(2, -70, new byte[] { 0x02, 0x01, 0x04 }, 2)).isTrue();
+  }
+
+  @Test
+  public void distinctShouldEmitUnchangedSightingAfterRefreshInterval() {
+    // given
+    DeviceThrottle throttle = DeviceThrottle.distinct().withRefreshInterval(1, TimeUnit.SECONDS);
+    DeviceThrottler throttler = new DeviceThrottler(throttle);
+
+    // then
+    assertThat(throttler.shouldEmit(1, -60, RECORD, 0)).isTrue();
+    assertThat(throttler.shouldEmit(1, -60, RECORD, SECOND / 2)).isFalse();
+    assertThat(throttler.shouldEmit(1, -61, RECORD, SECOND / 2 + 1)).isTrue();
+    assertThat(throttler.shouldEmit(1, -61, RECORD, SECOND)).isFalse();
+    assertThat(throttler.shouldEmit(1, -61, RECORD, 3 * SECOND / 2 + 1)).isTrue();
+  }
+
+  @Test
+  public void shouldEmitDeviceAtMostOncePerInterval() {
+    // given
+    DeviceThrottler throttler =
+        new DeviceThrottler(DeviceThrottle.atMostEvery(1, TimeUnit.SECONDS));
+    int emitted = 0;
+
+    // when 10 devices advertise 10 times per second for 10 seconds
+    for (long now = 0; now < 10 * SECOND; now += SECOND / 10) {
+      for (long device = 0; device < 10; device++) {
+        if (throttler.shouldEmit(device, -60 - (int) (now % 7), RECORD, now)) {
+          emitted++;
+        }
+      }
+    }
+
+    // then
+    assertThat(emitted).isEqualTo(100);
+  }
+
+  @Test
+  public void shouldEmitWithinIntervalWhenRssiChangesMoreThanThreshold() {
+    // given
+    DeviceThrottle throttle = DeviceThrottle.atMostEvery(10, TimeUnit.SECONDS)
+        .withRssiThreshold(5);
+    DeviceThrottler throttler = new DeviceThrottler(throttle);
+
+    // then
+    assertThat(throttler.shouldEmit(1, -60, RECORD, 0)).isTrue();
+    assertThat(throttler.shouldEmit(1, -65, RECORD, SECOND)).isFalse();
+    assertThat(throttler.shouldEmit(1, -66, RECORD, 2 * SECOND)).isTrue();
+    assertThat(throttler.shouldEmit(1, -62, RECORD, 3 * SECOND)).isFalse();
+    assertThat(throttler.shouldEmit(1, -62, RECORD, 12 * SECOND)).isTrue();
+  }
+
+  @Test
+  public void shouldEmitOnlyOnRssiChange() {
+    // given
+    DeviceThrottler throttler = new DeviceThrottler(DeviceThrottle.onRssiChange(3));
+
+    // then
+    assertThat(throttler.shouldEmit(1, -60, RECORD, 0)).isTrue();
+    assertThat(throttler.shouldEmit(1, -63, RECORD, SECOND)).isFalse();
+    assertThat(throttler.shouldEmit(1, -63, RECORD, 20 * SECOND)).isFalse();
+    assertThat(throttler.shouldEmit(1, -64, RECORD, 21 * SECOND)).isTrue();
+  }
+
+  @Test
+  public void shouldForgetIdleDevices() {
+    // given
+    DeviceThrottle throttle = DeviceThrottle.onRssiChange(3).withIdleTimeout(5, TimeUnit.SECONDS);
+    DeviceThrottler throttler = new DeviceThrottler(throttle);
+    for (long device = 0; device < 1000; device++) {
+      throttler.shouldEmit(device, -60, RECORD, 0);
+    }
+
+    // when
+    boolean emitted = throttler.shouldEmit(1, -60, RECORD, 6 * SECOND);
+
+    // then
+    assertThat(emitted).isTrue();
+    assertThat(throttler.size()).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveInterval() {
+    DeviceThrottle.atMostEvery(0, TimeUnit.SECONDS);
+  }
+}
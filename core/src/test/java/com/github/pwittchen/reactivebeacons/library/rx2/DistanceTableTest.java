@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class DistanceTableTest {
+
+  @Test
+  public void shouldMatchComputedDistanceForAllRssiValues() {
+    for (int txPower = -127; txPower <= 20; txPower++) {
+      for (int rssi = -127; rssi <= 20; rssi++) {
+        double expected = Math.pow(10d, ((double) txPower - rssi) / (10 * 2));
+        assertThat(DistanceTable.distance(txPower, rssi)).isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  public void shouldComputeDistanceOutsideOfTable() {
+    // when
+    double distance = DistanceTable.distance(127, -200);
+
+    // then
+    assertThat(distance).isEqualTo(Math.pow(10d, 327d / 20));
+    assertThat(DistanceTable.proximity(127, -200)).isEqualTo(Proximity.FAR);
+  }
+
+  @Test
+  public void shouldGetProximity() {
+    // given
+    int txPower = -59;
+
+    // then
+    assertThat(DistanceTable.proximity(txPower, -50)).isEqualTo(Proximity.IMMEDIATE);
+    assertThat(DistanceTable.proximity(txPower, -59)).isEqualTo(Proximity.NEAR);
+    assertThat(DistanceTable.proximity(txPower, -68)).isEqualTo(Proximity.NEAR);
+    assertThat(DistanceTable.proximity(txPower, -69)).isEqualTo(Proximity.FAR);
+    assertThat(DistanceTable.proximity(txPower, -90)).isEqualTo(Proximity.FAR);
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class EddystoneTelemetryTest {
+  private static final String FIRST = "00:00:00:00:00:01";
+  private static final String SECOND = "00:00:00:00:00:02";
+  private static final byte[] EDDYSTONE_UID = bytes(
+      0x03, 0x03, 0xAA, 0xFE,
+      0x17, 0x16, 0xAA, 0xFE, 0x00, 0xE7,
+      0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A,
+      0x0B, 0x0C, 0x0D, 0x0E, 0x0F, 0x10, 0x00, 0x00);
+  private static final byte[] EDDYSTONE_ETLM = bytes(
+      0x03, 0x03, 0xAA, 0xFE,
+      0x15, 0x16, 0xAA, 0xFE, 0x20, 0x01,
+      0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C,
+      0x12, 0x34, 0xAB, 0xCD);
+
+  private final PublishSubject<Beacon> beacons = PublishSubject.create();
+
+  @Test
+  public void shouldDecodePlainTelemetry() {
+    // given
+    TestObserver<TelemetryFrame> observer = beacons
+        .compose(EddystoneTelemetry.distinct())
+        .test();
+
+    // when
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1980, 256, 10000)));
+
+    // then
+    observer.assertValueCount(1);
+    TelemetryFrame frame = observer.values().get(0);
+    assertThat(frame.encrypted).isFalse();
+    assertThat(frame.batteryVoltage).isEqualTo(3000);
+    assertThat(frame.temperature).isEqualTo(25.5f);
+    assertThat(frame.advertisementCount).isEqualTo(256);
+    assertThat(frame.uptimeMillis).isEqualTo(1000000);
+    assertThat(frame.copyEncryptedTelemetry()).isNull();
+  }
+
+  @Test
+  public void shouldReportNotSupportedTemperatureAsNotANumber() {
+    // given
+    TestObserver<TelemetryFrame> observer = beacons
+        .compose(EddystoneTelemetry.distinct())
+        .test();
+
+    // when
+    beacons.onNext(beacon(FIRST, tlm(0, 0x8000, 1, 1)));
+
+    // then
+    assertThat(observer.values().get(0).temperature).isNaN();
+  }
+
+  @Test
+  public void shouldDetectEncryptedTelemetry() {
+    // given
+    TestObserver<TelemetryFrame> observer = beacons
+        .compose(EddystoneTelemetry.distinct())
+        .test();
+
+    // when
+    beacons.onNext(beacon(FIRST, EDDYSTONE_ETLM));
+
+    // then
+    TelemetryFrame frame = observer.values().get(0);
+    assertThat(frame.encrypted).isTrue();
+    assertThat(frame.salt).isEqualTo(0x1234);
+    assertThat(frame.messageIntegrityCheck).isEqualTo(0xABCD);
+    assertThat(frame.copyEncryptedTelemetry())
+        .isEqualTo(bytes(0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C));
+    assertThat(frame.temperature).isNaN();
+  }
+
+  @Test
+  public void shouldSkipBeaconsWithoutTelemetry() {
+    // given
+    TestObserver<TelemetryFrame> observer = beacons
+        .compose(EddystoneTelemetry.distinct())
+        .test();
+
+    // when
+    beacons.onNext(beacon(FIRST, EDDYSTONE_UID));
+    beacons.onNext(beacon(FIRST, null));
+    beacons.onNext(beacon(FIRST, bytes(0x02, 0x01, 0x06)));
+
+    // then
+    observer.assertNoValues();
+  }
+
+  @Test
+  public void shouldEmitOnlyChangedTelemetryOfEveryDevice() {
+    // given
+    TestObserver<TelemetryFrame> observer = beacons
+        .compose(EddystoneTelemetry.distinct())
+        .test();
+
+    // when
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1900, 1, 10)));
+    beacons.onNext(beacon(FIRST, EDDYSTONE_UID));
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1900, 1, 10)));
+    beacons.onNext(beacon(SECOND, tlm(3000, 0x1900, 1, 10)));
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1900, 2, 20)));
+    beacons.onNext(beacon(SECOND, tlm(3000, 0x1900, 1, 10)));
+
+    // then
+    observer.assertValueCount(3);
+    assertThat(observer.values().get(2).advertisementCount).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldIgnoreCountersWhenComparingReadings() {
+    // given
+    TestObserver<TelemetryFrame> observer = beacons
+        .compose(EddystoneTelemetry.distinctReadings())
+        .test();
+
+    // when
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1900, 1, 10)));
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1900, 2, 20)));
+    beacons.onNext(beacon(FIRST, tlm(2990, 0x1900, 3, 30)));
+    beacons.onNext(beacon(FIRST, tlm(2990, 0x1A00, 4, 40)));
+
+    // then
+    observer.assertValueCount(3);
+    assertThat(observer.values().get(1).batteryVoltage).isEqualTo(2990);
+    assertThat(observer.values().get(2).temperature).isEqualTo(26f);
+  }
+
+  @Test
+  public void shouldEmitUnchangedTelemetryAfterIdleTimeout() {
+    // given
+    TestSubscriber<TelemetryFrame> subscriber = beacons.toFlowable(BackpressureStrategy.BUFFER)
+        .compose(EddystoneTelemetry.distinct().withIdleTimeout(10, TimeUnit.SECONDS))
+        .test();
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1900, 1, 10), 0));
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1900, 1, 10), TimeUnit.SECONDS.toNanos(9)));
+
+    // when
+    beacons.onNext(beacon(FIRST, tlm(3000, 0x1900, 1, 10), TimeUnit.SECONDS.toNanos(19)));
+
+    // then
+    subscriber.assertValueCount(2);
+  }
+
+  private static Beacon beacon(String mac, byte[] scanRecord) {
+    return beacon(mac, scanRecord, 0);
+  }
+
+  private static Beacon beacon(String mac, byte[] scanRecord, long timestampNanos) {
+    return Beacon.create(mac, null, -60, scanRecord, timestampNanos);
+  }
+
+  private static byte[] tlm(int batteryVoltage, int temperature, long count, long uptime) {
+    return bytes(
+        0x03, 0x03, 0xAA, 0xFE,
+        0x11, 0x16, 0xAA, 0xFE, 0x20, 0x00,
+        batteryVoltage >> 8, batteryVoltage, temperature >> 8, temperature,
+        (int) (count >> 24), (int) (count >> 16), (int) (count >> 8), (int) count,
+        (int) (uptime >> 24), (int) (uptime >> 16), (int) (uptime >> 8), (int) uptime);
+  }
+
+  private static byte[] bytes(int... values) {
+    byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return bytes;
+  }
+}
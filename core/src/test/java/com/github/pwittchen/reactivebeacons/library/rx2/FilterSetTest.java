@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.functions.Predicate;
+import java.util.UUID;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class FilterSetTest {
+  private static final String MAC = "00:27:0E:2A:B9:AA";
+  private static final int APPLE = 0x004C;
+  private static final UUID EDDYSTONE = UUID.fromString("0000feaa-0000-1000-8000-00805f9b34fb");
+
+  // flags + iBeacon manufacturer data (Apple, company id 0x004C)
+  private static final byte[] IBEACON_RECORD = bytes(
+      0x02, 0x01, 0x06,
+      0x1A, 0xFF, 0x4C, 0x00, 0x02, 0x15,
+      0xF7, 0x82, 0x6D, 0xA6, 0x4F, 0xA2, 0x4E, 0x98, 0x80, 0x24, 0xBC, 0x5B, 0x71, 0xE0, 0x89, 0x3E,
+      0x00, 0x01, 0x00, 0x02, 0xC5,
+      0x00, 0x00);
+
+  // flags + complete list of 16-bit service UUIDs (0xFEAA) + Eddystone service data
+  private static final byte[] EDDYSTONE_RECORD = bytes(
+      0x02, 0x01, 0x06,
+      0x03, 0x03, 0xAA, 0xFE,
+      0x05, 0x16, 0xAA, 0xFE, 0x10, 0x00);
+
+  @Test
+  public void emptySetShouldMatchEverything() {
+    assertThat(FilterSet.EMPTY.isEmpty()).isTrue();
+    assertThat(FilterSet.EMPTY.matches(MAC, null, IBEACON_RECORD)).isTrue();
+  }
+
+  @Test
+  public void shouldMatchNormalizedMacAddress() {
+    // given
+    FilterSet filterSet = new FilterSet.Builder().macAddresses("00-27-0e-2a-b9-aa").build();
+
+    // then
+    assertThat(filterSet.getMacAddresses()).containsExactly(MAC);
+    assertThat(filterSet.matches(MAC, null, null)).isTrue();
+    assertThat(filterSet.matches("00:27:0E:2A:B9:AB", null, null)).isFalse();
+  }
+
+  @Test
+  public void shouldMatchName() {
+    // given
+    FilterSet filterSet = new FilterSet.Builder().names("kontakt", "estimote").build();
+
+    // then
+    assertThat(filterSet.matches(MAC, "estimote", null)).isTrue();
+    assertThat(filterSet.matches(MAC, "other", null)).isFalse();
+    assertThat(filterSet.matches(MAC, null, null)).isFalse();
+  }
+
+  @Test
+  public void shouldMatchManufacturerId() {
+    // given
+    FilterSet apple = new FilterSet.Builder().manufacturerIds(APPLE).build();
+    FilterSet other = new FilterSet.Builder().manufacturerIds(0x0059).build();
+
+    // then
+    assertThat(apple.matches(MAC, null, IBEACON_RECORD)).isTrue();
+    assertThat(other.matches(MAC, null, IBEACON_RECORD)).isFalse();
+    assertThat(apple.matches(MAC, null, EDDYSTONE_RECORD)).isFalse();
+  }
+
+  @Test
+  public void shouldMatchShortServiceUuid() {
+    // given
+    FilterSet filterSet = new FilterSet.Builder().serviceUuids(EDDYSTONE).build();
+
+    // then
+    assertThat(filterSet.matches(MAC, null, EDDYSTONE_RECORD)).isTrue();
+    assertThat(filterSet.matches(MAC, null, IBEACON_RECORD)).isFalse();
+  }
+
+  @Test
+  public void shouldMatchFullServiceUuid() {
+    // given
+    UUID uuid = UUID.fromString("6e400001-b5a3-f393-e0a9-e50e24dcca9e");
+    byte[] record = bytes(
+        0x11, 0x07,
+        0x9E, 0xCA, 0xDC, 0x24, 0x0E, 0xE5, 0xA9, 0xE0, 0x93, 0xF3, 0xA3, 0xB5, 0x01, 0x00, 0x40,
+        0x6E);
+    FilterSet filterSet = new FilterSet.Builder().serviceUuids(uuid).build();
+
+    // then
+    assertThat(filterSet.matches(MAC, null, record)).isTrue();
+  }
+
+  @Test
+  public void shouldNotFailOnTruncatedScanRecord() {
+    // given
+    byte[] record = bytes(0x02, 0x01, 0x06, 0x1A, 0xFF, 0x4C);
+    FilterSet filterSet = new FilterSet.Builder().manufacturerIds(APPLE).build();
+
+    // then
+    assertThat(filterSet.matches(MAC, null, record)).isFalse();
+  }
+
+  @Test
+  public void predicateShouldMatchBeacon() throws Exception {
+    // given
+    FilterSet filterSet = new FilterSet.Builder().names("kontakt").manufacturerIds(APPLE).build();
+    Predicate<Beacon> predicate = filterSet.toPredicate();
+
+    // then
+    assertThat(predicate.test(Beacon.create(MAC, "kontakt", -60, EDDYSTONE_RECORD, 0))).isTrue();
+    assertThat(predicate.test(Beacon.create(MAC, null, -60, IBEACON_RECORD, 0))).isTrue();
+    assertThat(predicate.test(Beacon.create(MAC, null, -60, EDDYSTONE_RECORD, 0))).isFalse();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidMacAddress() {
+    new FilterSet.Builder().macAddresses("invalid mac address");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidManufacturerId() {
+    new FilterSet.Builder().manufacturerIds(0x10000);
+  }
+
+  private static byte[] bytes(int... values) {
+    byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return bytes;
+  }
+}
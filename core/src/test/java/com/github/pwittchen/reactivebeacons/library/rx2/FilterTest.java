@@ -16,6 +16,7 @@
 package com.github.pwittchen.reactivebeacons.library.rx2;
 
 import io.reactivex.functions.Function;
+import java.util.Collections;
 import junit.framework.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -29,20 +30,14 @@ import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class FilterTest {
+  private static final String MAC = "00:27:0E:2A:B9:AA";
 
   @Test
   public void proximityShouldBeEqualToImmediate() {
     // given
-    Beacon beacon = Mockito.mock(Beacon.class);
+    Beacon beacon = beacon("kontakt", -50);
 
     // when
-    when(beacon.getProximity()).then(new Answer<Proximity>() {
-      @Override
-      public Proximity answer(InvocationOnMock invocationOnMock) throws Throwable {
-        return Proximity.IMMEDIATE;
-      }
-    });
-
     Function<Beacon, Boolean> filter = Filter.proximityIsEqualTo(Proximity.IMMEDIATE);
     Boolean call = apply(filter, beacon);
 
@@ -50,6 +45,10 @@ public class FilterTest {
     assertThat(call).isTrue();
   }
 
+  private static Beacon beacon(String name, int rssi) {
+    return Beacon.create(MAC, name, rssi, null, 0);
+  }
+
   private Boolean apply(Function<Beacon, Boolean> filter, Beacon beacon) {
     try {
       return filter.apply(beacon);
@@ -62,16 +61,9 @@ public class FilterTest {
   @Test
   public void proximityShouldNotBeEqualToImmediate() {
     // given
-    Beacon beacon = Mockito.mock(Beacon.class);
+    Beacon beacon = beacon("kontakt", -80);
 
     // when
-    when(beacon.getProximity()).then(new Answer<Proximity>() {
-      @Override
-      public Proximity answer(InvocationOnMock invocationOnMock) throws Throwable {
-        return Proximity.FAR;
-      }
-    });
-
     Function<Beacon, Boolean> filter = Filter.proximityIsNotEqualTo(Proximity.IMMEDIATE);
     Boolean call = apply(filter, beacon);
 
@@ -82,16 +74,9 @@ public class FilterTest {
   @Test
   public void proximityShouldBeEqualToImmediateAndNear() {
     // given
-    Beacon beacon = Mockito.mock(Beacon.class);
+    Beacon beacon = beacon("kontakt", -65);
 
     // when
-    when(beacon.getProximity()).then(new Answer<Proximity>() {
-      @Override
-      public Proximity answer(InvocationOnMock invocationOnMock) throws Throwable {
-        return Proximity.NEAR;
-      }
-    });
-
     Function<Beacon, Boolean> filter =
         Filter.proximityIsEqualTo(Proximity.IMMEDIATE, Proximity.NEAR);
     Boolean call = apply(filter, beacon);
@@ -181,4 +166,101 @@ public class FilterTest {
 
     // then throw IllegalArgumentException
   }
+
+  @Test
+  public void shouldMatchName() {
+    // given
+    Beacon beacon = beacon("kontakt", -60);
+
+    // when
+    Boolean matches = apply(Filter.hasName("estimote", "kontakt"), beacon);
+    Boolean other = apply(Filter.hasName("estimote"), beacon);
+
+    // then
+    assertThat(matches).isTrue();
+    assertThat(other).isFalse();
+  }
+
+  @Test
+  public void shouldNotMatchBeaconWithoutName() {
+    // given
+    Beacon beacon = beacon(null, -60);
+
+    // when
+    Boolean hasName = apply(Filter.hasName("kontakt"), beacon);
+    Boolean hasNameIn = apply(Filter.hasNameIn(Collections.singleton("kontakt")), beacon);
+    Boolean hasPrefix = apply(Filter.hasNameStartingWith("kon"), beacon);
+
+    // then
+    assertThat(hasName).isFalse();
+    assertThat(hasNameIn).isFalse();
+    assertThat(hasPrefix).isFalse();
+  }
+
+  @Test
+  public void shouldMatchMacAddress() {
+    // given
+    Beacon beacon = beacon("kontakt", -60);
+
+    // when
+    Boolean matches = apply(Filter.hasMacAddress(MAC), beacon);
+    Boolean matchesIn = apply(Filter.hasMacAddressIn(Collections.singleton("00-27-0e-2a-b9-aa")),
+        beacon);
+    Boolean other = apply(Filter.hasMacAddress("00:27:0E:2A:B9:AB"), beacon);
+
+    // then
+    assertThat(matches).isTrue();
+    assertThat(matchesIn).isTrue();
+    assertThat(other).isFalse();
+  }
+
+  @Test
+  public void proximityShouldNotBeEqualToAnyOfExcludedProximities() {
+    // given
+    Beacon beacon = beacon("kontakt", -65);
+
+    // when
+    Boolean excluded = apply(Filter.proximityIsNotEqualTo(Proximity.IMMEDIATE, Proximity.NEAR),
+        beacon);
+    Boolean included = apply(Filter.proximityIsNotEqualTo(Proximity.IMMEDIATE, Proximity.FAR),
+        beacon);
+
+    // then
+    assertThat(excluded).isFalse();
+    assertThat(included).isTrue();
+  }
+
+  @Test
+  public void shouldNotMatchAnyOfExcludedNames() {
+    // given
+    Beacon beacon = beacon("kontakt", -60);
+
+    // when
+    Boolean excluded = apply(Filter.exceptName("estimote", "kontakt"), beacon);
+    Boolean included = apply(Filter.exceptName("estimote", "gimbal"), beacon);
+
+    // then
+    assertThat(excluded).isFalse();
+    assertThat(included).isTrue();
+  }
+
+  @Test
+  public void shouldNotMatchAnyOfExcludedMacAddresses() {
+    // given
+    Beacon beacon = beacon("kontakt", -60);
+    MacAddress other = MacAddress.valueOf("00:27:0E:2A:B9:AB");
+
+    // when
+    Boolean excluded = apply(Filter.exceptMacAddress("00:27:0E:2A:B9:AB", MAC), beacon);
+    Boolean included = apply(Filter.exceptMacAddress("00:27:0E:2A:B9:AB"), beacon);
+    Boolean excludedValue = apply(Filter.exceptMacAddress(other, MacAddress.valueOf(MAC)),
+        beacon);
+    Boolean includedValue = apply(Filter.exceptMacAddress(other), beacon);
+
+    // then
+    assertThat(excluded).isFalse();
+    assertThat(included).isTrue();
+    assertThat(excludedValue).isFalse();
+    assertThat(includedValue).isTrue();
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class MacAddressTest {
+
+  @Test
+  public void shouldPackAddressIntoLong() {
+    // when
+    MacAddress macAddress = new MacAddress("00:27:0E:2A:B9:AA");
+
+    // then
+    assertThat(macAddress.toLong()).isEqualTo(0x00270E2AB9AAL);
+    assertThat(MacAddress.toLong("ff-ff-ff-ff-ff-ff")).isEqualTo(0xFFFFFFFFFFFFL);
+  }
+
+  @Test
+  public void shouldFormatAddressInUpperCaseWithColons() {
+    // when
+    MacAddress lowerCase = new MacAddress("00:27:0e:2a:b9:aa");
+    MacAddress dashes = new MacAddress("00-27-0E-2A-B9-AA");
+    MacAddress packed = MacAddress.valueOf(0x00270E2AB9AAL);
+
+    // then
+    assertThat(lowerCase.address).isEqualTo("00:27:0E:2A:B9:AA");
+    assertThat(dashes.address).isEqualTo("00:27:0E:2A:B9:AA");
+    assertThat(packed.toString()).isEqualTo("00:27:0E:2A:B9:AA");
+  }
+
+  @Test
+  public void shouldReuseFormattedAddress() {
+    // given
+    String address = "00:27:0E:2A:B9:AA";
+
+    // when
+    MacAddress macAddress = new MacAddress(address);
+
+    // then
+    assertThat(macAddress.address).isSameInstanceAs(address);
+  }
+
+  @Test
+  public void shouldBeEqualByValue() {
+    // when
+    MacAddress first = new MacAddress("00:27:0e:2a:b9:aa");
+    MacAddress second = new MacAddress("00-27-0E-2A-B9-AA");
+    MacAddress other = new MacAddress("00:27:0E:2A:B9:AB");
+
+    // then
+    assertThat(first).isEqualTo(second);
+    assertThat(first.hashCode()).isEqualTo(second.hashCode());
+    assertThat(first).isNotEqualTo(other);
+  }
+
+  @Test
+  public void shouldReuseInstanceForRepeatedSightings() {
+    // when
+    MacAddress first = MacAddress.valueOf("C4:7C:8D:6A:1F:02");
+    MacAddress second = MacAddress.valueOf("C4:7C:8D:6A:1F:02");
+    MacAddress third = MacAddress.valueOf(0xC47C8D6A1F02L);
+
+    // then
+    assertThat(second).isSameInstanceAs(first);
+    assertThat(third).isSameInstanceAs(first);
+  }
+
+  @Test
+  public void shouldReuseInstancesWhenThousandDevicesAreVisible() {
+    // given
+    Random random = new Random(1);
+    for (int i = 0; i < 10000; i++) {
+      // rotated private addresses, which are not seen anymore
+      MacAddress.valueOf(random.nextLong() & 0xFFFFFFFFFFFFL);
+    }
+    long[] devices = new long[1000];
+    MacAddress[] previous = new MacAddress[devices.length];
+    for (int i = 0; i < devices.length; i++) {
+      devices[i] = random.nextLong() & 0xFFFFFFFFFFFFL;
+    }
+
+    // when
+    int hits = 0;
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < devices.length; i++) {
+        MacAddress macAddress = MacAddress.valueOf(devices[i]);
+        if (round >= 5 && macAddress == previous[i]) {
+          hits++;
+        }
+        previous[i] = macAddress;
+      }
+    }
+
+    // then
+    assertThat(hits).isAtLeast(5 * devices.length * 99 / 100);
+  }
+
+  @Test
+  public void shouldValidateAddresses() {
+    assertThat(MacAddress.isValid("00:27:0e:2a:b9:aa")).isTrue();
+    assertThat(MacAddress.isValid("00-27-0e-2a-b9-aa")).isTrue();
+    assertThat(MacAddress.isValid(null)).isFalse();
+    assertThat(MacAddress.isValid("")).isFalse();
+    assertThat(MacAddress.isValid("00:27:0e:2a:b9")).isFalse();
+    assertThat(MacAddress.isValid("00:27:0e:2a:b9:aa:")).isFalse();
+    assertThat(MacAddress.isValid("00:27:0e:2a:b9:ag")).isFalse();
+    assertThat(MacAddress.isValid("00:27.0e:2a:b9:aa")).isFalse();
+    assertThat(MacAddress.isValid("0027:0e:2a:b9:aa:")).isFalse();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectValueExceeding48Bits() {
+    MacAddress.valueOf(0x1000000000000L);
+  }
+}
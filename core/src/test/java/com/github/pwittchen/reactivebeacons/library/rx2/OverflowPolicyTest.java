@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.functions.Function;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class OverflowPolicyTest {
+
+  private static final Function<String, Object> FIRST_LETTER = new Function<String, Object>() {
+    @Override public Object apply(String value) {
+      return value.charAt(0);
+    }
+  };
+
+  @Test
+  public void shouldDeliverAllItemsWhenSubscriberKeepsUp() {
+    // given
+    OverflowPolicy policy = OverflowPolicy.dropNewest(2);
+    PublishProcessor<String> upstream = PublishProcessor.create();
+    TestSubscriber<String> subscriber = lift(upstream, policy).test();
+
+    // when
+    push(upstream, "a1", "b1", "c1", "d1");
+
+    // then
+    subscriber.assertValues("a1", "b1", "c1", "d1");
+    assertThat(policy.getDroppedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldDropNewestItems() {
+    // given
+    OverflowPolicy policy = OverflowPolicy.dropNewest(2);
+    PublishProcessor<String> upstream = PublishProcessor.create();
+    TestSubscriber<String> subscriber = lift(upstream, policy).test(0);
+
+    // when
+    push(upstream, "a1", "b1", "c1", "d1", "e1");
+    subscriber.request(10);
+
+    // then
+    subscriber.assertValues("a1", "b1");
+    assertThat(policy.getDroppedCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldDropOldestItems() {
+    // given
+    OverflowPolicy policy = OverflowPolicy.dropOldest(2);
+    PublishProcessor<String> upstream = PublishProcessor.create();
+    TestSubscriber<String> subscriber = lift(upstream, policy).test(0);
+
+    // when
+    push(upstream, "a1", "b1", "c1", "d1", "e1");
+    subscriber.request(10);
+
+    // then
+    subscriber.assertValues("d1", "e1");
+    assertThat(policy.getDroppedCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldSignalErrorWhenBufferOverflows() {
+    // given
+    OverflowPolicy policy = OverflowPolicy.buffer(2);
+    PublishProcessor<String> upstream = PublishProcessor.create();
+    TestSubscriber<String> subscriber = lift(upstream, policy).test(0);
+
+    // when
+    push(upstream, "a1", "b1", "c1");
+
+    // then
+    subscriber.assertError(MissingBackpressureException.class);
+    assertThat(upstream.hasSubscribers()).isFalse();
+    assertThat(policy.getDroppedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldKeepLatestItemPerKey() {
+    // given
+    OverflowPolicy policy = OverflowPolicy.latestPerMacAddress(2);
+    PublishProcessor<String> upstream = PublishProcessor.create();
+    TestSubscriber<String> subscriber = lift(upstream, policy).test(0);
+
+    // when
+    push(upstream, "a1", "b1", "a2", "b2", "a3");
+    subscriber.request(10);
+
+    // then
+    subscriber.assertValues("a3", "b2");
+    assertThat(policy.getDroppedCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldEvictEldestKeyWhenCapacityIsExceeded() {
+    // given
+    OverflowPolicy policy = OverflowPolicy.latestPerMacAddress(2);
+    PublishProcessor<String> upstream = PublishProcessor.create();
+    TestSubscriber<String> subscriber = lift(upstream, policy).test(0);
+
+    // when
+    push(upstream, "a1", "b1", "c1");
+    subscriber.request(10);
+
+    // then
+    subscriber.assertValues("b1", "c1");
+    assertThat(policy.getDroppedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCompleteAfterBufferedItemsAreRequested() {
+    // given
+    OverflowPolicy policy = OverflowPolicy.dropNewest(1);
+    Beacon first = Mockito.mock(Beacon.class);
+    Beacon second = Mockito.mock(Beacon.class);
+
+    // when
+    TestSubscriber<Beacon> subscriber =
+        policy.toFlowable(Observable.just(first, second)).test(0);
+    subscriber.assertNotComplete();
+    subscriber.request(1);
+
+    // then
+    subscriber.assertResult(first);
+    assertThat(policy.getDroppedCount()).isEqualTo(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptEmptyBuffer() {
+    // when
+    OverflowPolicy.dropOldest(0);
+
+    // then throw IllegalArgumentException
+  }
+
+  private Flowable<String> lift(PublishProcessor<String> upstream,
+      OverflowPolicy policy) {
+    return upstream.lift(new OverflowOperator<>(policy, FIRST_LETTER, OverflowPolicy.NO_ACTION));
+  }
+
+  private void push(PublishProcessor<String> upstream, String... values) {
+    for (String value : values) {
+      upstream.onNext(value);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Emitter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RegistryTrackerTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long TTL = 10 * SECOND;
+  private static final MacAddress FIRST = MacAddress.valueOf("00:27:0E:2A:B9:AA");
+  private static final MacAddress SECOND_MAC = MacAddress.valueOf("00:27:0E:2A:B9:AB");
+
+  private ConcurrentMap<MacAddress, BeaconRegistry.Entry> entries;
+  private RecordingEmitter emitter;
+  private RegistryTracker tracker;
+
+  @Before
+  public void setUp() {
+    entries = new ConcurrentHashMap<>();
+    emitter = new RecordingEmitter();
+    tracker = new RegistryTracker(entries, emitter, TTL, 0);
+  }
+
+  @Test
+  public void shouldEmitEnterAndUpdateEvents() {
+    // given
+    Beacon first = Mockito.mock(Beacon.class);
+    Beacon updated = Mockito.mock(Beacon.class);
+
+    // when
+    tracker.onSighting(FIRST, first, 0);
+    tracker.onSighting(FIRST, updated, SECOND);
+
+    // then
+    assertThat(emitter.types()).containsExactly(RegistryEvent.Type.ENTER,
+        RegistryEvent.Type.UPDATE).inOrder();
+    assertThat(entries.get(FIRST).beacon).isSameInstanceAs(updated);
+  }
+
+  @Test
+  public void shouldExpireBeaconAfterTtl() {
+    // given
+    Beacon beacon = Mockito.mock(Beacon.class);
+    tracker.onSighting(FIRST, beacon, 0);
+
+    // when
+    tracker.onTick(TTL - SECOND);
+    int sizeBeforeTtl = entries.size();
+    tracker.onTick(TTL + TTL / RegistryTracker.TICKS_PER_TTL);
+
+    // then
+    assertThat(sizeBeforeTtl).isEqualTo(1);
+    assertThat(entries).isEmpty();
+    assertThat(emitter.types()).containsExactly(RegistryEvent.Type.ENTER,
+        RegistryEvent.Type.EXIT).inOrder();
+    assertThat(emitter.events.get(1).beacon).isSameInstanceAs(beacon);
+  }
+
+  @Test
+  public void shouldNotExpireBeaconSeenAgain() {
+    // given
+    tracker.onSighting(FIRST, Mockito.mock(Beacon.class), 0);
+    tracker.onSighting(SECOND_MAC, Mockito.mock(Beacon.class), 0);
+
+    // when
+    for (long now = 0; now <= 3 * TTL; now += SECOND) {
+      tracker.onSighting(FIRST, Mockito.mock(Beacon.class), now);
+      tracker.onTick(now);
+    }
+
+    // then
+    assertThat(entries.keySet()).containsExactly(FIRST);
+  }
+
+  @Test
+  public void shouldExpireBeaconsAfterLongPauseOfTicks() {
+    // given
+    tracker.onSighting(FIRST, Mockito.mock(Beacon.class), 0);
+    tracker.onSighting(SECOND_MAC, Mockito.mock(Beacon.class), 5 * SECOND);
+
+    // when
+    tracker.onTick(100 * TTL);
+
+    // then
+    assertThat(entries).isEmpty();
+  }
+
+  @Test
+  public void shouldRemoveEntriesOnClear() {
+    // given
+    tracker.onSighting(FIRST, Mockito.mock(Beacon.class), 0);
+
+    // when
+    tracker.clear();
+
+    // then
+    assertThat(entries).isEmpty();
+  }
+
+  @Test
+  public void shouldHandleManyDevices() {
+    // given
+    int devices = 10000;
+
+    // when
+    for (int i = 0; i < devices; i++) {
+      tracker.onSighting(MacAddress.valueOf(i), Mockito.mock(Beacon.class), i * 1000L);
+    }
+    tracker.onTick(TTL / 2);
+    int visible = entries.size();
+    tracker.onTick(2 * TTL);
+
+    // then
+    assertThat(visible).isEqualTo(devices);
+    assertThat(entries).isEmpty();
+    assertThat(emitter.events).hasSize(2 * devices);
+  }
+
+  private static final class RecordingEmitter implements Emitter<RegistryEvent> {
+    final List<RegistryEvent> events = new ArrayList<>();
+
+    @Override public void onNext(RegistryEvent value) {
+      events.add(value);
+    }
+
+    @Override public void onError(Throwable error) {
+      throw new AssertionError(error);
+    }
+
+    @Override public void onComplete() {
+    }
+
+    List<RegistryEvent.Type> types() {
+      List<RegistryEvent.Type> types = new ArrayList<>();
+      for (RegistryEvent event : events) {
+        types.add(event.type);
+      }
+      return types;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RssiSmootherTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void shouldComputeExponentialMovingAverage() {
+    // given
+    RssiSmoother smoother = new RssiSmoother(RssiSmoothing.exponentialMovingAverage(0.5));
+
+    // then
+    assertThat(smoother.smooth(1, -60, 0)).isEqualTo(-60d);
+    assertThat(smoother.smooth(1, -70, 1)).isEqualTo(-65d);
+    assertThat(smoother.smooth(1, -70, 2)).isEqualTo(-67.5d);
+  }
+
+  @Test
+  public void shouldKeepStateOfDevicesSeparately() {
+    // given
+    RssiSmoother smoother = new RssiSmoother(RssiSmoothing.exponentialMovingAverage(0.5));
+
+    // when
+    smoother.smooth(1, -60, 0);
+    smoother.smooth(2, -90, 0);
+
+    // then
+    assertThat(smoother.smooth(1, -70, 1)).isEqualTo(-65d);
+    assertThat(smoother.smooth(2, -80, 1)).isEqualTo(-85d);
+    assertThat(smoother.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void kalmanFilterShouldReduceNoise() {
+    // given
+    RssiSmoother smoother = new RssiSmoother(RssiSmoothing.kalman(0.01, 16));
+    Random random = new Random(7);
+    double rawError = 0;
+    double smoothedError = 0;
+
+    // when
+    for (int i = 0; i < 1000; i++) {
+      int rssi = -70 + random.nextInt(21) - 10;
+      double smoothed = smoother.smooth(1, rssi, i);
+      if (i >= 100) {
+        rawError += Math.abs(rssi + 70);
+        smoothedError += Math.abs(smoothed + 70);
+      }
+    }
+
+    // then
+    assertThat(smoothedError).isLessThan(rawError / 5);
+  }
+
+  @Test
+  public void shouldEvictIdleDevices() {
+    // given
+    RssiSmoothing smoothing = RssiSmoothing.exponentialMovingAverage(0.5)
+        .withIdleTimeout(10, TimeUnit.SECONDS);
+    RssiSmoother smoother = new RssiSmoother(smoothing);
+    for (int key = 0; key < 1000; key++) {
+      smoother.smooth(key, -60, 0);
+    }
+
+    // when
+    smoother.smooth(5000, -60, 5 * SECOND);
+    smoother.smooth(5001, -60, 11 * SECOND);
+
+    // then
+    assertThat(smoother.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldRestartSmoothingWhenDeviceComesBackAfterIdleTimeout() {
+    // given
+    RssiSmoothing smoothing = RssiSmoothing.exponentialMovingAverage(0.5)
+        .withIdleTimeout(10, TimeUnit.SECONDS);
+    RssiSmoother smoother = new RssiSmoother(smoothing);
+
+    // when
+    smoother.smooth(1, -60, 0);
+    double rssi = smoother.smooth(1, -80, 10 * SECOND);
+
+    // then
+    assertThat(rssi).isEqualTo(-80d);
+  }
+
+  @Test
+  public void shouldMeasureIdleTimeoutWithBeaconTimestamps() {
+    // given
+    RssiSmoothing smoothing = RssiSmoothing.exponentialMovingAverage(0.5)
+        .withIdleTimeout(10, TimeUnit.SECONDS);
+    String mac = "00:00:00:00:00:01";
+
+    // when
+    TestObserver<Beacon> observer = Observable.just(
+        Beacon.create(mac, null, -60, null, 0),
+        Beacon.create(mac, null, -70, null, 5 * SECOND),
+        Beacon.create(mac, null, -90, null, 20 * SECOND))
+        .compose(smoothing)
+        .test();
+
+    // then
+    assertThat(observer.values().get(1).rssi).isEqualTo(-65);
+    assertThat(observer.values().get(2).rssi).isEqualTo(-90);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidAlpha() {
+    RssiSmoothing.exponentialMovingAverage(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidNoise() {
+    RssiSmoothing.kalman(0.01, -1);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RssiWindowTest {
+
+  @Test
+  public void shouldComputeStatistics() {
+    // given
+    RssiWindow window = new RssiWindow(8);
+
+    // when
+    window.add(-60, 1);
+    window.add(-70, 2);
+    window.add(-65, 3);
+    window.add(-80, 4);
+
+    // then
+    assertThat(window.count()).isEqualTo(4);
+    assertThat(window.mean()).isEqualTo(-68.75);
+    assertThat(window.median()).isEqualTo(-67.5);
+    assertThat(window.standardDeviation()).isWithin(1e-9).of(Math.sqrt(54.6875));
+    assertThat(window.minimum()).isEqualTo(-80);
+    assertThat(window.maximum()).isEqualTo(-60);
+  }
+
+  @Test
+  public void shouldExpireOldSamples() {
+    // given
+    RssiWindow window = new RssiWindow(8);
+    window.add(-90, 1);
+    window.add(-50, 2);
+    window.add(-70, 3);
+
+    // when
+    window.expire(2);
+
+    // then
+    assertThat(window.count()).isEqualTo(1);
+    assertThat(window.median()).isEqualTo(-70d);
+    assertThat(window.minimum()).isEqualTo(-70);
+    assertThat(window.maximum()).isEqualTo(-70);
+    assertThat(window.standardDeviation()).isEqualTo(0d);
+  }
+
+  @Test
+  public void shouldReturnNotANumberWhenEmpty() {
+    // given
+    RssiWindow window = new RssiWindow(4);
+    window.add(-60, 1);
+
+    // when
+    window.expire(1);
+
+    // then
+    assertThat(window.count()).isEqualTo(0);
+    assertThat(window.mean()).isNaN();
+    assertThat(window.median()).isNaN();
+  }
+
+  @Test
+  public void shouldMatchStatisticsOfSortedSamples() {
+    // given
+    Random random = new Random(5);
+    RssiWindow window = new RssiWindow(33);
+    List<int[]> samples = new ArrayList<>();
+
+    for (int time = 1; time <= 5000; time++) {
+      // when samples are added, evicted when the window is full and expired in bursts
+      int rssi = -100 + random.nextInt(70);
+      window.add(rssi, time);
+      samples.add(new int[] { rssi, time });
+      if (samples.size() > 33) {
+        samples.remove(0);
+      }
+      if (random.nextInt(50) == 0) {
+        int cutoff = time - random.nextInt(40);
+        window.expire(cutoff);
+        while (!samples.isEmpty() && samples.get(0)[1] <= cutoff) {
+          samples.remove(0);
+        }
+      }
+
+      // then
+      assertThat(window.count()).isEqualTo(samples.size());
+      if (samples.isEmpty()) {
+        continue;
+      }
+      List<Integer> sorted = new ArrayList<>();
+      double sum = 0;
+      for (int[] sample : samples) {
+        sorted.add(sample[0]);
+        sum += sample[0];
+      }
+      Collections.sort(sorted);
+      int size = sorted.size();
+      double median = (sorted.get((size - 1) / 2) + sorted.get(size / 2)) / 2.0;
+      assertThat(window.median()).isEqualTo(median);
+      assertThat(window.mean()).isWithin(1e-9).of(sum / size);
+      assertThat(window.minimum()).isEqualTo(sorted.get(0));
+      assertThat(window.maximum()).isEqualTo(sorted.get(size - 1));
+    }
+  }
+
+  @Test
+  public void shouldClampRssiToByte() {
+    // given
+    RssiWindow window = new RssiWindow(2);
+
+    // when
+    window.add(-200, 1);
+
+    // then
+    assertThat(window.minimum()).isEqualTo(-128);
+  }
+}
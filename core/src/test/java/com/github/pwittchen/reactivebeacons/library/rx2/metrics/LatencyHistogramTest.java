@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void shouldMapEveryValueToBucketContainingIt() {
+    // given
+    long[] values = {
+        0, 1, 15, 16, 31, 32, 33, 1000, 65535, 1_000_000, 123_456_789, LatencyHistogram.MAX_VALUE
+    };
+
+    for (long value : values) {
+      // when
+      int index = LatencyHistogram.index(value);
+
+      // then
+      assertThat(index).isLessThan(LatencyHistogram.BUCKET_COUNT);
+      assertThat(LatencyHistogram.lowestValue(index)).isAtMost(value);
+      assertThat(LatencyHistogram.highestValue(index)).isAtLeast(value);
+    }
+  }
+
+  @Test
+  public void shouldKeepRelativeErrorBelowBucketPrecision() {
+    int lastIndex = LatencyHistogram.BUCKET_COUNT - 1;
+    for (int index = LatencyHistogram.SUB_BUCKET_COUNT; index < lastIndex; index++) {
+      // given
+      long lowest = LatencyHistogram.lowestValue(index);
+
+      // when
+      long highest = LatencyHistogram.highestValue(index);
+
+      // then
+      assertThat((double) (highest - lowest) / lowest).isLessThan(1.0 / 16);
+      assertThat(LatencyHistogram.index(highest + 1)).isEqualTo(index + 1);
+    }
+  }
+
+  @Test
+  public void shouldReportPercentilesWithinPrecision() {
+    // given
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    // when
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+    }
+    LatencySnapshot snapshot = histogram.snapshot();
+
+    // then
+    assertThat(snapshot.getCount()).isEqualTo(1000);
+    assertThat(snapshot.getMax(TimeUnit.MICROSECONDS)).isEqualTo(1000);
+    assertThat(snapshot.getMean(TimeUnit.MICROSECONDS)).isWithin(0.001).of(500.5);
+    assertThat((double) snapshot.getPercentile(50, TimeUnit.MICROSECONDS)).isWithin(500 / 16.0)
+        .of(500);
+    assertThat((double) snapshot.getPercentile(99, TimeUnit.MICROSECONDS)).isWithin(990 / 16.0)
+        .of(990);
+    assertThat(snapshot.getPercentile(100, TimeUnit.MICROSECONDS)).isEqualTo(1000);
+  }
+
+  @Test
+  public void shouldClampNegativeAndTooLongLatencies() {
+    // given
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    // when
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    LatencySnapshot snapshot = histogram.snapshot();
+
+    // then
+    assertThat(snapshot.getPercentile(0, TimeUnit.NANOSECONDS)).isEqualTo(0);
+    assertThat(snapshot.getMax(TimeUnit.NANOSECONDS)).isEqualTo(LatencyHistogram.MAX_VALUE);
+  }
+
+  @Test
+  public void shouldCreateSnapshotOfValuesRecordedSincePreviousSnapshot() {
+    // given
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+    LatencySnapshot previous = histogram.snapshot();
+
+    // when
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+    LatencySnapshot difference = histogram.snapshot().since(previous);
+
+    // then
+    assertThat(difference.getCount()).isEqualTo(2);
+    assertThat(difference.getMean(TimeUnit.MICROSECONDS)).isWithin(0.001).of(1500);
+    assertThat(difference.getMax(TimeUnit.MILLISECONDS)).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldReportZerosWhenNothingWasRecorded() {
+    // when
+    LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+
+    // then
+    assertThat(snapshot.getCount()).isEqualTo(0);
+    assertThat(snapshot.getMean(TimeUnit.NANOSECONDS)).isEqualTo(0.0);
+    assertThat(snapshot.getPercentile(99.9, TimeUnit.NANOSECONDS)).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptPercentileAboveHundred() {
+    new LatencyHistogram().snapshot().getPercentile(100.1, TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.metrics;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.DeviceThrottle;
+import com.github.pwittchen.reactivebeacons.library.rx2.OverflowPolicy;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ScanInstrumentationTest {
+  private static final String MAC_ADDRESS = "AA:BB:CC:DD:EE:FF";
+
+  private final TestScheduler scheduler = new TestScheduler();
+  private final NanoClock clock = new NanoClock() {
+    @Override public long nanoTime() {
+      return scheduler.now(TimeUnit.NANOSECONDS);
+    }
+  };
+
+  @Test
+  public void shouldCountCallbacksAndMeasureTheirLatency() {
+    // given
+    ScanInstrumentation instrumentation = new ScanInstrumentation(clock);
+    Beacon beacon = beacon(-60);
+    scheduler.advanceTimeBy(5, TimeUnit.MILLISECONDS);
+
+    // when
+    instrumentation.onCallback(beacon);
+    instrumentation.onCallback(beacon);
+    instrumentation.onDiscarded(1);
+    ScanMetrics metrics = instrumentation.snapshot();
+
+    // then
+    assertThat(metrics.callbackCount).isEqualTo(2);
+    assertThat(metrics.discardedCount).isEqualTo(1);
+    assertThat(metrics.callbackLatency.getMax(TimeUnit.MILLISECONDS)).isEqualTo(5);
+    assertThat(metrics.getCallbackRate()).isWithin(0.001).of(400);
+  }
+
+  @Test
+  public void shouldMeasureDeliveryLatencyOfComposedStream() {
+    // given
+    ScanInstrumentation instrumentation = new ScanInstrumentation(clock);
+    PublishSubject<Beacon> upstream = PublishSubject.create();
+    TestObserver<Beacon> observer = upstream.compose(instrumentation).test();
+    Beacon beacon = beacon(-60);
+
+    // when
+    scheduler.advanceTimeBy(20, TimeUnit.MILLISECONDS);
+    upstream.onNext(beacon);
+    ScanMetrics metrics = instrumentation.snapshot();
+
+    // then
+    observer.assertValues(beacon);
+    assertThat(metrics.deliveredCount).isEqualTo(1);
+    assertThat(metrics.deliveryLatency.getMax(TimeUnit.MILLISECONDS)).isEqualTo(20);
+  }
+
+  @Test
+  public void shouldCountBeaconsSuppressedByThrottle() {
+    // given
+    ScanInstrumentation instrumentation = new ScanInstrumentation(clock);
+    PublishSubject<Beacon> upstream = PublishSubject.create();
+    upstream.compose(DeviceThrottle.distinct().withInstrumentation(instrumentation)).test();
+
+    // when
+    upstream.onNext(beacon(-60));
+    upstream.onNext(beacon(-60));
+    upstream.onNext(beacon(-60));
+    upstream.onNext(beacon(-70));
+
+    // then
+    assertThat(instrumentation.snapshot().suppressedCount).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCountBeaconsDroppedByInstrumentedStream() {
+    // given
+    ScanInstrumentation instrumentation = new ScanInstrumentation(clock);
+    OverflowPolicy policy = OverflowPolicy.dropNewest(1);
+    PublishSubject<Beacon> upstream = PublishSubject.create();
+    TestSubscriber<Beacon> subscriber = instrumentation.toFlowable(upstream, policy).test(0);
+
+    // when
+    upstream.onNext(beacon(-60));
+    upstream.onNext(beacon(-61));
+    upstream.onNext(beacon(-62));
+
+    // then
+    subscriber.assertNoValues();
+    assertThat(instrumentation.snapshot().droppedCount).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldStopCountingDroppedBeaconsWhenStreamIsDisposed() {
+    // given
+    ScanInstrumentation instrumentation = new ScanInstrumentation(clock);
+    OverflowPolicy policy = OverflowPolicy.dropNewest(1);
+    PublishSubject<Beacon> upstream = PublishSubject.create();
+    TestSubscriber<Beacon> untracked = policy.toFlowable(upstream).test(0);
+    upstream.onNext(beacon(-60));
+    upstream.onNext(beacon(-61));
+    TestSubscriber<Beacon> tracked = instrumentation.toFlowable(upstream, policy).test(0);
+    upstream.onNext(beacon(-62));
+    upstream.onNext(beacon(-63));
+
+    // when
+    tracked.dispose();
+    upstream.onNext(beacon(-64));
+    untracked.dispose();
+    instrumentation.toFlowable(upstream, policy).test(0).dispose();
+    upstream.onNext(beacon(-65));
+
+    // then
+    assertThat(policy.getDroppedCount()).isEqualTo(5);
+    assertThat(instrumentation.snapshot().droppedCount).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldEmitMetricsCollectedDuringEveryInterval() {
+    // given
+    ScanInstrumentation instrumentation = new ScanInstrumentation(clock);
+    instrumentation.onCallback(beacon(-60));
+    TestObserver<ScanMetrics> observer =
+        instrumentation.observe(1, TimeUnit.SECONDS, scheduler).test();
+
+    // when
+    instrumentation.onCallback(beacon(-60));
+    instrumentation.onCallback(beacon(-60));
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    instrumentation.onCallback(beacon(-60));
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    // then
+    observer.assertValueCount(3);
+    assertThat(observer.values().get(0).callbackCount).isEqualTo(2);
+    assertThat(observer.values().get(0).callbackLatency.getCount()).isEqualTo(2);
+    assertThat(observer.values().get(0).periodNanos).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    assertThat(observer.values().get(1).callbackCount).isEqualTo(1);
+    assertThat(observer.values().get(1).getCallbackRate()).isWithin(0.001).of(1);
+    assertThat(observer.values().get(2).callbackCount).isEqualTo(0);
+    assertThat(observer.values().get(2).callbackLatency.getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldIgnoreEventsWhenDisabled() {
+    // given
+    ScanInstrumentation instrumentation = ScanInstrumentation.DISABLED;
+    PublishSubject<Beacon> upstream = PublishSubject.create();
+    upstream.compose(instrumentation).test();
+
+    // when
+    instrumentation.onCallback(beacon(-60));
+    instrumentation.onDiscarded(3);
+    instrumentation.onSuppressed();
+    upstream.onNext(beacon(-60));
+    ScanMetrics metrics = instrumentation.snapshot();
+
+    // then
+    assertThat(metrics.callbackCount).isEqualTo(0);
+    assertThat(metrics.discardedCount).isEqualTo(0);
+    assertThat(metrics.suppressedCount).isEqualTo(0);
+    assertThat(metrics.deliveredCount).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAcceptNonPositiveInterval() {
+    new ScanInstrumentation(clock).observe(0, TimeUnit.SECONDS, scheduler);
+  }
+
+  private Beacon beacon(int rssi) {
+    return Beacon.create(MAC_ADDRESS, null, rssi, new byte[] { 1, 2, 3 },
+        scheduler.now(TimeUnit.NANOSECONDS));
+  }
+}
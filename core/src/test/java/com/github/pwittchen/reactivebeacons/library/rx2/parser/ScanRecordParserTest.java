@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.parser;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import org.junit.Assume;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ScanRecordParserTest {
+  private static final byte[] IBEACON = bytes(
+      0x02, 0x01, 0x06,
+      0x1A, 0xFF, 0x4C, 0x00, 0x02, 0x15,
+      0xF7, 0x82, 0x6D, 0xA6, 0x4F, 0xA2, 0x4E, 0x98, 0x80, 0x24, 0xBC, 0x5B, 0x71, 0xE0, 0x89, 0x3E,
+      0x00, 0x01, 0x00, 0x02, 0xC5,
+      0x00, 0x00);
+
+  private static final byte[] ALTBEACON = bytes(
+      0x02, 0x01, 0x06,
+      0x1B, 0xFF, 0x18, 0x01, 0xBE, 0xAC,
+      0x2F, 0x23, 0x44, 0x54, 0xCF, 0x6D, 0x4A, 0x0F, 0xAD, 0xF2, 0xF4, 0x91, 0x1B, 0xA9, 0xFF, 0xA6,
+      0x00, 0x01, 0x00, 0x02, 0xC5, 0x00);
+
+  private static final byte[] EDDYSTONE_UID = bytes(
+      0x02, 0x01, 0x06,
+      0x03, 0x03, 0xAA, 0xFE,
+      0x17, 0x16, 0xAA, 0xFE, 0x00, 0xE7,
+      0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09,
+      0x0A, 0x0B, 0x0C, 0x0D, 0x0E, 0x0F,
+      0x00, 0x00);
+
+  private static final byte[] EDDYSTONE_URL = bytes(
+      0x03, 0x03, 0xAA, 0xFE,
+      0x0E, 0x16, 0xAA, 0xFE, 0x10, 0xEB, 0x03, 0x65, 0x78, 0x61, 0x6D, 0x70, 0x6C, 0x65, 0x07);
+
+  private static final byte[] EDDYSTONE_TLM = bytes(
+      0x03, 0x03, 0xAA, 0xFE,
+      0x11, 0x16, 0xAA, 0xFE, 0x20, 0x00,
+      0x0B, 0xB8, 0x19, 0x80, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00, 0x27, 0x10);
+
+  private static final byte[] EDDYSTONE_ETLM = bytes(
+      0x03, 0x03, 0xAA, 0xFE,
+      0x15, 0x16, 0xAA, 0xFE, 0x20, 0x01,
+      0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C,
+      0x12, 0x34, 0xAB, 0xCD);
+
+  private static final byte[] EDDYSTONE_EID = bytes(
+      0x03, 0x03, 0xAA, 0xFE,
+      0x0D, 0x16, 0xAA, 0xFE, 0x30, 0xF0, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08);
+
+  @Test
+  public void shouldWalkAdStructures() {
+    // given
+    ScanRecordParser parser = new ScanRecordParser().wrap(IBEACON);
+
+    // when
+    boolean hasFlags = parser.next();
+    int flagsType = parser.type();
+    int flags = parser.buffer()[parser.dataOffset()];
+    boolean hasManufacturerData = parser.next();
+    int manufacturerDataType = parser.type();
+    int manufacturerDataLength = parser.dataLength();
+    boolean hasMore = parser.next();
+
+    // then
+    assertThat(hasFlags).isTrue();
+    assertThat(flagsType).isEqualTo(ScanRecordParser.TYPE_FLAGS);
+    assertThat(flags).isEqualTo(0x06);
+    assertThat(hasManufacturerData).isTrue();
+    assertThat(manufacturerDataType).isEqualTo(ScanRecordParser.TYPE_MANUFACTURER_SPECIFIC_DATA);
+    assertThat(manufacturerDataLength).isEqualTo(25);
+    assertThat(hasMore).isFalse(); // zero padding ends the record
+  }
+
+  @Test
+  public void shouldStopOnTruncatedStructure() {
+    // given
+    ScanRecordParser parser = new ScanRecordParser().wrap(bytes(0x02, 0x01, 0x06, 0x1A, 0xFF));
+
+    // then
+    assertThat(parser.next()).isTrue();
+    assertThat(parser.next()).isFalse();
+    assertThat(new ScanRecordParser().wrap(null).next()).isFalse();
+  }
+
+  @Test
+  public void shouldReadLocalName() {
+    // given
+    byte[] shortName = bytes(0x02, 0x01, 0x06, 0x03, 0x08, 0x42, 0x65);
+    byte[] bothNames = bytes(0x03, 0x08, 0x42, 0x65, 0x05, 0x09, 0x42, 0x65, 0x61, 0x6D);
+
+    // then
+    assertThat(ScanRecordParser.localName(shortName)).isEqualTo("Be");
+    assertThat(ScanRecordParser.localName(bothNames)).isEqualTo("Beam");
+    assertThat(ScanRecordParser.localName(IBEACON)).isNull();
+    assertThat(ScanRecordParser.localName(null)).isNull();
+  }
+
+  @Test
+  public void shouldReadManufacturerData() {
+    // given
+    ManufacturerData data = new ManufacturerData();
+
+    // then
+    assertThat(data.wrap(IBEACON)).isTrue();
+    assertThat(data.companyId()).isEqualTo(IBeacon.APPLE_COMPANY_ID);
+    assertThat(data.length()).isEqualTo(23);
+    assertThat(data.get(0)).isEqualTo((byte) 0x02);
+    assertThat(data.wrap(IBEACON, 0x0118)).isFalse();
+    assertThat(data.wrap(EDDYSTONE_UID)).isFalse();
+  }
+
+  @Test
+  public void shouldDecodeIBeacon() {
+    // given
+    IBeacon iBeacon = new IBeacon();
+
+    // then
+    assertThat(iBeacon.wrap(IBEACON)).isTrue();
+    assertThat(iBeacon.uuid()).isEqualTo(UUID.fromString("f7826da6-4fa2-4e98-8024-bc5b71e0893e"));
+    assertThat(iBeacon.major()).isEqualTo(1);
+    assertThat(iBeacon.minor()).isEqualTo(2);
+    assertThat(iBeacon.measuredPower()).isEqualTo(-59);
+    assertThat(iBeacon.wrap(ALTBEACON)).isFalse();
+  }
+
+  @Test
+  public void shouldDecodeAltBeacon() {
+    // given
+    AltBeacon altBeacon = new AltBeacon();
+
+    // then
+    assertThat(altBeacon.wrap(ALTBEACON)).isTrue();
+    assertThat(altBeacon.manufacturerId()).isEqualTo(0x0118);
+    UUID id1 = new UUID(altBeacon.id1MostSignificantBits(), altBeacon.id1LeastSignificantBits());
+    assertThat(id1).isEqualTo(UUID.fromString("2f234454-cf6d-4a0f-adf2-f4911ba9ffa6"));
+    assertThat(altBeacon.id2()).isEqualTo(1);
+    assertThat(altBeacon.id3()).isEqualTo(2);
+    assertThat(altBeacon.referenceRssi()).isEqualTo(-59);
+    assertThat(altBeacon.wrap(IBEACON)).isFalse();
+  }
+
+  @Test
+  public void shouldDecodeEddystoneUid() {
+    // given
+    Eddystone eddystone = new Eddystone();
+
+    // then
+    assertThat(eddystone.wrap(EDDYSTONE_UID)).isTrue();
+    assertThat(eddystone.isUid()).isTrue();
+    assertThat(eddystone.txPower()).isEqualTo(-25);
+    assertThat(eddystone.namespaceHigh()).isEqualTo(0x0001020304050607L);
+    assertThat(eddystone.namespaceLow()).isEqualTo(0x0809);
+    assertThat(eddystone.instance()).isEqualTo(0x0A0B0C0D0E0FL);
+  }
+
+  @Test
+  public void shouldDecodeEddystoneUrl() {
+    // given
+    Eddystone eddystone = new Eddystone();
+
+    // then
+    assertThat(eddystone.wrap(EDDYSTONE_URL)).isTrue();
+    assertThat(eddystone.isUrl()).isTrue();
+    assertThat(eddystone.txPower()).isEqualTo(-21);
+    assertThat(eddystone.url()).isEqualTo("https://example.com");
+  }
+
+  @Test
+  public void shouldDecodeEddystoneTlm() {
+    // given
+    Eddystone eddystone = new Eddystone();
+
+    // then
+    assertThat(eddystone.wrap(EDDYSTONE_TLM)).isTrue();
+    assertThat(eddystone.isTlm()).isTrue();
+    assertThat(eddystone.isEncryptedTlm()).isFalse();
+    assertThat(eddystone.batteryVoltage()).isEqualTo(3000);
+    assertThat(eddystone.temperature()).isEqualTo(25.5f);
+    assertThat(eddystone.advertisementCount()).isEqualTo(256);
+    assertThat(eddystone.uptime()).isEqualTo(10000);
+  }
+
+  @Test
+  public void shouldDecodeEncryptedEddystoneTlm() {
+    // given
+    Eddystone eddystone = new Eddystone();
+
+    // then
+    assertThat(eddystone.wrap(EDDYSTONE_ETLM)).isTrue();
+    assertThat(eddystone.isEncryptedTlm()).isTrue();
+    assertThat(eddystone.buffer()[eddystone.encryptedTlmOffset()]).isEqualTo((byte) 0x01);
+    assertThat(eddystone.salt()).isEqualTo(0x1234);
+    assertThat(eddystone.messageIntegrityCheck()).isEqualTo(0xABCD);
+  }
+
+  @Test
+  public void shouldDecodeEddystoneEid() {
+    // given
+    Eddystone eddystone = new Eddystone();
+
+    // then
+    assertThat(eddystone.wrap(EDDYSTONE_EID)).isTrue();
+    assertThat(eddystone.isEid()).isTrue();
+    assertThat(eddystone.txPower()).isEqualTo(-16);
+    assertThat(eddystone.ephemeralId()).isEqualTo(0x0102030405060708L);
+    assertThat(eddystone.wrap(IBEACON)).isFalse();
+  }
+
+  @Test
+  public void shouldNotAllocateWhileParsing() {
+    // given
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    IBeacon iBeacon = new IBeacon();
+    AltBeacon altBeacon = new AltBeacon();
+    Eddystone eddystone = new Eddystone();
+    long threadId = Thread.currentThread().getId();
+    parse(iBeacon, altBeacon, eddystone, 10_000); // warm up
+
+    // when
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    long checksum = parse(iBeacon, altBeacon, eddystone, 100_000);
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+    // then
+    assertThat(checksum).isNotEqualTo(0);
+    assertThat(allocated).isLessThan(1024L); // below 0.01 byte per parse
+  }
+
+  private long parse(IBeacon iBeacon, AltBeacon altBeacon, Eddystone eddystone, int iterations) {
+    long checksum = 0;
+    for (int i = 0; i < iterations; i++) {
+      if (iBeacon.wrap(IBEACON)) {
+        checksum += iBeacon.uuidMostSignificantBits() + iBeacon.major() + iBeacon.minor();
+      }
+      if (altBeacon.wrap(ALTBEACON)) {
+        checksum += altBeacon.id1LeastSignificantBits() + altBeacon.id2();
+      }
+      if (eddystone.wrap(EDDYSTONE_UID)) {
+        checksum += eddystone.namespaceHigh() + eddystone.instance();
+      }
+      if (eddystone.wrap(EDDYSTONE_TLM)) {
+        checksum += eddystone.batteryVoltage() + eddystone.uptime();
+      }
+    }
+    return checksum;
+  }
+
+  private static byte[] bytes(int... values) {
+    byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return bytes;
+  }
+}
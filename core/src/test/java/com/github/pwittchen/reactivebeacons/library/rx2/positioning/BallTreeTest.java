@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class BallTreeTest {
+
+  @Test
+  public void shouldFindSameNeighborsAsExhaustiveSearch() {
+    // given
+    Random random = new Random(1);
+    int size = 2000;
+    int dimensions = 12;
+    float[] data = randomPoints(random, size, dimensions);
+    BallTree tree = new BallTree(data, size, dimensions);
+    Neighbors neighbors = new Neighbors(5);
+
+    for (int query = 0; query < 100; query++) {
+      float[] point = randomPoints(random, 1, dimensions);
+
+      // when
+      tree.nearest(point, neighbors);
+
+      // then
+      float[] expected = sortedDistances(data, size, dimensions, point);
+      assertThat(neighbors.size()).isEqualTo(5);
+      for (int i = 0; i < neighbors.size(); i++) {
+        assertThat(neighbors.distance(i)).isWithin(1e-3).of(Math.sqrt(expected[i]));
+        float[] row = Arrays.copyOfRange(data, neighbors.index(i) * dimensions,
+            (neighbors.index(i) + 1) * dimensions);
+        assertThat((double) squaredDistance(row, point)).isWithin(1e-3).of(expected[i]);
+      }
+    }
+  }
+
+  @Test
+  public void shouldReturnAllPointsWhenThereAreFewerThanK() {
+    // given
+    float[] data = { 0, 0, 3, 4, 1, 1 };
+    BallTree tree = new BallTree(data, 3, 2);
+    Neighbors neighbors = new Neighbors(10);
+
+    // when
+    tree.nearest(new float[] { 0, 0 }, neighbors);
+
+    // then
+    assertThat(neighbors.size()).isEqualTo(3);
+    assertThat(neighbors.index(0)).isEqualTo(0);
+    assertThat(neighbors.index(1)).isEqualTo(2);
+    assertThat(neighbors.index(2)).isEqualTo(1);
+    assertThat(neighbors.distance(2)).isWithin(1e-6).of(5);
+  }
+
+  @Test
+  public void shouldIndexIdenticalPoints() {
+    // given
+    int size = 100;
+    float[] data = new float[size * 3];
+    Arrays.fill(data, -70);
+    BallTree tree = new BallTree(data, size, 3);
+    Neighbors neighbors = new Neighbors(3);
+
+    // when
+    tree.nearest(new float[] { -70, -70, -71 }, neighbors);
+
+    // then
+    assertThat(neighbors.size()).isEqualTo(3);
+    assertThat(neighbors.distance(0)).isWithin(1e-6).of(1);
+    assertThat(tree.nodeCount()).isGreaterThan(1);
+  }
+
+  private static float[] randomPoints(Random random, int size, int dimensions) {
+    float[] points = new float[size * dimensions];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = -100 + random.nextFloat() * 60;
+    }
+    return points;
+  }
+
+  private static float[] sortedDistances(float[] data, int size, int dimensions,
+      float[] query) {
+    float[] distances = new float[size];
+    for (int i = 0; i < size; i++) {
+      distances[i] = squaredDistance(
+          Arrays.copyOfRange(data, i * dimensions, (i + 1) * dimensions), query);
+    }
+    Arrays.sort(distances);
+    return distances;
+  }
+
+  private static float squaredDistance(float[] first, float[] second) {
+    float sum = 0;
+    for (int i = 0; i < first.length; i++) {
+      float difference = first[i] - second[i];
+      sum += difference * difference;
+    }
+    return sum;
+  }
+}
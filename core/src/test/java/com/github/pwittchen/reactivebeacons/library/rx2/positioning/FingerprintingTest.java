@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class FingerprintingTest {
+  private static final int TX_POWER = -59;
+  private static final long ADVERTISING_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final double[][] BEACONS = {
+      { 0, 0 }, { 10, 0 }, { 0, 10 }, { 10, 10 }, { 5, 5 }
+  };
+
+  @Test
+  public void shouldLocateDeviceStandingAtReferencePoint() {
+    // given
+    Fingerprinting fingerprinting = new Fingerprinting.Builder(surveyedRadioMap())
+        .neighbors(1)
+        .build();
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> observer = beacons.compose(fingerprinting).test();
+
+    // when
+    advertise(beacons, new Coordinates(3, 7), 0, 2000, new Random(1));
+
+    // then
+    List<Position> positions = observer.values();
+    assertThat(positions).hasSize(19);
+    Position last = positions.get(positions.size() - 1);
+    assertThat(last.coordinates).isEqualTo(new Coordinates(3, 7));
+    assertThat(last.anchorCount).isEqualTo(BEACONS.length);
+  }
+
+  @Test
+  public void shouldLocateDeviceWithNoisyRssi() {
+    // given
+    Fingerprinting fingerprinting = new Fingerprinting.Builder(surveyedRadioMap()).build();
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> observer = beacons.compose(fingerprinting).test();
+    Coordinates device = new Coordinates(6.5, 2.5);
+
+    // when
+    advertise(beacons, device, 4, 2000, new Random(3));
+
+    // then
+    List<Position> positions = observer.values();
+    assertThat(positions).isNotEmpty();
+    Position last = positions.get(positions.size() - 1);
+    assertThat(last.coordinates.distanceTo(device)).isLessThan(1.5);
+    assertThat(last.error).isLessThan(2.0);
+  }
+
+  @Test
+  public void shouldEmitPositionOncePerUpdateInterval() {
+    // given
+    Fingerprinting fingerprinting = new Fingerprinting.Builder(surveyedRadioMap())
+        .updateInterval(100, TimeUnit.MILLISECONDS)
+        .build();
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> observer = beacons.compose(fingerprinting).test();
+
+    // when 1 second of advertisements
+    advertise(beacons, new Coordinates(1, 1), 0, 100, new Random(5));
+
+    // then
+    observer.assertValueCount(9);
+  }
+
+  @Test
+  public void shouldIgnoreBeaconsMissingInRadioMap() {
+    // given
+    Fingerprinting fingerprinting = new Fingerprinting.Builder(surveyedRadioMap())
+        .updateInterval(0, TimeUnit.MILLISECONDS)
+        .build();
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> observer = beacons.compose(fingerprinting).test();
+
+    // when
+    for (int i = 0; i < 10; i++) {
+      beacons.onNext(Beacon.create("AA:BB:CC:DD:EE:FF", null, -60, null, i));
+    }
+
+    // then
+    observer.assertNoValues();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveNumberOfNeighbors() {
+    new Fingerprinting.Builder(surveyedRadioMap()).neighbors(0);
+  }
+
+  /**
+   * Surveys RSSI of every beacon at 1 meter grid with the log-distance path loss model
+   */
+  private static RadioMap surveyedRadioMap() {
+    List<String> macs = new ArrayList<>();
+    for (int i = 0; i < BEACONS.length; i++) {
+      macs.add(mac(i));
+    }
+    RadioMap.Builder builder = new RadioMap.Builder(macs);
+    for (int x = 0; x <= 10; x++) {
+      for (int y = 0; y <= 10; y++) {
+        builder.referencePoint(x, y, expectedRssi(new Coordinates(x, y)));
+      }
+    }
+    return builder.build();
+  }
+
+  private static float[] expectedRssi(Coordinates device) {
+    float[] rssi = new float[BEACONS.length];
+    for (int i = 0; i < BEACONS.length; i++) {
+      rssi[i] = (float) rssi(device, i, 0);
+    }
+    return rssi;
+  }
+
+  private static double rssi(Coordinates device, int beacon, double noise) {
+    double range = Math.max(new Coordinates(BEACONS[beacon][0], BEACONS[beacon][1])
+        .distanceTo(device), 0.1);
+    return TX_POWER - 20 * Math.log10(range) + noise;
+  }
+
+  /**
+   * Advertises beacons in turns every 10 ms, each sighting is received with gaussian RSSI noise
+   */
+  private static void advertise(PublishSubject<Beacon> beacons, Coordinates device,
+      double noise, int count, Random random) {
+    for (int i = 0; i < count; i++) {
+      int beacon = i % BEACONS.length;
+      int rssi = (int) Math.round(rssi(device, beacon, random.nextGaussian() * noise));
+      beacons.onNext(Beacon.create(mac(beacon), null, rssi, null,
+          i * ADVERTISING_INTERVAL_NANOS));
+    }
+  }
+
+  private static String mac(int beacon) {
+    return MacAddress.valueOf(beacon + 1).address;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class PositionSolverTest {
+  private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+  @Test
+  public void shouldFindExactPositionFromExactRanges() {
+    // given
+    double[] xs = { -10, 10, 0, 7 };
+    double[] ys = { -5, -5, 12, 3 };
+    PositionSolver solver = new PositionSolver(xs, ys, TIMEOUT_NANOS);
+
+    // when
+    for (int i = 0; i < xs.length; i++) {
+      solver.update(i, Math.hypot(xs[i] - 2, ys[i] - 1), 0);
+    }
+    boolean solved = solver.solve();
+
+    // then
+    assertThat(solved).isTrue();
+    assertThat(solver.x()).isWithin(1e-6).of(2);
+    assertThat(solver.y()).isWithin(1e-6).of(1);
+    assertThat(solver.error()).isWithin(1e-6).of(0);
+    assertThat(solver.activeCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void shouldNotSolveWithLessThanThreeAnchors() {
+    // given
+    PositionSolver solver = new PositionSolver(new double[] { 0, 10, 0 },
+        new double[] { 0, 0, 10 }, TIMEOUT_NANOS);
+
+    // when
+    solver.update(0, 5, 0);
+    solver.update(1, 5, 0);
+
+    // then
+    assertThat(solver.solve()).isFalse();
+  }
+
+  @Test
+  public void shouldNotSolveWithCollinearAnchors() {
+    // given
+    PositionSolver solver = new PositionSolver(new double[] { 0, 5, 10 },
+        new double[] { 0, 5, 10 }, TIMEOUT_NANOS);
+
+    // when
+    solver.update(0, 3, 0);
+    solver.update(1, 4, 0);
+    solver.update(2, 8, 0);
+
+    // then
+    assertThat(solver.solve()).isFalse();
+  }
+
+  @Test
+  public void shouldForgetExpiredRanges() {
+    // given
+    PositionSolver solver = new PositionSolver(new double[] { 0, 10, 0 },
+        new double[] { 0, 0, 10 }, TIMEOUT_NANOS);
+    solver.update(0, 5, 0);
+    solver.update(1, 5, 0);
+    solver.update(2, 5, TimeUnit.SECONDS.toNanos(3));
+
+    // when
+    solver.expire(TIMEOUT_NANOS);
+
+    // then
+    assertThat(solver.activeCount()).isEqualTo(1);
+    assertThat(solver.solve()).isFalse();
+  }
+
+  @Test
+  public void shouldSolveWithRemainingAnchorsAfterExpiration() {
+    // given
+    double[] xs = { -10, 10, 0, 7, -3, 15 };
+    double[] ys = { -5, -5, 12, 3, 8, 0 };
+    PositionSolver solver = new PositionSolver(xs, ys, TIMEOUT_NANOS);
+    for (int i = 0; i < xs.length; i++) {
+      // ranges of odd anchors are wrong, but they expire
+      double range = Math.hypot(xs[i] - 2, ys[i] - 1) + (i % 2 == 0 ? 0 : 5);
+      solver.update(i, range, i % 2 == 0 ? TIMEOUT_NANOS : 0);
+    }
+
+    // when
+    solver.expire(TIMEOUT_NANOS);
+    solver.update(5, Math.hypot(xs[5] - 2, ys[5] - 1), TIMEOUT_NANOS);
+    boolean solved = solver.solve();
+
+    // then
+    assertThat(solved).isTrue();
+    assertThat(solver.activeCount()).isEqualTo(4);
+    assertThat(solver.x()).isWithin(1e-6).of(2);
+    assertThat(solver.y()).isWithin(1e-6).of(1);
+    assertThat(solver.error()).isWithin(1e-6).of(0);
+  }
+
+  @Test
+  public void shouldKeepIncrementalSolutionEqualToBatchSolution() {
+    // given
+    Random random = new Random(42);
+    int anchors = 50;
+    double[] xs = new double[anchors];
+    double[] ys = new double[anchors];
+    for (int i = 0; i < anchors; i++) {
+      xs[i] = random.nextDouble() * 40 - 20;
+      ys[i] = random.nextDouble() * 40 - 20;
+    }
+    PositionSolver incremental = new PositionSolver(xs, ys, TIMEOUT_NANOS);
+    double[] ranges = new double[anchors];
+
+    // when
+    for (int update = 0; update < 10_000; update++) {
+      int anchor = random.nextInt(anchors);
+      double noise = 0.8 + random.nextDouble() * 0.4;
+      ranges[anchor] = Math.hypot(xs[anchor] - 3, ys[anchor] + 4) * noise;
+      incremental.update(anchor, ranges[anchor], update);
+    }
+    PositionSolver batch = new PositionSolver(xs, ys, TIMEOUT_NANOS);
+    for (int anchor = 0; anchor < anchors; anchor++) {
+      batch.update(anchor, ranges[anchor], 0);
+    }
+
+    // then
+    assertThat(incremental.solve()).isTrue();
+    assertThat(batch.solve()).isTrue();
+    assertThat(incremental.x()).isWithin(1e-6).of(batch.x());
+    assertThat(incremental.y()).isWithin(1e-6).of(batch.y());
+  }
+}
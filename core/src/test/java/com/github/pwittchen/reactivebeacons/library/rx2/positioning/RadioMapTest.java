@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RadioMapTest {
+  private static final String MAP = ""
+      + "# survey of the first floor\n"
+      + "x,y,00:00:00:00:00:01,00:00:00:00:00:02\n"
+      + "0,0,-50,-80\n"
+      + "\n"
+      + "5,0,-80,\n"
+      + "2.5,1,-65,-65\n";
+
+  @Test
+  public void shouldReadRadioMap() throws IOException {
+    // when
+    RadioMap radioMap = RadioMap.read(new StringReader(MAP));
+
+    // then
+    assertThat(radioMap.size()).isEqualTo(3);
+    assertThat(radioMap.dimensions()).isEqualTo(2);
+    assertThat(radioMap.dimensionOf(MacAddress.valueOf(2))).isEqualTo(1);
+    assertThat(radioMap.dimensionOf(MacAddress.valueOf(3))).isEqualTo(-1);
+    assertThat(radioMap.getCoordinates(2)).isEqualTo(new Coordinates(2.5, 1));
+  }
+
+  @Test
+  public void shouldTreatEmptyValuesAsMissing() throws IOException {
+    // given
+    RadioMap radioMap = RadioMap.read(new StringReader(MAP));
+    Neighbors neighbors = new Neighbors(1);
+
+    // when
+    radioMap.nearest(new float[] { -80, RadioMap.MISSING_RSSI }, neighbors);
+
+    // then
+    assertThat(neighbors.distance(0)).isWithin(1e-6).of(0);
+    assertThat(radioMap.getCoordinates(neighbors.index(0))).isEqualTo(new Coordinates(5, 0));
+  }
+
+  @Test
+  public void shouldFindNearestReferencePoints() throws IOException {
+    // given
+    RadioMap radioMap = RadioMap.read(new StringReader(MAP));
+    Neighbors neighbors = new Neighbors(2);
+
+    // when
+    radioMap.nearest(new float[] { -55, -75 }, neighbors);
+
+    // then
+    assertThat(neighbors.size()).isEqualTo(2);
+    assertThat(radioMap.getCoordinates(neighbors.index(0))).isEqualTo(new Coordinates(0, 0));
+    assertThat(radioMap.getCoordinates(neighbors.index(1))).isEqualTo(new Coordinates(2.5, 1));
+  }
+
+  @Test
+  public void shouldReportLineOfMalformedReferencePoint() {
+    // given
+    String map = "x,y,00:00:00:00:00:01\n0,0,-50\n1,0,loud\n";
+
+    // when
+    try {
+      RadioMap.read(new StringReader(map));
+      throw new AssertionError("expected IOException");
+    } catch (IOException e) {
+      // then
+      assertThat(e).hasMessageThat().isEqualTo("malformed radio map at line 3");
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldRejectRadioMapWithoutReferencePoints() throws IOException {
+    RadioMap.read(new StringReader("x,y,00:00:00:00:00:01\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectDuplicatedMacAddresses() {
+    new RadioMap.Builder(Arrays.asList("00:00:00:00:00:01", "00:00:00:00:00:01"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectQueryOfWrongDimensions() throws IOException {
+    RadioMap.read(new StringReader(MAP)).nearest(new float[3], new Neighbors(1));
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.positioning;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class TrilaterationTest {
+  private static final int TX_POWER = -59;
+  private static final long ADVERTISING_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Test
+  public void shouldEstimatePositionFromThreeAnchors() {
+    // given
+    Trilateration trilateration = new Trilateration.Builder()
+        .anchor("00:00:00:00:00:01", 0, 0)
+        .anchor("00:00:00:00:00:02", 4, 0)
+        .anchor("00:00:00:00:00:03", 0, 4)
+        .build();
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> observer = beacons.compose(trilateration).test();
+    Coordinates device = new Coordinates(1, 1);
+
+    // when
+    for (Coordinates anchor : trilateration.getAnchors().values()) {
+      beacons.onNext(sighting(macOf(trilateration, anchor), anchor.distanceTo(device), 0));
+    }
+
+    // then
+    observer.assertValueCount(1);
+    Position position = observer.values().get(0);
+    assertThat(position.anchorCount).isEqualTo(3);
+    assertThat(position.coordinates.distanceTo(device)).isLessThan(0.2);
+  }
+
+  @Test
+  public void shouldFollowDeviceWalkingAmongFiftyAnchors() {
+    // given
+    List<Coordinates> anchors = grid(10, 5, 4);
+    Trilateration trilateration = trilateration(anchors);
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> observer = beacons.compose(trilateration).test();
+    Random random = new Random(7);
+    List<Coordinates> path = new ArrayList<>();
+
+    // when device walks diagonally and every advertisement is received with RSSI noise
+    long now = 0;
+    for (int step = 0; step < 2000; step++) {
+      Coordinates device = new Coordinates(2 + step * 0.016, 2 + step * 0.006);
+      int anchor = random.nextInt(anchors.size());
+      double range = anchors.get(anchor).distanceTo(device);
+      double noise = random.nextGaussian() * 2;
+      beacons.onNext(sighting(mac(anchor), range, noise, now));
+      path.add(device);
+      now += ADVERTISING_INTERVAL_NANOS;
+    }
+
+    // then
+    List<Position> positions = observer.values();
+    assertThat(positions).isNotEmpty();
+    double sumOfErrors = 0;
+    int offset = path.size() - positions.size();
+    for (int i = 0; i < positions.size(); i++) {
+      sumOfErrors += positions.get(i).coordinates.distanceTo(path.get(offset + i));
+    }
+    assertThat(sumOfErrors / positions.size()).isLessThan(1.5);
+    assertThat(positions.get(positions.size() - 1).anchorCount).isEqualTo(anchors.size());
+  }
+
+  @Test
+  public void shouldStopEmittingWhenRangesExpire() {
+    // given
+    Trilateration trilateration = new Trilateration.Builder()
+        .anchor("00:00:00:00:00:01", 0, 0)
+        .anchor("00:00:00:00:00:02", 4, 0)
+        .anchor("00:00:00:00:00:03", 0, 4)
+        .rangeTimeout(1, TimeUnit.SECONDS)
+        .build();
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> observer = beacons.compose(trilateration).test();
+
+    // when
+    beacons.onNext(sighting("00:00:00:00:00:01", 1.5, 0));
+    beacons.onNext(sighting("00:00:00:00:00:02", 3, 0));
+    beacons.onNext(sighting("00:00:00:00:00:03", 3, 0));
+    beacons.onNext(sighting("00:00:00:00:00:01", 1.5, TimeUnit.SECONDS.toNanos(2)));
+
+    // then
+    observer.assertValueCount(1);
+  }
+
+  @Test
+  public void shouldIgnoreBeaconsOfOtherDevices() {
+    // given
+    Trilateration trilateration = trilateration(grid(2, 2, 4));
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> observer = beacons.compose(trilateration).test();
+
+    // when
+    for (int i = 0; i < 10; i++) {
+      beacons.onNext(sighting("AA:BB:CC:DD:EE:FF", 2, 0));
+    }
+
+    // then
+    observer.assertNoValues();
+  }
+
+  @Test
+  public void shouldKeepStateOfEverySubscriptionSeparately() {
+    // given
+    Trilateration trilateration = trilateration(grid(2, 2, 4));
+    PublishSubject<Beacon> beacons = PublishSubject.create();
+    TestObserver<Position> first = beacons.compose(trilateration).test();
+    beacons.onNext(sighting(mac(0), 1, 0));
+    beacons.onNext(sighting(mac(1), 3, 0));
+
+    // when
+    TestSubscriber<Position> second = beacons.toFlowable(BackpressureStrategy.BUFFER)
+        .compose(trilateration)
+        .test();
+    beacons.onNext(sighting(mac(2), 3, 0));
+
+    // then
+    first.assertValueCount(1);
+    second.assertNoValues();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRequireAtLeastThreeAnchors() {
+    new Trilateration.Builder()
+        .anchors(Collections.singletonMap("00:00:00:00:00:01", new Coordinates(0, 0)))
+        .anchor("00:00:00:00:00:02", 1, 0)
+        .build();
+  }
+
+  private static List<Coordinates> grid(int columns, int rows, double spacing) {
+    List<Coordinates> anchors = new ArrayList<>();
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        anchors.add(new Coordinates(column * spacing, row * spacing));
+      }
+    }
+    return anchors;
+  }
+
+  private static Trilateration trilateration(List<Coordinates> anchors) {
+    Trilateration.Builder builder = new Trilateration.Builder();
+    for (int i = 0; i < anchors.size(); i++) {
+      builder.anchor(mac(i), anchors.get(i).x, anchors.get(i).y);
+    }
+    return builder.build();
+  }
+
+  private static String mac(int anchor) {
+    return MacAddress.valueOf(anchor + 1).address;
+  }
+
+  private static String macOf(Trilateration trilateration, Coordinates coordinates) {
+    for (MacAddress mac : trilateration.getAnchors().keySet()) {
+      if (trilateration.getAnchors().get(mac).equals(coordinates)) {
+        return mac.address;
+      }
+    }
+    throw new IllegalArgumentException("unknown anchor " + coordinates);
+  }
+
+  private static Beacon sighting(String mac, double range, long timestampNanos) {
+    return sighting(mac, range, 0, timestampNanos);
+  }
+
+  /**
+   * Creates beacon with RSSI, which the log-distance path loss model used by
+   * {@link Beacon#getDistance()} gives for provided range and noise
+   */
+  private static Beacon sighting(String mac, double range, double noise, long timestampNanos) {
+    int rssi = (int) Math.round(TX_POWER - 20 * Math.log10(range) + noise);
+    return Beacon.create(mac, null, rssi, null, timestampNanos);
+  }
+}
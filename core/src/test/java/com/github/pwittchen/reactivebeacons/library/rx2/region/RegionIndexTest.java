@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.region;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RegionIndexTest {
+  private static final UUID VENUE = UUID.fromString("f7826da6-4fa2-4e98-8024-bc5b71e0893e");
+  private static final UUID OTHER = UUID.fromString("e2c56db5-dffb-48d2-b060-d0f5a71096e0");
+
+  @Test
+  public void shouldMatchRegionsOnEveryLevel() {
+    // given
+    List<Region> regions = Arrays.asList(
+        Region.of("venue", VENUE),
+        Region.of("floor", VENUE, 1),
+        Region.of("room", VENUE, 1, 2),
+        Region.of("other floor", VENUE, 2),
+        Region.of("other venue", OTHER));
+    RegionIndex index = new RegionIndex(regions);
+    int[] matches = new int[index.maxMatches()];
+
+    // when
+    int count = index.match(VENUE.getMostSignificantBits(), VENUE.getLeastSignificantBits(),
+        1, 2, matches);
+
+    // then
+    assertThat(count).isEqualTo(3);
+    assertThat(Arrays.copyOf(matches, count)).asList().containsExactly(0, 1, 2);
+  }
+
+  @Test
+  public void shouldTellApartUuidsWithSameMostSignificantBits() {
+    // given
+    UUID first = new UUID(1, 2);
+    UUID second = new UUID(1, 3);
+    RegionIndex index = new RegionIndex(Arrays.asList(
+        Region.of("first", first), Region.of("second", second)));
+    int[] matches = new int[index.maxMatches()];
+
+    // when
+    int count = index.match(1, 3, 0, 0, matches);
+
+    // then
+    assertThat(count).isEqualTo(1);
+    assertThat(matches[0]).isEqualTo(1);
+    assertThat(index.match(1, 4, 0, 0, matches)).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldMatchSameRegionsAsLinearScan() {
+    // given
+    Random random = new Random(3);
+    UUID[] uuids = { VENUE, OTHER, new UUID(VENUE.getMostSignificantBits(), 7) };
+    List<Region> regions = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      UUID uuid = uuids[random.nextInt(uuids.length)];
+      switch (random.nextInt(3)) {
+        case 0:
+          regions.add(Region.of("region " + i, uuid));
+          break;
+        case 1:
+          regions.add(Region.of("region " + i, uuid, random.nextInt(10)));
+          break;
+        default:
+          regions.add(Region.of("region " + i, uuid, random.nextInt(10), random.nextInt(10)));
+      }
+    }
+    RegionIndex index = new RegionIndex(regions);
+    int[] matches = new int[index.maxMatches()];
+
+    for (int beacon = 0; beacon < 500; beacon++) {
+      UUID uuid = uuids[random.nextInt(uuids.length)];
+      int major = random.nextInt(12);
+      int minor = random.nextInt(12);
+
+      // when
+      int count = index.match(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(),
+          major, minor, matches);
+
+      // then
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < regions.size(); i++) {
+        if (regions.get(i).contains(uuid, major, minor)) {
+          expected.add(i);
+        }
+      }
+      List<Integer> actual = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        actual.add(matches[i]);
+      }
+      assertThat(actual).containsExactlyElementsIn(expected);
+    }
+  }
+}
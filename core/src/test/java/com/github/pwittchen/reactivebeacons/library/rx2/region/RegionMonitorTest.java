@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.region;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RegionMonitorTest {
+  private static final UUID VENUE = UUID.fromString("f7826da6-4fa2-4e98-8024-bc5b71e0893e");
+  private static final String MAC = "00:27:0E:2A:B9:AA";
+
+  private final TestScheduler scheduler = new TestScheduler();
+  private final PublishSubject<Beacon> beacons = PublishSubject.create();
+
+  @Test
+  public void shouldEnterRegionOnFirstSighting() {
+    // given
+    RegionMonitor monitor = monitor(Region.of("venue", VENUE), Region.of("floor", VENUE, 2));
+    TestObserver<RegionEvent> observer = beacons.compose(monitor).test();
+
+    // when
+    beacons.onNext(iBeacon(VENUE, 1, 1));
+    beacons.onNext(iBeacon(VENUE, 1, 2));
+    beacons.onNext(iBeacon(VENUE, 2, 1));
+
+    // then
+    observer.assertValueCount(2);
+    assertThat(observer.values().get(0).type).isEqualTo(RegionEvent.Type.ENTER);
+    assertThat(observer.values().get(0).region.identifier).isEqualTo("venue");
+    assertThat(observer.values().get(1).region.identifier).isEqualTo("floor");
+    assertThat(observer.values().get(1).beacon.rssi).isEqualTo(-60);
+  }
+
+  @Test
+  public void shouldExitRegionAfterTimeout() {
+    // given
+    RegionMonitor monitor = monitor(Region.of("room", VENUE, 1, 1));
+    TestObserver<RegionEvent> observer = beacons.compose(monitor).test();
+    beacons.onNext(iBeacon(VENUE, 1, 1));
+    scheduler.advanceTimeBy(8, TimeUnit.SECONDS);
+    beacons.onNext(iBeacon(VENUE, 1, 1));
+
+    // when
+    scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+    observer.assertValueCount(1);
+    scheduler.advanceTimeBy(625, TimeUnit.MILLISECONDS);
+
+    // then
+    observer.assertValueCount(2);
+    RegionEvent exit = observer.values().get(1);
+    assertThat(exit.type).isEqualTo(RegionEvent.Type.EXIT);
+    assertThat(exit.region.identifier).isEqualTo("room");
+    assertThat(exit.beacon.macAddress.address).isEqualTo(MAC);
+  }
+
+  @Test
+  public void shouldEnterRegionAgainAfterExit() {
+    // given
+    RegionMonitor monitor = monitor(Region.of("venue", VENUE));
+    TestObserver<RegionEvent> observer = beacons.compose(monitor).test();
+    beacons.onNext(iBeacon(VENUE, 1, 1));
+    scheduler.advanceTimeBy(20, TimeUnit.SECONDS);
+
+    // when
+    beacons.onNext(iBeacon(VENUE, 1, 1));
+
+    // then
+    observer.assertValueCount(3);
+    assertThat(observer.values().get(2).type).isEqualTo(RegionEvent.Type.ENTER);
+  }
+
+  @Test
+  public void shouldKeepRegionsEnteredByOtherBeaconsInside() {
+    // given
+    RegionMonitor monitor = monitor(Region.of("venue", VENUE), Region.of("room", VENUE, 1, 1));
+    TestObserver<RegionEvent> observer = beacons.compose(monitor).test();
+    beacons.onNext(iBeacon(VENUE, 1, 1));
+
+    // when device leaves the room, but still sees other beacons of the venue
+    for (int second = 0; second < 15; second++) {
+      scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+      beacons.onNext(iBeacon(VENUE, 1, 5));
+    }
+
+    // then
+    observer.assertValueCount(3);
+    assertThat(observer.values().get(2).type).isEqualTo(RegionEvent.Type.EXIT);
+    assertThat(observer.values().get(2).region.identifier).isEqualTo("room");
+  }
+
+  @Test
+  public void shouldIgnoreOtherAdvertisements() {
+    // given
+    RegionMonitor monitor = monitor(Region.of("venue", VENUE));
+    TestObserver<RegionEvent> observer = beacons.compose(monitor).test();
+
+    // when
+    beacons.onNext(Beacon.create(MAC, null, -60, null, 0));
+    beacons.onNext(Beacon.create(MAC, null, -60, new byte[] { 0x02, 0x01, 0x06 }, 0));
+    beacons.onNext(iBeacon(new UUID(1, 2), 1, 1));
+
+    // then
+    observer.assertNoValues();
+  }
+
+  @Test
+  public void shouldStopCheckingExitsWhenBeaconsComplete() {
+    // given
+    RegionMonitor monitor = monitor(Region.of("venue", VENUE));
+    TestSubscriber<RegionEvent> subscriber = beacons.toFlowable(BackpressureStrategy.BUFFER)
+        .compose(monitor)
+        .test();
+    beacons.onNext(iBeacon(VENUE, 1, 1));
+
+    // when
+    beacons.onComplete();
+    scheduler.advanceTimeBy(20, TimeUnit.SECONDS);
+
+    // then
+    subscriber.assertValueCount(1);
+    subscriber.assertComplete();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectDuplicatedIdentifiers() {
+    new RegionMonitor.Builder()
+        .regions(Collections.singletonList(Region.of("venue", VENUE)))
+        .region(Region.of("venue", VENUE, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectMajorOutOfRange() {
+    Region.of("venue", VENUE, 65536);
+  }
+
+  private RegionMonitor monitor(Region... regions) {
+    RegionMonitor.Builder builder = new RegionMonitor.Builder()
+        .exitTimeout(10, TimeUnit.SECONDS)
+        .scheduler(scheduler);
+    for (Region region : regions) {
+      builder.region(region);
+    }
+    return builder.build();
+  }
+
+  private static Beacon iBeacon(UUID uuid, int major, int minor) {
+    byte[] scanRecord = {
+        0x02, 0x01, 0x06,
+        0x1A, (byte) 0xFF, 0x4C, 0x00, 0x02, 0x15,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        (byte) (major >> 8), (byte) major, (byte) (minor >> 8), (byte) minor, (byte) 0xC5
+    };
+    for (int i = 0; i < 8; i++) {
+      scanRecord[9 + i] = (byte) (uuid.getMostSignificantBits() >>> (56 - 8 * i));
+      scanRecord[17 + i] = (byte) (uuid.getLeastSignificantBits() >>> (56 - 8 * i));
+    }
+    return Beacon.create(MAC, null, -60, scanRecord, 0);
+  }
+}
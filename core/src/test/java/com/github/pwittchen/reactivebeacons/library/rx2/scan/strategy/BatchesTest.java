@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchesTest {
+  private static final String MAC = "00:27:0E:2A:B9:AA";
+
+  private TestScheduler scheduler;
+  private PublishSubject<Beacon> beacons;
+
+  @Before
+  public void setUp() {
+    scheduler = new TestScheduler();
+    beacons = PublishSubject.create();
+  }
+
+  @Test
+  public void shouldCollectBeaconsOfEveryTimeSpan() {
+    // given
+    TestObserver<List<Beacon>> observer =
+        beacons.compose(Batches.buffer(1, TimeUnit.SECONDS, scheduler)).test();
+    Beacon first = beacon(-60);
+    Beacon second = beacon(-61);
+    Beacon third = beacon(-62);
+
+    // when
+    beacons.onNext(first);
+    beacons.onNext(second);
+    scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+    observer.assertNoValues();
+    scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+    beacons.onNext(third);
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    // then
+    observer.assertValueCount(2)
+        .assertValueAt(0, Arrays.asList(first, second))
+        .assertValueAt(1, Arrays.asList(third));
+  }
+
+  @Test
+  public void shouldNotEmitEmptyBatches() {
+    // given
+    TestObserver<List<Beacon>> observer =
+        beacons.compose(Batches.buffer(1, TimeUnit.SECONDS, scheduler)).test();
+    Beacon beacon = beacon(-60);
+
+    // when
+    scheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+    beacons.onNext(beacon);
+    scheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+
+    // then
+    observer.assertValue(Arrays.asList(beacon));
+  }
+
+  @Test
+  public void shouldEmitLastBatchOnCompletion() {
+    // given
+    TestObserver<List<Beacon>> observer =
+        beacons.compose(Batches.buffer(1, TimeUnit.SECONDS, scheduler)).test();
+    Beacon beacon = beacon(-60);
+
+    // when
+    beacons.onNext(beacon);
+    beacons.onComplete();
+
+    // then
+    observer.assertValue(Arrays.asList(beacon)).assertComplete();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectZeroReportDelay() {
+    Batches.buffer(0, TimeUnit.SECONDS, scheduler);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNegativeReportDelay() {
+    Batches.checkReportDelay(-1, TimeUnit.SECONDS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectSubMillisecondReportDelay() {
+    Batches.checkReportDelay(999, TimeUnit.MICROSECONDS);
+  }
+
+  @Test
+  public void shouldAcceptOneMillisecondReportDelay() {
+    Batches.checkReportDelay(1000, TimeUnit.MICROSECONDS);
+  }
+
+  private static Beacon beacon(int rssi) {
+    return Beacon.create(MAC, null, rssi, new byte[0], 0);
+  }
+}
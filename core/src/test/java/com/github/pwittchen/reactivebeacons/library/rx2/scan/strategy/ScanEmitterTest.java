@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.TestObserver;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ScanEmitterTest {
+  private static final int CALLBACKS = 100_000;
+  private static final int PRODUCERS = 4;
+  private static final int OFFSET = 1_000_000;
+
+  private final AtomicInteger starts = new AtomicInteger();
+  private final AtomicInteger stops = new AtomicInteger();
+
+  private final Action startScan = new Action() {
+    @Override public void run() {
+      starts.incrementAndGet();
+    }
+  };
+
+  private final Action stopScan = new Action() {
+    @Override public void run() {
+      stops.incrementAndGet();
+    }
+  };
+
+  @Test
+  public void shouldDeliverAllCallbacksPushedConcurrently() throws Exception {
+    // given
+    final ScanEmitter<Integer> emitter = new ScanEmitter<>();
+    TestObserver<Integer> observer = emitter.toObservable(startScan, stopScan).test();
+
+    // when
+    List<Thread> producers = startProducers(emitter, OFFSET, new AtomicLong());
+    joinAll(producers);
+
+    // then
+    observer.assertValueCount(CALLBACKS);
+    assertThat(sum(observer.values())).isEqualTo(expectedSum(OFFSET));
+    assertThat(starts.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotBlockCallbackThreadsWhenSubscriberIsSlow() throws Exception {
+    // given
+    final ScanEmitter<Integer> emitter = new ScanEmitter<>();
+    final CountDownLatch subscriberEntered = new CountDownLatch(1);
+    final CountDownLatch releaseSubscriber = new CountDownLatch(1);
+    final AtomicInteger received = new AtomicInteger();
+    emitter.toObservable(startScan, stopScan).subscribe(new Consumer<Integer>() {
+      @Override public void accept(Integer value) throws Exception {
+        if (value == -1) {
+          subscriberEntered.countDown();
+          releaseSubscriber.await();
+        }
+        received.incrementAndGet();
+      }
+    });
+
+    // when
+    Thread drainer = new Thread(new Runnable() {
+      @Override public void run() {
+        emitter.onNext(-1);
+      }
+    });
+    drainer.start();
+    assertThat(subscriberEntered.await(5, TimeUnit.SECONDS)).isTrue();
+
+    AtomicLong blockedOrWaited = new AtomicLong();
+    List<Thread> producers = startProducers(emitter, 0, blockedOrWaited);
+    joinAll(producers);
+
+    // then callbacks returned while the subscriber is still busy with the first item
+    assertThat(received.get()).isEqualTo(0);
+    assertThat(blockedOrWaited.get()).isEqualTo(0);
+
+    releaseSubscriber.countDown();
+    drainer.join(TimeUnit.SECONDS.toMillis(5));
+    assertThat(received.get()).isEqualTo(CALLBACKS + 1);
+  }
+
+  @Test
+  public void shouldStopScanWhenSubscriptionIsDisposed() {
+    // given
+    ScanEmitter<Integer> emitter = new ScanEmitter<>();
+    TestObserver<Integer> observer = emitter.toObservable(startScan, stopScan).test();
+
+    // when
+    emitter.onNext(1);
+    observer.dispose();
+    emitter.onNext(2);
+
+    // then
+    observer.assertValues(1);
+    assertThat(starts.get()).isEqualTo(1);
+    assertThat(stops.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRejectSecondSubscriberWhileScanIsObserved() {
+    // given
+    ScanEmitter<Integer> emitter = new ScanEmitter<>();
+    Observable<Integer> scan = emitter.toObservable(startScan, stopScan);
+    TestObserver<Integer> first = scan.test();
+
+    // when
+    TestObserver<Integer> second = scan.test();
+    emitter.onNext(1);
+    second.dispose();
+    emitter.onNext(2);
+
+    // then
+    second.assertError(IllegalStateException.class);
+    first.assertValues(1, 2).assertNotTerminated();
+    assertThat(starts.get()).isEqualTo(1);
+    assertThat(stops.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldAcceptNewSubscriberAfterPreviousOneIsDisposed() {
+    // given
+    ScanEmitter<Integer> emitter = new ScanEmitter<>();
+    Observable<Integer> scan = emitter.toObservable(startScan, stopScan);
+    scan.test().dispose();
+
+    // when
+    TestObserver<Integer> observer = scan.test();
+    emitter.onNext(1);
+
+    // then
+    observer.assertValues(1);
+    assertThat(starts.get()).isEqualTo(2);
+    assertThat(stops.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldSignalScanFailureAfterPushedItems() {
+    // given
+    ScanEmitter<Integer> emitter = new ScanEmitter<>();
+    TestObserver<Integer> observer = emitter.toObservable(startScan, stopScan).test();
+
+    // when
+    emitter.onNext(1);
+    emitter.onError(new ScanFailedException(1));
+    emitter.onNext(2);
+
+    // then
+    observer.assertValues(1).assertError(ScanFailedException.class);
+    assertThat(((ScanFailedException) observer.errors().get(0)).getErrorCode()).isEqualTo(1);
+    assertThat(stops.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldStartScanOnlyAfterSubscription() {
+    // given
+    ScanEmitter<Integer> emitter = new ScanEmitter<>();
+
+    // when
+    Disposable disposable = emitter.toObservable(startScan, stopScan).subscribe();
+
+    // then
+    assertThat(starts.get()).isEqualTo(1);
+    disposable.dispose();
+  }
+
+  @Test
+  public void shouldReportDiscardedItemsWhenNobodyIsSubscribed() {
+    // given
+    ScanEmitter<Integer> emitter = new ScanEmitter<>();
+
+    // when
+    boolean acceptedBefore = emitter.onNext(1);
+    TestObserver<Integer> observer = emitter.toObservable(startScan, stopScan).test();
+    boolean acceptedDuring = emitter.onNext(2);
+    observer.dispose();
+    boolean acceptedAfter = emitter.onNext(3);
+
+    // then
+    observer.assertValues(2);
+    assertThat(acceptedBefore).isFalse();
+    assertThat(acceptedDuring).isTrue();
+    assertThat(acceptedAfter).isFalse();
+  }
+
+  private List<Thread> startProducers(final ScanEmitter<Integer> emitter, final int offset,
+      final AtomicLong blockedOrWaited) {
+    final int perProducer = CALLBACKS / PRODUCERS;
+    List<Thread> producers = new ArrayList<>();
+    for (int p = 0; p < PRODUCERS; p++) {
+      final int from = offset + p * perProducer;
+      Thread producer = new Thread(new Runnable() {
+        @Override public void run() {
+          for (int i = from; i < from + perProducer; i++) {
+            emitter.onNext(i);
+          }
+          ThreadInfo info = ManagementFactory.getThreadMXBean()
+              .getThreadInfo(Thread.currentThread().getId());
+          blockedOrWaited.addAndGet(info.getBlockedCount() + info.getWaitedCount());
+        }
+      });
+      producers.add(producer);
+      producer.start();
+    }
+    return producers;
+  }
+
+  private void joinAll(List<Thread> threads) throws InterruptedException {
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(10));
+      assertThat(thread.isAlive()).isFalse();
+    }
+  }
+
+  private long sum(List<Integer> values) {
+    long sum = 0;
+    for (Integer value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+
+  private long expectedSum(int offset) {
+    long sum = 0;
+    for (int i = offset; i < offset + CALLBACKS; i++) {
+      sum += i;
+    }
+    return sum;
+  }
+}
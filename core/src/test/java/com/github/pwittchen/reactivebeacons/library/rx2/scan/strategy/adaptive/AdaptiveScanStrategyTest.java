@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class AdaptiveScanStrategyTest {
+
+  @Test
+  public void shouldRestartScanWithNewModeAndPublishChange() {
+    // given
+    TestScheduler scheduler = new TestScheduler();
+    FakeScanModeStrategy scanStrategy = new FakeScanModeStrategy();
+    AdaptiveScanStrategy strategy =
+        new AdaptiveScanStrategy(scanStrategy, AdaptiveScanPolicy.DEFAULT, scheduler);
+    TestObserver<ScanModeChange> changes = strategy.observeScanModeChanges().test();
+
+    // when no beacons are visible
+    TestObserver<Beacon> beacons = strategy.observe().test();
+    scheduler.advanceTimeBy(20, TimeUnit.SECONDS);
+
+    // then
+    assertThat(scanStrategy.modes).containsExactly(ScanMode.BALANCED, ScanMode.LOW_POWER)
+        .inOrder();
+    changes.assertValueCount(1);
+    assertThat(changes.values().get(0).mode).isEqualTo(ScanMode.LOW_POWER);
+    assertThat(changes.values().get(0).timestampMillis).isEqualTo(15000L);
+    beacons.assertNoErrors();
+  }
+
+  @Test
+  public void shouldStartWithInitialMode() {
+    // given
+    TestScheduler scheduler = new TestScheduler();
+    FakeScanModeStrategy scanStrategy = new FakeScanModeStrategy();
+    AdaptiveScanPolicy policy = new AdaptiveScanPolicy.Builder()
+        .initialMode(ScanMode.LOW_LATENCY)
+        .build();
+
+    // when
+    new AdaptiveScanStrategy(scanStrategy, policy, scheduler).observe().test();
+
+    // then
+    assertThat(scanStrategy.modes).containsExactly(ScanMode.LOW_LATENCY);
+  }
+
+  @Test
+  public void shouldMeasureCallbackRateBeforeDeduplication() {
+    // given
+    TestScheduler scheduler = new TestScheduler();
+    FakeScanModeStrategy scanStrategy = new FakeScanModeStrategy();
+    ScanInstrumentation instrumentation = new ScanInstrumentation();
+    AdaptiveScanPolicy policy = new AdaptiveScanPolicy.Builder()
+        .initialMode(ScanMode.LOW_LATENCY)
+        .build();
+    AdaptiveScanStrategy strategy =
+        new AdaptiveScanStrategy(scanStrategy, policy, scheduler, instrumentation);
+    TestObserver<ScanModeChange> changes = strategy.observeScanModeChanges().test();
+    Beacon beacon = Beacon.create("00:27:0E:2A:B9:AA", null, -60, new byte[0], 0);
+    strategy.observe().test();
+
+    // when stationary device is reported 200 times per second, but emitted once per second
+    for (int second = 0; second < 15; second++) {
+      for (int i = 0; i < 200; i++) {
+        instrumentation.onCallback(beacon);
+      }
+      scanStrategy.beacons.onNext(beacon);
+      scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    }
+
+    // then BALANCED mode, which has quarter of the duty cycle, is expected to keep 50 callbacks
+    // per second, while rate of emitted beacons alone would keep LOW_LATENCY mode
+    changes.assertValueCount(1);
+    assertThat(changes.values().get(0).mode).isEqualTo(ScanMode.BALANCED);
+    assertThat(changes.values().get(0).callbackRate).isWithin(0.001).of(200);
+    assertThat(scanStrategy.modes).containsExactly(ScanMode.LOW_LATENCY, ScanMode.BALANCED)
+        .inOrder();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNullInstrumentation() {
+    new AdaptiveScanStrategy(new FakeScanModeStrategy(), AdaptiveScanPolicy.DEFAULT,
+        new TestScheduler(), null);
+  }
+
+  private static class FakeScanModeStrategy implements ScanModeStrategy {
+    final List<ScanMode> modes = new ArrayList<>();
+    final PublishSubject<Beacon> beacons = PublishSubject.create();
+
+    @Override public Observable<Beacon> observe(final ScanMode scanMode) {
+      return beacons.doOnSubscribe(new Consumer<Disposable>() {
+        @Override public void accept(Disposable disposable) {
+          modes.add(scanMode);
+        }
+      });
+    }
+
+    @Override public Observable<Beacon> observe() {
+      return observe(ScanMode.LOW_POWER);
+    }
+  }
+}
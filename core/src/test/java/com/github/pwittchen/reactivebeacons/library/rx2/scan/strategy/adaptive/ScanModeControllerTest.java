@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ScanModeControllerTest {
+  private static final long PERIOD = 5000;
+
+  @Test
+  public void shouldSwitchToLowPowerWhenThereAreNoDevices() {
+    // given
+    ScanModeController controller = new ScanModeController(AdaptiveScanPolicy.DEFAULT, 0);
+
+    // when
+    ScanModeChange first = controller.evaluate(PERIOD);
+    ScanModeChange second = controller.evaluate(2 * PERIOD);
+    ScanModeChange third = controller.evaluate(3 * PERIOD);
+
+    // then change is confirmed twice and waits for minimal mode duration
+    assertThat(first).isNull();
+    assertThat(second).isNull();
+    assertThat(third.previousMode).isEqualTo(ScanMode.BALANCED);
+    assertThat(third.mode).isEqualTo(ScanMode.LOW_POWER);
+    assertThat(third.deviceCount).isEqualTo(0);
+    assertThat(controller.getMode()).isEqualTo(ScanMode.LOW_POWER);
+  }
+
+  @Test
+  public void shouldPreferReportedCallbacksOverEmittedBeacons() {
+    // given
+    ScanModeController controller = new ScanModeController(AdaptiveScanPolicy.DEFAULT, 0);
+
+    // when one deduplicated beacon per period hides 100 callbacks per second
+    ScanModeChange change = null;
+    for (int period = 1; period <= 3; period++) {
+      controller.onBeacon(1);
+      controller.onCallbacks(100 * PERIOD / 1000);
+      change = controller.evaluate(period * PERIOD);
+    }
+
+    // then
+    assertThat(change.mode).isEqualTo(ScanMode.LOW_POWER);
+    assertThat(change.callbackRate).isWithin(0.001).of(100);
+    assertThat(change.deviceCount).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldSwitchToLowLatencyWhenFewDevicesAreVisible() {
+    // given
+    ScanModeController controller = new ScanModeController(AdaptiveScanPolicy.DEFAULT, 0);
+
+    // when 2 callbacks per second in BALANCED mode
+    ScanModeChange change = null;
+    for (int period = 1; period <= 3; period++) {
+      feed(controller, 10, 3);
+      change = controller.evaluate(period * PERIOD);
+    }
+
+    // then
+    assertThat(change.mode).isEqualTo(ScanMode.LOW_LATENCY);
+    assertThat(change.callbackRate).isWithin(0.001).of(2);
+    assertThat(change.deviceCount).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldSlowDownWhenThereAreTooManyCallbacks() {
+    // given
+    AdaptiveScanPolicy policy = new AdaptiveScanPolicy.Builder()
+        .initialMode(ScanMode.LOW_LATENCY)
+        .build();
+    ScanModeController controller = new ScanModeController(policy, 0);
+
+    // when 80 callbacks per second in LOW_LATENCY mode
+    ScanModeChange change = null;
+    for (int period = 1; period <= 3; period++) {
+      feed(controller, 400, 100);
+      change = controller.evaluate(period * PERIOD);
+    }
+
+    // then
+    assertThat(change.mode).isEqualTo(ScanMode.BALANCED);
+  }
+
+  @Test
+  public void shouldSwitchToLowPowerInVeryDenseArea() {
+    // given
+    AdaptiveScanPolicy policy = new AdaptiveScanPolicy.Builder()
+        .initialMode(ScanMode.LOW_LATENCY)
+        .build();
+    ScanModeController controller = new ScanModeController(policy, 0);
+
+    // when 400 callbacks per second in LOW_LATENCY mode
+    ScanModeChange change = null;
+    for (int period = 1; period <= 3; period++) {
+      feed(controller, 2000, 1000);
+      change = controller.evaluate(period * PERIOD);
+    }
+
+    // then
+    assertThat(change.mode).isEqualTo(ScanMode.LOW_POWER);
+  }
+
+  @Test
+  public void shouldNotFlapBetweenModesThanksToHysteresis() {
+    // given
+    AdaptiveScanPolicy policy = new AdaptiveScanPolicy.Builder()
+        .initialMode(ScanMode.LOW_LATENCY)
+        .build();
+    ScanModeController lowLatency = new ScanModeController(policy, 0);
+    ScanModeController balanced = new ScanModeController(AdaptiveScanPolicy.DEFAULT, 0);
+
+    // when both see 40 callbacks per second with continuous scanning
+    for (int period = 1; period <= 5; period++) {
+      feed(lowLatency, 200, 20);
+      lowLatency.evaluate(period * PERIOD);
+      feed(balanced, 50, 20);
+      balanced.evaluate(period * PERIOD);
+    }
+
+    // then both keep their modes
+    assertThat(lowLatency.getMode()).isEqualTo(ScanMode.LOW_LATENCY);
+    assertThat(balanced.getMode()).isEqualTo(ScanMode.BALANCED);
+  }
+
+  @Test
+  public void shouldNotChangeModeWhenTargetIsNotConfirmed() {
+    // given
+    ScanModeController controller = new ScanModeController(AdaptiveScanPolicy.DEFAULT, 0);
+
+    // when empty and busy periods alternate
+    for (int period = 1; period <= 10; period++) {
+      if (period % 2 == 0) {
+        feed(controller, 10, 3);
+      }
+      assertThat(controller.evaluate(period * PERIOD)).isNull();
+    }
+
+    // then
+    assertThat(controller.getMode()).isEqualTo(ScanMode.BALANCED);
+  }
+
+  private void feed(ScanModeController controller, int callbacks, int devices) {
+    for (int i = 0; i < callbacks; i++) {
+      controller.onBeacon(i % devices);
+    }
+  }
+}
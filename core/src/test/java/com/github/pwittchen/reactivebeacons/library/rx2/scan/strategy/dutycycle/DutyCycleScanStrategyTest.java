@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.dutycycle;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class DutyCycleScanStrategyTest {
+  private FakeScanStrategy scanStrategy;
+  private TestScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    scanStrategy = new FakeScanStrategy();
+    scheduler = new TestScheduler();
+  }
+
+  @Test
+  public void shouldAlternateScanWindowsAndIdleIntervals() {
+    // given
+    ScanProfile profile = ScanProfile.of(2, 8, TimeUnit.SECONDS);
+    DutyCycleScanStrategy strategy = new DutyCycleScanStrategy(scanStrategy, profile, scheduler);
+
+    // when
+    TestObserver<Beacon> observer = strategy.observe().test();
+    scheduler.advanceTimeBy(60, TimeUnit.SECONDS);
+
+    // then
+    assertThat(scanStrategy.startTimes).containsExactly(0L, 10000L, 20000L, 30000L, 40000L,
+        50000L, 60000L).inOrder();
+    assertThat(scanStrategy.stopTimes).containsExactly(2000L, 12000L, 22000L, 32000L, 42000L,
+        52000L).inOrder();
+    observer.assertNoErrors();
+  }
+
+  @Test
+  public void shouldDeliverBeaconsOnlyDuringScanWindow() {
+    // given
+    Beacon beacon = Mockito.mock(Beacon.class);
+    ScanProfile profile = ScanProfile.of(2, 8, TimeUnit.SECONDS);
+    DutyCycleScanStrategy strategy = new DutyCycleScanStrategy(scanStrategy, profile, scheduler);
+    TestObserver<Beacon> observer = strategy.observe().test();
+
+    // when
+    scanStrategy.beacons.onNext(beacon);
+    scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+    scanStrategy.beacons.onNext(beacon);
+
+    // then
+    observer.assertValueCount(1);
+  }
+
+  @Test
+  public void shouldNotStartMoreThanFiveScansPerThirtySeconds() {
+    // given
+    ScanProfile profile = ScanProfile.of(1, 0, TimeUnit.SECONDS);
+    DutyCycleScanStrategy strategy = new DutyCycleScanStrategy(scanStrategy, profile, scheduler);
+
+    // when
+    strategy.observe().test();
+    scheduler.advanceTimeBy(120, TimeUnit.SECONDS);
+
+    // then
+    List<Long> starts = scanStrategy.startTimes;
+    assertThat(starts.size()).isGreaterThan(5);
+    for (int i = ScanStartLimiter.MAX_STARTS; i < starts.size(); i++) {
+      long window = starts.get(i) - starts.get(i - ScanStartLimiter.MAX_STARTS);
+      assertThat(window).isAtLeast(ScanStartLimiter.WINDOW_MILLIS);
+    }
+  }
+
+  @Test
+  public void shouldSwitchProfileWhileScanning() {
+    // given
+    DutyCycleScanStrategy strategy =
+        new DutyCycleScanStrategy(scanStrategy, ScanProfile.FOREGROUND, scheduler);
+    strategy.observe().test();
+    scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+
+    // when
+    strategy.setScanProfile(ScanProfile.BACKGROUND);
+    scheduler.advanceTimeBy(25, TimeUnit.SECONDS);
+
+    // then scan is restarted immediately and then every 10 seconds
+    assertThat(scanStrategy.startTimes).containsExactly(0L, 5000L, 15000L, 25000L).inOrder();
+    assertThat(scanStrategy.stopTimes).containsExactly(5000L, 7000L, 17000L, 27000L).inOrder();
+    assertThat(strategy.getScanProfile()).isSameInstanceAs(ScanProfile.BACKGROUND);
+  }
+
+  @Test
+  public void shouldStopScanWhenDisposed() {
+    // given
+    DutyCycleScanStrategy strategy =
+        new DutyCycleScanStrategy(scanStrategy, ScanProfile.FOREGROUND, scheduler);
+    TestObserver<Beacon> observer = strategy.observe().test();
+
+    // when
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    observer.dispose();
+    scheduler.advanceTimeBy(60, TimeUnit.SECONDS);
+
+    // then
+    assertThat(scanStrategy.startTimes).containsExactly(0L);
+    assertThat(scanStrategy.stopTimes).containsExactly(1000L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectEmptyScanWindow() {
+    ScanProfile.of(0, 1, TimeUnit.SECONDS);
+  }
+
+  private class FakeScanStrategy implements ScanStrategy {
+    final PublishSubject<Beacon> beacons = PublishSubject.create();
+    final List<Long> startTimes = new ArrayList<>();
+    final List<Long> stopTimes = new ArrayList<>();
+
+    @Override public Observable<Beacon> observe() {
+      return beacons.doOnSubscribe(new Consumer<Disposable>() {
+        @Override public void accept(Disposable disposable) {
+          startTimes.add(scheduler.now(TimeUnit.MILLISECONDS));
+        }
+      }).doOnDispose(new Action() {
+        @Override public void run() {
+          stopTimes.add(scheduler.now(TimeUnit.MILLISECONDS));
+        }
+      });
+    }
+  }
+}
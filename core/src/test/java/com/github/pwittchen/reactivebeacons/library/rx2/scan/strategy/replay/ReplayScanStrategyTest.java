@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.FilterSet;
+import io.reactivex.Observable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ReplayScanStrategyTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final String MAC = "00:27:0E:2A:B9:AA";
+  private static final String OTHER_MAC = "00:27:0E:2A:B9:AB";
+  private static final byte[] NAMED_RECORD = new byte[] {
+      0x02, 0x01, 0x06, 0x08, 0x09, 'k', 'o', 'n', 't', 'a', 'k', 't'
+  };
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+  private TestScheduler scheduler;
+  private FakeTrace trace;
+
+  @Before
+  public void setUp() {
+    scheduler = new TestScheduler();
+    trace = new FakeTrace(
+        beacon(-60, 100 * SECOND),
+        beacon(-61, 101 * SECOND),
+        beacon(-62, 101 * SECOND),
+        beacon(-63, 104 * SECOND));
+  }
+
+  @Test
+  public void shouldReplayTraceInRealTime() {
+    // given
+    ReplayScanStrategy strategy = new ReplayScanStrategy(trace, 1, scheduler);
+
+    // when
+    TestObserver<Beacon> observer = strategy.observe().test();
+    scheduler.triggerActions();
+
+    // then
+    observer.assertValueCount(1);
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    observer.assertValueCount(3);
+    scheduler.advanceTimeBy(2999, TimeUnit.MILLISECONDS);
+    observer.assertValueCount(3).assertNotComplete();
+    scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+    observer.assertValueCount(4).assertComplete();
+    assertThat(trace.closed).isTrue();
+  }
+
+  @Test
+  public void shouldReplayTraceFaster() {
+    // given
+    ReplayScanStrategy strategy = new ReplayScanStrategy(trace, 4, scheduler);
+
+    // when
+    TestObserver<Beacon> observer = strategy.observe().test();
+    scheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+
+    // then
+    observer.assertValueCount(3).assertNotComplete();
+    scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+    observer.assertValueCount(4).assertComplete();
+  }
+
+  @Test
+  public void shouldReplayTraceWithoutDelaysAtMaxSpeed() {
+    // given
+    ReplayScanStrategy strategy =
+        new ReplayScanStrategy(trace, ReplayScanStrategy.MAX_SPEED, scheduler);
+
+    // when
+    TestObserver<Beacon> observer = strategy.observe().test();
+    scheduler.triggerActions();
+
+    // then
+    observer.assertValueCount(4).assertComplete();
+    assertThat(observer.values().get(3).rssi).isEqualTo(-63);
+    assertThat(scheduler.now(TimeUnit.NANOSECONDS)).isEqualTo(0L);
+  }
+
+  @Test
+  public void shouldReplayTraceFromBeginningForEverySubscription() {
+    // given
+    ReplayScanStrategy strategy =
+        new ReplayScanStrategy(trace, ReplayScanStrategy.MAX_SPEED, scheduler);
+
+    // when
+    TestObserver<Beacon> first = strategy.observe().test();
+    TestObserver<Beacon> second = strategy.observe().test();
+    scheduler.triggerActions();
+
+    // then
+    first.assertValueCount(4);
+    second.assertValues(first.values().toArray(new Beacon[0]));
+    assertThat(trace.openCount).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCloseTraceWhenDisposed() {
+    // given
+    ReplayScanStrategy strategy = new ReplayScanStrategy(trace, 1, scheduler);
+    TestObserver<Beacon> observer = strategy.observe().test();
+    scheduler.triggerActions();
+
+    // when
+    observer.dispose();
+    scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+    // then
+    observer.assertValueCount(1);
+    assertThat(trace.closed).isTrue();
+  }
+
+  @Test
+  public void shouldCloseTraceAfterReadWhenDisposedDuringReplay() {
+    // given
+    ReplayScanStrategy strategy =
+        new ReplayScanStrategy(trace, ReplayScanStrategy.MAX_SPEED, scheduler);
+    final TestObserver<Beacon> observer = strategy.observe().test();
+    trace.onRead = new Runnable() {
+      @Override public void run() {
+        observer.dispose();
+      }
+    };
+
+    // when
+    scheduler.triggerActions();
+
+    // then
+    observer.assertNoValues();
+    assertThat(trace.closedWhileReading).isFalse();
+    assertThat(trace.closed).isTrue();
+  }
+
+  @Test
+  public void shouldNotFailWhenBinaryTraceIsDisposedDuringReplay() throws Exception {
+    // given
+    TraceRecorder recorder = new TraceRecorder(folder.getRoot(), "trace");
+    Observable.range(0, 100_000).map(new Function<Integer, Beacon>() {
+      @Override public Beacon apply(Integer index) {
+        return beacon(-60, index);
+      }
+    }).compose(recorder).test().assertComplete();
+    recorder.close();
+    ReplayScanStrategy strategy = new ReplayScanStrategy(
+        new BinaryTrace(folder.getRoot(), "trace"), ReplayScanStrategy.MAX_SPEED,
+        Schedulers.io());
+    final List<Throwable> errors = new CopyOnWriteArrayList<>();
+    RxJavaPlugins.setErrorHandler(new Consumer<Throwable>() {
+      @Override public void accept(Throwable throwable) {
+        errors.add(throwable);
+      }
+    });
+
+    try {
+      // when
+      for (int i = 0; i < 50; i++) {
+        TestObserver<Beacon> observer = strategy.observe().test();
+        observer.awaitCount(1);
+        observer.dispose();
+      }
+      Thread.sleep(100);
+
+      // then
+      assertThat(errors).isEmpty();
+    } finally {
+      RxJavaPlugins.reset();
+    }
+  }
+
+  @Test
+  public void shouldFilterBeaconsReplayedFromBinaryTraceByName() throws IOException {
+    // given
+    Beacon named = Beacon.create(MAC, "kontakt", -60, NAMED_RECORD, SECOND);
+    Beacon unnamed = Beacon.create(OTHER_MAC, null, -61, new byte[0], SECOND);
+    TraceRecorder recorder = new TraceRecorder(folder.getRoot(), "trace");
+    Observable.just(named, unnamed).compose(recorder).test().assertComplete();
+    recorder.close();
+    ReplayScanStrategy strategy = new ReplayScanStrategy(
+        new BinaryTrace(folder.getRoot(), "trace"), ReplayScanStrategy.MAX_SPEED, scheduler);
+    FilterSet filterSet = new FilterSet.Builder().names("kontakt").build();
+
+    // when
+    TestObserver<Beacon> observer = strategy.observe().filter(filterSet.toPredicate()).test();
+    scheduler.triggerActions();
+
+    // then
+    observer.assertValue(named).assertComplete();
+    assertThat(observer.values().get(0).name).isEqualTo("kontakt");
+  }
+
+  @Test
+  public void shouldEmitErrorOfTraceReader() {
+    // given
+    trace.failure = new IOException("broken trace");
+    ReplayScanStrategy strategy =
+        new ReplayScanStrategy(trace, ReplayScanStrategy.MAX_SPEED, scheduler);
+
+    // when
+    TestObserver<Beacon> observer = strategy.observe().test();
+    scheduler.triggerActions();
+
+    // then
+    observer.assertValueCount(4).assertError(IOException.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNotPositiveSpeed() {
+    new ReplayScanStrategy(trace, 0, scheduler);
+  }
+
+  private static Beacon beacon(int rssi, long timestampNanos) {
+    return Beacon.create(MAC, null, rssi, new byte[0], timestampNanos);
+  }
+
+  private static class FakeTrace implements Trace {
+    private final List<Beacon> beacons;
+    private IOException failure;
+    private Runnable onRead;
+    private boolean closed;
+    private boolean closedWhileReading;
+    private int openCount;
+
+    FakeTrace(Beacon... beacons) {
+      this.beacons = new ArrayList<>(Arrays.asList(beacons));
+    }
+
+    @Override public TraceReader open() {
+      openCount++;
+      return new TraceReader() {
+        private int index;
+
+        @Override public Beacon read() throws IOException {
+          if (onRead != null) {
+            onRead.run();
+            closedWhileReading |= closed;
+          }
+          if (index < beacons.size()) {
+            return beacons.get(index++);
+          }
+          if (failure != null) {
+            throw failure;
+          }
+          return null;
+        }
+
+        @Override public void close() {
+          closed = true;
+        }
+      };
+    }
+  }
+}
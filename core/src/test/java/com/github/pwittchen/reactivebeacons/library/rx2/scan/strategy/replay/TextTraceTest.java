@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.FilterSet;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class TextTraceTest {
+  private static final String MAC = "00:27:0E:2A:B9:AA";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldFormatAndParseBeacon() {
+    // given
+    byte[] scanRecord = new byte[] { 0x02, 0x01, 0x06, (byte) 0xFF };
+    Beacon beacon = Beacon.create(MAC, "kontakt", -65, scanRecord, 123456789L);
+
+    // when
+    String line = TextTrace.format(beacon);
+    Beacon parsed = TextTrace.parse(line);
+
+    // then
+    assertThat(line).isEqualTo("123456789,00:27:0E:2A:B9:AA,-65,020106FF");
+    assertThat(parsed).isEqualTo(beacon);
+    assertThat(parsed.timestampNanos).isEqualTo(123456789L);
+  }
+
+  @Test
+  public void shouldParseLowerCaseHexAndEmptyScanRecord() {
+    // when
+    Beacon beacon = TextTrace.parse("5, 00-27-0e-2a-b9-aa ,-70,0aff ");
+    Beacon empty = TextTrace.parse("5,00:27:0E:2A:B9:AA,-70,");
+
+    // then
+    assertThat(beacon.macAddress).isSameInstanceAs(MacAddress.valueOf(MAC));
+    assertThat(beacon.scanRecord).isEqualTo(new byte[] { 0x0A, (byte) 0xFF });
+    assertThat(empty.scanRecord).isEmpty();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectMissingFields() {
+    TextTrace.parse("5,00:27:0E:2A:B9:AA,-70");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectOddNumberOfHexDigits() {
+    TextTrace.parse("5,00:27:0E:2A:B9:AA,-70,0AF");
+  }
+
+  @Test
+  public void shouldReadTraceFileSkippingCommentsAndEmptyLines() throws IOException {
+    // given
+    File file = write("# recorded in the office\n"
+        + "1000,00:27:0E:2A:B9:AA,-60,0201\n"
+        + "\n"
+        + "2000,00:27:0E:2A:B9:AB,-70,\n");
+    TestScheduler scheduler = new TestScheduler();
+    ReplayScanStrategy strategy =
+        new ReplayScanStrategy(new TextTrace(file), ReplayScanStrategy.MAX_SPEED, scheduler);
+
+    // when
+    TestObserver<Beacon> observer = strategy.observe().test();
+    scheduler.triggerActions();
+
+    // then
+    observer.assertValueCount(2).assertComplete();
+    assertThat(observer.values().get(1).macAddress.address).isEqualTo("00:27:0E:2A:B9:AB");
+  }
+
+  @Test
+  public void shouldFilterReplayedBeaconsByName() throws IOException {
+    // given
+    File file = write("1000,00:27:0E:2A:B9:AA,-60,02010608096B6F6E74616B74\n"
+        + "2000,00:27:0E:2A:B9:AB,-70,020106\n");
+    TestScheduler scheduler = new TestScheduler();
+    ReplayScanStrategy strategy =
+        new ReplayScanStrategy(new TextTrace(file), ReplayScanStrategy.MAX_SPEED, scheduler);
+    FilterSet filterSet = new FilterSet.Builder().names("kontakt").build();
+
+    // when
+    TestObserver<Beacon> observer = strategy.observe().filter(filterSet.toPredicate()).test();
+    scheduler.triggerActions();
+
+    // then
+    observer.assertValueCount(1).assertComplete();
+    assertThat(observer.values().get(0).name).isEqualTo("kontakt");
+    assertThat(observer.values().get(0).macAddress.address).isEqualTo(MAC);
+  }
+
+  @Test
+  public void shouldReportLineOfMalformedEntry() throws IOException {
+    // given
+    File file = write("1000,00:27:0E:2A:B9:AA,-60,0201\n"
+        + "2000,invalid,-70,\n");
+    TraceReader reader = new TextTrace(file).open();
+
+    // when
+    reader.read();
+    try {
+      reader.read();
+      throw new AssertionError("malformed line should be rejected");
+    } catch (IOException e) {
+      // then
+      assertThat(e).hasMessageThat().contains("line 2");
+    } finally {
+      reader.close();
+    }
+  }
+
+  private File write(String content) throws IOException {
+    File file = folder.newFile();
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      writer.write(content);
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.replay;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.MacAddress;
+import io.reactivex.Observable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class TraceRecorderTest {
+  private static final String PREFIX = "trace";
+  private static final int SEGMENT_SIZE = 64 * 1024;
+  private static final byte[] RECORD = new byte[30];
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+  private File directory;
+
+  @Before
+  public void setUp() {
+    directory = folder.getRoot();
+  }
+
+  @Test
+  public void shouldRecordAndReadBeacons() throws IOException {
+    // given
+    Beacon first = new Beacon(MacAddress.valueOf(0xC47C8D6A1F02L), null, -65, -59,
+        new byte[] { 0x02, 0x01, 0x06 }, 1000L);
+    Beacon second = new Beacon(MacAddress.valueOf(0xFFFFFFFFFFFFL), null, -100, 4, null, 2000L);
+    TraceRecorder recorder = new TraceRecorder(directory, PREFIX);
+
+    // when
+    Observable.just(first, second).compose(recorder).test().assertValues(first, second);
+    recorder.close();
+    List<Beacon> beacons = read(new BinaryTrace(directory, PREFIX));
+
+    // then
+    assertThat(beacons).containsExactly(first, second).inOrder();
+    assertThat(beacons.get(0).txPower).isEqualTo(-59);
+    assertThat(beacons.get(0).timestampNanos).isEqualTo(1000L);
+    assertThat(beacons.get(1).txPower).isEqualTo(4);
+    assertThat(beacons.get(1).scanRecord).isNull();
+    assertThat(recorder.getRecordCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void shouldRollSegments() throws IOException {
+    // given
+    TraceRecorder recorder = new TraceRecorder(directory, PREFIX, SEGMENT_SIZE,
+        TraceRecorder.UNLIMITED_SEGMENTS);
+
+    // when
+    for (int i = 0; i < 5000; i++) {
+      recorder.append(beacon(i));
+    }
+    recorder.close();
+    List<Beacon> beacons = read(new BinaryTrace(directory, PREFIX));
+
+    // then
+    assertThat(BinaryTraceFormat.segments(directory, PREFIX).length).isEqualTo(4);
+    assertThat(beacons).hasSize(5000);
+    for (int i = 0; i < beacons.size(); i++) {
+      assertThat(beacons.get(i).timestampNanos).isEqualTo((long) i);
+    }
+  }
+
+  @Test
+  public void shouldDeleteOldestSegments() throws IOException {
+    // given
+    TraceRecorder recorder = new TraceRecorder(directory, PREFIX, SEGMENT_SIZE, 2);
+
+    // when
+    for (int i = 0; i < 5000; i++) {
+      recorder.append(beacon(i));
+    }
+    recorder.close();
+    File[] segments = BinaryTraceFormat.segments(directory, PREFIX);
+    List<Beacon> beacons = read(new BinaryTrace(directory, PREFIX));
+
+    // then
+    assertThat(segments).hasLength(2);
+    assertThat(BinaryTraceFormat.index(segments[0], PREFIX)).isEqualTo(2L);
+    assertThat(beacons.get(beacons.size() - 1).timestampNanos).isEqualTo(4999L);
+  }
+
+  @Test
+  public void shouldContinueExistingTrace() throws IOException {
+    // given
+    TraceRecorder first = new TraceRecorder(directory, PREFIX);
+    first.append(beacon(1));
+    first.close();
+
+    // when
+    TraceRecorder second = new TraceRecorder(directory, PREFIX);
+    second.append(beacon(2));
+    second.close();
+
+    // then
+    assertThat(BinaryTraceFormat.segments(directory, PREFIX)).hasLength(2);
+    List<Beacon> beacons = read(new BinaryTrace(directory, PREFIX));
+    assertThat(beacons).containsExactly(beacon(1), beacon(2)).inOrder();
+  }
+
+  @Test
+  public void shouldDeleteExistingSegmentsFirst() throws IOException {
+    // given
+    TraceRecorder first = new TraceRecorder(directory, PREFIX);
+    first.append(beacon(1));
+    first.close();
+    TraceRecorder second = new TraceRecorder(directory, PREFIX);
+    second.append(beacon(2));
+    second.close();
+
+    // when
+    TraceRecorder third = new TraceRecorder(directory, PREFIX, SEGMENT_SIZE, 2);
+    third.append(beacon(3));
+    third.close();
+
+    // then
+    File[] segments = BinaryTraceFormat.segments(directory, PREFIX);
+    assertThat(segments).hasLength(2);
+    assertThat(BinaryTraceFormat.index(segments[0], PREFIX)).isEqualTo(1L);
+    List<Beacon> beacons = read(new BinaryTrace(directory, PREFIX));
+    assertThat(beacons).containsExactly(beacon(2), beacon(3)).inOrder();
+  }
+
+  @Test
+  public void shouldReadTraceBeingRecorded() throws IOException {
+    // given
+    TraceRecorder recorder = new TraceRecorder(directory, PREFIX);
+    recorder.append(beacon(1));
+
+    // when
+    List<Beacon> beacons = read(new BinaryTrace(directory, PREFIX));
+    recorder.close();
+
+    // then
+    assertThat(beacons).containsExactly(beacon(1));
+  }
+
+  @Test
+  public void shouldIgnoreFilesWithOtherPrefix() throws IOException {
+    // given
+    TraceRecorder recorder = new TraceRecorder(directory, PREFIX);
+    recorder.append(beacon(1));
+    recorder.close();
+    assertThat(new File(directory, "other-000000.rbt").createNewFile()).isTrue();
+    assertThat(new File(directory, PREFIX + "-notes.rbt").createNewFile()).isTrue();
+
+    // when
+    List<Beacon> beacons = read(new BinaryTrace(directory, PREFIX));
+
+    // then
+    assertThat(beacons).containsExactly(beacon(1));
+  }
+
+  @Test
+  public void shouldRejectBeaconsAfterClose() throws IOException {
+    // given
+    TraceRecorder recorder = new TraceRecorder(directory, PREFIX);
+    recorder.close();
+
+    // when
+    Observable.just(beacon(1)).compose(recorder).test()
+
+        // then
+        .assertError(IOException.class);
+  }
+
+  @Test
+  public void shouldEndTraceWhenReaderIsClosed() throws IOException {
+    // given
+    TraceRecorder recorder = new TraceRecorder(directory, PREFIX);
+    Observable.just(beacon(1), beacon(2)).compose(recorder).test();
+    recorder.close();
+    TraceReader reader = new BinaryTrace(directory, PREFIX).open();
+    assertThat(reader.read()).isEqualTo(beacon(1));
+
+    // when
+    reader.close();
+    reader.close();
+
+    // then
+    assertThat(reader.read()).isNull();
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldRejectFileWhichIsNotTrace() throws IOException {
+    // given
+    assertThat(new File(directory, PREFIX + "-000000.rbt").createNewFile()).isTrue();
+
+    // when
+    read(new BinaryTrace(directory, PREFIX));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectTooSmallSegment() {
+    new TraceRecorder(directory, PREFIX, 1024, TraceRecorder.UNLIMITED_SEGMENTS);
+  }
+
+  private static Beacon beacon(long timestampNanos) {
+    return new Beacon(MacAddress.valueOf(timestampNanos % 16), null, -70, RECORD, timestampNanos);
+  }
+
+  private static List<Beacon> read(Trace trace) throws IOException {
+    List<Beacon> beacons = new ArrayList<>();
+    TraceReader reader = trace.open();
+    try {
+      Beacon beacon;
+      while ((beacon = reader.read()) != null) {
+        beacons.add(beacon);
+      }
+    } finally {
+      reader.close();
+    }
+    return beacons;
+  }
+}
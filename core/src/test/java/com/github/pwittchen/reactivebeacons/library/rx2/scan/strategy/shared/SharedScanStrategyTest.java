@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.shared;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SharedScanStrategyTest {
+  private FakeScanStrategy scanStrategy;
+  private TestScheduler scheduler;
+  private SharedScanStrategy sharedScanStrategy;
+
+  @Before
+  public void setUp() {
+    scanStrategy = new FakeScanStrategy();
+    scheduler = new TestScheduler();
+    sharedScanStrategy = new SharedScanStrategy(scanStrategy, 2, TimeUnit.SECONDS, scheduler);
+  }
+
+  @Test
+  public void shouldStartScanLazily() {
+    // when
+    sharedScanStrategy.observe();
+
+    // then
+    assertThat(scanStrategy.starts).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldMulticastOneScanToAllSubscribers() {
+    // given
+    Beacon beacon = Mockito.mock(Beacon.class);
+    TestObserver<Beacon> first = sharedScanStrategy.observe().test();
+    TestObserver<Beacon> second = sharedScanStrategy.observe().test();
+
+    // when
+    scanStrategy.beacons.onNext(beacon);
+
+    // then
+    assertThat(scanStrategy.starts).isEqualTo(1);
+    first.assertValues(beacon);
+    second.assertValues(beacon);
+  }
+
+  @Test
+  public void shouldStopScanAfterGracePeriod() {
+    // given
+    TestObserver<Beacon> first = sharedScanStrategy.observe().test();
+    TestObserver<Beacon> second = sharedScanStrategy.observe().test();
+
+    // when
+    first.dispose();
+    second.dispose();
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+    int stopsDuringGracePeriod = scanStrategy.stops;
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    // then
+    assertThat(stopsDuringGracePeriod).isEqualTo(0);
+    assertThat(scanStrategy.stops).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldReuseScanWhenSubscribedDuringGracePeriod() {
+    // given
+    sharedScanStrategy.observe().test().dispose();
+    scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+    // when
+    sharedScanStrategy.observe().test();
+    scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+    // then
+    assertThat(scanStrategy.starts).isEqualTo(1);
+    assertThat(scanStrategy.stops).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldRestartScanAfterItWasStopped() {
+    // given
+    sharedScanStrategy.observe().test().dispose();
+    scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+
+    // when
+    Disposable disposable = sharedScanStrategy.observe().subscribe(new Consumer<Beacon>() {
+      @Override public void accept(Beacon beacon) {
+      }
+    });
+
+    // then
+    assertThat(scanStrategy.starts).isEqualTo(2);
+    disposable.dispose();
+  }
+
+  private static class FakeScanStrategy implements ScanStrategy {
+    final PublishSubject<Beacon> beacons = PublishSubject.create();
+    int starts;
+    int stops;
+
+    @Override public Observable<Beacon> observe() {
+      return beacons.doOnSubscribe(new Consumer<Disposable>() {
+        @Override public void accept(Disposable disposable) {
+          starts++;
+        }
+      }).doOnDispose(new Action() {
+        @Override public void run() {
+          stops++;
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.util;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class LongHashSetTest {
+
+  @Test
+  public void shouldAddAndFindValues() {
+    // given
+    LongHashSet set = new LongHashSet();
+
+    // when
+    boolean added = set.add(0x00270E2AB9AAL);
+    boolean addedAgain = set.add(0x00270E2AB9AAL);
+
+    // then
+    assertThat(added).isTrue();
+    assertThat(addedAgain).isFalse();
+    assertThat(set.size()).isEqualTo(1);
+    assertThat(set.contains(0x00270E2AB9AAL)).isTrue();
+    assertThat(set.contains(0x00270E2AB9ABL)).isFalse();
+  }
+
+  @Test
+  public void shouldHandleZero() {
+    // given
+    LongHashSet set = new LongHashSet();
+
+    // when
+    set.add(0L);
+
+    // then
+    assertThat(set.contains(0L)).isTrue();
+    assertThat(set.remove(0L)).isTrue();
+    assertThat(set.contains(0L)).isFalse();
+    assertThat(set.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void shouldBehaveLikeHashSetWhenGrowingAndRemoving() {
+    // given
+    LongHashSet set = new LongHashSet();
+    Set<Long> expected = new HashSet<>();
+    Random random = new Random(42);
+
+    // when
+    for (int i = 0; i < 50000; i++) {
+      long value = random.nextInt(10000);
+      if (random.nextInt(3) == 0) {
+        assertThat(set.remove(value)).isEqualTo(expected.remove(value));
+      } else {
+        assertThat(set.add(value)).isEqualTo(expected.add(value));
+      }
+    }
+
+    // then
+    assertThat(set.size()).isEqualTo(expected.size());
+    for (long value = 0; value < 10000; value++) {
+      assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class LongObjectMapTest {
+
+  @Test
+  public void shouldPutGetAndRemoveValues() {
+    // given
+    LongObjectMap<String> map = new LongObjectMap<>();
+
+    // when
+    map.put(0L, "zero");
+    map.put(42L, "first");
+    String previous = map.put(42L, "second");
+
+    // then
+    assertThat(previous).isEqualTo("first");
+    assertThat(map.get(0L)).isEqualTo("zero");
+    assertThat(map.get(42L)).isEqualTo("second");
+    assertThat(map.get(7L)).isNull();
+    assertThat(map.remove(42L)).isEqualTo("second");
+    assertThat(map.containsKey(42L)).isFalse();
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldBehaveLikeHashMapWhenGrowingAndRemoving() {
+    // given
+    LongObjectMap<Long> map = new LongObjectMap<>();
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    // when
+    for (int i = 0; i < 50000; i++) {
+      long key = random.nextInt(5000);
+      if (random.nextInt(3) == 0) {
+        assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+      } else {
+        assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+      }
+    }
+
+    // then
+    assertThat(map.size()).isEqualTo(expected.size());
+    for (long key = 0; key < 5000; key++) {
+      assertThat(map.get(key)).isEqualTo(expected.get(key));
+    }
+  }
+
+  @Test
+  public void shouldShrinkWhenEntriesAreRemoved() {
+    // given
+    LongObjectMap<String> map = new LongObjectMap<>();
+    for (long key = 0; key < 10000; key++) {
+      map.put(key, "value");
+    }
+    int capacity = map.capacity();
+
+    // when
+    for (long key = 0; key < 9990; key++) {
+      map.remove(key);
+    }
+
+    // then
+    assertThat(map.capacity()).isLessThan(capacity / 100);
+    assertThat(map.get(9995L)).isEqualTo("value");
+  }
+
+  @Test
+  public void shouldIterateOverSlots() {
+    // given
+    LongObjectMap<String> map = new LongObjectMap<>();
+    map.put(1L, "a");
+    map.put(2L, "b");
+
+    // when
+    Map<Long, String> entries = new HashMap<>();
+    for (int slot = 0; slot < map.capacity(); slot++) {
+      if (map.valueAt(slot) != null) {
+        entries.put(map.keyAt(slot), map.valueAt(slot));
+      }
+    }
+
+    // then
+    assertThat(entries).containsExactly(1L, "a", 2L, "b");
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void shouldRejectNullValue() {
+    new LongObjectMap<String>().put(1L, null);
+  }
+}
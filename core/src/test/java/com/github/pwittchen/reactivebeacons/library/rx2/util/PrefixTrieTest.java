@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.util;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class PrefixTrieTest {
+
+  @Test
+  public void shouldMatchAnyOfPrefixes() {
+    // given
+    PrefixTrie trie = new PrefixTrie();
+    trie.add("asset-");
+    trie.add("kontakt");
+    trie.add("ab");
+
+    // then
+    assertThat(trie.size()).isEqualTo(3);
+    assertThat(trie.matchesPrefixOf("asset-00042")).isTrue();
+    assertThat(trie.matchesPrefixOf("kontakt")).isTrue();
+    assertThat(trie.matchesPrefixOf("abc")).isTrue();
+    assertThat(trie.matchesPrefixOf("asset")).isFalse();
+    assertThat(trie.matchesPrefixOf("a")).isFalse();
+    assertThat(trie.matchesPrefixOf("estimote")).isFalse();
+    assertThat(trie.matchesPrefixOf("")).isFalse();
+  }
+
+  @Test
+  public void emptyPrefixShouldMatchEverything() {
+    // given
+    PrefixTrie trie = new PrefixTrie();
+    trie.add("");
+
+    // then
+    assertThat(trie.matchesPrefixOf("")).isTrue();
+    assertThat(trie.matchesPrefixOf("any name")).isTrue();
+  }
+
+  @Test
+  public void shouldNotAddDuplicatedPrefix() {
+    // given
+    PrefixTrie trie = new PrefixTrie();
+
+    // when
+    trie.add("asset");
+    boolean added = trie.add("asset");
+
+    // then
+    assertThat(added).isFalse();
+    assertThat(trie.size()).isEqualTo(1);
+  }
+}
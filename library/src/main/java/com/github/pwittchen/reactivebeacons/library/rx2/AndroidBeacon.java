@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2;
+
+import android.annotation.SuppressLint;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.le.ScanRecord;
+import android.bluetooth.le.ScanResult;
+import android.os.SystemClock;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.ScanRecordParser;
+
+/**
+ * Adapts scan results of Android Bluetooth stack into platform independent {@link Beacon} model.
+ * Timestamps are taken from elapsed realtime clock, so they keep going during deep sleep.
+ * Device name is read from the advertised local name instead of {@link BluetoothDevice#getName()},
+ * which is an IPC call to the Bluetooth service.
+ */
+public final class AndroidBeacon {
+
+  private AndroidBeacon() {
+  }
+
+  @SuppressLint("NewApi")
+  public static Beacon create(BluetoothDevice device, int rssi, byte[] scanRecord) {
+    // BLE scanning requires API 18, so elapsedRealtimeNanos() from API 17 is available
+    String name = ScanRecordParser.localName(scanRecord);
+    return create(device, name, rssi, scanRecord, SystemClock.elapsedRealtimeNanos());
+  }
+
+  @SuppressLint("NewApi")
+  public static Beacon create(ScanResult result) {
+    ScanRecord scanRecord = result.getScanRecord();
+    byte[] bytes = null;
+    String name = null;
+    if (scanRecord != null) {
+      bytes = scanRecord.getBytes();
+      name = scanRecord.getDeviceName();
+    }
+    return create(result.getDevice(), name, result.getRssi(), bytes, result.getTimestampNanos());
+  }
+
+  private static Beacon create(BluetoothDevice device, String name, int rssi, byte[] scanRecord,
+      long timestampNanos) {
+    MacAddress macAddress = MacAddress.valueOf(device.getAddress());
+    return new Beacon(macAddress, name, rssi, scanRecord, timestampNanos);
+  }
+}
@@ -21,11 +21,23 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothManager;
 import android.content.Context;
 import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.RequiresPermission;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.NanoClock;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanMetrics;
+import com.github.pwittchen.reactivebeacons.library.rx2.parser.IBeacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.region.RegionEvent;
+import com.github.pwittchen.reactivebeacons.library.rx2.region.RegionMonitor;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.Batches;
 import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
 import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.lollipop.LollipopScanStrategy;
 import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.prelollipop.PreLollipopScanStrategy;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.shared.SharedScanStrategy;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static android.Manifest.permission.ACCESS_COARSE_LOCATION;
 import static android.Manifest.permission.ACCESS_FINE_LOCATION;
@@ -36,10 +48,23 @@ import static android.Manifest.permission.ACCESS_FINE_LOCATION;
 public class ReactiveBeacons {
   private static final String MSG_BLE_NOT_SUPPORTED = "accessRequester is null, BLE not supported";
   private static final String MSG_SCAN_STRATEGY_CANNOT_BE_NULL = "scanStrategy cannot be null";
+  private static final String MSG_OVERFLOW_POLICY_CANNOT_BE_NULL = "overflowPolicy cannot be null";
+  private static final String MSG_FILTER_SET_CANNOT_BE_NULL = "filterSet cannot be null";
+  private static final String MSG_REGION_MONITOR_CANNOT_BE_NULL = "regionMonitor cannot be null";
+  private static final long SHARED_SCAN_GRACE_PERIOD_SECONDS = 2;
 
+  private static final NanoClock ELAPSED_REALTIME = new NanoClock() {
+    @SuppressLint("NewApi") @Override public long nanoTime() {
+      // used only when BLE is supported, so elapsedRealtimeNanos() from API 17 is available
+      return SystemClock.elapsedRealtimeNanos();
+    }
+  };
+
+  private ScanInstrumentation instrumentation = ScanInstrumentation.DISABLED;
   private BluetoothAdapter bluetoothAdapter;
   private ScanStrategy scanStrategy;
   private AccessRequester accessRequester;
+  private SharedScanStrategy sharedScanStrategy;
 
   /**
    * Initializes ReactiveBeacons object
@@ -52,6 +77,7 @@ public class ReactiveBeacons {
       BluetoothManager manager = (BluetoothManager) context.getSystemService(bluetoothService);
       bluetoothAdapter = manager.getAdapter();
       accessRequester = new AccessRequester(bluetoothAdapter);
+      instrumentation = new ScanInstrumentation(ELAPSED_REALTIME);
     }
   }
 
@@ -107,15 +133,29 @@ public class ReactiveBeacons {
       ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION
   })
   public Observable<Beacon> observe() {
+    return observe(FilterSet.EMPTY);
+  }
+
+  /**
+   * Creates an observable stream of BLE beacons matching provided filter set.
+   * On Lollipop and newer Android versions, filters are offloaded to Bluetooth controller,
+   * so non-matching advertisements don't reach the application. On older versions,
+   * filters are applied in software.
+   *
+   * @param filterSet filters applied during the scan
+   * @return Observable stream of beacons
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(anyOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION
+  })
+  public Observable<Beacon> observe(FilterSet filterSet) {
     if (!isBleSupported()) {
       return Observable.empty();
     }
 
-    if (isAtLeastAndroidLollipop()) {
-      scanStrategy = new LollipopScanStrategy(bluetoothAdapter);
-    } else {
-      scanStrategy = new PreLollipopScanStrategy(bluetoothAdapter);
-    }
+    checkNotNull(filterSet, MSG_FILTER_SET_CANNOT_BE_NULL);
+    scanStrategy = createScanStrategy(filterSet);
 
     try {
       return observe(scanStrategy);
@@ -124,6 +164,108 @@ public class ReactiveBeacons {
     }
   }
 
+  /**
+   * Creates an observable stream of BLE beacons from the scan shared by all subscribers
+   * of this method. Scan is started, when the first subscriber subscribes and it's stopped
+   * 2 seconds after the last subscriber disposes its subscription.
+   *
+   * @return Observable stream of beacons
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(anyOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION
+  })
+  public Observable<Beacon> observeShared() {
+    return observeShared(FilterSet.EMPTY);
+  }
+
+  /**
+   * Creates an observable stream of BLE beacons from the scan shared by all subscribers
+   * of this method, which match provided filter set. Shared scan is not filtered
+   * by Bluetooth controller, so filters are applied in software for every subscriber.
+   *
+   * @param filterSet filters applied to the shared scan
+   * @return Observable stream of beacons
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(anyOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION
+  })
+  public Observable<Beacon> observeShared(FilterSet filterSet) {
+    if (!isBleSupported()) {
+      return Observable.empty();
+    }
+
+    checkNotNull(filterSet, MSG_FILTER_SET_CANNOT_BE_NULL);
+    Observable<Beacon> beacons = getSharedScanStrategy().observe();
+
+    if (!filterSet.isEmpty()) {
+      beacons = beacons.filter(filterSet.toPredicate());
+    }
+
+    return beacons.compose(instrumentation);
+  }
+
+  /**
+   * Creates a flowable stream of BLE beacons, which respects backpressure of the subscriber.
+   * Uses appropriate BLE scan strategy according to Android version installed on a device.
+   * Beacons, which cannot be delivered to slow subscriber are handled with provided policy
+   *
+   * @param overflowPolicy policy applied when subscriber cannot keep up with scan results
+   * @return Flowable stream of beacons
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(anyOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION
+  })
+  public Flowable<Beacon> observe(OverflowPolicy overflowPolicy) {
+    if (!isBleSupported()) {
+      return Flowable.empty();
+    }
+
+    scanStrategy = createScanStrategy(FilterSet.EMPTY);
+
+    try {
+      return observe(scanStrategy, overflowPolicy);
+    } catch (SecurityException e) {
+      return Flowable.empty();
+    }
+  }
+
+  /**
+   * Creates an observable stream of batches of BLE beacons.
+   * On devices supporting offloaded scan batching, results are collected by Bluetooth controller,
+   * which reduces number of CPU wakeups. On other devices, results are collected in software.
+   * Batches contain every scan result, they are not deduplicated per device like in observe().
+   *
+   * @param reportDelay delay of delivering a batch, at least one millisecond
+   * @param unit unit of the report delay
+   * @return Observable stream of non-empty batches of beacons
+   * @throws IllegalArgumentException when report delay is shorter than one millisecond
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(anyOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION
+  })
+  public Observable<List<Beacon>> observeBatches(long reportDelay, TimeUnit unit) {
+    Batches.checkReportDelay(reportDelay, unit);
+    if (!isBleSupported()) {
+      return Observable.empty();
+    }
+
+    try {
+      if (isAtLeastAndroidLollipop()) {
+        return new LollipopScanStrategy(bluetoothAdapter, FilterSet.EMPTY, instrumentation)
+            .observeBatches(reportDelay, unit);
+      } else {
+        return new PreLollipopScanStrategy(bluetoothAdapter, FilterSet.EMPTY, instrumentation)
+            .observeBatches(reportDelay, unit);
+      }
+    } catch (SecurityException e) {
+      return Observable.empty();
+    }
+  }
+
   /**
    * Creates an observable stream of BLE beacons, which can be subscribed with RxJava.
    * This method can scan beacons with provided scan strategy, which can be one of the existing
@@ -143,7 +285,74 @@ public class ReactiveBeacons {
     }
 
     checkNotNull(scanStrategy, MSG_SCAN_STRATEGY_CANNOT_BE_NULL);
-    return scanStrategy.observe();
+    return scanStrategy.observe().compose(instrumentation);
+  }
+
+  /**
+   * Creates a flowable stream of BLE beacons with provided scan strategy,
+   * which respects backpressure of the subscriber.
+   *
+   * @param scanStrategy BLE scan strategy
+   * @param overflowPolicy policy applied when subscriber cannot keep up with scan results
+   * @return Flowable stream of beacons
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(anyOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION
+  })
+  public Flowable<Beacon> observe(ScanStrategy scanStrategy, OverflowPolicy overflowPolicy) {
+    if (!isBleSupported()) {
+      return Flowable.empty();
+    }
+
+    checkNotNull(scanStrategy, MSG_SCAN_STRATEGY_CANNOT_BE_NULL);
+    checkNotNull(overflowPolicy, MSG_OVERFLOW_POLICY_CANNOT_BE_NULL);
+    return instrumentation.toFlowable(scanStrategy.observe(), overflowPolicy)
+        .compose(instrumentation);
+  }
+
+  /**
+   * Creates an observable stream of enter and exit events of iBeacon regions.
+   * Scan is filtered by Apple company identifier, so on Lollipop and newer Android versions
+   * advertisements of other beacons don't reach the application.
+   *
+   * @param regionMonitor monitor of regions
+   * @return Observable stream of region events
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(anyOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION
+  })
+  public Observable<RegionEvent> observeRegions(RegionMonitor regionMonitor) {
+    checkNotNull(regionMonitor, MSG_REGION_MONITOR_CANNOT_BE_NULL);
+    FilterSet filterSet = new FilterSet.Builder()
+        .manufacturerIds(IBeacon.APPLE_COMPANY_ID)
+        .build();
+    return observe(filterSet).compose(regionMonitor);
+  }
+
+  /**
+   * Creates snapshot of scan pipeline metrics collected since creation of this object:
+   * number of scan callbacks, discarded, suppressed, dropped and delivered beacons
+   * and histograms of their latencies
+   *
+   * @return metrics snapshot
+   */
+  public ScanMetrics getMetrics() {
+    return instrumentation.snapshot();
+  }
+
+  /**
+   * Creates an observable stream of scan pipeline metrics collected during every interval.
+   * Metrics are collected all the time, so subscribing to this stream adds no overhead
+   * to the scan.
+   *
+   * @param interval interval between snapshots
+   * @param unit unit of the interval
+   * @return Observable stream of metrics snapshots
+   */
+  public Observable<ScanMetrics> observeMetrics(long interval, TimeUnit unit) {
+    return instrumentation.observe(interval, unit);
   }
 
   /**
@@ -166,6 +375,22 @@ public class ReactiveBeacons {
     accessRequester.requestLocationAccess(activity);
   }
 
+  private synchronized SharedScanStrategy getSharedScanStrategy() {
+    if (sharedScanStrategy == null) {
+      sharedScanStrategy = new SharedScanStrategy(createScanStrategy(FilterSet.EMPTY),
+          SHARED_SCAN_GRACE_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+    return sharedScanStrategy;
+  }
+
+  private ScanStrategy createScanStrategy(FilterSet filterSet) {
+    if (isAtLeastAndroidLollipop()) {
+      return new LollipopScanStrategy(bluetoothAdapter, filterSet, instrumentation);
+    } else {
+      return new PreLollipopScanStrategy(bluetoothAdapter, filterSet, instrumentation);
+    }
+  }
+
   private void checkNotNull(Object object, String message) {
     if (object == null) {
       throw new IllegalArgumentException(message);
@@ -18,37 +18,148 @@ package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.lollipop;
 import android.annotation.SuppressLint;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanSettings;
 
 import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
-import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
+import com.github.pwittchen.reactivebeacons.library.rx2.DeviceThrottle;
+import com.github.pwittchen.reactivebeacons.library.rx2.FilterSet;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.Batches;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive.ScanMode;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.adaptive.ScanModeStrategy;
 
 import io.reactivex.Observable;
 import io.reactivex.functions.Action;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
-public class LollipopScanStrategy implements ScanStrategy {
+public class LollipopScanStrategy implements ScanModeStrategy {
+    // unchanged beacons of stationary devices are emitted again, so they don't expire downstream
+    private static final long REFRESH_INTERVAL_SECONDS = 1;
+    private final BluetoothAdapter bluetoothAdapter;
     private final BluetoothLeScanner bluetoothLeScanner;
     private final ScanCallbackAdapter scanCallbackAdapter;
+    private final List<ScanFilter> scanFilters;
+    private final ScanInstrumentation instrumentation;
 
-    @SuppressLint("NewApi")
     public LollipopScanStrategy(final BluetoothAdapter bluetoothAdapter) {
+        this(bluetoothAdapter, FilterSet.EMPTY);
+    }
+
+    /**
+     * Creates scan strategy, which offloads filtering to Bluetooth controller.
+     * Advertisements not matching the filter set are dropped before they reach the application.
+     *
+     * @param bluetoothAdapter Bluetooth adapter
+     * @param filterSet filters compiled into ScanFilter list passed to the scanner
+     */
+    public LollipopScanStrategy(final BluetoothAdapter bluetoothAdapter,
+                                final FilterSet filterSet) {
+        this(bluetoothAdapter, filterSet, ScanInstrumentation.DISABLED);
+    }
+
+    /**
+     * Creates scan strategy, which offloads filtering to Bluetooth controller
+     * and reports scan callbacks and suppressed beacons to provided instrumentation
+     *
+     * @param bluetoothAdapter Bluetooth adapter
+     * @param filterSet filters compiled into ScanFilter list passed to the scanner
+     * @param instrumentation instrumentation of the scan pipeline
+     */
+    @SuppressLint("NewApi")
+    public LollipopScanStrategy(final BluetoothAdapter bluetoothAdapter,
+                                final FilterSet filterSet,
+                                final ScanInstrumentation instrumentation) {
+        this.bluetoothAdapter = bluetoothAdapter;
         this.bluetoothLeScanner = bluetoothAdapter.getBluetoothLeScanner();
-        this.scanCallbackAdapter = new ScanCallbackAdapter();
+        this.scanCallbackAdapter = new ScanCallbackAdapter(instrumentation);
+        this.scanFilters = ScanFilters.from(filterSet);
+        this.instrumentation = instrumentation;
     }
 
     @Override
     @SuppressLint("NewApi")
     public Observable<Beacon> observe() {
-        bluetoothLeScanner.startScan(scanCallbackAdapter);
-
-        return scanCallbackAdapter.toObservable()
-                .repeat()
-                .distinctUntilChanged()
-                .doOnTerminate(new Action() {
-                    @Override
-                    public void run() {
-                        bluetoothLeScanner.stopScan(scanCallbackAdapter);
-                    }
-                });
+        return observe(new ScanSettings.Builder().build());
+    }
+
+    /**
+     * Creates an observable stream of BLE beacons scanned with provided scan mode
+     *
+     * @param scanMode scan mode
+     * @return Observable stream of beacons
+     */
+    @Override
+    @SuppressLint("NewApi")
+    public Observable<Beacon> observe(ScanMode scanMode) {
+        return observe(new ScanSettings.Builder().setScanMode(scanMode.value).build());
+    }
+
+    @SuppressLint("NewApi")
+    private Observable<Beacon> observe(ScanSettings settings) {
+        return scan(settings).compose(DeviceThrottle.distinct()
+                .withRefreshInterval(REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .withInstrumentation(instrumentation));
+    }
+
+    @SuppressLint("NewApi")
+    private Observable<Beacon> scan(final ScanSettings settings) {
+        Action startScan = new Action() {
+            @Override
+            public void run() {
+                bluetoothLeScanner.startScan(scanFilters, settings, scanCallbackAdapter);
+            }
+        };
+
+        Action stopScan = new Action() {
+            @Override
+            public void run() {
+                bluetoothLeScanner.stopScan(scanCallbackAdapter);
+            }
+        };
+
+        return scanCallbackAdapter.toObservable(startScan, stopScan);
+    }
+
+    /**
+     * Creates an observable stream of batches of BLE beacons.
+     * When Bluetooth controller supports offloaded batching, scan results are collected
+     * by the controller and delivered with a single callback after report delay.
+     * Otherwise, results are collected in software for the same period of time.
+     * In both cases batches contain every scan result, without per device deduplication.
+     *
+     * @param reportDelay delay of delivering a batch, at least one millisecond
+     * @param unit unit of the report delay
+     * @return Observable stream of non-empty batches of beacons
+     */
+    @SuppressLint("NewApi")
+    public Observable<List<Beacon>> observeBatches(long reportDelay, TimeUnit unit) {
+        Batches.checkReportDelay(reportDelay, unit);
+        if (!bluetoothAdapter.isOffloadedScanBatchingSupported()) {
+            return scan(new ScanSettings.Builder().build())
+                    .compose(Batches.buffer(reportDelay, unit));
+        }
+
+        final ScanSettings settings = new ScanSettings.Builder()
+                .setReportDelay(unit.toMillis(reportDelay))
+                .build();
+
+        Action startScan = new Action() {
+            @Override
+            public void run() {
+                bluetoothLeScanner.startScan(scanFilters, settings, scanCallbackAdapter);
+            }
+        };
+
+        Action stopScan = new Action() {
+            @Override
+            public void run() {
+                bluetoothLeScanner.stopScan(scanCallbackAdapter);
+            }
+        };
+
+        return scanCallbackAdapter.toBatchObservable(startScan, stopScan);
     }
 }
@@ -20,22 +20,72 @@ import android.bluetooth.le.ScanCallback;
 import android.bluetooth.le.ScanResult;
 import android.os.Build;
 
+import com.github.pwittchen.reactivebeacons.library.rx2.AndroidBeacon;
 import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
-import com.github.pwittchen.reactivebeacons.library.rx2.FutureAdapter;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanEmitter;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanFailedException;
 
 import io.reactivex.Observable;
+import io.reactivex.functions.Action;
+import java.util.ArrayList;
+import java.util.List;
 
 
 @TargetApi(Build.VERSION_CODES.LOLLIPOP)
 public class ScanCallbackAdapter extends ScanCallback {
-    private final FutureAdapter futureAdapter = new FutureAdapter();
+    private final ScanEmitter<Beacon> emitter = new ScanEmitter<>();
+    private final ScanEmitter<List<Beacon>> batchEmitter = new ScanEmitter<>();
+    private final ScanInstrumentation instrumentation;
+
+    public ScanCallbackAdapter() {
+        this(ScanInstrumentation.DISABLED);
+    }
+
+    public ScanCallbackAdapter(ScanInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
 
     @Override
     public void onScanResult(int callbackType, ScanResult result) {
-        futureAdapter.setBeacon(Beacon.create(result));
+        Beacon beacon = AndroidBeacon.create(result);
+        instrumentation.onCallback(beacon);
+        if (!emitter.onNext(beacon)) {
+            instrumentation.onDiscarded(1);
+        }
+    }
+
+    @Override
+    public void onBatchScanResults(List<ScanResult> results) {
+        List<Beacon> beacons = new ArrayList<>(results.size());
+        int discarded = 0;
+        for (ScanResult result : results) {
+            Beacon beacon = AndroidBeacon.create(result);
+            instrumentation.onCallback(beacon);
+            beacons.add(beacon);
+            if (!emitter.onNext(beacon)) {
+                discarded++;
+            }
+        }
+        // results are discarded only when neither beacons nor batches are observed
+        if (!beacons.isEmpty() && !batchEmitter.onNext(beacons)) {
+            instrumentation.onDiscarded(discarded);
+        }
+    }
+
+    @Override
+    public void onScanFailed(int errorCode) {
+        // scan of single beacons and batches share the callback, so both of them failed
+        ScanFailedException failure = new ScanFailedException(errorCode);
+        emitter.onError(failure);
+        batchEmitter.onError(failure);
+    }
+
+    public Observable<Beacon> toObservable(Action startScan, Action stopScan) {
+        return emitter.toObservable(startScan, stopScan);
     }
 
-    public Observable<Beacon> toObservable() {
-        return Observable.fromFuture(futureAdapter);
+    public Observable<List<Beacon>> toBatchObservable(Action startScan, Action stopScan) {
+        return batchEmitter.toObservable(startScan, stopScan);
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.lollipop;
+
+import android.annotation.TargetApi;
+import android.bluetooth.le.ScanFilter;
+import android.os.Build;
+import android.os.ParcelUuid;
+
+import com.github.pwittchen.reactivebeacons.library.rx2.FilterSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compiles {@link FilterSet} into the list of ScanFilter objects, which can be offloaded
+ * to Bluetooth controller. Scan results matching any of the filters are delivered,
+ * non-matching advertisements are dropped before they reach the application process.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public final class ScanFilters {
+    private static final byte[] ANY_DATA = new byte[0];
+
+    private ScanFilters() {
+    }
+
+    public static List<ScanFilter> from(FilterSet filterSet) {
+        List<ScanFilter> filters = new ArrayList<>();
+
+        for (String macAddress : filterSet.getMacAddresses()) {
+            filters.add(new ScanFilter.Builder().setDeviceAddress(macAddress).build());
+        }
+
+        for (String name : filterSet.getNames()) {
+            filters.add(new ScanFilter.Builder().setDeviceName(name).build());
+        }
+
+        for (Integer manufacturerId : filterSet.getManufacturerIds()) {
+            filters.add(new ScanFilter.Builder().setManufacturerData(manufacturerId, ANY_DATA).build());
+        }
+
+        for (UUID serviceUuid : filterSet.getServiceUuids()) {
+            filters.add(new ScanFilter.Builder().setServiceUuid(new ParcelUuid(serviceUuid)).build());
+        }
+
+        return filters;
+    }
+}
@@ -19,22 +19,38 @@ import android.annotation.SuppressLint;
 import android.bluetooth.BluetoothAdapter.LeScanCallback;
 import android.bluetooth.BluetoothDevice;
 
+import com.github.pwittchen.reactivebeacons.library.rx2.AndroidBeacon;
 import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
-import com.github.pwittchen.reactivebeacons.library.rx2.FutureAdapter;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanEmitter;
 
 import io.reactivex.Observable;
+import io.reactivex.functions.Action;
 
 
 @SuppressLint("NewApi")
 public class LeScanCallbackAdapter implements LeScanCallback {
-    private final FutureAdapter futureAdapter = new FutureAdapter();
+    private final ScanEmitter<Beacon> emitter = new ScanEmitter<>();
+    private final ScanInstrumentation instrumentation;
+
+    public LeScanCallbackAdapter() {
+        this(ScanInstrumentation.DISABLED);
+    }
+
+    public LeScanCallbackAdapter(ScanInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
 
     @Override
     public void onLeScan(BluetoothDevice device, int rssi, byte[] scanRecord) {
-        futureAdapter.setBeacon(Beacon.create(device, rssi, scanRecord));
+        Beacon beacon = AndroidBeacon.create(device, rssi, scanRecord);
+        instrumentation.onCallback(beacon);
+        if (!emitter.onNext(beacon)) {
+            instrumentation.onDiscarded(1);
+        }
     }
 
-    public Observable<Beacon> toObservable() {
-        return Observable.fromFuture(futureAdapter);
+    public Observable<Beacon> toObservable(Action startScan, Action stopScan) {
+        return emitter.toObservable(startScan, stopScan);
     }
 }
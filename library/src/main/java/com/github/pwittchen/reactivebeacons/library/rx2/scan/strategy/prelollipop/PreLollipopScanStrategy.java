@@ -19,35 +19,103 @@ import android.annotation.SuppressLint;
 import android.bluetooth.BluetoothAdapter;
 
 import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.DeviceThrottle;
+import com.github.pwittchen.reactivebeacons.library.rx2.FilterSet;
+import com.github.pwittchen.reactivebeacons.library.rx2.metrics.ScanInstrumentation;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.Batches;
 import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanStrategy;
 
 import io.reactivex.Observable;
 import io.reactivex.functions.Action;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 public class PreLollipopScanStrategy implements ScanStrategy {
+    // unchanged beacons of stationary devices are emitted again, so they don't expire downstream
+    private static final long REFRESH_INTERVAL_SECONDS = 1;
     private final BluetoothAdapter bluetoothAdapter;
     private final LeScanCallbackAdapter leScanCallbackAdapter;
+    private final FilterSet filterSet;
+    private final ScanInstrumentation instrumentation;
 
     public PreLollipopScanStrategy(final BluetoothAdapter bluetoothAdapter) {
+        this(bluetoothAdapter, FilterSet.EMPTY);
+    }
+
+    /**
+     * Creates scan strategy, which filters scan results in software,
+     * because Bluetooth API available before Lollipop cannot offload filtering
+     *
+     * @param bluetoothAdapter Bluetooth adapter
+     * @param filterSet filters applied to every scan result
+     */
+    public PreLollipopScanStrategy(final BluetoothAdapter bluetoothAdapter,
+                                   final FilterSet filterSet) {
+        this(bluetoothAdapter, filterSet, ScanInstrumentation.DISABLED);
+    }
+
+    /**
+     * Creates scan strategy, which filters scan results in software
+     * and reports scan callbacks and suppressed beacons to provided instrumentation
+     *
+     * @param bluetoothAdapter Bluetooth adapter
+     * @param filterSet filters applied to every scan result
+     * @param instrumentation instrumentation of the scan pipeline
+     */
+    public PreLollipopScanStrategy(final BluetoothAdapter bluetoothAdapter,
+                                   final FilterSet filterSet,
+                                   final ScanInstrumentation instrumentation) {
         this.bluetoothAdapter = bluetoothAdapter;
-        this.leScanCallbackAdapter = new LeScanCallbackAdapter();
+        this.leScanCallbackAdapter = new LeScanCallbackAdapter(instrumentation);
+        this.filterSet = filterSet;
+        this.instrumentation = instrumentation;
     }
 
     @Override
+    public Observable<Beacon> observe() {
+        return scan().compose(DeviceThrottle.distinct()
+                .withRefreshInterval(REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .withInstrumentation(instrumentation));
+    }
+
     @SuppressWarnings("deprecation")
     @SuppressLint("NewApi")
-    public Observable<Beacon> observe() {
-        bluetoothAdapter.startLeScan(leScanCallbackAdapter);
-
-        return leScanCallbackAdapter.toObservable()
-                .repeat()
-                .distinctUntilChanged()
-                .doOnTerminate(new Action() {
-                    @Override
-                    public void run() {
-                        bluetoothAdapter.stopLeScan(leScanCallbackAdapter);
-                    }
-                });
+    private Observable<Beacon> scan() {
+        Action startScan = new Action() {
+            @Override
+            public void run() {
+                bluetoothAdapter.startLeScan(leScanCallbackAdapter);
+            }
+        };
+
+        Action stopScan = new Action() {
+            @Override
+            public void run() {
+                bluetoothAdapter.stopLeScan(leScanCallbackAdapter);
+            }
+        };
+
+        Observable<Beacon> beacons = leScanCallbackAdapter.toObservable(startScan, stopScan);
+
+        if (!filterSet.isEmpty()) {
+            beacons = beacons.filter(filterSet.toPredicate());
+        }
+
+        return beacons;
+    }
+
+    /**
+     * Creates an observable stream of batches of BLE beacons.
+     * Bluetooth API available before Lollipop cannot batch scan results,
+     * so they're collected in software during report delay. Like batches of Bluetooth controller,
+     * they contain every scan result, without per device deduplication.
+     *
+     * @param reportDelay delay of delivering a batch, at least one millisecond
+     * @param unit unit of the report delay
+     * @return Observable stream of non-empty batches of beacons
+     */
+    public Observable<List<Beacon>> observeBatches(long reportDelay, TimeUnit unit) {
+        return scan().compose(Batches.buffer(reportDelay, unit));
     }
 }
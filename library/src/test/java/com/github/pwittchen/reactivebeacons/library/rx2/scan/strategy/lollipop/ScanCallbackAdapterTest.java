@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.lollipop;
+
+import android.bluetooth.le.ScanCallback;
+import com.github.pwittchen.reactivebeacons.library.rx2.Beacon;
+import com.github.pwittchen.reactivebeacons.library.rx2.scan.strategy.ScanFailedException;
+import io.reactivex.functions.Action;
+import io.reactivex.observers.TestObserver;
+import java.util.List;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ScanCallbackAdapterTest {
+  private static final Action NO_ACTION = new Action() {
+    @Override public void run() {
+    }
+  };
+
+  @Test
+  public void shouldSignalScanFailureToBeaconsAndBatches() {
+    // given
+    ScanCallbackAdapter adapter = new ScanCallbackAdapter();
+    TestObserver<Beacon> beacons = adapter.toObservable(NO_ACTION, NO_ACTION).test();
+    TestObserver<List<Beacon>> batches = adapter.toBatchObservable(NO_ACTION, NO_ACTION).test();
+
+    // when
+    adapter.onScanFailed(ScanCallback.SCAN_FAILED_ALREADY_STARTED);
+
+    // then
+    beacons.assertError(ScanFailedException.class);
+    batches.assertError(ScanFailedException.class);
+    ScanFailedException failure = (ScanFailedException) beacons.errors().get(0);
+    assertThat(failure.getErrorCode()).isEqualTo(ScanCallback.SCAN_FAILED_ALREADY_STARTED);
+  }
+}